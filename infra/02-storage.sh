@@ -15,7 +15,7 @@ SKU="Standard_LRS"
 KIND="StorageV2"
 ACCESS_TIER="Hot"
 SOFT_DELETE_DAYS=30
-CONTAINERS=("originals" "renditions" "summaries" "templates" "temp")
+CONTAINERS=("originals" "renditions" "summaries" "embeddings" "templates" "temp")
 CORS_ORIGINS="http://localhost:5173,http://localhost:5072"
 
 # ---------------------------------------------------------------------------
@@ -0,0 +1,55 @@
+package com.sedin.presales.api.controller;
+
+import com.sedin.presales.application.dto.ApiResponse;
+import com.sedin.presales.application.dto.BulkIngestJobDto;
+import com.sedin.presales.application.dto.BulkIngestManifestEntry;
+import com.sedin.presales.application.service.BulkIngestService;
+import com.sedin.presales.config.audit.Audited;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+import java.util.UUID;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/bulk-ingest")
+@PreAuthorize("hasAnyRole('ADMIN', 'EDITOR')")
+public class BulkIngestController {
+
+    private final BulkIngestService bulkIngestService;
+
+    public BulkIngestController(BulkIngestService bulkIngestService) {
+        this.bulkIngestService = bulkIngestService;
+    }
+
+    @Audited(action = "START_BULK_INGEST", resourceType = "BULK_INGEST")
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<BulkIngestJobDto>> start(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam UUID documentTypeId,
+            @RequestParam(required = false) UUID folderId,
+            @RequestPart(value = "manifest", required = false) List<BulkIngestManifestEntry> manifest) {
+        log.debug("POST /api/v1/bulk-ingest - archive: {}", file.getOriginalFilename());
+        BulkIngestJobDto job = bulkIngestService.start(file, documentTypeId, folderId, manifest);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success(job, "Bulk ingest started"));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ApiResponse<BulkIngestJobDto>> get(@PathVariable UUID id) {
+        log.debug("GET /api/v1/bulk-ingest/{}", id);
+        return ResponseEntity.ok(ApiResponse.success(bulkIngestService.get(id)));
+    }
+}
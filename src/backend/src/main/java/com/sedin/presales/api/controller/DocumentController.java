@@ -7,6 +7,7 @@ import com.sedin.presales.application.dto.CreateDocumentRequest;
 import com.sedin.presales.application.dto.DocumentDetailDto;
 import com.sedin.presales.application.dto.DocumentDownloadDto;
 import com.sedin.presales.application.dto.DocumentDto;
+import com.sedin.presales.application.dto.DocumentThumbnailDto;
 import com.sedin.presales.application.dto.DocumentVersionDto;
 import com.sedin.presales.application.dto.DocumentViewDto;
 import com.sedin.presales.application.dto.IndexToggleResponseDto;
@@ -17,11 +18,11 @@ import com.sedin.presales.domain.entity.DocumentVersion;
 import com.sedin.presales.domain.enums.DocumentStatus;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.InputStreamResource;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -32,13 +33,17 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import reactor.core.publisher.Flux;
 
-import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.UUID;
 
@@ -48,9 +53,11 @@ import java.util.UUID;
 public class DocumentController {
 
     private final DocumentService documentService;
+    private final StreamingBodies streamingBodies;
 
-    public DocumentController(DocumentService documentService) {
+    public DocumentController(DocumentService documentService, StreamingBodies streamingBodies) {
         this.documentService = documentService;
+        this.streamingBodies = streamingBodies;
     }
 
     @Audited(action = "UPLOAD_DOCUMENT", resourceType = "DOCUMENT")
@@ -82,6 +89,13 @@ public class DocumentController {
         return ResponseEntity.ok(ApiResponse.success(documents));
     }
 
+    @GetMapping("/thumbnails")
+    public ResponseEntity<ApiResponse<List<DocumentThumbnailDto>>> getThumbnails(@RequestParam List<UUID> ids) {
+        log.debug("GET /api/v1/documents/thumbnails - {} ids", ids.size());
+        List<DocumentThumbnailDto> thumbnails = documentService.getThumbnailUrls(ids);
+        return ResponseEntity.ok(ApiResponse.success(thumbnails));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<DocumentDetailDto>> getById(@PathVariable UUID id) {
         log.debug("GET /api/v1/documents/{}", id);
@@ -130,22 +144,59 @@ public class DocumentController {
     }
 
     @GetMapping("/{id}/versions/{versionNumber}/download")
-    public ResponseEntity<InputStreamResource> downloadVersion(
+    public ResponseEntity<ResponseBodyEmitter> downloadVersion(
             @PathVariable UUID id,
-            @PathVariable Integer versionNumber) {
+            @PathVariable Integer versionNumber,
+            @RequestHeader HttpHeaders requestHeaders,
+            WebRequest webRequest) {
         log.debug("GET /api/v1/documents/{}/versions/{}/download", id, versionNumber);
 
         DocumentVersion docVersion = documentService.getDocumentVersion(id, versionNumber);
-        InputStream inputStream = documentService.downloadVersion(id, versionNumber);
+
+        // Versions are immutable, so the content hash (or the version id) is a strong validator.
+        // checkNotModified answers If-None-Match/If-Modified-Since and adds ETag/Last-Modified.
+        String eTag = docVersion.getContentHash() != null
+                ? docVersion.getContentHash()
+                : String.valueOf(docVersion.getId());
+        long lastModified = docVersion.getCreatedAt() != null ? docVersion.getCreatedAt().toEpochMilli() : -1;
+        if (webRequest.checkNotModified(eTag, lastModified)) {
+            return null;
+        }
 
         String contentType = docVersion.getContentType() != null
                 ? docVersion.getContentType()
                 : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        String contentDisposition = "attachment; filename=\"" + docVersion.getFileName() + "\"";
+        Long size = docVersion.getFileSize();
 
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + docVersion.getFileName() + "\"")
-                .contentType(MediaType.parseMediaType(contentType))
-                .body(new InputStreamResource(inputStream));
+        HttpRange range = size != null ? requestedRange(requestHeaders, eTag, lastModified) : null;
+        if (range != null) {
+            long start = range.getRangeStart(size);
+            long end = range.getRangeEnd(size);
+            if (start >= size || end < start) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                        .build();
+            }
+            long count = end - start + 1;
+            Flux<ByteBuffer> body = documentService.downloadVersionRange(id, versionNumber, start, count);
+            return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition)
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size)
+                    .contentType(MediaType.parseMediaType(contentType))
+                    .contentLength(count)
+                    .body(streamingBodies.emit(body));
+        }
+
+        Flux<ByteBuffer> body = documentService.downloadVersion(id, versionNumber);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition)
+                .contentType(MediaType.parseMediaType(contentType));
+        if (size != null) {
+            response.header(HttpHeaders.ACCEPT_RANGES, "bytes").contentLength(size);
+        }
+        return response.body(streamingBodies.emit(body));
     }
 
     @GetMapping("/{id}/view")
@@ -180,4 +231,33 @@ public class DocumentController {
         DocumentDownloadDto downloadDto = documentService.getDownloadUrl(id);
         return ResponseEntity.ok(ApiResponse.success(downloadDto));
     }
+
+    /**
+     * Returns the single byte range to serve, or null to serve the whole file: when there is no
+     * Range header, it is malformed, it asks for several ranges, or If-Range no longer matches.
+     */
+    private HttpRange requestedRange(HttpHeaders requestHeaders, String eTag, long lastModified) {
+        List<HttpRange> ranges;
+        try {
+            ranges = requestHeaders.getRange();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (ranges.size() != 1) {
+            return null;
+        }
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return ranges.get(0);
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals("\"" + eTag + "\"") ? ranges.get(0) : null;
+        }
+        try {
+            long ifRangeDate = requestHeaders.getFirstDate(HttpHeaders.IF_RANGE);
+            return lastModified >= 0 && ifRangeDate / 1000 == lastModified / 1000 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,76 @@
+package com.sedin.presales.api.controller;
+
+import com.sedin.presales.application.exception.AccessDeniedException;
+import com.sedin.presales.application.exception.ResourceNotFoundException;
+import com.sedin.presales.infrastructure.storage.FileSystemBlobStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Serves the signed URLs issued by {@link FileSystemBlobStore}, standing in for Azure SAS links
+ * when the filesystem storage backend is active. Requests authenticate with the URL signature,
+ * not a JWT, so SAS-style links keep working when opened directly in a browser or PDF viewer.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/local-blobs")
+@ConditionalOnProperty(name = "app.storage.backend", havingValue = "filesystem")
+public class LocalBlobController {
+
+    // Tomcat's NIO connector can hand the file to the kernel (sendfile) once the servlet returns
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final FileSystemBlobStore fileSystemBlobStore;
+
+    public LocalBlobController(FileSystemBlobStore fileSystemBlobStore) {
+        this.fileSystemBlobStore = fileSystemBlobStore;
+    }
+
+    @GetMapping("/{container}/**")
+    public void download(@PathVariable String container,
+                         @RequestParam long expires,
+                         @RequestParam("sig") String signature,
+                         HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        String prefix = request.getContextPath() + FileSystemBlobStore.SIGNED_URL_PATH + container + "/";
+        String blobName = UriUtils.decode(request.getRequestURI().substring(prefix.length()), StandardCharsets.UTF_8);
+        log.debug("GET /api/v1/local-blobs/{}/{}", container, blobName);
+
+        if (!fileSystemBlobStore.isValidSignature(container, blobName, expires, signature)) {
+            throw new AccessDeniedException("Blob URL is invalid or has expired");
+        }
+        if (!fileSystemBlobStore.exists(container, blobName)) {
+            throw new ResourceNotFoundException("Blob", "name", blobName);
+        }
+
+        Path path = fileSystemBlobStore.path(container, blobName);
+        long size = Files.size(path);
+        response.setContentType(fileSystemBlobStore.contentType(container, blobName));
+        response.setContentLengthLong(size);
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT)) && !fileSystemBlobStore.isThrottled()) {
+            request.setAttribute(SENDFILE_FILENAME, path.toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            return;
+        }
+        fileSystemBlobStore.transferTo(container, blobName, Channels.newChannel(response.getOutputStream()));
+    }
+}
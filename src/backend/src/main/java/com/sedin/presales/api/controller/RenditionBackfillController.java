@@ -0,0 +1,62 @@
+package com.sedin.presales.api.controller;
+
+import com.sedin.presales.application.dto.ApiResponse;
+import com.sedin.presales.application.dto.RenditionBackfillDto;
+import com.sedin.presales.application.dto.StartRenditionBackfillRequest;
+import com.sedin.presales.application.service.RenditionBackfillService;
+import com.sedin.presales.config.audit.Audited;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.UUID;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/rendition-backfills")
+@PreAuthorize("hasRole('ADMIN')")
+public class RenditionBackfillController {
+
+    private final RenditionBackfillService renditionBackfillService;
+
+    public RenditionBackfillController(RenditionBackfillService renditionBackfillService) {
+        this.renditionBackfillService = renditionBackfillService;
+    }
+
+    @Audited(action = "START_RENDITION_BACKFILL", resourceType = "RENDITION_BACKFILL")
+    @PostMapping
+    public ResponseEntity<ApiResponse<RenditionBackfillDto>> start(@Valid @RequestBody StartRenditionBackfillRequest request) {
+        log.debug("POST /api/v1/rendition-backfills - content types: {}", request.getContentTypes());
+        RenditionBackfillDto backfill = renditionBackfillService.start(request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success(backfill, "Rendition backfill started"));
+    }
+
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<RenditionBackfillDto>>> list() {
+        log.debug("GET /api/v1/rendition-backfills");
+        return ResponseEntity.ok(ApiResponse.success(renditionBackfillService.list()));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ApiResponse<RenditionBackfillDto>> get(@PathVariable UUID id) {
+        log.debug("GET /api/v1/rendition-backfills/{}", id);
+        return ResponseEntity.ok(ApiResponse.success(renditionBackfillService.get(id)));
+    }
+
+    @Audited(action = "CANCEL_RENDITION_BACKFILL", resourceType = "RENDITION_BACKFILL")
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<ApiResponse<RenditionBackfillDto>> cancel(@PathVariable UUID id) {
+        log.debug("POST /api/v1/rendition-backfills/{}/cancel", id);
+        return ResponseEntity.ok(ApiResponse.success(renditionBackfillService.cancel(id), "Rendition backfill cancelled"));
+    }
+}
@@ -0,0 +1,57 @@
+package com.sedin.presales.api.controller;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+
+/**
+ * Writes a reactive byte stream to the servlet response as it arrives. The request thread is
+ * released as soon as the handler returns; chunks are pulled a few at a time, so a slow client
+ * slows the download instead of buffering the blob in memory. If the client goes away or the
+ * request times out, the upstream transfer is cancelled.
+ * <p>
+ * Servlet writes block until the client has taken the bytes, so they run on the dedicated
+ * {@code downloadWriteExecutor}, sized for the number of downloads served at once, rather than on
+ * a shared Reactor scheduler whose other users would queue behind slow clients.
+ */
+@Component
+class StreamingBodies {
+
+    private static final int PREFETCH = 4;
+
+    private final Scheduler writers;
+
+    StreamingBodies(@Qualifier("downloadWriteExecutor") Executor downloadWriteExecutor) {
+        this.writers = Schedulers.fromExecutor(downloadWriteExecutor);
+    }
+
+    ResponseBodyEmitter emit(Flux<ByteBuffer> body) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+        Disposable subscription = body
+                .publishOn(writers, PREFETCH)
+                .subscribe(chunk -> send(emitter, chunk), emitter::completeWithError, emitter::complete);
+        emitter.onTimeout(subscription::dispose);
+        emitter.onError(error -> subscription.dispose());
+        emitter.onCompletion(subscription::dispose);
+        return emitter;
+    }
+
+    private static void send(ResponseBodyEmitter emitter, ByteBuffer chunk) {
+        byte[] bytes = new byte[chunk.remaining()];
+        chunk.get(bytes);
+        try {
+            emitter.send(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
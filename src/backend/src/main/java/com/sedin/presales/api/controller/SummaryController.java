@@ -6,12 +6,14 @@ import com.sedin.presales.application.service.SummaryService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.UUID;
 
@@ -33,6 +35,17 @@ public class SummaryController {
         return ResponseEntity.ok(ApiResponse.success(summary));
     }
 
+    /**
+     * Server-sent events of the summary as it is generated: {@code token} events with the text so
+     * far and then each new piece, then one {@code complete} event with the whole summary, or an
+     * {@code error} event.
+     */
+    @GetMapping(value = "/summary/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSummary(@PathVariable UUID documentId) {
+        log.debug("GET /api/v1/documents/{}/summary/stream", documentId);
+        return summaryService.streamSummary(documentId);
+    }
+
     @PostMapping("/summary/regenerate")
     @PreAuthorize("hasAnyRole('ADMIN', 'EDITOR')")
     public ResponseEntity<ApiResponse<SummaryResponseDto>> regenerateSummary(@PathVariable UUID documentId) {
@@ -0,0 +1,88 @@
+package com.sedin.presales.api.controller;
+
+import com.sedin.presales.application.dto.ApiResponse;
+import com.sedin.presales.application.dto.CompleteUploadSessionRequest;
+import com.sedin.presales.application.dto.CreateUploadSessionRequest;
+import com.sedin.presales.application.dto.UploadSessionDto;
+import com.sedin.presales.application.exception.BadRequestException;
+import com.sedin.presales.application.service.UploadSessionService;
+import com.sedin.presales.config.audit.Audited;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.UUID;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/upload-sessions")
+@PreAuthorize("hasAnyRole('ADMIN', 'EDITOR')")
+public class UploadSessionController {
+
+    private final UploadSessionService uploadSessionService;
+
+    public UploadSessionController(UploadSessionService uploadSessionService) {
+        this.uploadSessionService = uploadSessionService;
+    }
+
+    @PostMapping
+    public ResponseEntity<ApiResponse<UploadSessionDto>> create(
+            @Valid @RequestBody CreateUploadSessionRequest request) {
+        log.debug("POST /api/v1/upload-sessions - fileName: {}", request.getFileName());
+        UploadSessionDto session = uploadSessionService.create(request);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success(session, "Upload session created"));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ApiResponse<UploadSessionDto>> get(@PathVariable UUID id) {
+        log.debug("GET /api/v1/upload-sessions/{}", id);
+        return ResponseEntity.ok(ApiResponse.success(uploadSessionService.get(id)));
+    }
+
+    @PutMapping(value = "/{id}/chunks/{index}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<ApiResponse<UploadSessionDto>> uploadChunk(
+            @PathVariable UUID id,
+            @PathVariable int index,
+            HttpServletRequest request) throws IOException {
+        log.debug("PUT /api/v1/upload-sessions/{}/chunks/{}", id, index);
+        long contentLength = request.getContentLengthLong();
+        if (contentLength < 0) {
+            throw new BadRequestException("Content-Length is required for chunk uploads");
+        }
+        UploadSessionDto session = uploadSessionService.uploadChunk(id, index, request.getInputStream(), contentLength);
+        return ResponseEntity.ok(ApiResponse.success(session));
+    }
+
+    @Audited(action = "COMPLETE_UPLOAD_SESSION", resourceType = "UPLOAD_SESSION")
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<ApiResponse<UploadSessionDto>> complete(
+            @PathVariable UUID id,
+            @Valid @RequestBody(required = false) CompleteUploadSessionRequest request) {
+        log.debug("POST /api/v1/upload-sessions/{}/complete", id);
+        UploadSessionDto session = uploadSessionService.complete(id, request);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success(session, "Upload completed successfully"));
+    }
+
+    @Audited(action = "ABORT_UPLOAD_SESSION", resourceType = "UPLOAD_SESSION")
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ApiResponse<Void>> abort(@PathVariable UUID id) {
+        log.debug("DELETE /api/v1/upload-sessions/{}", id);
+        uploadSessionService.abort(id);
+        return ResponseEntity.ok(ApiResponse.success(null, "Upload session aborted"));
+    }
+}
@@ -0,0 +1,25 @@
+package com.sedin.presales.application.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.sedin.presales.domain.enums.BulkIngestEntryStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkIngestEntryDto {
+
+    private Integer index;
+    private String path;
+    private BulkIngestEntryStatus status;
+    private Long fileSize;
+    private UUID documentId;
+    private String errorMessage;
+}
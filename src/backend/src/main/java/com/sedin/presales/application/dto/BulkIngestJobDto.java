@@ -0,0 +1,33 @@
+package com.sedin.presales.application.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.sedin.presales.domain.enums.BulkIngestStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkIngestJobDto {
+
+    private UUID id;
+    private String archiveName;
+    private BulkIngestStatus status;
+    private UUID documentTypeId;
+    private UUID rootFolderId;
+    private Integer totalEntries;
+    private Integer completedEntries;
+    private Integer failedEntries;
+    private String errorMessage;
+    private List<BulkIngestEntryDto> entries;
+    private Instant createdAt;
+    private Instant completedAt;
+}
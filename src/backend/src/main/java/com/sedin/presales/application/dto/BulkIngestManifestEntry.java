@@ -0,0 +1,30 @@
+package com.sedin.presales.application.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Per-file overrides for a bulk ingest, matched to archive entries by their path inside the ZIP.
+ * Entries without a manifest line are ingested with the file name as title and the job's
+ * default document type.
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkIngestManifestEntry {
+
+    private String path;
+    private String title;
+    private String customerName;
+    private LocalDate documentDate;
+    private UUID documentTypeId;
+    private CreateDocumentMetadataRequest metadata;
+}
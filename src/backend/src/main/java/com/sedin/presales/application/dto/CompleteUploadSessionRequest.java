@@ -0,0 +1,20 @@
+package com.sedin.presales.application.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.Valid;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CompleteUploadSessionRequest {
+
+    /** Required when the session creates a new document; ignored for new-version sessions. */
+    @Valid
+    private CreateDocumentRequest document;
+}
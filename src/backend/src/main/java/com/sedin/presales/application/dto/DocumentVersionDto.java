@@ -22,6 +22,7 @@ public class DocumentVersionDto {
     private Long fileSize;
     private String contentType;
     private String filePath;
+    private String contentHash;
     private String uploadedBy;
     private Instant createdAt;
 }
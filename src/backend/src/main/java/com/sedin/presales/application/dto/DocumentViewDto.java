@@ -20,5 +20,7 @@ public class DocumentViewDto {
     private String viewUrl;
     private String contentType;
     private String status;
+    // True when viewUrl points at the first-pages preview rather than the full PDF
+    private Boolean preview;
     private String message;
 }
@@ -0,0 +1,40 @@
+package com.sedin.presales.application.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.sedin.presales.domain.enums.RenditionBackfillStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RenditionBackfillDto {
+
+    private UUID id;
+    private RenditionBackfillStatus status;
+    private List<String> contentTypes;
+    private Instant createdFrom;
+    private Instant createdTo;
+    private Boolean failedOnly;
+    private Integer ratePerMinute;
+    private Integer maxInFlight;
+    private Integer totalVersions;
+    private Integer enqueuedVersions;
+    private Integer completedVersions;
+    private Integer failedVersions;
+    private Double percentComplete;
+    /** Versions finished per minute since the backfill started. */
+    private Double versionsPerMinute;
+    private Instant estimatedCompletionAt;
+    private String createdBy;
+    private Instant createdAt;
+    private Instant completedAt;
+}
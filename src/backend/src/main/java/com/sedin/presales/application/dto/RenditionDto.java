@@ -21,6 +21,7 @@ public class RenditionDto {
     private RenditionStatus status;
     private String filePath;
     private Long fileSize;
+    private Integer pageNumber;
     private String errorMessage;
     private Instant createdAt;
 }
@@ -0,0 +1,37 @@
+package com.sedin.presales.application.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StartRenditionBackfillRequest {
+
+    /** Content types to re-render; all types when empty. */
+    private List<String> contentTypes;
+
+    /** Versions created at or after this time. */
+    private Instant createdFrom;
+
+    /** Versions created before this time; defaults to now. */
+    private Instant createdTo;
+
+    /** Only versions whose PDF rendition failed. */
+    private Boolean failedOnly;
+
+    @Positive(message = "Rate per minute must be positive")
+    private Integer ratePerMinute;
+
+    @Positive(message = "Max in flight must be positive")
+    private Integer maxInFlight;
+}
@@ -0,0 +1,32 @@
+package com.sedin.presales.application.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.sedin.presales.domain.enums.UploadSessionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UploadSessionDto {
+
+    private UUID id;
+    private String fileName;
+    private String contentType;
+    private Long fileSize;
+    private Integer chunkSize;
+    private Integer totalChunks;
+    private List<Integer> receivedChunks;
+    private UploadSessionStatus status;
+    private UUID documentId;
+    private Integer versionNumber;
+    private Instant expiresAt;
+}
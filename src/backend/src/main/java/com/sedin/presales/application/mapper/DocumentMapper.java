@@ -88,6 +88,7 @@ public class DocumentMapper {
                 .fileSize(version.getFileSize())
                 .contentType(version.getContentType())
                 .filePath(version.getFilePath())
+                .contentHash(version.getContentHash())
                 .uploadedBy(version.getUploadedBy())
                 .createdAt(version.getCreatedAt())
                 .build();
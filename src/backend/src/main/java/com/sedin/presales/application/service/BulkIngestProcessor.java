@@ -0,0 +1,461 @@
+package com.sedin.presales.application.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sedin.presales.application.dto.BulkIngestManifestEntry;
+import com.sedin.presales.application.dto.CreateDocumentRequest;
+import com.sedin.presales.application.dto.DocumentDto;
+import com.sedin.presales.domain.entity.BulkIngestEntry;
+import com.sedin.presales.domain.entity.BulkIngestJob;
+import com.sedin.presales.domain.entity.DocumentVersion;
+import com.sedin.presales.domain.entity.Folder;
+import com.sedin.presales.domain.enums.BulkIngestEntryStatus;
+import com.sedin.presales.domain.enums.BulkIngestStatus;
+import com.sedin.presales.domain.enums.JobType;
+import com.sedin.presales.domain.repository.BulkIngestEntryRepository;
+import com.sedin.presales.domain.repository.BulkIngestJobRepository;
+import com.sedin.presales.domain.repository.DocumentRepository;
+import com.sedin.presales.domain.repository.DocumentVersionRepository;
+import com.sedin.presales.domain.repository.FolderRepository;
+import com.sedin.presales.infrastructure.storage.BlobStorageService;
+import com.sedin.presales.infrastructure.storage.ContentHashes;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Background half of bulk ingest, run as a {@link JobType#BULK_INGEST} job. Reads the stored
+ * archive as a stream, one entry at a time, spools each entry to a temporary file and hands it to a
+ * bounded pool of uploaders; an entry is only read once one of the {@code parallelism} upload slots
+ * is free, so at most that many entries are on disk at once and none is held in memory. Uploaded
+ * entries are turned into documents a batch at a time, and each batch's outcome is recorded per
+ * entry so clients can poll progress. A job picked up again after its node went away skips the
+ * entries already recorded.
+ */
+@Slf4j
+@Service
+public class BulkIngestProcessor {
+
+    private static final String CONTAINER_NAME = "documents";
+
+    private final BulkIngestJobRepository bulkIngestJobRepository;
+    private final BulkIngestEntryRepository bulkIngestEntryRepository;
+    private final DocumentRepository documentRepository;
+    private final DocumentVersionRepository documentVersionRepository;
+    private final FolderRepository folderRepository;
+    private final DocumentService documentService;
+    private final BlobStorageService blobStorageService;
+    private final ObjectMapper objectMapper;
+    private final Executor uploadExecutor;
+
+    @Value("${app.bulk-ingest.parallelism:4}")
+    private int parallelism;
+
+    @Value("${app.bulk-ingest.batch-size:25}")
+    private int batchSize;
+
+    @Value("${app.bulk-ingest.max-entry-bytes:2147483648}")
+    private long maxEntryBytes;
+
+    public BulkIngestProcessor(BulkIngestJobRepository bulkIngestJobRepository,
+                               BulkIngestEntryRepository bulkIngestEntryRepository,
+                               DocumentRepository documentRepository,
+                               DocumentVersionRepository documentVersionRepository,
+                               FolderRepository folderRepository,
+                               DocumentService documentService,
+                               BlobStorageService blobStorageService,
+                               ObjectMapper objectMapper,
+                               @Qualifier("bulkIngestUploadExecutor") Executor uploadExecutor) {
+        this.bulkIngestJobRepository = bulkIngestJobRepository;
+        this.bulkIngestEntryRepository = bulkIngestEntryRepository;
+        this.documentRepository = documentRepository;
+        this.documentVersionRepository = documentVersionRepository;
+        this.folderRepository = folderRepository;
+        this.documentService = documentService;
+        this.blobStorageService = blobStorageService;
+        this.objectMapper = objectMapper;
+        this.uploadExecutor = uploadExecutor;
+    }
+
+    public void process(UUID jobId) {
+        log.info("Starting bulk ingest job: {}", jobId);
+        Optional<BulkIngestJob> job = bulkIngestJobRepository.findById(jobId);
+        if (job.isEmpty()) {
+            log.warn("Bulk ingest job {} no longer exists, skipping", jobId);
+            return;
+        }
+        if (job.get().getStatus() != BulkIngestStatus.RUNNING) {
+            log.info("Bulk ingest job {} already finished as {}, skipping", jobId, job.get().getStatus());
+            return;
+        }
+        try {
+            ingest(job.get());
+        } catch (Exception e) {
+            log.error("Bulk ingest job {} failed", jobId, e);
+            BulkIngestJob failed = job.get();
+            failed.setStatus(BulkIngestStatus.FAILED);
+            failed.setErrorMessage(String.valueOf(e.getMessage()));
+            failed.setCompletedAt(Instant.now());
+            bulkIngestJobRepository.save(failed);
+            deleteArchive(failed);
+        }
+    }
+
+    void ingest(BulkIngestJob job) throws IOException {
+        Map<String, BulkIngestManifestEntry> manifest = readManifest(job);
+        Map<String, Folder> folders = new HashMap<>();
+        Semaphore inFlight = new Semaphore(parallelism);
+        List<PendingEntry> batch = new ArrayList<>();
+        int index = 0;
+        Set<Integer> recorded = resume(job);
+
+        try (ZipInputStream zip = new ZipInputStream(
+                blobStorageService.download(CONTAINER_NAME, job.getArchivePath()), StandardCharsets.UTF_8)) {
+            ZipEntry zipEntry;
+            while ((zipEntry = zip.getNextEntry()) != null) {
+                String path = normalizePath(zipEntry.getName());
+                if (zipEntry.isDirectory() || isIgnored(path)) {
+                    continue;
+                }
+                if (recorded.contains(index)) {
+                    manifest.remove(path);
+                    index++;
+                    continue;
+                }
+                batch.add(readEntry(job, index++, path, zip, manifest.remove(path), folders, inFlight));
+                if (batch.size() >= batchSize) {
+                    flush(job, batch, index);
+                }
+            }
+        } finally {
+            // Entries already read still get recorded if the archive turns out to be corrupt
+            flush(job, batch, index);
+        }
+
+        for (String path : manifest.keySet()) {
+            if (!recorded.contains(index)) {
+                batch.add(PendingEntry.failed(index, path, null, "Listed in manifest but not found in archive"));
+            }
+            index++;
+        }
+        flush(job, batch, index);
+
+        job.setStatus(job.getFailedEntries() == 0 ? BulkIngestStatus.COMPLETED : BulkIngestStatus.COMPLETED_WITH_ERRORS);
+        job.setCompletedAt(Instant.now());
+        bulkIngestJobRepository.save(job);
+        deleteArchive(job);
+        log.info("Bulk ingest job {} finished: {} completed, {} failed",
+                job.getId(), job.getCompletedEntries(), job.getFailedEntries());
+    }
+
+    // A finished job is never run again, so its archive is only taking up space whichever way it ended
+    private void deleteArchive(BulkIngestJob job) {
+        try {
+            blobStorageService.delete(CONTAINER_NAME, job.getArchivePath());
+        } catch (RuntimeException e) {
+            log.warn("Failed to delete archive '{}' of bulk ingest job {}", job.getArchivePath(), job.getId(), e);
+        }
+    }
+
+    // Entries recorded by an earlier run of the job, whose counts are taken from the records themselves
+    private Set<Integer> resume(BulkIngestJob job) {
+        Set<Integer> recorded = bulkIngestEntryRepository.findEntryIndexesByJobId(job.getId());
+        if (!recorded.isEmpty()) {
+            log.info("Resuming bulk ingest job {} after {} recorded entries", job.getId(), recorded.size());
+            job.setCompletedEntries((int) bulkIngestEntryRepository.countByJobIdAndStatus(job.getId(),
+                    BulkIngestEntryStatus.COMPLETED));
+            job.setFailedEntries((int) bulkIngestEntryRepository.countByJobIdAndStatus(job.getId(),
+                    BulkIngestEntryStatus.FAILED));
+        }
+        return recorded;
+    }
+
+    public static String normalizePath(String path) {
+        String normalized = path.replace('\\', '/');
+        while (normalized.startsWith("/") || normalized.startsWith("./")) {
+            normalized = normalized.substring(normalized.startsWith("/") ? 1 : 2);
+        }
+        return normalized;
+    }
+
+    private boolean isIgnored(String path) {
+        String fileName = path.substring(path.lastIndexOf('/') + 1);
+        return path.startsWith("__MACOSX/") || fileName.startsWith(".") || "Thumbs.db".equalsIgnoreCase(fileName);
+    }
+
+    private PendingEntry readEntry(BulkIngestJob job, int index, String path, ZipInputStream zip,
+                                   BulkIngestManifestEntry manifestEntry, Map<String, Folder> folders,
+                                   Semaphore inFlight) throws IOException {
+        String fileName = path.substring(path.lastIndexOf('/') + 1);
+        if (List.of(path.split("/")).contains("..")) {
+            return PendingEntry.failed(index, path, null, "Entry path must not contain '..'");
+        }
+
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for an upload slot");
+        }
+        Path spooled = null;
+        boolean handedOff = false;
+        try {
+            spooled = Files.createTempFile("bulk-ingest-", ".entry");
+            long size = spool(zip, spooled);
+            if (size > maxEntryBytes) {
+                return PendingEntry.failed(index, path, null, "Entry is larger than " + maxEntryBytes + " bytes");
+            }
+            if (size == 0) {
+                return PendingEntry.failed(index, path, 0L, "Entry is empty");
+            }
+
+            CreateDocumentRequest request;
+            try {
+                request = buildRequest(job, path, fileName, manifestEntry, folders);
+            } catch (RuntimeException e) {
+                return PendingEntry.failed(index, path, size, e.getMessage());
+            }
+
+            Path content = spooled;
+            CompletableFuture<StoredEntry> upload = CompletableFuture
+                    .supplyAsync(() -> store(job.getId(), index, fileName, content, size), uploadExecutor)
+                    .whenComplete((stored, error) -> {
+                        deleteQuietly(content);
+                        inFlight.release();
+                    });
+            handedOff = true;
+            return new PendingEntry(index, path, fileName, size, request, upload, null);
+        } finally {
+            if (!handedOff) {
+                deleteQuietly(spooled);
+                inFlight.release();
+            }
+        }
+    }
+
+    // Copies one byte past the limit at most, so oversized entries are detected without trusting the header
+    private long spool(ZipInputStream zip, Path file) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long size = 0;
+        try (OutputStream out = Files.newOutputStream(file)) {
+            int count;
+            while (size <= maxEntryBytes
+                    && (count = zip.read(buffer, 0, (int) Math.min(buffer.length, maxEntryBytes + 1 - size))) >= 0) {
+                out.write(buffer, 0, count);
+                size += count;
+            }
+        }
+        return size;
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete spooled bulk ingest entry {}", file, e);
+        }
+    }
+
+    private CreateDocumentRequest buildRequest(BulkIngestJob job, String path, String fileName,
+                                               BulkIngestManifestEntry manifestEntry, Map<String, Folder> folders) {
+        int slash = path.lastIndexOf('/');
+        Folder folder = resolveFolder(job.getRootFolder(), slash < 0 ? "" : path.substring(0, slash), folders);
+
+        String title = fileName.contains(".") ? fileName.substring(0, fileName.lastIndexOf('.')) : fileName;
+        CreateDocumentRequest.CreateDocumentRequestBuilder request = CreateDocumentRequest.builder()
+                .title(title)
+                .documentTypeId(job.getDocumentType().getId())
+                .folderId(folder != null ? folder.getId() : null);
+        if (manifestEntry != null) {
+            if (manifestEntry.getTitle() != null && !manifestEntry.getTitle().isBlank()) {
+                request.title(manifestEntry.getTitle());
+            }
+            if (manifestEntry.getDocumentTypeId() != null) {
+                request.documentTypeId(manifestEntry.getDocumentTypeId());
+            }
+            request.customerName(manifestEntry.getCustomerName())
+                    .documentDate(manifestEntry.getDocumentDate())
+                    .metadata(manifestEntry.getMetadata());
+        }
+        return request.build();
+    }
+
+    /**
+     * Maps a directory inside the archive onto a folder under the job's root folder, reusing a
+     * folder with the same name at each level and creating the rest.
+     */
+    private Folder resolveFolder(Folder rootFolder, String directory, Map<String, Folder> folders) {
+        if (directory.isEmpty()) {
+            return rootFolder;
+        }
+        Folder cached = folders.get(directory);
+        if (cached != null) {
+            return cached;
+        }
+
+        int slash = directory.lastIndexOf('/');
+        Folder parent = resolveFolder(rootFolder, slash < 0 ? "" : directory.substring(0, slash), folders);
+        String name = directory.substring(slash + 1);
+        Optional<Folder> existing = parent == null
+                ? folderRepository.findFirstByParentIsNullAndName(name)
+                : folderRepository.findFirstByParentIdAndName(parent.getId(), name);
+        Folder folder = existing.orElseGet(() -> {
+            log.info("Creating folder '{}' for bulk ingest", directory);
+            return folderRepository.save(Folder.builder().name(name).parent(parent).build());
+        });
+        folders.put(directory, folder);
+        return folder;
+    }
+
+    private StoredEntry store(UUID jobId, int index, String fileName, Path content, long size) {
+        String blobPath = String.format("bulk-ingest/%s/entries/%d/%s", jobId, index, fileName);
+        String contentType = MediaTypeFactory.getMediaType(fileName)
+                .map(MediaType::toString)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+
+        String contentHash;
+        try (DigestInputStream hashingStream = ContentHashes.digesting(Files.newInputStream(content))) {
+            blobStorageService.upload(CONTAINER_NAME, blobPath, hashingStream, size, contentType);
+            contentHash = ContentHashes.finish(hashingStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Optional<DocumentVersion> duplicate = documentVersionRepository.findFirstByContentHashOrderByCreatedAtAsc(contentHash);
+        if (duplicate.isPresent()) {
+            blobStorageService.delete(CONTAINER_NAME, blobPath);
+            return new StoredEntry(duplicate.get().getFilePath(), contentType, contentHash, true);
+        }
+        return new StoredEntry(blobPath, contentType, contentHash, false);
+    }
+
+    private void flush(BulkIngestJob job, List<PendingEntry> batch, int entriesRead) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<BulkIngestEntry> records = new ArrayList<>();
+        Map<PendingEntry, StoredEntry> uploaded = new LinkedHashMap<>();
+        for (PendingEntry pending : batch) {
+            if (pending.error() != null) {
+                records.add(record(job, pending, BulkIngestEntryStatus.FAILED, null, pending.error()));
+                continue;
+            }
+            try {
+                uploaded.put(pending, pending.upload().join());
+            } catch (CompletionException e) {
+                log.warn("Bulk ingest job {} failed to upload '{}'", job.getId(), pending.path(), e.getCause());
+                records.add(record(job, pending, BulkIngestEntryStatus.FAILED, null,
+                        "Upload failed: " + e.getCause().getMessage()));
+            }
+        }
+
+        if (!uploaded.isEmpty()) {
+            try {
+                records.addAll(createDocuments(job, uploaded));
+            } catch (RuntimeException e) {
+                // The batch rolled back as a whole; retry one at a time so only the bad entries fail
+                log.warn("Bulk ingest job {} batch insert failed, retrying entries individually", job.getId(), e);
+                for (Map.Entry<PendingEntry, StoredEntry> entry : uploaded.entrySet()) {
+                    try {
+                        records.addAll(createDocuments(job, Map.of(entry.getKey(), entry.getValue())));
+                    } catch (RuntimeException single) {
+                        if (!entry.getValue().reused()) {
+                            blobStorageService.delete(CONTAINER_NAME, entry.getValue().filePath());
+                        }
+                        records.add(record(job, entry.getKey(), BulkIngestEntryStatus.FAILED, null,
+                                single.getMessage()));
+                    }
+                }
+            }
+        }
+
+        bulkIngestEntryRepository.saveAll(records);
+        long failed = records.stream().filter(r -> r.getStatus() == BulkIngestEntryStatus.FAILED).count();
+        job.setTotalEntries(Math.max(entriesRead, job.getTotalEntries()));
+        job.setCompletedEntries(job.getCompletedEntries() + records.size() - (int) failed);
+        job.setFailedEntries(job.getFailedEntries() + (int) failed);
+        bulkIngestJobRepository.save(job);
+        batch.clear();
+    }
+
+    private List<BulkIngestEntry> createDocuments(BulkIngestJob job, Map<PendingEntry, StoredEntry> uploaded) {
+        List<PendingEntry> entries = new ArrayList<>(uploaded.keySet());
+        List<DocumentService.StoredBlobDocument> blobs = entries.stream()
+                .map(pending -> {
+                    StoredEntry stored = uploaded.get(pending);
+                    return new DocumentService.StoredBlobDocument(pending.request(), stored.filePath(),
+                            pending.fileName(), pending.size(), stored.contentType(), stored.contentHash());
+                })
+                .toList();
+
+        List<DocumentDto> documents = documentService.createFromStoredBlobs(blobs);
+        List<BulkIngestEntry> records = new ArrayList<>(documents.size());
+        for (int i = 0; i < documents.size(); i++) {
+            records.add(record(job, entries.get(i), BulkIngestEntryStatus.COMPLETED,
+                    documents.get(i).getId(), null));
+        }
+        return records;
+    }
+
+    private BulkIngestEntry record(BulkIngestJob job, PendingEntry pending, BulkIngestEntryStatus status,
+                                   UUID documentId, String errorMessage) {
+        return BulkIngestEntry.builder()
+                .job(job)
+                .entryIndex(pending.index())
+                .entryPath(pending.path())
+                .status(status)
+                .fileSize(pending.size())
+                .document(documentId != null ? documentRepository.getReferenceById(documentId) : null)
+                .errorMessage(errorMessage)
+                .build();
+    }
+
+    private Map<String, BulkIngestManifestEntry> readManifest(BulkIngestJob job) throws IOException {
+        Map<String, BulkIngestManifestEntry> manifest = new LinkedHashMap<>();
+        if (job.getManifest() != null) {
+            List<BulkIngestManifestEntry> entries = objectMapper.readValue(job.getManifest(), new TypeReference<>() {});
+            entries.forEach(entry -> manifest.put(normalizePath(entry.getPath()), entry));
+        }
+        return manifest;
+    }
+
+    private record PendingEntry(int index, String path, String fileName, Long size, CreateDocumentRequest request,
+                                CompletableFuture<StoredEntry> upload, String error) {
+
+        static PendingEntry failed(int index, String path, Long size, String error) {
+            return new PendingEntry(index, path, null, size, null, null, error);
+        }
+    }
+
+    private record StoredEntry(String filePath, String contentType, String contentHash, boolean reused) {}
+}
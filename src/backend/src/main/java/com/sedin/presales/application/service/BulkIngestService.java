@@ -0,0 +1,170 @@
+package com.sedin.presales.application.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sedin.presales.application.dto.BulkIngestEntryDto;
+import com.sedin.presales.application.dto.BulkIngestJobDto;
+import com.sedin.presales.application.dto.BulkIngestManifestEntry;
+import com.sedin.presales.application.exception.AccessDeniedException;
+import com.sedin.presales.application.exception.BadRequestException;
+import com.sedin.presales.application.exception.ResourceNotFoundException;
+import com.sedin.presales.config.CurrentUserService;
+import com.sedin.presales.config.UserPrincipal;
+import com.sedin.presales.domain.entity.BulkIngestEntry;
+import com.sedin.presales.domain.entity.BulkIngestJob;
+import com.sedin.presales.domain.entity.DocumentType;
+import com.sedin.presales.domain.entity.Folder;
+import com.sedin.presales.domain.enums.BulkIngestStatus;
+import com.sedin.presales.domain.enums.JobType;
+import com.sedin.presales.domain.repository.BulkIngestEntryRepository;
+import com.sedin.presales.domain.repository.BulkIngestJobRepository;
+import com.sedin.presales.domain.repository.DocumentTypeRepository;
+import com.sedin.presales.domain.repository.FolderRepository;
+import com.sedin.presales.infrastructure.storage.BlobStorageService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Starts and reports on bulk ZIP ingests. The archive is streamed straight into blob storage so
+ * the request returns as soon as it is stored; a {@link JobType#BULK_INGEST} job then has
+ * {@link BulkIngestProcessor} read it back entry by entry in the background.
+ */
+@Slf4j
+@Service
+public class BulkIngestService {
+
+    private static final String CONTAINER_NAME = "documents";
+
+    private final BulkIngestJobRepository bulkIngestJobRepository;
+    private final BulkIngestEntryRepository bulkIngestEntryRepository;
+    private final DocumentTypeRepository documentTypeRepository;
+    private final FolderRepository folderRepository;
+    private final BlobStorageService blobStorageService;
+    private final JobQueueService jobQueueService;
+    private final CurrentUserService currentUserService;
+    private final ObjectMapper objectMapper;
+
+    public BulkIngestService(BulkIngestJobRepository bulkIngestJobRepository,
+                             BulkIngestEntryRepository bulkIngestEntryRepository,
+                             DocumentTypeRepository documentTypeRepository,
+                             FolderRepository folderRepository,
+                             BlobStorageService blobStorageService,
+                             JobQueueService jobQueueService,
+                             CurrentUserService currentUserService,
+                             ObjectMapper objectMapper) {
+        this.bulkIngestJobRepository = bulkIngestJobRepository;
+        this.bulkIngestEntryRepository = bulkIngestEntryRepository;
+        this.documentTypeRepository = documentTypeRepository;
+        this.folderRepository = folderRepository;
+        this.blobStorageService = blobStorageService;
+        this.jobQueueService = jobQueueService;
+        this.currentUserService = currentUserService;
+        this.objectMapper = objectMapper;
+    }
+
+    // Not transactional: storing the archive should not hold a connection, and the job row is committed before its queue entry
+    public BulkIngestJobDto start(MultipartFile archive, UUID documentTypeId, UUID folderId,
+                                  List<BulkIngestManifestEntry> manifest) {
+        if (archive == null || archive.isEmpty()) {
+            throw new BadRequestException("Archive is required");
+        }
+        String archiveName = archive.getOriginalFilename() != null ? archive.getOriginalFilename() : "archive.zip";
+        log.info("Starting bulk ingest of '{}' ({} bytes)", archiveName, archive.getSize());
+
+        DocumentType documentType = documentTypeRepository.findById(documentTypeId)
+                .orElseThrow(() -> new ResourceNotFoundException("DocumentType", "id", documentTypeId));
+        Folder rootFolder = null;
+        if (folderId != null) {
+            rootFolder = folderRepository.findById(folderId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Folder", "id", folderId));
+        }
+
+        String manifestJson = serializeManifest(manifest);
+        String archivePath = String.format("bulk-ingest/%s/%s", UUID.randomUUID(), archiveName);
+        try (InputStream data = archive.getInputStream()) {
+            blobStorageService.upload(CONTAINER_NAME, archivePath, data, archive.getSize(), "application/octet-stream");
+        } catch (IOException e) {
+            log.error("Failed to store bulk ingest archive '{}'", archiveName, e);
+            throw new BadRequestException("Failed to upload archive. Please try again.");
+        }
+
+        BulkIngestJob job = bulkIngestJobRepository.save(BulkIngestJob.builder()
+                .archiveName(archiveName)
+                .archivePath(archivePath)
+                .status(BulkIngestStatus.RUNNING)
+                .documentType(documentType)
+                .rootFolder(rootFolder)
+                .manifest(manifestJson)
+                .build());
+
+        jobQueueService.enqueue(JobType.BULK_INGEST, job.getId());
+        log.info("Bulk ingest job {} queued for archive '{}'", job.getId(), archiveName);
+        return toDto(job, List.of());
+    }
+
+    public BulkIngestJobDto get(UUID jobId) {
+        BulkIngestJob job = bulkIngestJobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("BulkIngestJob", "id", jobId));
+        UserPrincipal user = currentUserService.getCurrentUser();
+        if (!"ADMIN".equalsIgnoreCase(user.getRole()) && !user.getEmail().equalsIgnoreCase(job.getCreatedBy())) {
+            throw new AccessDeniedException("You do not have access to this bulk ingest job");
+        }
+        return toDto(job, bulkIngestEntryRepository.findByJobIdOrderByEntryIndexAsc(jobId));
+    }
+
+    private String serializeManifest(List<BulkIngestManifestEntry> manifest) {
+        if (manifest == null || manifest.isEmpty()) {
+            return null;
+        }
+        Set<String> paths = new HashSet<>();
+        for (BulkIngestManifestEntry entry : manifest) {
+            if (entry.getPath() == null || entry.getPath().isBlank()) {
+                throw new BadRequestException("Every manifest entry needs a path");
+            }
+            if (!paths.add(BulkIngestProcessor.normalizePath(entry.getPath()))) {
+                throw new BadRequestException("Manifest lists '" + entry.getPath() + "' more than once");
+            }
+        }
+        try {
+            return objectMapper.writeValueAsString(manifest);
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Manifest could not be read");
+        }
+    }
+
+    private BulkIngestJobDto toDto(BulkIngestJob job, List<BulkIngestEntry> entries) {
+        return BulkIngestJobDto.builder()
+                .id(job.getId())
+                .archiveName(job.getArchiveName())
+                .status(job.getStatus())
+                .documentTypeId(job.getDocumentType() != null ? job.getDocumentType().getId() : null)
+                .rootFolderId(job.getRootFolder() != null ? job.getRootFolder().getId() : null)
+                .totalEntries(job.getTotalEntries())
+                .completedEntries(job.getCompletedEntries())
+                .failedEntries(job.getFailedEntries())
+                .errorMessage(job.getErrorMessage())
+                .entries(entries.stream().map(this::toEntryDto).toList())
+                .createdAt(job.getCreatedAt())
+                .completedAt(job.getCompletedAt())
+                .build();
+    }
+
+    private BulkIngestEntryDto toEntryDto(BulkIngestEntry entry) {
+        return BulkIngestEntryDto.builder()
+                .index(entry.getEntryIndex())
+                .path(entry.getEntryPath())
+                .status(entry.getStatus())
+                .fileSize(entry.getFileSize())
+                .documentId(entry.getDocument() != null ? entry.getDocument().getId() : null)
+                .errorMessage(entry.getErrorMessage())
+                .build();
+    }
+}
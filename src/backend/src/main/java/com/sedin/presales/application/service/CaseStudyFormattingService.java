@@ -8,6 +8,7 @@ import com.sedin.presales.application.exception.ResourceNotFoundException;
 import com.sedin.presales.domain.entity.CaseStudyAgent;
 import com.sedin.presales.domain.entity.DocumentVersion;
 import com.sedin.presales.domain.entity.Rendition;
+import com.sedin.presales.domain.enums.JobType;
 import com.sedin.presales.domain.enums.RenditionStatus;
 import com.sedin.presales.domain.enums.RenditionType;
 import com.sedin.presales.domain.repository.CaseStudyAgentRepository;
@@ -16,7 +17,6 @@ import com.sedin.presales.domain.repository.RenditionRepository;
 import com.sedin.presales.infrastructure.rendition.PptTemplateBuilder;
 import com.sedin.presales.infrastructure.storage.BlobStorageService;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -36,6 +36,7 @@ public class CaseStudyFormattingService {
     private final BlobStorageService blobStorageService;
     private final PptTemplateBuilder pptTemplateBuilder;
     private final ObjectMapper objectMapper;
+    private final JobQueueService jobQueueService;
 
     public CaseStudyFormattingService(
             CaseStudyAgentRepository caseStudyAgentRepository,
@@ -43,23 +44,20 @@ public class CaseStudyFormattingService {
             RenditionRepository renditionRepository,
             BlobStorageService blobStorageService,
             PptTemplateBuilder pptTemplateBuilder,
-            ObjectMapper objectMapper) {
+            ObjectMapper objectMapper,
+            JobQueueService jobQueueService) {
         this.caseStudyAgentRepository = caseStudyAgentRepository;
         this.documentVersionRepository = documentVersionRepository;
         this.renditionRepository = renditionRepository;
         this.blobStorageService = blobStorageService;
         this.pptTemplateBuilder = pptTemplateBuilder;
         this.objectMapper = objectMapper;
+        this.jobQueueService = jobQueueService;
     }
 
-    @Async("caseStudyExecutor")
     public void formatCaseStudy(UUID documentVersionId, String extractedContentJson) {
-        log.info("Starting async case study formatting for version: {}", documentVersionId);
-        try {
-            performFormatting(documentVersionId, extractedContentJson);
-        } catch (Exception e) {
-            log.error("Failed to format case study for version: {}", documentVersionId, e);
-        }
+        log.info("Queueing case study formatting for version: {}", documentVersionId);
+        jobQueueService.enqueue(JobType.CASE_STUDY_FORMATTING, documentVersionId, extractedContentJson);
     }
 
     @Transactional
@@ -12,6 +12,7 @@ import com.sedin.presales.config.UserPrincipal;
 import com.sedin.presales.domain.entity.CaseStudyAgent;
 import com.sedin.presales.domain.entity.CaseStudyValidationResult;
 import com.sedin.presales.domain.entity.DocumentVersion;
+import com.sedin.presales.domain.enums.JobType;
 import com.sedin.presales.domain.enums.Permission;
 import com.sedin.presales.domain.enums.ResourceType;
 import com.sedin.presales.domain.repository.CaseStudyAgentRepository;
@@ -22,7 +23,6 @@ import com.sedin.presales.infrastructure.ai.casestudy.CaseStudyContentValidator;
 import com.sedin.presales.infrastructure.rendition.PptTextExtractor;
 import com.sedin.presales.infrastructure.storage.BlobStorageService;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.support.TransactionTemplate;
@@ -31,6 +31,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -50,6 +51,7 @@ public class CaseStudyValidationService {
     private final ObjectMapper objectMapper;
     private final CurrentUserService currentUserService;
     private final AclService aclService;
+    private final JobQueueService jobQueueService;
     private final TransactionTemplate transactionTemplate;
 
     public CaseStudyValidationService(
@@ -64,6 +66,7 @@ public class CaseStudyValidationService {
             ObjectMapper objectMapper,
             CurrentUserService currentUserService,
             AclService aclService,
+            JobQueueService jobQueueService,
             PlatformTransactionManager transactionManager) {
         this.caseStudyAgentRepository = caseStudyAgentRepository;
         this.validationResultRepository = validationResultRepository;
@@ -76,20 +79,28 @@ public class CaseStudyValidationService {
         this.objectMapper = objectMapper;
         this.currentUserService = currentUserService;
         this.aclService = aclService;
+        this.jobQueueService = jobQueueService;
         this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
-    @Async("caseStudyExecutor")
     public void validateCaseStudy(UUID documentVersionId) {
-        log.info("Starting async case study validation for version: {}", documentVersionId);
-        try {
-            transactionTemplate.executeWithoutResult(status -> performValidation(documentVersionId));
-        } catch (Exception e) {
-            log.error("Failed to validate case study for version: {}", documentVersionId, e);
-        }
+        log.info("Queueing case study validation for version: {}", documentVersionId);
+        jobQueueService.enqueue(JobType.CASE_STUDY_VALIDATION, documentVersionId);
+    }
+
+    /**
+     * Validates synchronously using {@code slideText} already extracted by the caller, or extracts it
+     * from the original when null.
+     */
+    public void validate(UUID documentVersionId, Supplier<String> slideText) {
+        transactionTemplate.executeWithoutResult(status -> performValidation(documentVersionId, slideText));
     }
 
     void performValidation(UUID documentVersionId) {
+        performValidation(documentVersionId, null);
+    }
+
+    void performValidation(UUID documentVersionId, Supplier<String> slideText) {
         // Get active agent
         Optional<CaseStudyAgent> activeAgentOpt = caseStudyAgentRepository.findFirstByIsActiveTrue();
         if (activeAgentOpt.isEmpty()) {
@@ -118,11 +129,15 @@ public class CaseStudyValidationService {
 
         // Download and extract text from PPT
         String pptText;
-        try (InputStream pptStream = blobStorageService.download(CONTAINER_DOCUMENTS, version.getFilePath())) {
-            pptText = pptTextExtractor.extractText(pptStream);
-        } catch (IOException e) {
-            log.warn("Failed to close PPT stream for version: {}", documentVersionId, e);
-            throw new RuntimeException("Failed to process PPT file", e);
+        if (slideText != null) {
+            pptText = slideText.get();
+        } else {
+            try (InputStream pptStream = blobStorageService.download(CONTAINER_DOCUMENTS, version.getFilePath())) {
+                pptText = pptTextExtractor.extractText(pptStream);
+            } catch (IOException e) {
+                log.warn("Failed to close PPT stream for version: {}", documentVersionId, e);
+                throw new RuntimeException("Failed to process PPT file", e);
+            }
         }
 
         // Extract sections using AI
@@ -0,0 +1,87 @@
+package com.sedin.presales.application.service;
+
+import com.sedin.presales.domain.entity.DocumentVersion;
+import com.sedin.presales.domain.repository.DocumentVersionRepository;
+import com.sedin.presales.infrastructure.storage.BlobStorageService;
+import com.sedin.presales.infrastructure.storage.ContentHashes;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Hashes document versions that were stored without a content hash, a small batch at a time, so
+ * their renditions, summaries and embeddings become reusable by later uploads. These are versions
+ * stored before content hashing existed and versions completed from resumable upload sessions.
+ */
+@Slf4j
+@Service
+public class ContentHashBackfillService {
+
+    private static final String CONTAINER_DOCUMENTS = "documents";
+
+    private final DocumentVersionRepository documentVersionRepository;
+    private final BlobStorageService blobStorageService;
+
+    // Versions whose blob could not be read are skipped for the lifetime of this node
+    private final Set<UUID> failedVersionIds = new HashSet<>();
+
+    @Value("${app.content-hash-backfill.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.content-hash-backfill.batch-size:25}")
+    private int batchSize;
+
+    public ContentHashBackfillService(DocumentVersionRepository documentVersionRepository,
+                                      BlobStorageService blobStorageService) {
+        this.documentVersionRepository = documentVersionRepository;
+        this.blobStorageService = blobStorageService;
+    }
+
+    @Scheduled(initialDelayString = "${app.content-hash-backfill.initial-delay-ms:60000}",
+            fixedDelayString = "${app.content-hash-backfill.interval-ms:300000}")
+    public void backfillBatch() {
+        if (!enabled) {
+            return;
+        }
+
+        List<DocumentVersion> versions = documentVersionRepository
+                .findByContentHashIsNullOrderByCreatedAtAsc(PageRequest.of(0, batchSize + failedVersionIds.size()))
+                .stream()
+                .filter(version -> !failedVersionIds.contains(version.getId()))
+                .limit(batchSize)
+                .toList();
+        if (versions.isEmpty()) {
+            return;
+        }
+
+        log.info("Backfilling content hashes for {} document versions", versions.size());
+        int hashed = 0;
+        for (DocumentVersion version : versions) {
+            if (backfill(version)) {
+                hashed++;
+            }
+        }
+        log.info("Content hash backfill batch finished: {}/{} versions hashed", hashed, versions.size());
+    }
+
+    // Visible for testing
+    boolean backfill(DocumentVersion version) {
+        try (InputStream inputStream = blobStorageService.download(CONTAINER_DOCUMENTS, version.getFilePath())) {
+            version.setContentHash(ContentHashes.sha256(inputStream));
+            documentVersionRepository.save(version);
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to hash document version: {} at path '{}'", version.getId(), version.getFilePath(), e);
+            failedVersionIds.add(version.getId());
+            return false;
+        }
+    }
+}
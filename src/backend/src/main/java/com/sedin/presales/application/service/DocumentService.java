@@ -6,6 +6,7 @@ import com.sedin.presales.application.dto.CreateDocumentRequest;
 import com.sedin.presales.application.dto.DocumentDetailDto;
 import com.sedin.presales.application.dto.DocumentDownloadDto;
 import com.sedin.presales.application.dto.DocumentDto;
+import com.sedin.presales.application.dto.DocumentThumbnailDto;
 import com.sedin.presales.application.dto.DocumentVersionDto;
 import com.sedin.presales.application.dto.DocumentViewDto;
 import com.sedin.presales.application.dto.IndexToggleResponseDto;
@@ -27,6 +28,9 @@ import com.sedin.presales.domain.entity.BusinessUnit;
 import com.sedin.presales.domain.entity.Sbu;
 import com.sedin.presales.domain.entity.Rendition;
 import com.sedin.presales.domain.enums.DocumentStatus;
+import com.sedin.presales.domain.enums.IngestStep;
+import com.sedin.presales.domain.enums.JobPriority;
+import com.sedin.presales.domain.enums.JobType;
 import com.sedin.presales.domain.enums.Permission;
 import com.sedin.presales.domain.enums.RenditionStatus;
 import com.sedin.presales.domain.enums.RenditionType;
@@ -45,8 +49,11 @@ import com.sedin.presales.domain.repository.BusinessUnitRepository;
 import com.sedin.presales.domain.repository.RenditionRepository;
 import com.sedin.presales.domain.repository.SbuRepository;
 import com.sedin.presales.infrastructure.storage.BlobStorageService;
+import com.sedin.presales.infrastructure.storage.ContentHashes;
+import com.sedin.presales.infrastructure.storage.ReactiveBlobStorageService;
 import jakarta.persistence.criteria.Predicate;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -54,14 +61,21 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
 
 import java.io.IOException;
+import java.security.DigestInputStream;
 import java.time.Duration;
-import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 
@@ -71,6 +85,7 @@ public class DocumentService {
 
     private static final String CONTAINER_NAME = "documents";
     private static final String RENDITIONS_CONTAINER = "renditions";
+    private static final int MAX_THUMBNAIL_BATCH = 100;
 
     private final DocumentRepository documentRepository;
     private final DocumentMetadataRepository documentMetadataRepository;
@@ -84,12 +99,15 @@ public class DocumentService {
     private final SbuRepository sbuRepository;
     private final RenditionRepository renditionRepository;
     private final BlobStorageService blobStorageService;
+    private final ReactiveBlobStorageService reactiveBlobStorageService;
     private final DocumentMapper documentMapper;
-    private final RenditionService renditionService;
     private final CurrentUserService currentUserService;
     private final AclService aclService;
-    private final IndexingService indexingService;
-    private final CaseStudyValidationService caseStudyValidationService;
+    private final JobQueueService jobQueueService;
+    private final IngestPipelineService ingestPipelineService;
+
+    @Value("${app.ingest.summarize-on-upload:true}")
+    private boolean summarizeOnUpload;
 
     public DocumentService(DocumentRepository documentRepository,
                            DocumentMetadataRepository documentMetadataRepository,
@@ -103,12 +121,12 @@ public class DocumentService {
                            SbuRepository sbuRepository,
                            RenditionRepository renditionRepository,
                            BlobStorageService blobStorageService,
+                           ReactiveBlobStorageService reactiveBlobStorageService,
                            DocumentMapper documentMapper,
-                           RenditionService renditionService,
                            CurrentUserService currentUserService,
                            AclService aclService,
-                           IndexingService indexingService,
-                           @Lazy CaseStudyValidationService caseStudyValidationService) {
+                           JobQueueService jobQueueService,
+                           @Lazy IngestPipelineService ingestPipelineService) {
         this.documentRepository = documentRepository;
         this.documentMetadataRepository = documentMetadataRepository;
         this.documentVersionRepository = documentVersionRepository;
@@ -121,12 +139,12 @@ public class DocumentService {
         this.sbuRepository = sbuRepository;
         this.renditionRepository = renditionRepository;
         this.blobStorageService = blobStorageService;
+        this.reactiveBlobStorageService = reactiveBlobStorageService;
         this.documentMapper = documentMapper;
-        this.renditionService = renditionService;
         this.currentUserService = currentUserService;
         this.aclService = aclService;
-        this.indexingService = indexingService;
-        this.caseStudyValidationService = caseStudyValidationService;
+        this.jobQueueService = jobQueueService;
+        this.ingestPipelineService = ingestPipelineService;
     }
 
     @Transactional
@@ -137,61 +155,14 @@ public class DocumentService {
             throw new BadRequestException("File is required");
         }
 
-        DocumentType documentType = documentTypeRepository.findById(request.getDocumentTypeId())
-                .orElseThrow(() -> new ResourceNotFoundException("DocumentType", "id", request.getDocumentTypeId()));
-
-        Document document = Document.builder()
-                .title(request.getTitle())
-                .customerName(request.getCustomerName())
-                .documentDate(request.getDocumentDate())
-                .status(DocumentStatus.ACTIVE)
-                .ragIndexed(false)
-                .currentVersionNumber(1)
-                .documentType(documentType)
-                .build();
-
-        if (request.getFolderId() != null) {
-            Folder folder = folderRepository.findById(request.getFolderId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Folder", "id", request.getFolderId()));
-            document.setFolder(folder);
-        }
-
-        Document savedDocument = documentRepository.save(document);
+        Document savedDocument = createDocument(request);
 
         // Upload file to blob storage
-        String blobPath = buildBlobPath(savedDocument.getId(), 1, file.getOriginalFilename());
-        String blobUrl;
-        try {
-            blobUrl = blobStorageService.upload(
-                    CONTAINER_NAME,
-                    blobPath,
-                    file.getInputStream(),
-                    file.getSize(),
-                    file.getContentType()
-            );
-        } catch (IOException e) {
-            log.error("Failed to upload file to blob storage", e);
-            throw new BadRequestException("Failed to upload file. Please try again.");
-        }
+        StoredOriginal stored = storeOriginal(savedDocument.getId(), 1, file);
 
         // Create document version
-        DocumentVersion version = DocumentVersion.builder()
-                .document(savedDocument)
-                .versionNumber(1)
-                .filePath(blobPath)
-                .fileName(file.getOriginalFilename())
-                .fileSize(file.getSize())
-                .contentType(file.getContentType())
-                .build();
-        DocumentVersion savedVersion = documentVersionRepository.save(version);
-
-        // Trigger async PDF rendition generation
-        renditionService.generatePdfRendition(savedVersion.getId());
-
-        // Trigger case study validation if document type is "Case Study"
-        if ("Case Study".equalsIgnoreCase(documentType.getName())) {
-            caseStudyValidationService.validateCaseStudy(savedVersion.getId());
-        }
+        saveVersion(savedDocument, 1, stored.filePath(), file.getOriginalFilename(), file.getSize(),
+                file.getContentType(), stored.contentHash());
 
         // Create document metadata if provided
         if (request.getMetadata() != null) {
@@ -202,6 +173,68 @@ public class DocumentService {
         return documentMapper.toDto(savedDocument);
     }
 
+    /**
+     * Creates a document whose first version is a blob that was already committed to storage,
+     * e.g. by a chunked upload session.
+     */
+    @Transactional
+    public DocumentDto createFromStoredBlob(CreateDocumentRequest request, String filePath, String fileName,
+                                           long fileSize, String contentType, String contentHash) {
+        log.info("Creating document '{}' from stored blob '{}'", request.getTitle(), filePath);
+        Document savedDocument = createDocument(request);
+        StoredOriginal stored = reuseStoredContent(savedDocument.getId(), 1, filePath, contentHash);
+        saveVersion(savedDocument, 1, stored.filePath(), fileName, fileSize, contentType, stored.contentHash());
+
+        if (request.getMetadata() != null) {
+            createDocumentMetadata(savedDocument, request.getMetadata());
+        }
+
+        log.info("Created document with id: {}", savedDocument.getId());
+        return documentMapper.toDto(savedDocument);
+    }
+
+    /**
+     * Creates one document per stored blob, inserting documents, versions and metadata with one
+     * {@code saveAll} each so Hibernate can send them as JDBC batches. Used by bulk ingest, which
+     * runs without a request user, so no ACL check is made here.
+     */
+    @Transactional
+    public List<DocumentDto> createFromStoredBlobs(List<StoredBlobDocument> blobs) {
+        log.info("Creating {} documents from stored blobs", blobs.size());
+        Map<UUID, DocumentType> documentTypes = new HashMap<>();
+        Map<UUID, Folder> folders = new HashMap<>();
+
+        List<Document> documents = documentRepository.saveAll(blobs.stream()
+                .map(blob -> buildDocument(blob.request(), documentTypes, folders))
+                .toList());
+
+        List<DocumentVersion> versions = new ArrayList<>(blobs.size());
+        List<DocumentMetadata> metadata = new ArrayList<>();
+        for (int i = 0; i < blobs.size(); i++) {
+            StoredBlobDocument blob = blobs.get(i);
+            Document document = documents.get(i);
+            versions.add(buildVersion(document, 1, blob.filePath(), blob.fileName(), blob.fileSize(),
+                    blob.contentType(), blob.contentHash()));
+            if (blob.request().getMetadata() != null) {
+                DocumentMetadata documentMetadata = DocumentMetadata.builder().document(document).build();
+                populateMetadata(documentMetadata, blob.request().getMetadata());
+                metadata.add(documentMetadata);
+            }
+        }
+        List<DocumentVersion> savedVersions = documentVersionRepository.saveAll(versions);
+        if (!metadata.isEmpty()) {
+            documentMetadataRepository.saveAll(metadata);
+        }
+
+        for (int i = 0; i < documents.size(); i++) {
+            startVersionProcessing(documents.get(i), savedVersions.get(i), JobPriority.BACKGROUND);
+        }
+        return documents.stream().map(documentMapper::toDto).toList();
+    }
+
+    public record StoredBlobDocument(CreateDocumentRequest request, String filePath, String fileName,
+                                     long fileSize, String contentType, String contentHash) {}
+
     public PagedResponse<DocumentDto> list(Pageable pageable, UUID folderId, UUID documentTypeId,
                                            DocumentStatus status, String search) {
         log.debug("Listing documents with filters - folderId: {}, documentTypeId: {}, status: {}, search: {}",
@@ -358,49 +391,33 @@ public class DocumentService {
         int newVersionNumber = document.getCurrentVersionNumber() + 1;
 
         // Upload file to blob storage
-        String blobPath = buildBlobPath(documentId, newVersionNumber, file.getOriginalFilename());
-        try {
-            blobStorageService.upload(
-                    CONTAINER_NAME,
-                    blobPath,
-                    file.getInputStream(),
-                    file.getSize(),
-                    file.getContentType()
-            );
-        } catch (IOException e) {
-            log.error("Failed to upload file to blob storage", e);
-            throw new BadRequestException("Failed to upload file. Please try again.");
-        }
+        StoredOriginal stored = storeOriginal(documentId, newVersionNumber, file);
 
-        // Create new document version
-        DocumentVersion version = DocumentVersion.builder()
-                .document(document)
-                .versionNumber(newVersionNumber)
-                .filePath(blobPath)
-                .fileName(file.getOriginalFilename())
-                .fileSize(file.getSize())
-                .contentType(file.getContentType())
-                .build();
-        DocumentVersion savedVersion = documentVersionRepository.save(version);
+        DocumentVersion savedVersion = saveNextVersion(document, stored.filePath(), file.getOriginalFilename(),
+                file.getSize(), file.getContentType(), stored.contentHash());
 
-        // Update document's current version number
-        document.setCurrentVersionNumber(newVersionNumber);
-        documentRepository.save(document);
-
-        // Trigger async PDF rendition generation
-        renditionService.generatePdfRendition(savedVersion.getId());
+        log.info("Uploaded version {} for document: {}", newVersionNumber, documentId);
+        return documentMapper.toVersionDto(savedVersion);
+    }
 
-        // Trigger case study validation if document type is "Case Study"
-        if ("Case Study".equalsIgnoreCase(document.getDocumentType().getName())) {
-            caseStudyValidationService.validateCaseStudy(savedVersion.getId());
-        }
+    /**
+     * Adds a new version backed by a blob that was already committed to storage,
+     * e.g. by a chunked upload session.
+     */
+    @Transactional
+    public DocumentVersionDto addVersionFromStoredBlob(UUID documentId, String filePath, String fileName,
+                                                       long fileSize, String contentType, String contentHash) {
+        log.info("Adding version from stored blob '{}' for document: {}", filePath, documentId);
+        enforceWriteAccess(documentId);
+        Document document = documentRepository.findById(documentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Document", "id", documentId));
 
-        // Re-index if document was previously indexed
-        if (Boolean.TRUE.equals(document.getRagIndexed())) {
-            indexingService.indexDocument(documentId);
-        }
+        StoredOriginal stored = reuseStoredContent(documentId, document.getCurrentVersionNumber() + 1, filePath,
+                contentHash);
+        DocumentVersion savedVersion = saveNextVersion(document, stored.filePath(), fileName, fileSize, contentType,
+                stored.contentHash());
 
-        log.info("Uploaded version {} for document: {}", newVersionNumber, documentId);
+        log.info("Added version {} for document: {}", savedVersion.getVersionNumber(), documentId);
         return documentMapper.toVersionDto(savedVersion);
     }
 
@@ -414,11 +431,11 @@ public class DocumentService {
 
         if (newState) {
             // Don't set ragIndexed=true yet — IndexingService will set it on success
-            indexingService.indexDocument(id);
+            jobQueueService.enqueue(JobType.INDEXING, id);
         } else {
             document.setRagIndexed(false);
             documentRepository.save(document);
-            indexingService.removeFromIndex(id);
+            jobQueueService.enqueue(JobType.INDEX_REMOVAL, id);
         }
 
         String message = newState ? "Document queued for indexing" : "Document removed from search index";
@@ -441,20 +458,70 @@ public class DocumentService {
                 .toList();
     }
 
-    public InputStream downloadVersion(UUID documentId, Integer versionNumber) {
+    /**
+     * Streams a version's content from blob storage. Nothing is read until the result is subscribed to.
+     */
+    public Flux<ByteBuffer> downloadVersion(UUID documentId, Integer versionNumber) {
         log.info("Downloading version {} for document: {}", versionNumber, documentId);
         enforceReadAccess(documentId);
         DocumentVersion version = documentVersionRepository.findByDocumentIdAndVersionNumber(documentId, versionNumber)
                 .orElseThrow(() -> new ResourceNotFoundException("DocumentVersion", "versionNumber", versionNumber));
 
-        return blobStorageService.download(CONTAINER_NAME, version.getFilePath());
+        return reactiveBlobStorageService.download(CONTAINER_NAME, version.getFilePath());
+    }
+
+    /**
+     * Streams only the requested byte range of a version from blob storage, for HTTP Range requests.
+     */
+    public Flux<ByteBuffer> downloadVersionRange(UUID documentId, Integer versionNumber, long offset, long count) {
+        log.debug("Downloading bytes {}-{} of version {} for document: {}",
+                offset, offset + count - 1, versionNumber, documentId);
+        enforceReadAccess(documentId);
+        DocumentVersion version = documentVersionRepository.findByDocumentIdAndVersionNumber(documentId, versionNumber)
+                .orElseThrow(() -> new ResourceNotFoundException("DocumentVersion", "versionNumber", versionNumber));
+
+        return reactiveBlobStorageService.downloadRange(CONTAINER_NAME, version.getFilePath(), offset, count);
     }
 
     public DocumentVersion getDocumentVersion(UUID documentId, Integer versionNumber) {
+        enforceReadAccess(documentId);
         return documentVersionRepository.findByDocumentIdAndVersionNumber(documentId, versionNumber)
                 .orElseThrow(() -> new ResourceNotFoundException("DocumentVersion", "versionNumber", versionNumber));
     }
 
+    /**
+     * Returns the thumbnail URL of the current version of each document, in one query, for a page
+     * of {@link #list} results. Documents the caller cannot read, and those without a rendered
+     * thumbnail yet, are left out.
+     */
+    public List<DocumentThumbnailDto> getThumbnailUrls(List<UUID> documentIds) {
+        log.debug("Getting thumbnail URLs for {} documents", documentIds.size());
+        if (documentIds.size() > MAX_THUMBNAIL_BATCH) {
+            throw new BadRequestException("At most " + MAX_THUMBNAIL_BATCH + " documents can be requested at once");
+        }
+
+        Set<UUID> requested = new LinkedHashSet<>(documentIds);
+        UserPrincipal currentUser = currentUserService.getCurrentUser();
+        if (!"ADMIN".equalsIgnoreCase(currentUser.getRole())) {
+            requested.retainAll(aclService.getAccessibleResourceIds(
+                    UUID.fromString(currentUser.getUserId()), ResourceType.DOCUMENT, Permission.READ));
+        }
+        if (requested.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return renditionRepository
+                .findForCurrentVersions(requested, RenditionType.THUMBNAIL, RenditionStatus.COMPLETED)
+                .stream()
+                .map(rendition -> DocumentThumbnailDto.builder()
+                        .documentId(rendition.getDocumentVersion().getDocument().getId())
+                        .versionNumber(rendition.getDocumentVersion().getVersionNumber())
+                        .thumbnailUrl(blobStorageService.generateSasUrl(
+                                RENDITIONS_CONTAINER, rendition.getFilePath(), Duration.ofHours(1)))
+                        .build())
+                .toList();
+    }
+
     public DocumentViewDto getViewUrl(UUID documentId) {
         log.info("Getting view URL for document: {}", documentId);
         enforceReadAccess(documentId);
@@ -542,8 +609,30 @@ public class DocumentService {
     }
 
     private DocumentViewDto buildViewDtoForVersion(UUID documentId, DocumentVersion version) {
-        return renditionRepository
-                .findByDocumentVersionIdAndRenditionType(version.getId(), RenditionType.PDF)
+        Optional<Rendition> full = renditionRepository
+                .findByDocumentVersionIdAndRenditionType(version.getId(), RenditionType.PDF);
+        if (full.map(rendition -> rendition.getStatus() != RenditionStatus.COMPLETED).orElse(true)) {
+            // Someone is waiting on this version now, so its queued rendering jumps the backlog
+            jobQueueService.promote(version.getId(), JobPriority.INTERACTIVE);
+            // Until the full PDF is ready, show the first pages if they have been rendered
+            Optional<Rendition> preview = renditionRepository
+                    .findByDocumentVersionIdAndRenditionType(version.getId(), RenditionType.PDF_PREVIEW)
+                    .filter(rendition -> rendition.getStatus() == RenditionStatus.COMPLETED);
+            if (preview.isPresent()) {
+                String fullStatus = full.map(rendition -> rendition.getStatus().name()).orElse("PENDING");
+                return DocumentViewDto.builder()
+                        .documentId(documentId)
+                        .versionNumber(version.getVersionNumber())
+                        .viewUrl(blobStorageService.generateSasUrl(
+                                RENDITIONS_CONTAINER, preview.get().getFilePath(), Duration.ofHours(1)))
+                        .contentType("application/pdf")
+                        .status("PREVIEW")
+                        .preview(true)
+                        .message("Showing the first pages while the full PDF rendition is " + fullStatus.toLowerCase())
+                        .build();
+            }
+        }
+        return full
                 .map(rendition -> {
                     if (rendition.getStatus() == RenditionStatus.COMPLETED) {
                         String sasUrl = blobStorageService.generateSasUrl(
@@ -577,6 +666,10 @@ public class DocumentService {
         enforceReadAccess(documentId);
     }
 
+    public void checkWriteAccess(UUID documentId) {
+        enforceWriteAccess(documentId);
+    }
+
     private void enforceReadAccess(UUID documentId) {
         UserPrincipal user = currentUserService.getCurrentUser();
         if ("ADMIN".equalsIgnoreCase(user.getRole())) {
@@ -601,10 +694,145 @@ public class DocumentService {
         }
     }
 
+    private Document createDocument(CreateDocumentRequest request) {
+        return documentRepository.save(buildDocument(request, new HashMap<>(), new HashMap<>()));
+    }
+
+    // The lookup maps let a batch resolve each document type and folder only once
+    private Document buildDocument(CreateDocumentRequest request, Map<UUID, DocumentType> documentTypes,
+                                   Map<UUID, Folder> folders) {
+        DocumentType documentType = documentTypes.get(request.getDocumentTypeId());
+        if (documentType == null) {
+            documentType = documentTypeRepository.findById(request.getDocumentTypeId())
+                    .orElseThrow(() -> new ResourceNotFoundException("DocumentType", "id", request.getDocumentTypeId()));
+            documentTypes.put(documentType.getId(), documentType);
+        }
+
+        Document document = Document.builder()
+                .title(request.getTitle())
+                .customerName(request.getCustomerName())
+                .documentDate(request.getDocumentDate())
+                .status(DocumentStatus.ACTIVE)
+                .ragIndexed(false)
+                .currentVersionNumber(1)
+                .documentType(documentType)
+                .build();
+
+        if (request.getFolderId() != null) {
+            Folder folder = folders.get(request.getFolderId());
+            if (folder == null) {
+                folder = folderRepository.findById(request.getFolderId())
+                        .orElseThrow(() -> new ResourceNotFoundException("Folder", "id", request.getFolderId()));
+                folders.put(folder.getId(), folder);
+            }
+            document.setFolder(folder);
+        }
+
+        return document;
+    }
+
+    private DocumentVersion saveNextVersion(Document document, String filePath, String fileName, long fileSize,
+                                            String contentType, String contentHash) {
+        int newVersionNumber = document.getCurrentVersionNumber() + 1;
+        DocumentVersion savedVersion = saveVersion(document, newVersionNumber, filePath, fileName, fileSize,
+                contentType, contentHash);
+
+        // Update document's current version number
+        document.setCurrentVersionNumber(newVersionNumber);
+        documentRepository.save(document);
+        return savedVersion;
+    }
+
+    private DocumentVersion saveVersion(Document document, int versionNumber, String filePath, String fileName,
+                                        long fileSize, String contentType, String contentHash) {
+        DocumentVersion savedVersion = documentVersionRepository.save(
+                buildVersion(document, versionNumber, filePath, fileName, fileSize, contentType, contentHash));
+        startVersionProcessing(document, savedVersion);
+        return savedVersion;
+    }
+
+    private DocumentVersion buildVersion(Document document, int versionNumber, String filePath, String fileName,
+                                         long fileSize, String contentType, String contentHash) {
+        return DocumentVersion.builder()
+                .document(document)
+                .versionNumber(versionNumber)
+                .filePath(filePath)
+                .fileName(fileName)
+                .fileSize(fileSize)
+                .contentType(contentType)
+                .contentHash(contentHash)
+                .build();
+    }
+
+    private void startVersionProcessing(Document document, DocumentVersion savedVersion) {
+        startVersionProcessing(document, savedVersion, JobPriority.NORMAL);
+    }
+
+    private void startVersionProcessing(Document document, DocumentVersion savedVersion, JobPriority priority) {
+        Set<IngestStep> steps = EnumSet.of(IngestStep.PDF_RENDITION);
+        if (summarizeOnUpload) {
+            steps.add(IngestStep.SUMMARY);
+        }
+        if (document.getDocumentType() != null && "Case Study".equalsIgnoreCase(document.getDocumentType().getName())) {
+            steps.add(IngestStep.CASE_STUDY_VALIDATION);
+        }
+        // Re-index if document was previously indexed
+        if (Boolean.TRUE.equals(document.getRagIndexed())) {
+            steps.add(IngestStep.INDEX);
+        }
+
+        // Queued in this transaction, so the pipeline never starts on a version that was rolled back
+        ingestPipelineService.enqueue(savedVersion.getId(), steps, priority);
+    }
+
     private String buildBlobPath(UUID documentId, int versionNumber, String fileName) {
         return String.format("documents/%s/%d/%s", documentId, versionNumber, fileName);
     }
 
+    /**
+     * Uploads the original while hashing it. When a version with the same bytes already exists,
+     * the fresh copy is dropped and the new version points at the existing blob instead.
+     */
+    private StoredOriginal storeOriginal(UUID documentId, int versionNumber, MultipartFile file) {
+        String blobPath = buildBlobPath(documentId, versionNumber, file.getOriginalFilename());
+        String contentHash;
+        try (DigestInputStream hashingStream = ContentHashes.digesting(file.getInputStream())) {
+            blobStorageService.upload(
+                    CONTAINER_NAME,
+                    blobPath,
+                    hashingStream,
+                    file.getSize(),
+                    file.getContentType()
+            );
+            contentHash = ContentHashes.finish(hashingStream);
+        } catch (IOException e) {
+            log.error("Failed to upload file to blob storage", e);
+            throw new BadRequestException("Failed to upload file. Please try again.");
+        }
+
+        return reuseStoredContent(documentId, versionNumber, blobPath, contentHash);
+    }
+
+    /**
+     * Points a version whose bytes were just stored at {@code blobPath} at the blob of an existing
+     * version with the same content, if there is one, and drops the fresh copy.
+     */
+    private StoredOriginal reuseStoredContent(UUID documentId, int versionNumber, String blobPath, String contentHash) {
+        if (contentHash == null) {
+            return new StoredOriginal(blobPath, null);
+        }
+        Optional<DocumentVersion> duplicate = documentVersionRepository.findFirstByContentHashOrderByCreatedAtAsc(contentHash);
+        if (duplicate.isPresent() && !duplicate.get().getFilePath().equals(blobPath)) {
+            log.info("Content {} already stored at '{}', reusing it for document {} version {}",
+                    contentHash, duplicate.get().getFilePath(), documentId, versionNumber);
+            blobStorageService.delete(CONTAINER_NAME, blobPath);
+            return new StoredOriginal(duplicate.get().getFilePath(), contentHash);
+        }
+        return new StoredOriginal(blobPath, contentHash);
+    }
+
+    private record StoredOriginal(String filePath, String contentHash) {}
+
     private void createDocumentMetadata(Document document, CreateDocumentMetadataRequest request) {
         DocumentMetadata metadata = DocumentMetadata.builder()
                 .document(document)
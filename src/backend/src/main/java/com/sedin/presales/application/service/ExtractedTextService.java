@@ -0,0 +1,272 @@
+package com.sedin.presales.application.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sedin.presales.domain.entity.DocumentVersion;
+import com.sedin.presales.domain.entity.Rendition;
+import com.sedin.presales.domain.enums.RenditionStatus;
+import com.sedin.presales.domain.enums.RenditionType;
+import com.sedin.presales.domain.repository.RenditionRepository;
+import com.sedin.presales.infrastructure.ai.DocumentIntelligenceService;
+import com.sedin.presales.infrastructure.ai.ExtractedText;
+import com.sedin.presales.infrastructure.rendition.LocalTextExtractor;
+import com.sedin.presales.infrastructure.storage.BlobStorageService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the Document Intelligence extraction of each version as a {@link RenditionType#TEXT}
+ * rendition: the text and page boundaries as gzipped JSON, stored under the content hash so that
+ * identical bytes are only ever sent for analysis once. Summary and indexing both read the text
+ * from here instead of extracting it themselves.
+ * <p>
+ * Office documents and text-layer PDFs are first read locally by {@link LocalTextExtractor}. The
+ * result is kept unless it has fewer than {@code min-chars-per-page} characters per page on average
+ * or more than {@code max-image-only-ratio} of its pages are pictures without text, which points to
+ * a scan; only then is the original sent to Document Intelligence for OCR. The stored text records
+ * which of the two produced it, and each extraction counts on {@code text.extraction} by source.
+ * <p>
+ * {@link #extractAsync} does not hold the caller's thread while Document Intelligence works, so
+ * jobs can wait for OCR without occupying a worker. The original is never held in memory: the local
+ * attempt reads it as a stream, and OCR sends a temporary file that is deleted once it is done.
+ */
+@Slf4j
+@Service
+public class ExtractedTextService {
+
+    private static final String CONTAINER_RENDITIONS = "renditions";
+    private static final String CONTENT_TYPE = "application/gzip";
+
+    private final RenditionRepository renditionRepository;
+    private final DocumentIntelligenceService documentIntelligenceService;
+    private final LocalTextExtractor localTextExtractor;
+    private final BlobStorageService blobStorageService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.text-extraction.local.enabled:true}")
+    private boolean localEnabled;
+
+    @Value("${app.text-extraction.local.min-chars-per-page:20}")
+    private int minCharsPerPage;
+
+    @Value("${app.text-extraction.local.max-image-only-ratio:0.25}")
+    private double maxImageOnlyRatio;
+
+    public ExtractedTextService(RenditionRepository renditionRepository,
+                                DocumentIntelligenceService documentIntelligenceService,
+                                LocalTextExtractor localTextExtractor,
+                                BlobStorageService blobStorageService,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry) {
+        this.renditionRepository = renditionRepository;
+        this.documentIntelligenceService = documentIntelligenceService;
+        this.localTextExtractor = localTextExtractor;
+        this.blobStorageService = blobStorageService;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public String text(DocumentVersion version, Supplier<InputStream> original) {
+        return extract(version, original).content();
+    }
+
+    public CompletableFuture<String> textAsync(DocumentVersion version, Supplier<InputStream> original) {
+        return extractAsync(version, original).thenApply(ExtractedText::content);
+    }
+
+    /**
+     * Returns the stored extraction of the version, or of another version with the same content,
+     * and only extracts {@code original} when there is none. Failing to read or store the artifact
+     * falls back to extracting, so it never fails the caller.
+     */
+    public ExtractedText extract(DocumentVersion version, Supplier<InputStream> original) {
+        try {
+            return extractAsync(version, original).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Like {@link #extract}, but returns as soon as the text has been sent for OCR: the calling
+     * thread does the lookups, the download and the local attempt, and nothing waits on Document
+     * Intelligence while it analyzes the original.
+     */
+    public CompletableFuture<ExtractedText> extractAsync(DocumentVersion version, Supplier<InputStream> original) {
+        Optional<Rendition> existing = renditionRepository
+                .findByDocumentVersionIdAndRenditionType(version.getId(), RenditionType.TEXT);
+        if (existing.isPresent() && existing.get().getStatus() == RenditionStatus.COMPLETED) {
+            ExtractedText stored = read(existing.get().getFilePath());
+            if (stored != null) {
+                return CompletableFuture.completedFuture(stored);
+            }
+        }
+
+        String blobPath = blobPath(version);
+        if (version.getContentHash() != null && exists(blobPath)) {
+            ExtractedText stored = read(blobPath);
+            if (stored != null) {
+                log.info("Reusing extracted text '{}' for document version: {}", blobPath, version.getId());
+                record(version, existing, blobPath, null);
+                return CompletableFuture.completedFuture(stored);
+            }
+        }
+
+        ExtractedText local = extractLocally(version, original);
+        if (local != null) {
+            return CompletableFuture.completedFuture(extracted(version, existing, blobPath, local));
+        }
+        Path spooled;
+        try {
+            spooled = spool(original);
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(new RuntimeException("Failed to read document for text extraction", e));
+        }
+        return documentIntelligenceService.analyzeAsync(spooled, version.getContentType())
+                .map(extracted -> extracted(version, existing, blobPath, extracted))
+                .doFinally(signal -> deleteQuietly(spooled))
+                .toFuture();
+    }
+
+    private static Path spool(Supplier<InputStream> original) throws IOException {
+        Path spooled = Files.createTempFile("extract-", ".original");
+        try (InputStream in = original.get()) {
+            Files.copy(in, spooled, StandardCopyOption.REPLACE_EXISTING);
+            return spooled;
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(spooled);
+            throw e;
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete local copy {}", path, e);
+        }
+    }
+
+    private ExtractedText extracted(DocumentVersion version, Optional<Rendition> existing, String blobPath,
+                                    ExtractedText extracted) {
+        counter(extracted.source(), version.getContentType()).increment();
+        if (extracted.content() != null && !extracted.content().isBlank()) {
+            store(version, existing, blobPath, extracted);
+        }
+        return extracted;
+    }
+
+    private ExtractedText extractLocally(DocumentVersion version, Supplier<InputStream> original) {
+        if (!localEnabled || !LocalTextExtractor.supports(version.getContentType())) {
+            return null;
+        }
+        try (InputStream in = original.get()) {
+            LocalTextExtractor.Result result = localTextExtractor.extract(in, version.getContentType());
+            if (readable(result)) {
+                return result.text();
+            }
+            log.info("Local text of document version: {} needs OCR, {} characters over {} pages, {} image-only",
+                    version.getId(), result.textCharacters(), result.pageCount(), result.imageOnlyPages());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Local text extraction failed for document version: {}, using Document Intelligence",
+                    version.getId(), e);
+        }
+        return null;
+    }
+
+    boolean readable(LocalTextExtractor.Result result) {
+        int pages = result.pageCount();
+        if (pages == 0) {
+            return false;
+        }
+        return result.textCharacters() >= (long) minCharsPerPage * pages
+                && result.imageOnlyPages() <= maxImageOnlyRatio * pages;
+    }
+
+    private Counter counter(ExtractedText.Source source, String contentType) {
+        return Counter.builder("text.extraction")
+                .description("Texts extracted from originals, by the extractor that produced them")
+                .tag("source", source.name().toLowerCase(Locale.ROOT))
+                .tag("content.type", contentType != null ? contentType : "unknown")
+                .register(meterRegistry);
+    }
+
+    private void store(DocumentVersion version, Optional<Rendition> existing, String blobPath, ExtractedText extracted) {
+        try {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                objectMapper.writeValue(gzip, extracted);
+            }
+            byte[] bytes = compressed.toByteArray();
+            blobStorageService.upload(CONTAINER_RENDITIONS, blobPath, new ByteArrayInputStream(bytes), bytes.length,
+                    CONTENT_TYPE);
+            record(version, existing, blobPath, (long) bytes.length);
+            log.info("Stored {} text for document version: {} at '{}', {} characters in {} bytes",
+                    extracted.source(), version.getId(), blobPath, extracted.content().length(), bytes.length);
+        } catch (Exception e) {
+            log.warn("Failed to store extracted text for document version: {}", version.getId(), e);
+        }
+    }
+
+    private void record(DocumentVersion version, Optional<Rendition> existing, String blobPath, Long fileSize) {
+        Rendition rendition = existing.orElseGet(() -> Rendition.builder()
+                .renditionType(RenditionType.TEXT)
+                .documentVersion(version)
+                .build());
+        rendition.setStatus(RenditionStatus.COMPLETED);
+        rendition.setFilePath(blobPath);
+        rendition.setFileSize(fileSize);
+        rendition.setErrorMessage(null);
+        try {
+            renditionRepository.save(rendition);
+        } catch (RuntimeException e) {
+            log.warn("Failed to record extracted text for document version: {}", version.getId(), e);
+        }
+    }
+
+    private boolean exists(String blobPath) {
+        try {
+            return blobStorageService.exists(CONTAINER_RENDITIONS, blobPath);
+        } catch (Exception e) {
+            log.warn("Failed to look up extracted text '{}'", blobPath, e);
+            return false;
+        }
+    }
+
+    private ExtractedText read(String blobPath) {
+        try (InputStream in = new GZIPInputStream(blobStorageService.download(CONTAINER_RENDITIONS, blobPath))) {
+            return objectMapper.readValue(in, ExtractedText.class);
+        } catch (Exception e) {
+            log.warn("Failed to read extracted text '{}', extracting again", blobPath, e);
+            return null;
+        }
+    }
+
+    private static String blobPath(DocumentVersion version) {
+        if (version.getContentHash() != null) {
+            return String.format("text/%s.json.gz", version.getContentHash());
+        }
+        return String.format("text/versions/%s.json.gz", version.getId());
+    }
+}
@@ -1,26 +1,29 @@
 package com.sedin.presales.application.service;
 
 import com.azure.search.documents.SearchDocument;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sedin.presales.domain.entity.Document;
 import com.sedin.presales.domain.entity.DocumentMetadata;
 import com.sedin.presales.domain.entity.DocumentVersion;
 import com.sedin.presales.domain.repository.DocumentMetadataRepository;
 import com.sedin.presales.domain.repository.DocumentRepository;
 import com.sedin.presales.domain.repository.DocumentVersionRepository;
-import com.sedin.presales.infrastructure.ai.DocumentIntelligenceService;
 import com.sedin.presales.infrastructure.ai.EmbeddingService;
 import com.sedin.presales.infrastructure.search.AzureSearchService;
 import com.sedin.presales.infrastructure.storage.BlobStorageService;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -35,27 +38,35 @@ public class IndexingService {
     private final DocumentVersionRepository documentVersionRepository;
     private final DocumentMetadataRepository documentMetadataRepository;
     private final BlobStorageService blobStorageService;
-    private final DocumentIntelligenceService documentIntelligenceService;
+    private final ExtractedTextService extractedTextService;
     private final EmbeddingService embeddingService;
     private final AzureSearchService azureSearchService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${azure.storage.container-embeddings}")
+    private String containerEmbeddings;
+
+    @Value("${azure.openai.embedding-deployment}")
+    private String embeddingDeployment;
 
     public IndexingService(DocumentRepository documentRepository,
                            DocumentVersionRepository documentVersionRepository,
                            DocumentMetadataRepository documentMetadataRepository,
                            BlobStorageService blobStorageService,
-                           DocumentIntelligenceService documentIntelligenceService,
+                           ExtractedTextService extractedTextService,
                            EmbeddingService embeddingService,
-                           AzureSearchService azureSearchService) {
+                           AzureSearchService azureSearchService,
+                           ObjectMapper objectMapper) {
         this.documentRepository = documentRepository;
         this.documentVersionRepository = documentVersionRepository;
         this.documentMetadataRepository = documentMetadataRepository;
         this.blobStorageService = blobStorageService;
-        this.documentIntelligenceService = documentIntelligenceService;
+        this.extractedTextService = extractedTextService;
         this.embeddingService = embeddingService;
         this.azureSearchService = azureSearchService;
+        this.objectMapper = objectMapper;
     }
 
-    @Async("indexingExecutor")
     @Transactional
     public void indexDocument(UUID documentId) {
         log.info("Starting indexing for document: {}", documentId);
@@ -67,9 +78,62 @@ public class IndexingService {
                     .findByDocumentIdAndVersionNumber(documentId, document.getCurrentVersionNumber())
                     .orElseThrow(() -> new RuntimeException("Version not found for document: " + documentId));
 
-            // Download file and extract text
-            InputStream fileStream = blobStorageService.download(CONTAINER_NAME, version.getFilePath());
-            String extractedText = documentIntelligenceService.extractText(fileStream, version.getContentType());
+            index(document, version, null);
+        } catch (Exception e) {
+            log.error("Failed to index document: {}", documentId, e);
+            markNotIndexed(documentId);
+        }
+    }
+
+    /**
+     * Extracts the text of the current version ahead of {@link #indexDocument}, so that the job finds
+     * it stored, without holding the caller's thread while it is sent for OCR. Completes at once when
+     * the content already has embeddings; extraction failures are left for the job to run into.
+     */
+    public CompletableFuture<Void> prepareText(UUID documentId) {
+        Optional<DocumentVersion> version = documentRepository.findById(documentId)
+                .flatMap(document -> documentVersionRepository
+                        .findByDocumentIdAndVersionNumber(documentId, document.getCurrentVersionNumber()));
+        if (version.isEmpty() || chunkEmbeddingsExist(version.get().getContentHash())) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String filePath = version.get().getFilePath();
+        return extractedTextService
+                .extractAsync(version.get(), () -> blobStorageService.download(CONTAINER_NAME, filePath))
+                .handle((text, error) -> null);
+    }
+
+    /**
+     * Indexes a specific version synchronously, taking its text from {@code extractedText} when the
+     * caller has already extracted it. A null supplier reads the stored text of the version.
+     */
+    @Transactional
+    public void indexVersion(UUID documentVersionId, Supplier<String> extractedText) {
+        log.info("Starting indexing for document version: {}", documentVersionId);
+        DocumentVersion version = documentVersionRepository.findById(documentVersionId)
+                .orElseThrow(() -> new RuntimeException("Version not found: " + documentVersionId));
+        Document document = version.getDocument();
+        try {
+            index(document, version, extractedText);
+        } catch (Exception e) {
+            log.error("Failed to index document: {}", document.getId(), e);
+            markNotIndexed(document.getId());
+        }
+    }
+
+    private void index(Document document, DocumentVersion version, Supplier<String> extractedTextSource) {
+        UUID documentId = document.getId();
+        // Identical content was embedded before, reuse its chunks instead of extracting again
+        ChunkEmbeddings chunkEmbeddings = loadChunkEmbeddings(version.getContentHash());
+        if (chunkEmbeddings == null) {
+            String extractedText;
+            if (extractedTextSource != null) {
+                extractedText = extractedTextSource.get();
+            } else {
+                // Stored text of the version, the original is only downloaded if it was never extracted
+                extractedText = extractedTextService.text(version,
+                        () -> blobStorageService.download(CONTAINER_NAME, version.getFilePath()));
+            }
 
             if (extractedText == null || extractedText.isBlank()) {
                 log.warn("No text extracted for document: {}, skipping indexing", documentId);
@@ -77,74 +141,76 @@ public class IndexingService {
             }
 
             // Chunk text
-            List<String> chunks = chunkText(extractedText, CHUNK_SIZE, CHUNK_OVERLAP);
-            log.info("Document {} split into {} chunks", documentId, chunks.size());
+            List<String> extractedChunks = chunkText(extractedText, CHUNK_SIZE, CHUNK_OVERLAP);
+            log.info("Document {} split into {} chunks", documentId, extractedChunks.size());
 
             // Generate embeddings for all chunks
-            List<List<Float>> embeddings = embeddingService.generateEmbeddings(chunks);
+            chunkEmbeddings = new ChunkEmbeddings(extractedChunks, embeddingService.generateEmbeddings(extractedChunks));
+            storeChunkEmbeddings(version.getContentHash(), chunkEmbeddings);
+        }
+        List<String> chunks = chunkEmbeddings.chunks();
+        List<List<Float>> embeddings = chunkEmbeddings.embeddings();
 
-            // Build metadata context
-            Optional<DocumentMetadata> metadataOpt = documentMetadataRepository.findByDocumentId(documentId);
+        // Build metadata context
+        Optional<DocumentMetadata> metadataOpt = documentMetadataRepository.findByDocumentId(documentId);
 
-            // Delete existing chunks first
-            azureSearchService.deleteDocumentChunks(documentId.toString());
+        // Delete existing chunks first
+        azureSearchService.deleteDocumentChunks(documentId.toString());
 
-            // Build search documents
-            List<SearchDocument> searchDocuments = new ArrayList<>();
-            for (int i = 0; i < chunks.size(); i++) {
-                SearchDocument searchDoc = new SearchDocument();
-                searchDoc.put("id", documentId + "_chunk_" + i);
-                searchDoc.put("documentId", documentId.toString());
-                searchDoc.put("versionId", version.getId().toString());
-                searchDoc.put("chunkIndex", i);
-                searchDoc.put("title", document.getTitle());
-                searchDoc.put("content", chunks.get(i));
-                searchDoc.put("contentVector", embeddings.get(i));
-                searchDoc.put("customerName", document.getCustomerName());
-
-                if (document.getDocumentType() != null) {
-                    searchDoc.put("documentType", document.getDocumentType().getName());
-                }
+        // Build search documents
+        List<SearchDocument> searchDocuments = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            SearchDocument searchDoc = new SearchDocument();
+            searchDoc.put("id", documentId + "_chunk_" + i);
+            searchDoc.put("documentId", documentId.toString());
+            searchDoc.put("versionId", version.getId().toString());
+            searchDoc.put("chunkIndex", i);
+            searchDoc.put("title", document.getTitle());
+            searchDoc.put("content", chunks.get(i));
+            searchDoc.put("contentVector", embeddings.get(i));
+            searchDoc.put("customerName", document.getCustomerName());
 
-                metadataOpt.ifPresent(metadata -> {
-                    if (metadata.getDomain() != null) searchDoc.put("domain", metadata.getDomain().getName());
-                    if (metadata.getIndustry() != null) searchDoc.put("industry", metadata.getIndustry().getName());
-                    if (metadata.getBusinessUnit() != null) searchDoc.put("businessUnit", metadata.getBusinessUnit().getName());
-                    if (metadata.getSbu() != null) searchDoc.put("sbu", metadata.getSbu().getName());
-                    if (metadata.getTechnologies() != null && !metadata.getTechnologies().isEmpty()) {
-                        searchDoc.put("technologies", metadata.getTechnologies().stream()
-                                .map(t -> t.getName()).collect(Collectors.toList()));
-                    }
-                });
-
-                searchDoc.put("createdDate", document.getCreatedAt());
-                searchDocuments.add(searchDoc);
+            if (document.getDocumentType() != null) {
+                searchDoc.put("documentType", document.getDocumentType().getName());
             }
 
-            // Upload to search index
-            azureSearchService.uploadDocuments(searchDocuments);
+            metadataOpt.ifPresent(metadata -> {
+                if (metadata.getDomain() != null) searchDoc.put("domain", metadata.getDomain().getName());
+                if (metadata.getIndustry() != null) searchDoc.put("industry", metadata.getIndustry().getName());
+                if (metadata.getBusinessUnit() != null) searchDoc.put("businessUnit", metadata.getBusinessUnit().getName());
+                if (metadata.getSbu() != null) searchDoc.put("sbu", metadata.getSbu().getName());
+                if (metadata.getTechnologies() != null && !metadata.getTechnologies().isEmpty()) {
+                    searchDoc.put("technologies", metadata.getTechnologies().stream()
+                            .map(t -> t.getName()).collect(Collectors.toList()));
+                }
+            });
 
-            // Update rag_indexed flag
-            document.setRagIndexed(true);
-            documentRepository.save(document);
+            searchDoc.put("createdDate", document.getCreatedAt());
+            searchDocuments.add(searchDoc);
+        }
 
-            log.info("Successfully indexed document: {} with {} chunks", documentId, chunks.size());
+        // Upload to search index
+        azureSearchService.uploadDocuments(searchDocuments);
 
-        } catch (Exception e) {
-            log.error("Failed to index document: {}", documentId, e);
-            try {
-                Document doc = documentRepository.findById(documentId).orElse(null);
-                if (doc != null) {
-                    doc.setRagIndexed(false);
-                    documentRepository.save(doc);
-                }
-            } catch (Exception rollbackEx) {
-                log.error("Failed to reset ragIndexed flag for document: {}", documentId, rollbackEx);
+        // Update rag_indexed flag
+        document.setRagIndexed(true);
+        documentRepository.save(document);
+
+        log.info("Successfully indexed document: {} with {} chunks", documentId, chunks.size());
+    }
+
+    private void markNotIndexed(UUID documentId) {
+        try {
+            Document doc = documentRepository.findById(documentId).orElse(null);
+            if (doc != null) {
+                doc.setRagIndexed(false);
+                documentRepository.save(doc);
             }
+        } catch (Exception rollbackEx) {
+            log.error("Failed to reset ragIndexed flag for document: {}", documentId, rollbackEx);
         }
     }
 
-    @Async("indexingExecutor")
     @Transactional
     public void removeFromIndex(UUID documentId) {
         log.info("Removing document from index: {}", documentId);
@@ -162,6 +228,59 @@ public class IndexingService {
         }
     }
 
+    private boolean chunkEmbeddingsExist(String contentHash) {
+        if (contentHash == null) {
+            return false;
+        }
+        try {
+            return blobStorageService.exists(containerEmbeddings, chunkEmbeddingsPath(contentHash));
+        } catch (Exception e) {
+            log.warn("Failed to look up cached chunk embeddings for content {}", contentHash, e);
+            return false;
+        }
+    }
+
+    private ChunkEmbeddings loadChunkEmbeddings(String contentHash) {
+        if (contentHash == null) {
+            return null;
+        }
+        String blobPath = chunkEmbeddingsPath(contentHash);
+        try {
+            if (!blobStorageService.exists(containerEmbeddings, blobPath)) {
+                return null;
+            }
+            try (InputStream inputStream = blobStorageService.download(containerEmbeddings, blobPath)) {
+                ChunkEmbeddings cached = objectMapper.readValue(inputStream, ChunkEmbeddings.class);
+                log.info("Reusing {} cached chunk embeddings for content {}", cached.chunks().size(), contentHash);
+                return cached;
+            }
+        } catch (Exception e) {
+            log.warn("Failed to read cached chunk embeddings for content {}, regenerating", contentHash, e);
+            return null;
+        }
+    }
+
+    private void storeChunkEmbeddings(String contentHash, ChunkEmbeddings chunkEmbeddings) {
+        if (contentHash == null) {
+            return;
+        }
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(chunkEmbeddings);
+            blobStorageService.upload(containerEmbeddings, chunkEmbeddingsPath(contentHash),
+                    new ByteArrayInputStream(json), json.length, "application/octet-stream");
+        } catch (Exception e) {
+            log.warn("Failed to cache chunk embeddings for content {}", contentHash, e);
+        }
+    }
+
+    // Keyed by deployment too: vectors from another embedding model are not comparable with the index
+    private String chunkEmbeddingsPath(String contentHash) {
+        return String.format("embeddings/%s/%s/chunks-%d-%d.json", contentHash, embeddingDeployment,
+                CHUNK_SIZE, CHUNK_OVERLAP);
+    }
+
+    record ChunkEmbeddings(List<String> chunks, List<List<Float>> embeddings) {}
+
     // Visible for testing
     List<String> chunkText(String text, int chunkSize, int overlap) {
         List<String> chunks = new ArrayList<>();
@@ -0,0 +1,147 @@
+package com.sedin.presales.application.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Artifacts parsed from one document version and shared by the steps of an ingest pipeline run.
+ * Each artifact is produced at most once, on first request: concurrent callers wait for the same
+ * result, and steps that never ask for an artifact never pay for it. The extracted texts both
+ * depend on the original, so the file is downloaded once however many steps need it, to a local
+ * file that each reader opens its own stream over rather than into memory. The text extractor is
+ * handed the download lazily, since stored text may make it unnecessary, and returns a future so
+ * that steps needing the text can be started once it is there rather than wait for OCR on a thread.
+ * <p>
+ * Producing an artifact and running a step are both timed under their name in {@link #timings()}.
+ * {@link #close()} deletes the downloaded file once the run no longer reads it.
+ */
+class IngestArtifacts implements AutoCloseable {
+
+    static final String DOWNLOAD = "download";
+    static final String EXTRACT_TEXT = "extract-text";
+    static final String EXTRACT_SLIDE_TEXT = "extract-slide-text";
+
+    private final Supplier<Path> downloader;
+    private final Function<Supplier<InputStream>, CompletableFuture<String>> textExtractor;
+    private final Function<InputStream, String> slideTextExtractor;
+
+    private final Map<String, CompletableFuture<Object>> artifacts = new ConcurrentHashMap<>();
+    private final Map<String, Long> timings = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    IngestArtifacts(Supplier<Path> downloader, Function<Supplier<InputStream>, CompletableFuture<String>> textExtractor,
+                    Function<InputStream, String> slideTextExtractor) {
+        this.downloader = downloader;
+        this.textExtractor = textExtractor;
+        this.slideTextExtractor = slideTextExtractor;
+    }
+
+    /**
+     * Opens a new stream over the downloaded original, downloading it first if no step has yet.
+     */
+    InputStream openOriginal() {
+        Path original = artifact(DOWNLOAD, downloader);
+        try {
+            return Files.newInputStream(original);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open downloaded original " + original, e);
+        }
+    }
+
+    String text() {
+        return join(textAsync());
+    }
+
+    CompletableFuture<String> textAsync() {
+        return artifactAsync(EXTRACT_TEXT, () -> textExtractor.apply(this::openOriginal));
+    }
+
+    String slideText() {
+        artifact(DOWNLOAD, downloader);
+        return artifact(EXTRACT_SLIDE_TEXT, () -> {
+            try (InputStream in = openOriginal()) {
+                return slideTextExtractor.apply(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read downloaded original", e);
+            }
+        });
+    }
+
+    <T> T timed(String name, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            timings.put(name, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    Map<String, Long> timings() {
+        synchronized (timings) {
+            return new LinkedHashMap<>(timings);
+        }
+    }
+
+    @Override
+    public void close() {
+        CompletableFuture<Object> download = artifacts.get(DOWNLOAD);
+        if (download == null || !download.isDone() || download.isCompletedExceptionally()) {
+            return;
+        }
+        Path original = (Path) download.join();
+        try {
+            Files.deleteIfExists(original);
+        } catch (IOException e) {
+            // Left for the temp directory's own cleanup
+        }
+    }
+
+    private <T> T artifact(String name, Supplier<T> producer) {
+        return join(artifactAsync(name, () -> CompletableFuture.completedFuture(producer.get())));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> artifactAsync(String name, Supplier<CompletableFuture<T>> producer) {
+        CompletableFuture<Object> produced = new CompletableFuture<>();
+        CompletableFuture<Object> existing = artifacts.putIfAbsent(name, produced);
+        if (existing != null) {
+            return (CompletableFuture<T>) existing;
+        }
+        long start = System.nanoTime();
+        try {
+            producer.get().whenComplete((value, error) -> {
+                timings.put(name, (System.nanoTime() - start) / 1_000_000);
+                if (error != null) {
+                    produced.completeExceptionally(error);
+                } else {
+                    produced.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            timings.put(name, (System.nanoTime() - start) / 1_000_000);
+            produced.completeExceptionally(e);
+        }
+        return (CompletableFuture<T>) produced;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
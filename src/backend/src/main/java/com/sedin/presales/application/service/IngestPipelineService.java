@@ -0,0 +1,224 @@
+package com.sedin.presales.application.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sedin.presales.application.exception.ResourceNotFoundException;
+import com.sedin.presales.domain.entity.DocumentVersion;
+import com.sedin.presales.domain.enums.IngestStep;
+import com.sedin.presales.domain.enums.JobPriority;
+import com.sedin.presales.domain.enums.JobType;
+import com.sedin.presales.domain.repository.DocumentVersionRepository;
+import com.sedin.presales.infrastructure.rendition.ConversionPriority;
+import com.sedin.presales.infrastructure.rendition.PptTextExtractor;
+import com.sedin.presales.infrastructure.storage.BlobStorageService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * Produces every derived artifact of a new document version from a single download of the
+ * original. The requested steps run in parallel on {@code ingestStepExecutor} and draw on shared
+ * {@link IngestArtifacts}: the PDF rendition reads the downloaded original, summary and indexing share
+ * the text kept by {@link ExtractedTextService}, and case-study validation uses the slide text. How long
+ * each artifact and step took is stored on the version as {@code ingest_timings}.
+ * <p>
+ * Runs are queued as {@link JobType#INGEST} jobs and executed by {@link JobWorker}, which holds
+ * the job until the future returned by {@link #run} completes but not the thread that started it.
+ */
+@Slf4j
+@Service
+public class IngestPipelineService {
+
+    static final String TOTAL = "total";
+
+    private static final String CONTAINER_DOCUMENTS = "documents";
+
+    private final DocumentVersionRepository documentVersionRepository;
+    private final BlobStorageService blobStorageService;
+    private final ExtractedTextService extractedTextService;
+    private final PptTextExtractor pptTextExtractor;
+    private final RenditionService renditionService;
+    private final SummaryService summaryService;
+    private final CaseStudyValidationService caseStudyValidationService;
+    private final IndexingService indexingService;
+    private final ObjectMapper objectMapper;
+    private final JobQueueService jobQueueService;
+    private final Executor ingestStepExecutor;
+
+    public IngestPipelineService(DocumentVersionRepository documentVersionRepository,
+                                 BlobStorageService blobStorageService,
+                                 ExtractedTextService extractedTextService,
+                                 PptTextExtractor pptTextExtractor,
+                                 RenditionService renditionService,
+                                 SummaryService summaryService,
+                                 CaseStudyValidationService caseStudyValidationService,
+                                 IndexingService indexingService,
+                                 ObjectMapper objectMapper,
+                                 JobQueueService jobQueueService,
+                                 @Qualifier("ingestStepExecutor") Executor ingestStepExecutor) {
+        this.documentVersionRepository = documentVersionRepository;
+        this.blobStorageService = blobStorageService;
+        this.extractedTextService = extractedTextService;
+        this.pptTextExtractor = pptTextExtractor;
+        this.renditionService = renditionService;
+        this.summaryService = summaryService;
+        this.caseStudyValidationService = caseStudyValidationService;
+        this.indexingService = indexingService;
+        this.objectMapper = objectMapper;
+        this.jobQueueService = jobQueueService;
+        this.ingestStepExecutor = ingestStepExecutor;
+    }
+
+    /**
+     * Queues a pipeline run over {@code steps}. It becomes visible to workers when the caller's
+     * transaction commits.
+     */
+    public void enqueue(UUID documentVersionId, Set<IngestStep> steps) {
+        enqueue(documentVersionId, steps, JobPriority.NORMAL);
+    }
+
+    public void enqueue(UUID documentVersionId, Set<IngestStep> steps, JobPriority priority) {
+        jobQueueService.enqueue(JobType.INGEST, documentVersionId, stepsPayload(steps), priority);
+    }
+
+    /**
+     * Starts the requested steps and returns without waiting for them: the returned future
+     * completes once every step has finished and the timings are saved. Steps fail on their own, so
+     * it only fails when the version does not exist or the steps could not be scheduled. Conversions
+     * made by the steps wait for a worker at the job's {@code priority}.
+     */
+    CompletableFuture<Void> run(UUID documentVersionId, Set<IngestStep> steps, JobPriority priority) {
+        log.info("Starting ingest pipeline {} for document version: {}", steps, documentVersionId);
+        DocumentVersion version = documentVersionRepository.findById(documentVersionId)
+                .orElseThrow(() -> new ResourceNotFoundException("DocumentVersion", "id", documentVersionId));
+        String filePath = version.getFilePath();
+
+        IngestArtifacts artifacts = new IngestArtifacts(
+                () -> download(filePath),
+                original -> extractedTextService.textAsync(version, original),
+                pptTextExtractor::extractText);
+
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        for (IngestStep step : steps) {
+            running.add(ready(step, artifacts, priority)
+                    .thenRunAsync(() -> ConversionPriority.run(priority, () -> runStep(step, documentVersionId, artifacts)),
+                            ingestStepExecutor));
+        }
+        return CompletableFuture.allOf(running.toArray(new CompletableFuture[0]))
+                .whenComplete((ignored, error) -> {
+                    artifacts.close();
+                    Map<String, Long> timings = artifacts.timings();
+                    timings.put(TOTAL, (System.nanoTime() - start) / 1_000_000);
+                    saveTimings(documentVersionId, timings);
+                    log.info("Ingest pipeline finished for document version: {} in {} ms, timings: {}",
+                            documentVersionId, timings.get(TOTAL), timings);
+                });
+    }
+
+    /**
+     * Completes when the step can run without waiting on OCR. Text extraction is started on the
+     * step executor, and steps that need the text are only handed a thread once it is there; a
+     * failed extraction still lets them run, so that each reports the failure as its own.
+     */
+    private CompletableFuture<Void> ready(IngestStep step, IngestArtifacts artifacts, JobPriority priority) {
+        if (step != IngestStep.SUMMARY && step != IngestStep.INDEX) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.supplyAsync(() -> ConversionPriority.call(priority, artifacts::textAsync), ingestStepExecutor)
+                .thenCompose(text -> text)
+                .handle((text, error) -> null);
+    }
+
+    // Steps are isolated from each other: one failing must not cancel or fail the rest
+    private void runStep(IngestStep step, UUID documentVersionId, IngestArtifacts artifacts) {
+        try {
+            artifacts.timed(stepName(step), () -> {
+                switch (step) {
+                    case PDF_RENDITION -> {
+                        // The preview commits on its own so it can be viewed while the full PDF converts
+                        renditionService.processPreview(documentVersionId, artifacts::openOriginal);
+                        renditionService.processRendition(documentVersionId, artifacts::openOriginal);
+                    }
+                    case SUMMARY -> summaryService.processSummary(documentVersionId, artifacts::text);
+                    case CASE_STUDY_VALIDATION -> caseStudyValidationService.validate(documentVersionId, artifacts::slideText);
+                    case INDEX -> indexingService.indexVersion(documentVersionId, artifacts::text);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Ingest step {} failed for document version: {}", step, documentVersionId, e);
+        }
+    }
+
+    // Spooled to disk so that a 300 MB deck costs each step a file handle rather than a heap copy
+    private Path download(String filePath) {
+        log.info("Downloading original file once for ingest from path: {}", filePath);
+        Path original;
+        try {
+            original = Files.createTempFile("ingest-", ".original");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create a local file for " + filePath, e);
+        }
+        try (InputStream in = blobStorageService.download(CONTAINER_DOCUMENTS, filePath)) {
+            Files.copy(in, original, StandardCopyOption.REPLACE_EXISTING);
+            return original;
+        } catch (IOException e) {
+            deleteQuietly(original);
+            throw new UncheckedIOException("Failed to download original file " + filePath, e);
+        } catch (RuntimeException e) {
+            deleteQuietly(original);
+            throw e;
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete local copy {}", path, e);
+        }
+    }
+
+    private void saveTimings(UUID documentVersionId, Map<String, Long> timings) {
+        try {
+            documentVersionRepository.updateIngestTimings(documentVersionId, objectMapper.writeValueAsString(timings));
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Failed to record ingest timings for document version: {}", documentVersionId, e);
+        }
+    }
+
+    static String stepsPayload(Set<IngestStep> steps) {
+        return steps.stream().map(IngestStep::name).collect(Collectors.joining(","));
+    }
+
+    static Set<IngestStep> parseSteps(String payload) {
+        Set<IngestStep> steps = EnumSet.noneOf(IngestStep.class);
+        if (payload != null && !payload.isBlank()) {
+            Arrays.stream(payload.split(",")).map(IngestStep::valueOf).forEach(steps::add);
+        }
+        return steps;
+    }
+
+    static String stepName(IngestStep step) {
+        return step.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
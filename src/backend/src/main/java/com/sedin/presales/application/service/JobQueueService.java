@@ -0,0 +1,250 @@
+package com.sedin.presales.application.service;
+
+import com.sedin.presales.domain.entity.Job;
+import com.sedin.presales.domain.enums.JobPriority;
+import com.sedin.presales.domain.enums.JobStatus;
+import com.sedin.presales.domain.enums.JobType;
+import com.sedin.presales.domain.repository.JobRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Durable queue of background work, stored in the {@code jobs} table. Enqueueing joins the caller's
+ * transaction, so a job only becomes visible once the data it refers to is committed, and is never
+ * lost to a redeploy.
+ * <p>
+ * Workers claim jobs with {@code FOR UPDATE SKIP LOCKED}, so any number of nodes can poll the same
+ * table. A claimed job is leased for {@code visibility-timeout}; if its worker dies, the lease runs
+ * out and another worker picks the job up. Failures are retried with exponential backoff until
+ * {@code max-attempts} is reached, after which the job is dead-lettered with its last error.
+ * <p>
+ * Each job has a {@link JobPriority}. Claims take jobs in order of due time less the head start
+ * configured for their class under {@code app.jobs.priority.head-start}, stored on the job as
+ * {@code effective_run_at} whenever it is queued, promoted or retried, so interactive work goes
+ * ahead of uploads and uploads ahead of background work, yet a waiting job only ever falls behind
+ * by the difference in head starts. Workers claim no more than they can start, so this order is
+ * the order jobs run in. How long due jobs wait to be claimed is recorded per type and class as
+ * {@code jobs.queue.wait}.
+ */
+@Slf4j
+@Service
+public class JobQueueService {
+
+    private final JobRepository jobRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.jobs.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.jobs.visibility-timeout:PT10M}")
+    private Duration visibilityTimeout;
+
+    @Value("${app.jobs.backoff.initial:PT30S}")
+    private Duration initialBackoff;
+
+    @Value("${app.jobs.backoff.max:PT30M}")
+    private Duration maxBackoff;
+
+    @Value("${app.jobs.priority.head-start.interactive:PT1H}")
+    private Duration interactiveHeadStart;
+
+    @Value("${app.jobs.priority.head-start.normal:PT10M}")
+    private Duration normalHeadStart;
+
+    private Clock clock = Clock.systemUTC();
+
+    public JobQueueService(JobRepository jobRepository, MeterRegistry meterRegistry) {
+        this.jobRepository = jobRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Transactional
+    public Job enqueue(JobType type, UUID resourceId) {
+        return enqueue(type, resourceId, null);
+    }
+
+    @Transactional
+    public Job enqueue(JobType type, UUID resourceId, String payload) {
+        return enqueue(type, resourceId, payload, JobPriority.NORMAL);
+    }
+
+    @Transactional
+    public Job enqueue(JobType type, UUID resourceId, String payload, JobPriority priority) {
+        Instant now = clock.instant();
+        Job job = jobRepository.save(Job.builder()
+                .type(type)
+                .resourceId(resourceId)
+                .payload(payload)
+                .priority(priority)
+                .maxAttempts(maxAttempts)
+                .runAt(now)
+                .effectiveRunAt(now.minus(headStart(priority)))
+                .build());
+        log.info("Enqueued {} {} job {} for resource: {}", priority, type, job.getId(), resourceId);
+        return job;
+    }
+
+    /**
+     * Raises the queued jobs for {@code resourceId} that are below {@code priority} to it, so work
+     * someone is now waiting on overtakes the backlog. Jobs already running are left alone.
+     */
+    @Transactional
+    public int promote(UUID resourceId, JobPriority priority) {
+        List<String> lower = Arrays.stream(JobPriority.values())
+                .filter(candidate -> candidate.compareTo(priority) > 0)
+                .map(JobPriority::name)
+                .toList();
+        if (lower.isEmpty()) {
+            return 0;
+        }
+        int promoted = jobRepository.promote(resourceId, priority.name(), headStart(priority).toSeconds(), lower);
+        if (promoted > 0) {
+            log.info("Promoted {} queued jobs for resource {} to {}", promoted, resourceId, priority);
+        }
+        return promoted;
+    }
+
+    /**
+     * Jobs of the given types for {@code resourceId} that are queued or running.
+     */
+    @Transactional(readOnly = true)
+    public List<Job> pending(UUID resourceId, JobType... types) {
+        return jobRepository.findByResourceIdAndTypeInAndStatusIn(resourceId, List.of(types),
+                List.of(JobStatus.QUEUED, JobStatus.RUNNING));
+    }
+
+    /**
+     * Leases up to {@code limit} visible jobs of the given type to {@code workerId}. Jobs whose
+     * previous lease expired on their last allowed attempt are dead-lettered instead.
+     */
+    @Transactional
+    public List<Job> claim(JobType type, String workerId, int limit) {
+        Instant now = clock.instant();
+        List<Job> claimed = new ArrayList<>();
+        List<Job> visible = jobRepository.lockVisible(type.name(), now, limit);
+        for (Job job : visible) {
+            if (job.getStatus() == JobStatus.RUNNING) {
+                log.warn("Lease on {} job {} held by {} expired", type, job.getId(), job.getLockedBy());
+                if (job.getAttempts() >= job.getMaxAttempts()) {
+                    deadLetter(job, "Lease expired on final attempt", now);
+                    continue;
+                }
+            } else {
+                // A queued job's run_at is when it became due: on enqueue, or when its backoff ended
+                queueWait(type, job.getPriority()).record(Duration.between(job.getRunAt(), now));
+            }
+            job.setStatus(JobStatus.RUNNING);
+            job.setLockedBy(workerId);
+            job.setAttempts(job.getAttempts() + 1);
+            job.setRunAt(now.plus(visibilityTimeout));
+            claimed.add(job);
+        }
+        return claimed;
+    }
+
+    @Transactional
+    public void complete(UUID jobId, String workerId) {
+        Job job = findLeased(jobId, workerId);
+        if (job == null) {
+            return;
+        }
+        job.setStatus(JobStatus.SUCCEEDED);
+        job.setLockedBy(null);
+        job.setCompletedAt(clock.instant());
+    }
+
+    /**
+     * Schedules the job for another attempt after an exponential backoff, or dead-letters it once
+     * it has used all of its attempts.
+     */
+    @Transactional
+    public void fail(UUID jobId, String workerId, Throwable error) {
+        Job job = findLeased(jobId, workerId);
+        if (job == null) {
+            return;
+        }
+        Instant now = clock.instant();
+        String message = error.getClass().getSimpleName() + ": " + error.getMessage();
+        if (job.getAttempts() >= job.getMaxAttempts()) {
+            deadLetter(job, message, now);
+            return;
+        }
+        Duration delay = backoff(job.getAttempts());
+        job.setStatus(JobStatus.QUEUED);
+        job.setLockedBy(null);
+        job.setLastError(message);
+        job.setRunAt(now.plus(delay));
+        job.setEffectiveRunAt(job.getRunAt().minus(headStart(job.getPriority())));
+        log.info("{} job {} failed on attempt {}/{}, retrying in {}",
+                job.getType(), jobId, job.getAttempts(), job.getMaxAttempts(), delay);
+    }
+
+    /**
+     * Pushes out the leases on jobs {@code workerId} is still running, so long jobs are not
+     * handed to another worker mid-way.
+     */
+    @Transactional
+    public void extendLeases(Collection<UUID> jobIds, String workerId) {
+        if (!jobIds.isEmpty()) {
+            jobRepository.extendLeases(jobIds, workerId, clock.instant().plus(visibilityTimeout));
+        }
+    }
+
+    @Transactional
+    public int purgeSucceeded(Duration retention) {
+        return jobRepository.deleteByStatusAndCompletedAtBefore(JobStatus.SUCCEEDED, clock.instant().minus(retention));
+    }
+
+    Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private Duration headStart(JobPriority priority) {
+        return switch (priority) {
+            case INTERACTIVE -> interactiveHeadStart;
+            case NORMAL -> normalHeadStart;
+            case BACKGROUND -> Duration.ZERO;
+        };
+    }
+
+    private Timer queueWait(JobType type, JobPriority priority) {
+        return Timer.builder("jobs.queue.wait")
+                .description("Time due jobs wait before a worker claims them")
+                .tag("type", type.key())
+                .tag("priority", priority.key())
+                .register(meterRegistry);
+    }
+
+    // Null when the lease was lost: another worker has since claimed the job and now owns its outcome
+    private Job findLeased(UUID jobId, String workerId) {
+        Job job = jobRepository.findById(jobId).orElse(null);
+        if (job == null || job.getStatus() != JobStatus.RUNNING || !workerId.equals(job.getLockedBy())) {
+            log.warn("Worker {} no longer holds the lease on job {}, dropping its result", workerId, jobId);
+            return null;
+        }
+        return job;
+    }
+
+    private void deadLetter(Job job, String error, Instant now) {
+        job.setStatus(JobStatus.DEAD);
+        job.setLockedBy(null);
+        job.setLastError(error);
+        job.setCompletedAt(now);
+        log.error("{} job {} for resource {} dead-lettered after {} attempts: {}",
+                job.getType(), job.getId(), job.getResourceId(), job.getAttempts(), error);
+    }
+}
@@ -0,0 +1,304 @@
+package com.sedin.presales.application.service;
+
+import com.sedin.presales.domain.entity.Job;
+import com.sedin.presales.domain.enums.JobType;
+import com.sedin.presales.infrastructure.rendition.ConversionPriority;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Polls the job queue and runs claimed jobs on this node. Each job type has its own pool sized by
+ * {@code app.jobs.concurrency.<type>}; a type set to 0 is not processed here, which lets nodes
+ * specialise. The worker only claims as many jobs as it has free threads, so unclaimed work stays
+ * in the table for other nodes, and renews the leases of jobs it is still running.
+ * <p>
+ * Summary and indexing jobs first have the text of their version extracted. While it is out for
+ * OCR the job gives its thread back and resumes on its pool once the text is stored, so a slow
+ * analysis does not hold a worker; up to {@code app.jobs.max-awaiting-text} jobs may wait this way.
+ * Ingest jobs likewise hand their steps to the pipeline's own executor and give the thread back,
+ * keeping their slot until the pipeline's future completes the job.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.jobs.worker.enabled", havingValue = "true", matchIfMissing = true)
+public class JobWorker {
+
+    private static final int DEFAULT_CONCURRENCY = 1;
+    private static final int DEFAULT_MAX_AWAITING_TEXT = 32;
+    private static final Set<JobType> TEXT_JOB_TYPES = EnumSet.of(JobType.SUMMARY, JobType.INDEXING);
+
+    private final JobQueueService jobQueueService;
+    private final IngestPipelineService ingestPipelineService;
+    private final RenditionService renditionService;
+    private final SummaryService summaryService;
+    private final IndexingService indexingService;
+    private final CaseStudyValidationService caseStudyValidationService;
+    private final CaseStudyFormattingService caseStudyFormattingService;
+    private final RenditionBackfillService renditionBackfillService;
+    private final BulkIngestProcessor bulkIngestProcessor;
+    private final Environment environment;
+
+    @Value("${app.jobs.retention:P7D}")
+    private Duration retention;
+
+    private final String workerId = ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    private final Map<JobType, ExecutorService> executors = new EnumMap<>(JobType.class);
+    private final Map<JobType, Integer> concurrency = new EnumMap<>(JobType.class);
+    private final Map<JobType, AtomicInteger> running = new EnumMap<>(JobType.class);
+    private final Map<JobType, Queue<Job>> resumable = new EnumMap<>(JobType.class);
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger awaitingText = new AtomicInteger();
+    private int maxAwaitingText;
+    private volatile boolean accepting;
+
+    public JobWorker(JobQueueService jobQueueService,
+                     IngestPipelineService ingestPipelineService,
+                     RenditionService renditionService,
+                     SummaryService summaryService,
+                     IndexingService indexingService,
+                     CaseStudyValidationService caseStudyValidationService,
+                     CaseStudyFormattingService caseStudyFormattingService,
+                     RenditionBackfillService renditionBackfillService,
+                     BulkIngestProcessor bulkIngestProcessor,
+                     Environment environment) {
+        this.jobQueueService = jobQueueService;
+        this.ingestPipelineService = ingestPipelineService;
+        this.renditionService = renditionService;
+        this.summaryService = summaryService;
+        this.indexingService = indexingService;
+        this.caseStudyValidationService = caseStudyValidationService;
+        this.caseStudyFormattingService = caseStudyFormattingService;
+        this.renditionBackfillService = renditionBackfillService;
+        this.bulkIngestProcessor = bulkIngestProcessor;
+        this.environment = environment;
+    }
+
+    @PostConstruct
+    void start() {
+        maxAwaitingText = environment.getProperty("app.jobs.max-awaiting-text", Integer.class, DEFAULT_MAX_AWAITING_TEXT);
+        for (JobType type : JobType.values()) {
+            int threads = environment.getProperty("app.jobs.concurrency." + type.key(), Integer.class, DEFAULT_CONCURRENCY);
+            if (threads <= 0) {
+                continue;
+            }
+            concurrency.put(type, threads);
+            running.put(type, new AtomicInteger());
+            resumable.put(type, new ConcurrentLinkedQueue<>());
+            executors.put(type, Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("job-" + type.key() + "-")));
+        }
+        accepting = true;
+        log.info("Job worker {} started with concurrency {}", workerId, concurrency);
+    }
+
+    // Jobs still running when the pools are shut down are picked up elsewhere once their leases expire
+    @PreDestroy
+    void stop() throws InterruptedException {
+        accepting = false;
+        executors.values().forEach(ExecutorService::shutdown);
+        for (ExecutorService executor : executors.values()) {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.jobs.poll-interval-ms:2000}")
+    public void poll() {
+        if (!accepting) {
+            return;
+        }
+        for (Map.Entry<JobType, ExecutorService> entry : executors.entrySet()) {
+            JobType type = entry.getKey();
+            resume(type);
+            if (TEXT_JOB_TYPES.contains(type) && awaitingText.get() >= maxAwaitingText) {
+                continue;
+            }
+            int free = reserve(type, concurrency.get(type));
+            if (free == 0) {
+                continue;
+            }
+            List<Job> claimed;
+            try {
+                claimed = jobQueueService.claim(type, workerId, free);
+            } catch (Exception e) {
+                log.warn("Failed to claim {} jobs", type, e);
+                claimed = List.of();
+            }
+            running.get(type).addAndGet(claimed.size() - free);
+            for (Job job : claimed) {
+                inFlight.add(job.getId());
+                entry.getValue().execute(() -> execute(job));
+            }
+        }
+    }
+
+    // Takes up to wanted free slots of the type, so that claims and resumed jobs never overrun its concurrency
+    private int reserve(JobType type, int wanted) {
+        AtomicInteger count = running.get(type);
+        while (true) {
+            int current = count.get();
+            int reserved = Math.min(wanted, concurrency.get(type) - current);
+            if (reserved <= 0) {
+                return 0;
+            }
+            if (count.compareAndSet(current, current + reserved)) {
+                return reserved;
+            }
+        }
+    }
+
+    // Jobs whose text has arrived go ahead of new claims, each as soon as a slot of its type is free
+    private void resume(JobType type) {
+        Queue<Job> ready = resumable.get(type);
+        while (!ready.isEmpty() && reserve(type, 1) == 1) {
+            Job job = ready.poll();
+            if (job == null) {
+                running.get(type).decrementAndGet();
+                return;
+            }
+            try {
+                executors.get(type).execute(() -> run(job));
+            } catch (RejectedExecutionException e) {
+                // Shutting down: the lease expires and the job is picked up elsewhere
+                inFlight.remove(job.getId());
+                running.get(type).decrementAndGet();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.jobs.heartbeat-interval-ms:60000}")
+    public void renewLeases() {
+        Set<UUID> jobIds = Set.copyOf(inFlight);
+        if (jobIds.isEmpty()) {
+            return;
+        }
+        try {
+            jobQueueService.extendLeases(jobIds, workerId);
+        } catch (Exception e) {
+            log.warn("Failed to renew leases on {} running jobs", jobIds.size(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.jobs.purge-interval-ms:3600000}")
+    public void purgeSucceeded() {
+        int purged = jobQueueService.purgeSucceeded(retention);
+        if (purged > 0) {
+            log.info("Purged {} succeeded jobs older than {}", purged, retention);
+        }
+    }
+
+    void execute(Job job) {
+        CompletableFuture<Void> text;
+        try {
+            text = ConversionPriority.call(job.getPriority(), () -> prepareText(job));
+        } catch (Exception e) {
+            // The job runs into the same failure and records it
+            log.warn("Failed to prepare text for {} job {}", job.getType(), job.getId(), e);
+            text = CompletableFuture.completedFuture(null);
+        }
+        if (text.isDone()) {
+            run(job);
+            return;
+        }
+        // The slot is lent out while the text is prepared; the job waits for a free one to resume
+        running.get(job.getType()).decrementAndGet();
+        awaitingText.incrementAndGet();
+        text.whenComplete((ignored, error) -> {
+            awaitingText.decrementAndGet();
+            resumable.get(job.getType()).add(job);
+            resume(job.getType());
+        });
+    }
+
+    private CompletableFuture<Void> prepareText(Job job) {
+        return switch (job.getType()) {
+            case SUMMARY -> summaryService.prepareText(job.getResourceId());
+            case INDEXING -> indexingService.prepareText(job.getResourceId());
+            default -> CompletableFuture.completedFuture(null);
+        };
+    }
+
+    // An ingest job returns while its steps are still running; it keeps its slot until they finish
+    private void run(Job job) {
+        CompletableFuture<Void> handled;
+        try {
+            log.info("Running {} job {} (attempt {}) for resource: {}",
+                    job.getType(), job.getId(), job.getAttempts(), job.getResourceId());
+            handled = ConversionPriority.call(job.getPriority(), () -> handle(job));
+        } catch (Exception e) {
+            handled = CompletableFuture.failedFuture(e);
+        }
+        handled.whenComplete((ignored, error) -> finish(job, error));
+    }
+
+    private void finish(Job job, Throwable error) {
+        try {
+            if (error == null) {
+                try {
+                    jobQueueService.complete(job.getId(), workerId);
+                    return;
+                } catch (Exception e) {
+                    error = e;
+                }
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            log.error("{} job {} failed for resource: {}", job.getType(), job.getId(), job.getResourceId(), cause);
+            try {
+                jobQueueService.fail(job.getId(), workerId, cause);
+            } catch (Exception recordFailure) {
+                log.error("Failed to record failure of job {}", job.getId(), recordFailure);
+            }
+        } finally {
+            inFlight.remove(job.getId());
+            running.get(job.getType()).decrementAndGet();
+            resume(job.getType());
+        }
+    }
+
+    private CompletableFuture<Void> handle(Job job) {
+        UUID resourceId = job.getResourceId();
+        switch (job.getType()) {
+            case INGEST -> {
+                return ingestPipelineService.run(resourceId, IngestPipelineService.parseSteps(job.getPayload()),
+                        job.getPriority());
+            }
+            case PDF_RENDITION -> {
+                renditionService.processPreview(resourceId, null);
+                renditionService.processRendition(resourceId);
+            }
+            case SUMMARY -> summaryService.processSummary(resourceId);
+            case INDEXING -> indexingService.indexDocument(resourceId);
+            case INDEX_REMOVAL -> indexingService.removeFromIndex(resourceId);
+            case CASE_STUDY_VALIDATION -> caseStudyValidationService.validate(resourceId, null);
+            case CASE_STUDY_FORMATTING -> caseStudyFormattingService.performFormatting(resourceId, job.getPayload());
+            case RENDITION_BACKFILL -> renditionBackfillService.processVersion(UUID.fromString(job.getPayload()), resourceId,
+                    job.getAttempts() >= job.getMaxAttempts());
+            case BULK_INGEST -> bulkIngestProcessor.process(resourceId);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+}
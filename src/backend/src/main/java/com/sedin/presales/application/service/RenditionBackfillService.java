@@ -0,0 +1,280 @@
+package com.sedin.presales.application.service;
+
+import com.sedin.presales.application.dto.RenditionBackfillDto;
+import com.sedin.presales.application.dto.StartRenditionBackfillRequest;
+import com.sedin.presales.application.exception.BadRequestException;
+import com.sedin.presales.application.exception.ResourceNotFoundException;
+import com.sedin.presales.domain.entity.DocumentVersion;
+import com.sedin.presales.domain.entity.Rendition;
+import com.sedin.presales.domain.entity.RenditionBackfill;
+import com.sedin.presales.domain.enums.JobPriority;
+import com.sedin.presales.domain.enums.JobType;
+import com.sedin.presales.domain.enums.RenditionBackfillStatus;
+import com.sedin.presales.domain.enums.RenditionStatus;
+import com.sedin.presales.domain.enums.RenditionType;
+import com.sedin.presales.domain.repository.DocumentVersionRepository;
+import com.sedin.presales.domain.repository.RenditionBackfillRepository;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Re-renders the PDF renditions of existing versions, e.g. after an Aspose upgrade. A backfill
+ * selects versions by content type, creation time and failed status, and is advanced by a
+ * scheduled tick that queues the next versions as background {@link JobType#RENDITION_BACKFILL}
+ * jobs, at most {@code ratePerMinute} a minute and {@code maxInFlight} outstanding at once. The
+ * cursor moves in the same transaction as the jobs are queued, so after a restart the backfill
+ * carries on from where it stopped. Each version is rendered by
+ * {@link RenditionService#rerender(UUID)}, which keeps the old PDF until the new one is stored.
+ */
+@Slf4j
+@Service
+public class RenditionBackfillService {
+
+    private static final Duration MINUTE = Duration.ofMinutes(1);
+    private static final Sort SELECTION_ORDER = Sort.by("createdAt", "id");
+
+    private final RenditionBackfillRepository renditionBackfillRepository;
+    private final DocumentVersionRepository documentVersionRepository;
+    private final JobQueueService jobQueueService;
+    private final RenditionService renditionService;
+
+    @Value("${app.rendition.backfill.rate-per-minute:30}")
+    private int defaultRatePerMinute;
+
+    @Value("${app.rendition.backfill.max-in-flight:4}")
+    private int defaultMaxInFlight;
+
+    private Clock clock = Clock.systemUTC();
+
+    public RenditionBackfillService(RenditionBackfillRepository renditionBackfillRepository,
+                                    DocumentVersionRepository documentVersionRepository,
+                                    JobQueueService jobQueueService,
+                                    RenditionService renditionService) {
+        this.renditionBackfillRepository = renditionBackfillRepository;
+        this.documentVersionRepository = documentVersionRepository;
+        this.jobQueueService = jobQueueService;
+        this.renditionService = renditionService;
+    }
+
+    @Transactional
+    public RenditionBackfillDto start(StartRenditionBackfillRequest request) {
+        Instant now = clock.instant();
+        Instant createdTo = request.getCreatedTo() == null || request.getCreatedTo().isAfter(now)
+                ? now : request.getCreatedTo();
+        if (request.getCreatedFrom() != null && !request.getCreatedFrom().isBefore(createdTo)) {
+            throw new BadRequestException("createdFrom must be before createdTo");
+        }
+        List<String> contentTypes = request.getContentTypes() == null ? List.of()
+                : request.getContentTypes().stream().filter(type -> type != null && !type.isBlank()).map(String::trim).toList();
+
+        RenditionBackfill backfill = RenditionBackfill.builder()
+                .contentTypes(contentTypes.isEmpty() ? null : String.join(",", contentTypes))
+                .createdFrom(request.getCreatedFrom())
+                .createdTo(createdTo)
+                .failedOnly(Boolean.TRUE.equals(request.getFailedOnly()))
+                .ratePerMinute(request.getRatePerMinute() != null ? request.getRatePerMinute() : defaultRatePerMinute)
+                .maxInFlight(request.getMaxInFlight() != null ? request.getMaxInFlight() : defaultMaxInFlight)
+                .build();
+        backfill.setTotalVersions((int) documentVersionRepository.count(selection(backfill)));
+        backfill = renditionBackfillRepository.save(backfill);
+        log.info("Started rendition backfill {} over {} versions (types {}, created {} to {}, failed only {})",
+                backfill.getId(), backfill.getTotalVersions(), contentTypes, backfill.getCreatedFrom(),
+                createdTo, backfill.getFailedOnly());
+        return toDto(backfill);
+    }
+
+    @Transactional(readOnly = true)
+    public List<RenditionBackfillDto> list() {
+        return renditionBackfillRepository.findAllByOrderByCreatedAtDesc().stream().map(this::toDto).toList();
+    }
+
+    @Transactional(readOnly = true)
+    public RenditionBackfillDto get(UUID id) {
+        return toDto(find(id));
+    }
+
+    /**
+     * Stops queuing versions. Jobs already queued are dropped when they come up.
+     */
+    @Transactional
+    public RenditionBackfillDto cancel(UUID id) {
+        RenditionBackfill backfill = find(id);
+        if (renditionBackfillRepository.finish(id, RenditionBackfillStatus.CANCELLED, clock.instant()) == 0) {
+            throw new BadRequestException("Rendition backfill is already " + backfill.getStatus().name().toLowerCase());
+        }
+        log.info("Cancelled rendition backfill {}", id);
+        return toDto(find(id));
+    }
+
+    @Scheduled(fixedDelayString = "${app.rendition.backfill.tick-interval-ms:10000}")
+    @Transactional
+    public void advance() {
+        Instant now = clock.instant();
+        for (RenditionBackfill backfill : renditionBackfillRepository.lockRunning()) {
+            advance(backfill, now);
+        }
+    }
+
+    private void advance(RenditionBackfill backfill, Instant now) {
+        int inFlight = backfill.getEnqueuedVersions() - backfill.getCompletedVersions() - backfill.getFailedVersions();
+        if (backfill.getSelectionExhausted()) {
+            if (inFlight <= 0 && renditionBackfillRepository.finish(backfill.getId(), RenditionBackfillStatus.COMPLETED, now) > 0) {
+                log.info("Rendition backfill {} completed: {} re-rendered, {} failed",
+                        backfill.getId(), backfill.getCompletedVersions(), backfill.getFailedVersions());
+            }
+            return;
+        }
+
+        // Credit builds up at ratePerMinute, capped at one minute's worth so a pause does not cause a burst
+        Duration interval = MINUTE.dividedBy(backfill.getRatePerMinute());
+        Instant rateClock = backfill.getLastEnqueuedAt() == null || backfill.getLastEnqueuedAt().isBefore(now.minus(MINUTE))
+                ? now.minus(MINUTE) : backfill.getLastEnqueuedAt();
+        int allowance = (int) (Duration.between(rateClock, now).toNanos() / interval.toNanos());
+        int batch = Math.min(allowance, backfill.getMaxInFlight() - inFlight);
+        if (batch <= 0) {
+            return;
+        }
+
+        Specification<DocumentVersion> remaining = selection(backfill);
+        if (backfill.getCursorCreatedAt() != null) {
+            remaining = remaining.and(after(backfill.getCursorCreatedAt(), backfill.getCursorVersionId()));
+        }
+        List<DocumentVersion> versions = documentVersionRepository.findBy(remaining,
+                query -> query.sortBy(SELECTION_ORDER).limit(batch).all());
+        for (DocumentVersion version : versions) {
+            jobQueueService.enqueue(JobType.RENDITION_BACKFILL, version.getId(), backfill.getId().toString(),
+                    JobPriority.BACKGROUND);
+        }
+
+        DocumentVersion last = versions.isEmpty() ? null : versions.get(versions.size() - 1);
+        renditionBackfillRepository.recordEnqueued(backfill.getId(), versions.size(),
+                last != null ? last.getCreatedAt() : backfill.getCursorCreatedAt(),
+                last != null ? last.getId() : backfill.getCursorVersionId(),
+                versions.size() < batch, rateClock.plus(interval.multipliedBy(versions.size())));
+        log.debug("Rendition backfill {} queued {} versions", backfill.getId(), versions.size());
+    }
+
+    /**
+     * Runs one queued version of a backfill and counts the outcome. A failed render is counted
+     * rather than retried: the version keeps its previous PDF and can be picked up by a later
+     * failed-only backfill. A version whose PDF is still being rendered is thrown back to the queue
+     * to come up again later, and only counted as failed on the job's last attempt, so every
+     * queued version is counted exactly once and the in-flight window drains.
+     */
+    public void processVersion(UUID backfillId, UUID documentVersionId, boolean lastAttempt) {
+        RenditionBackfill backfill = renditionBackfillRepository.findById(backfillId).orElse(null);
+        if (backfill == null || backfill.getStatus() == RenditionBackfillStatus.CANCELLED) {
+            log.info("Rendition backfill {} is gone or cancelled, skipping version {}", backfillId, documentVersionId);
+            return;
+        }
+        boolean rendered;
+        try {
+            rendered = renditionService.rerender(documentVersionId);
+        } catch (ResourceNotFoundException e) {
+            log.warn("Document version {} was deleted before backfill {} reached it", documentVersionId, backfillId);
+            rendered = false;
+        } catch (RenditionService.RenditionInProgressException e) {
+            if (!lastAttempt) {
+                throw e;
+            }
+            log.warn("Backfill {} gave up waiting for the PDF of document version {} to finish rendering",
+                    backfillId, documentVersionId);
+            rendered = false;
+        } catch (RuntimeException e) {
+            log.error("Backfill {} failed to re-render document version {}", backfillId, documentVersionId, e);
+            rendered = false;
+        }
+        if (rendered) {
+            renditionBackfillRepository.incrementCompleted(backfillId);
+        } else {
+            renditionBackfillRepository.incrementFailed(backfillId);
+        }
+    }
+
+    static Specification<DocumentVersion> selection(RenditionBackfill backfill) {
+        Specification<DocumentVersion> spec = (root, query, cb) -> cb.lessThan(root.get("createdAt"), backfill.getCreatedTo());
+        if (backfill.getCreatedFrom() != null) {
+            spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("createdAt"), backfill.getCreatedFrom()));
+        }
+        List<String> contentTypes = contentTypes(backfill);
+        if (!contentTypes.isEmpty()) {
+            spec = spec.and((root, query, cb) -> root.get("contentType").in(contentTypes));
+        }
+        if (Boolean.TRUE.equals(backfill.getFailedOnly())) {
+            spec = spec.and((root, query, cb) -> {
+                Subquery<UUID> failed = query.subquery(UUID.class);
+                Root<Rendition> rendition = failed.from(Rendition.class);
+                failed.select(rendition.get("id")).where(
+                        cb.equal(rendition.get("documentVersion"), root),
+                        cb.equal(rendition.get("renditionType"), RenditionType.PDF),
+                        cb.equal(rendition.get("status"), RenditionStatus.FAILED));
+                return cb.exists(failed);
+            });
+        }
+        return spec;
+    }
+
+    private static Specification<DocumentVersion> after(Instant createdAt, UUID id) {
+        return (root, query, cb) -> cb.or(
+                cb.greaterThan(root.get("createdAt"), createdAt),
+                cb.and(cb.equal(root.get("createdAt"), createdAt), cb.greaterThan(root.<UUID>get("id"), id)));
+    }
+
+    private static List<String> contentTypes(RenditionBackfill backfill) {
+        return backfill.getContentTypes() == null ? List.of() : Arrays.asList(backfill.getContentTypes().split(","));
+    }
+
+    private RenditionBackfill find(UUID id) {
+        return renditionBackfillRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("RenditionBackfill", "id", id));
+    }
+
+    private RenditionBackfillDto toDto(RenditionBackfill backfill) {
+        int processed = backfill.getCompletedVersions() + backfill.getFailedVersions();
+        int total = backfill.getTotalVersions();
+        RenditionBackfillDto.RenditionBackfillDtoBuilder dto = RenditionBackfillDto.builder()
+                .id(backfill.getId())
+                .status(backfill.getStatus())
+                .contentTypes(contentTypes(backfill).isEmpty() ? null : contentTypes(backfill))
+                .createdFrom(backfill.getCreatedFrom())
+                .createdTo(backfill.getCreatedTo())
+                .failedOnly(backfill.getFailedOnly())
+                .ratePerMinute(backfill.getRatePerMinute())
+                .maxInFlight(backfill.getMaxInFlight())
+                .totalVersions(total)
+                .enqueuedVersions(backfill.getEnqueuedVersions())
+                .completedVersions(backfill.getCompletedVersions())
+                .failedVersions(backfill.getFailedVersions())
+                .percentComplete(total == 0 ? 100.0 : Math.min(100.0, 100.0 * processed / total))
+                .createdBy(backfill.getCreatedBy())
+                .createdAt(backfill.getCreatedAt())
+                .completedAt(backfill.getCompletedAt());
+
+        Instant end = backfill.getCompletedAt() != null ? backfill.getCompletedAt() : clock.instant();
+        double minutes = backfill.getCreatedAt() == null ? 0
+                : Duration.between(backfill.getCreatedAt(), end).toMillis() / 60_000.0;
+        if (processed > 0 && minutes > 0) {
+            double perMinute = processed / minutes;
+            dto.versionsPerMinute(perMinute);
+            if (backfill.getStatus() == RenditionBackfillStatus.RUNNING) {
+                long remainingMillis = (long) (Math.max(0, total - processed) / perMinute * 60_000);
+                dto.estimatedCompletionAt(clock.instant().plusMillis(remainingMillis));
+            }
+        }
+        return dto.build();
+    }
+}
@@ -1,26 +1,51 @@
 package com.sedin.presales.application.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sedin.presales.application.dto.RenditionDto;
+import com.sedin.presales.application.exception.BadRequestException;
 import com.sedin.presales.application.exception.ResourceNotFoundException;
 import com.sedin.presales.domain.entity.DocumentVersion;
 import com.sedin.presales.domain.entity.Rendition;
+import com.sedin.presales.domain.enums.JobType;
 import com.sedin.presales.domain.enums.RenditionStatus;
 import com.sedin.presales.domain.enums.RenditionType;
 import com.sedin.presales.domain.repository.DocumentVersionRepository;
 import com.sedin.presales.domain.repository.RenditionRepository;
+import com.sedin.presales.infrastructure.rendition.ConversionStats;
 import com.sedin.presales.infrastructure.rendition.PdfRenditionService;
+import com.sedin.presales.infrastructure.rendition.ImageSink;
 import com.sedin.presales.infrastructure.storage.BlobStorageService;
+import com.sedin.presales.infrastructure.storage.BlockUploadOutputStream;
+import com.sedin.presales.infrastructure.storage.ContentHashes;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
@@ -28,99 +53,544 @@ public class RenditionService {
 
     private static final String CONTAINER_DOCUMENTS = "documents";
     private static final String CONTAINER_RENDITIONS = "renditions";
+    private static final String CONTENT_TYPE_PDF = "application/pdf";
+    private static final String CONTENT_TYPE_PNG = "image/png";
+    private static final Set<RenditionType> IMAGE_TYPES = EnumSet.of(RenditionType.THUMBNAIL, RenditionType.SLIDE_IMAGE);
+
+    @Value("${app.rendition.preview.pages:10}")
+    private int previewPages;
+
+    // How long a render may hold a rendition before another render may take it over
+    @Value("${app.rendition.lease:PT15M}")
+    private Duration renditionLease;
 
     private final RenditionRepository renditionRepository;
     private final DocumentVersionRepository documentVersionRepository;
     private final PdfRenditionService pdfRenditionService;
     private final BlobStorageService blobStorageService;
+    private final JobQueueService jobQueueService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate claims;
 
     public RenditionService(RenditionRepository renditionRepository,
                             DocumentVersionRepository documentVersionRepository,
                             PdfRenditionService pdfRenditionService,
-                            BlobStorageService blobStorageService) {
+                            BlobStorageService blobStorageService,
+                            JobQueueService jobQueueService,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            PlatformTransactionManager transactionManager) {
         this.renditionRepository = renditionRepository;
         this.documentVersionRepository = documentVersionRepository;
         this.pdfRenditionService = pdfRenditionService;
         this.blobStorageService = blobStorageService;
+        this.jobQueueService = jobQueueService;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.claims = new TransactionTemplate(transactionManager);
+        this.claims.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
     }
 
-    @Async("renditionExecutor")
     public void generatePdfRendition(UUID documentVersionId) {
-        log.info("Starting async PDF rendition generation for document version: {}", documentVersionId);
-        try {
-            processRendition(documentVersionId);
-        } catch (Exception e) {
-            log.error("Failed to generate PDF rendition for document version: {}", documentVersionId, e);
-        }
+        log.info("Queueing PDF rendition generation for document version: {}", documentVersionId);
+        jobQueueService.enqueue(JobType.PDF_RENDITION, documentVersionId);
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void processRendition(UUID documentVersionId) {
+        processRendition(documentVersionId, null);
+    }
+
+    /**
+     * Renders the version from {@code original} when the caller already holds the file, or
+     * downloads it when {@code original} is null.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void processRendition(UUID documentVersionId, Supplier<InputStream> original) {
         DocumentVersion version = documentVersionRepository.findById(documentVersionId)
                 .orElseThrow(() -> new ResourceNotFoundException("DocumentVersion", "id", documentVersionId));
+        render(version, RenditionType.PDF, original);
+    }
 
-        // Check if a PDF rendition already exists
-        Optional<Rendition> existingRendition = renditionRepository
-                .findByDocumentVersionIdAndRenditionType(documentVersionId, RenditionType.PDF);
+    /**
+     * Renders only the first {@code app.rendition.preview.pages} slides or pages as a
+     * {@link RenditionType#PDF_PREVIEW}, so the document can be viewed within seconds of upload
+     * while the full rendition is still converting. Runs in its own transaction and should be
+     * called before {@link #processRendition(UUID, Supplier)} so that the preview is committed
+     * first. Skipped for PDFs, whose full rendition is a copy, once the full rendition exists and
+     * while another render of the preview is running.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void processPreview(UUID documentVersionId, Supplier<InputStream> original) {
+        if (previewPages <= 0) {
+            return;
+        }
+        DocumentVersion version = documentVersionRepository.findById(documentVersionId)
+                .orElseThrow(() -> new ResourceNotFoundException("DocumentVersion", "id", documentVersionId));
+        if (CONTENT_TYPE_PDF.equals(version.getContentType())) {
+            return;
+        }
+        boolean fullRendered = renditionRepository
+                .findByDocumentVersionIdAndRenditionType(documentVersionId, RenditionType.PDF)
+                .filter(rendition -> rendition.getStatus() == RenditionStatus.COMPLETED)
+                .isPresent();
+        if (fullRendered) {
+            log.info("PDF rendition already completed for document version: {}, skipping preview", documentVersionId);
+            return;
+        }
+        try {
+            render(version, RenditionType.PDF_PREVIEW, original);
+        } catch (RenditionInProgressException e) {
+            log.info("Preview for document version: {} is already being rendered, skipping", documentVersionId);
+        }
+    }
 
-        if (existingRendition.isPresent()) {
-            Rendition existing = existingRendition.get();
-            if (existing.getStatus() == RenditionStatus.COMPLETED) {
-                log.info("PDF rendition already completed for document version: {}, skipping", documentVersionId);
-                return;
+    /**
+     * Throws {@link RenditionInProgressException} while another render of the same rendition holds
+     * its lease; the job is retried once that render is done.
+     */
+    private void render(DocumentVersion version, RenditionType type, Supplier<InputStream> original) {
+        UUID documentVersionId = version.getId();
+        String fingerprint = fingerprint(version, type);
+        Rendition rendition = claim(version, type);
+        try {
+            if (rendition.getStatus() == RenditionStatus.COMPLETED) {
+                if (!isStale(rendition, fingerprint)) {
+                    log.info("{} rendition already completed for document version: {}, skipping", type, documentVersionId);
+                    return;
+                }
+                // The full PDF keeps being served until its replacement is stored
+                if (type == RenditionType.PDF) {
+                    log.info("PDF rendition for document version: {} was made with other settings, re-rendering",
+                            documentVersionId);
+                    replace(version, rendition, fingerprint, original, true);
+                    return;
+                }
+                log.info("{} rendition for document version: {} was made with other settings, re-rendering",
+                        type, documentVersionId);
             }
-            // Delete existing PENDING/PROCESSING/FAILED rendition and regenerate
-            log.info("Deleting existing {} PDF rendition for document version: {}", existing.getStatus(), documentVersionId);
-            renditionRepository.delete(existing);
-            renditionRepository.flush();
+            convert(version, rendition, fingerprint, original);
+        } finally {
+            release(rendition);
         }
+    }
 
-        // Create rendition record with PENDING status
-        Rendition rendition = Rendition.builder()
-                .renditionType(RenditionType.PDF)
-                .status(RenditionStatus.PENDING)
-                .documentVersion(version)
-                .build();
-        rendition = renditionRepository.save(rendition);
+    // Brings a claimed rendition to COMPLETED or FAILED, reusing a PDF with the same fingerprint if there is one
+    private void convert(DocumentVersion version, Rendition rendition, String fingerprint, Supplier<InputStream> original) {
+        UUID documentVersionId = version.getId();
+        RenditionType type = rendition.getRenditionType();
 
-        // Update to PROCESSING
-        rendition.setStatus(RenditionStatus.PROCESSING);
-        rendition = renditionRepository.save(rendition);
+        // The same bytes were already converted with the same settings, point at that PDF instead
+        Optional<Rendition> sameFingerprint = findSameFingerprint(fingerprint, type, documentVersionId);
+        if (sameFingerprint.isPresent()) {
+            rendition.setStatus(RenditionStatus.COMPLETED);
+            rendition.setFilePath(sameFingerprint.get().getFilePath());
+            rendition.setFileSize(sameFingerprint.get().getFileSize());
+            rendition.setFingerprint(fingerprint);
+            rendition.setConversionStats(null);
+            rendition.setErrorMessage(null);
+            renditionRepository.save(rendition);
+            if (type == RenditionType.PDF) {
+                reuseImages(sameFingerprint.get().getDocumentVersion().getId(), version);
+            }
+            log.info("Reused {} rendition '{}' for document version: {} (fingerprint {})",
+                    type, sameFingerprint.get().getFilePath(), documentVersionId, fingerprint);
+            return;
+        }
 
+        ImageUploads images = new ImageUploads(version);
         try {
-            // Download original file
-            log.info("Downloading original file from path: {}", version.getFilePath());
-            InputStream originalFileStream = blobStorageService.download(CONTAINER_DOCUMENTS, version.getFilePath());
-
-            // Convert to PDF
-            byte[] pdfBytes = pdfRenditionService.convertToPdf(originalFileStream, version.getContentType());
-
-            // Upload PDF rendition to blob storage
-            String blobPath = String.format("renditions/%s/document.pdf", documentVersionId);
-            log.info("Uploading PDF rendition to path: {}", blobPath);
-            blobStorageService.upload(
-                    CONTAINER_RENDITIONS,
-                    blobPath,
-                    new ByteArrayInputStream(pdfBytes),
-                    pdfBytes.length,
-                    "application/pdf"
-            );
+            String blobPath = blobPath(documentVersionId, type);
+            StoredPdf stored = convertAndStore(version, type, blobPath, original, images);
 
             // Update rendition as completed
             rendition.setStatus(RenditionStatus.COMPLETED);
             rendition.setFilePath(blobPath);
-            rendition.setFileSize((long) pdfBytes.length);
+            rendition.setFileSize(stored.size());
+            rendition.setFingerprint(fingerprint);
+            rendition.setConversionStats(stored.conversionStats());
+            rendition.setErrorMessage(null);
             renditionRepository.save(rendition);
 
-            log.info("PDF rendition completed for document version: {}, size: {} bytes", documentVersionId, pdfBytes.length);
+            log.info("{} rendition completed for document version: {}, size: {} bytes", type, documentVersionId, stored.size());
+
+            if (type == RenditionType.PDF) {
+                storeImages(version, images);
+            }
         } catch (Exception e) {
-            log.error("Failed to generate PDF rendition for document version: {}", documentVersionId, e);
+            log.error("Failed to generate {} rendition for document version: {}", type, documentVersionId, e);
+            images.discard();
             rendition.setStatus(RenditionStatus.FAILED);
             rendition.setErrorMessage(e.getMessage());
             renditionRepository.save(rendition);
         }
     }
 
+    /**
+     * Takes the lease on the version's rendition of {@code type} and commits it in a transaction of
+     * its own, so other renders see it while this one converts. A rendition that is not completed
+     * is created or set to PROCESSING in the same commit; a completed one keeps being served until
+     * its replacement is stored. The version row is locked so that two renders cannot both create
+     * the rendition. Throws {@link RenditionInProgressException} while another render holds an
+     * unexpired lease.
+     */
+    private Rendition claim(DocumentVersion version, RenditionType type) {
+        UUID documentVersionId = version.getId();
+        Rendition claimed = claims.execute(status -> {
+            documentVersionRepository.findForUpdateById(documentVersionId);
+            Instant now = Instant.now();
+            Rendition rendition = renditionRepository.findByDocumentVersionIdAndRenditionType(documentVersionId, type)
+                    .orElseGet(() -> Rendition.builder()
+                            .renditionType(type)
+                            .filePath(blobPath(documentVersionId, type))
+                            .documentVersion(version)
+                            .build());
+            if (rendition.getLeaseExpiresAt() != null && rendition.getLeaseExpiresAt().isAfter(now)) {
+                return null;
+            }
+            if (rendition.getStatus() != RenditionStatus.COMPLETED) {
+                rendition.setStatus(RenditionStatus.PROCESSING);
+            }
+            rendition.setLeaseExpiresAt(now.plus(renditionLease));
+            return renditionRepository.save(rendition);
+        });
+        if (claimed == null) {
+            throw new RenditionInProgressException(documentVersionId, type);
+        }
+        return claimed;
+    }
+
+    // Saved with the outcome, so the lease goes away when the render commits
+    private void release(Rendition rendition) {
+        rendition.setLeaseExpiresAt(null);
+        renditionRepository.save(rendition);
+    }
+
+    private static String blobPath(UUID documentVersionId, RenditionType type) {
+        return String.format(type == RenditionType.PDF_PREVIEW
+                ? "renditions/%s/preview.pdf" : "renditions/%s/document.pdf", documentVersionId);
+    }
+
+    /**
+     * Renders the full PDF again, e.g. after an Aspose upgrade or a change of PDF options. A version
+     * whose PDF is being served gets the new one written beside it under a new name; the rendition
+     * only switches to it once it is stored, and the old blob is deleted after that commits unless
+     * another version still points at it. If rendering fails the current PDF stays as it is.
+     * Versions without a completed PDF are rendered as usual. Returns whether a PDF was rendered.
+     * Throws {@link RenditionInProgressException} while another render of the PDF holds its lease,
+     * since that render may be using the old settings; the caller should try again once it is done.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean rerender(UUID documentVersionId) {
+        DocumentVersion version = documentVersionRepository.findById(documentVersionId)
+                .orElseThrow(() -> new ResourceNotFoundException("DocumentVersion", "id", documentVersionId));
+        String fingerprint = fingerprint(version, RenditionType.PDF);
+        Rendition current = claim(version, RenditionType.PDF);
+        try {
+            if (current.getStatus() != RenditionStatus.COMPLETED) {
+                convert(version, current, fingerprint, null);
+                return current.getStatus() == RenditionStatus.COMPLETED;
+            }
+            return replace(version, current, fingerprint, null, false);
+        } finally {
+            release(current);
+        }
+    }
+
+    /**
+     * Points a completed PDF rendition at a new PDF, reusing one with the same fingerprint when
+     * {@code reuse} is set and converting otherwise. The new PDF is written under a fresh name and
+     * the old blob is only deleted after commit, so readers never see a missing file. The same goes
+     * for the thumbnail and page images, whose rows switch in the same transaction.
+     */
+    private boolean replace(DocumentVersion version, Rendition rendition, String fingerprint,
+                            Supplier<InputStream> original, boolean reuse) {
+        UUID documentVersionId = version.getId();
+        String previousPath = rendition.getFilePath();
+        Optional<Rendition> sameFingerprint = reuse
+                ? findSameFingerprint(fingerprint, RenditionType.PDF, documentVersionId) : Optional.empty();
+        if (sameFingerprint.isPresent()) {
+            rendition.setFilePath(sameFingerprint.get().getFilePath());
+            rendition.setFileSize(sameFingerprint.get().getFileSize());
+            rendition.setFingerprint(fingerprint);
+            rendition.setConversionStats(null);
+            renditionRepository.save(rendition);
+            reuseImages(sameFingerprint.get().getDocumentVersion().getId(), version);
+        } else {
+            String blobPath = String.format("renditions/%s/document-%d.pdf", documentVersionId, System.currentTimeMillis());
+            ImageUploads images = new ImageUploads(version);
+            StoredPdf stored;
+            try {
+                stored = convertAndStore(version, RenditionType.PDF, blobPath, original, images);
+            } catch (Exception e) {
+                log.error("Failed to re-render PDF for document version: {}, keeping '{}'", documentVersionId, previousPath, e);
+                images.discard();
+                return false;
+            }
+            rendition.setFilePath(blobPath);
+            rendition.setFileSize(stored.size());
+            rendition.setFingerprint(fingerprint);
+            rendition.setConversionStats(stored.conversionStats());
+            renditionRepository.save(rendition);
+            storeImages(version, images);
+        }
+        log.info("Replaced PDF for document version: {} with '{}', replacing '{}'",
+                documentVersionId, rendition.getFilePath(), previousPath);
+        afterCommit(() -> deleteIfUnreferenced(previousPath));
+        return true;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Identifies the bytes and the way they would be converted now. Null when the version has no
+     * content hash, or when its type cannot be converted and the conversion will fail anyway.
+     */
+    private String fingerprint(DocumentVersion version, RenditionType type) {
+        if (version.getContentHash() == null) {
+            return null;
+        }
+        try {
+            String settings = pdfRenditionService.conversionSettings(version.getContentType(),
+                    type == RenditionType.PDF_PREVIEW ? previewPages : 0);
+            return ContentHashes.sha256(version.getContentHash() + "\n" + settings);
+        } catch (BadRequestException e) {
+            return null;
+        }
+    }
+
+    // Renditions made before fingerprints were recorded, or of versions without a hash, are kept as they are
+    private static boolean isStale(Rendition rendition, String fingerprint) {
+        return rendition.getFingerprint() != null && fingerprint != null && !fingerprint.equals(rendition.getFingerprint());
+    }
+
+    private Optional<Rendition> findSameFingerprint(String fingerprint, RenditionType type, UUID documentVersionId) {
+        if (fingerprint == null) {
+            return Optional.empty();
+        }
+        return renditionRepository.findFirstByFingerprintAndRenditionTypeAndStatusAndDocumentVersionIdNot(
+                fingerprint, type, RenditionStatus.COMPLETED, documentVersionId);
+    }
+
+    /**
+     * Downloads the original unless the caller holds it, and converts it straight into a block
+     * upload so the PDF is never held whole in memory. The full rendition also draws the thumbnail
+     * and page images, each uploaded by {@code images} as it is drawn. Records the download and
+     * upload phases and the overall duration, and returns the full breakdown for the rendition's
+     * {@code conversion_stats}.
+     */
+    private StoredPdf convertAndStore(DocumentVersion version, RenditionType type, String blobPath,
+                                      Supplier<InputStream> original, ImageSink images) {
+        String contentType = version.getContentType() != null ? version.getContentType() : "unknown";
+        String rendition = type.name().toLowerCase(Locale.ROOT).replace('_', '-');
+        long start = System.nanoTime();
+        try {
+            InputStream originalFileStream;
+            if (original != null) {
+                originalFileStream = original.get();
+            } else {
+                log.info("Downloading original file from path: {}", version.getFilePath());
+                originalFileStream = blobStorageService.download(CONTAINER_DOCUMENTS, version.getFilePath());
+            }
+            long opened = System.nanoTime() - start;
+
+            log.info("Converting and uploading {} rendition to path: {}", type, blobPath);
+            try (BlockUploadOutputStream pdfOut =
+                         blobStorageService.openBlockUpload(CONTAINER_RENDITIONS, blobPath, CONTENT_TYPE_PDF)) {
+                ConversionStats stats = type == RenditionType.PDF_PREVIEW
+                        ? pdfRenditionService.convertToPdfPreview(originalFileStream, version.getContentType(), previewPages, pdfOut)
+                        : pdfRenditionService.convertToPdf(originalFileStream, version.getContentType(), pdfOut, images);
+                long committing = System.nanoTime();
+                pdfOut.commit();
+                long end = System.nanoTime();
+
+                // Reading the original happens during conversion, as does staging all but the last block
+                long download = opened + stats.readNanos();
+                long upload = stats.writeNanos() + (end - committing);
+                phase("download", contentType, rendition).record(download, TimeUnit.NANOSECONDS);
+                phase("upload", contentType, rendition).record(upload, TimeUnit.NANOSECONDS);
+                duration(contentType, rendition, "success").record(end - start, TimeUnit.NANOSECONDS);
+                return new StoredPdf(pdfOut.size(), conversionStats(stats, download, upload, end - start));
+            }
+        } catch (RuntimeException e) {
+            duration(contentType, rendition, "failure").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private record StoredPdf(long size, String conversionStats) {}
+
+    public static class RenditionInProgressException extends IllegalStateException {
+        RenditionInProgressException(UUID documentVersionId, RenditionType type) {
+            super(type + " rendition for document version " + documentVersionId + " is still being generated");
+        }
+    }
+
+    private String conversionStats(ConversionStats stats, long downloadNanos, long uploadNanos, long totalNanos) {
+        Map<String, Long> breakdown = new LinkedHashMap<>();
+        breakdown.put("downloadMs", TimeUnit.NANOSECONDS.toMillis(downloadNanos));
+        breakdown.put("loadMs", TimeUnit.NANOSECONDS.toMillis(stats.loadNanos()));
+        breakdown.put("convertMs", TimeUnit.NANOSECONDS.toMillis(stats.convertNanos()));
+        breakdown.put("imagesMs", TimeUnit.NANOSECONDS.toMillis(stats.imageNanos()));
+        breakdown.put("uploadMs", TimeUnit.NANOSECONDS.toMillis(uploadNanos));
+        breakdown.put("totalMs", TimeUnit.NANOSECONDS.toMillis(totalNanos));
+        breakdown.put("inputBytes", stats.inputBytes());
+        breakdown.put("outputBytes", stats.outputBytes());
+        breakdown.put("pages", (long) stats.pageCount());
+        breakdown.put("allocatedBytes", stats.allocatedBytes());
+        try {
+            return objectMapper.writeValueAsString(breakdown);
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to serialize conversion stats {}", breakdown, e);
+            return null;
+        }
+    }
+
+    private Timer phase(String phase, String contentType, String rendition) {
+        return Timer.builder("rendition.phase")
+                .description("Time spent in each phase of producing a rendition")
+                .tag("phase", phase)
+                .tag("content.type", contentType)
+                .tag("rendition", rendition)
+                .register(meterRegistry);
+    }
+
+    private Timer duration(String contentType, String rendition, String outcome) {
+        return Timer.builder("rendition.duration")
+                .description("Time to download, convert and upload a rendition")
+                .tag("content.type", contentType)
+                .tag("rendition", rendition)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private void deleteIfUnreferenced(String blobPath) {
+        try {
+            if (blobPath != null && !renditionRepository.existsByFilePath(blobPath)) {
+                blobStorageService.delete(CONTAINER_RENDITIONS, blobPath);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to delete superseded rendition '{}'", blobPath, e);
+        }
+    }
+
+    // Images are a convenience for listings: failing to store them must not fail the PDF
+    private void storeImages(DocumentVersion version, ImageUploads images) {
+        UUID documentVersionId = version.getId();
+        try {
+            replaceImages(documentVersionId, images.stored);
+            log.info("Stored {} thumbnail and page images for document version: {}", images.stored.size(), documentVersionId);
+        } catch (Exception e) {
+            log.warn("Failed to store images for document version: {}", documentVersionId, e);
+            images.discard();
+        }
+    }
+
+    // The previous images may still be on screen, so their blobs go only once the new rows are committed
+    private void replaceImages(UUID documentVersionId, List<Rendition> images) {
+        List<String> previousPaths = renditionRepository.findByDocumentVersionIdAndRenditionTypeIn(documentVersionId, IMAGE_TYPES)
+                .stream()
+                .map(Rendition::getFilePath)
+                .toList();
+        renditionRepository.deleteByDocumentVersionIdAndRenditionTypeIn(documentVersionId, IMAGE_TYPES);
+        for (Rendition image : images) {
+            renditionRepository.save(image);
+        }
+        if (!previousPaths.isEmpty()) {
+            afterCommit(() -> previousPaths.forEach(this::deleteIfUnreferenced));
+        }
+    }
+
+    /**
+     * Uploads each image as the converter hands it over, so that only the one being uploaded is in
+     * memory, and keeps the rows to record once the PDF they belong to is stored. After a failed
+     * upload the remaining images are skipped rather than failing the PDF. Each render writes under
+     * a folder of its own, so the images being served are never overwritten before the rows
+     * pointing at them are replaced.
+     */
+    private final class ImageUploads implements ImageSink {
+
+        private final DocumentVersion version;
+        private final String folder;
+        private final List<Rendition> stored = new ArrayList<>();
+        private boolean failed;
+
+        ImageUploads(DocumentVersion version) {
+            this.version = version;
+            this.folder = String.format("renditions/%s/images-%d", version.getId(), System.currentTimeMillis());
+        }
+
+        @Override
+        public void thumbnail(byte[] png) {
+            upload(RenditionType.THUMBNAIL, null, folder + "/thumbnail.png", png);
+        }
+
+        @Override
+        public void pageImage(int pageNumber, byte[] png) {
+            upload(RenditionType.SLIDE_IMAGE, pageNumber, folder + "/slides/" + pageNumber + ".png", png);
+        }
+
+        // Removes what was uploaded when the rows will not be recorded after all
+        void discard() {
+            for (Rendition image : stored) {
+                try {
+                    blobStorageService.delete(CONTAINER_RENDITIONS, image.getFilePath());
+                } catch (Exception e) {
+                    log.warn("Failed to delete unused image '{}'", image.getFilePath(), e);
+                }
+            }
+        }
+
+        private void upload(RenditionType type, Integer pageNumber, String blobPath, byte[] png) {
+            if (failed) {
+                return;
+            }
+            try {
+                blobStorageService.upload(CONTAINER_RENDITIONS, blobPath, new ByteArrayInputStream(png), png.length,
+                        CONTENT_TYPE_PNG);
+                stored.add(Rendition.builder()
+                        .renditionType(type)
+                        .status(RenditionStatus.COMPLETED)
+                        .filePath(blobPath)
+                        .fileSize((long) png.length)
+                        .pageNumber(pageNumber)
+                        .documentVersion(version)
+                        .build());
+            } catch (Exception e) {
+                failed = true;
+                log.warn("Failed to upload image '{}' for document version: {}, skipping the rest",
+                        blobPath, version.getId(), e);
+            }
+        }
+    }
+
+    private void reuseImages(UUID sourceVersionId, DocumentVersion version) {
+        List<Rendition> images = renditionRepository.findByDocumentVersionIdAndRenditionTypeIn(sourceVersionId, IMAGE_TYPES)
+                .stream()
+                .map(image -> Rendition.builder()
+                        .renditionType(image.getRenditionType())
+                        .status(RenditionStatus.COMPLETED)
+                        .filePath(image.getFilePath())
+                        .fileSize(image.getFileSize())
+                        .pageNumber(image.getPageNumber())
+                        .documentVersion(version)
+                        .build())
+                .toList();
+        replaceImages(version.getId(), images);
+    }
+
     public RenditionDto getRendition(UUID documentVersionId, RenditionType type) {
         return renditionRepository.findByDocumentVersionIdAndRenditionType(documentVersionId, type)
                 .map(this::toDto)
@@ -141,6 +611,7 @@ public class RenditionService {
                 .status(rendition.getStatus())
                 .filePath(rendition.getFilePath())
                 .fileSize(rendition.getFileSize())
+                .pageNumber(rendition.getPageNumber())
                 .errorMessage(rendition.getErrorMessage())
                 .createdAt(rendition.getCreatedAt())
                 .build();
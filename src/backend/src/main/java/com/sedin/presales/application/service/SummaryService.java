@@ -5,26 +5,32 @@ import com.sedin.presales.application.exception.ResourceNotFoundException;
 import com.sedin.presales.domain.entity.Document;
 import com.sedin.presales.domain.entity.DocumentVersion;
 import com.sedin.presales.domain.entity.Rendition;
+import com.sedin.presales.domain.enums.IngestStep;
+import com.sedin.presales.domain.enums.JobPriority;
+import com.sedin.presales.domain.enums.JobType;
 import com.sedin.presales.domain.enums.RenditionStatus;
 import com.sedin.presales.domain.enums.RenditionType;
 import com.sedin.presales.domain.repository.DocumentRepository;
 import com.sedin.presales.domain.repository.DocumentVersionRepository;
 import com.sedin.presales.domain.repository.RenditionRepository;
-import com.sedin.presales.infrastructure.ai.DocumentIntelligenceService;
 import com.sedin.presales.infrastructure.ai.SummarizationService;
 import com.sedin.presales.infrastructure.storage.BlobStorageService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
@@ -35,9 +41,11 @@ public class SummaryService {
     private final DocumentRepository documentRepository;
     private final DocumentVersionRepository documentVersionRepository;
     private final RenditionRepository renditionRepository;
-    private final DocumentIntelligenceService documentIntelligenceService;
+    private final ExtractedTextService extractedTextService;
     private final SummarizationService summarizationService;
     private final BlobStorageService blobStorageService;
+    private final JobQueueService jobQueueService;
+    private final SummaryStreams summaryStreams;
 
     @Value("${azure.storage.container-summaries}")
     private String containerSummaries;
@@ -45,29 +53,119 @@ public class SummaryService {
     public SummaryService(DocumentRepository documentRepository,
                           DocumentVersionRepository documentVersionRepository,
                           RenditionRepository renditionRepository,
-                          DocumentIntelligenceService documentIntelligenceService,
+                          ExtractedTextService extractedTextService,
                           SummarizationService summarizationService,
-                          BlobStorageService blobStorageService) {
+                          BlobStorageService blobStorageService,
+                          JobQueueService jobQueueService,
+                          SummaryStreams summaryStreams) {
         this.documentRepository = documentRepository;
         this.documentVersionRepository = documentVersionRepository;
         this.renditionRepository = renditionRepository;
-        this.documentIntelligenceService = documentIntelligenceService;
+        this.extractedTextService = extractedTextService;
         this.summarizationService = summarizationService;
         this.blobStorageService = blobStorageService;
+        this.jobQueueService = jobQueueService;
+        this.summaryStreams = summaryStreams;
     }
 
-    @Async("renditionExecutor")
     public void generateSummary(UUID documentVersionId) {
-        log.info("Starting async summary generation for document version: {}", documentVersionId);
-        try {
-            processSummary(documentVersionId);
-        } catch (Exception e) {
-            log.error("Failed to generate summary for document version: {}", documentVersionId, e);
+        log.info("Queueing summary generation for document version: {}", documentVersionId);
+        jobQueueService.enqueue(JobType.SUMMARY, documentVersionId);
+    }
+
+    /**
+     * Streams the summary of the current version as server-sent events: the tokens of the
+     * generation as they are produced, then the whole summary. A finished summary is sent at once.
+     * Viewers arriving while a generation is queued or running attach to it, and only the first
+     * viewer of a version without a summary queues one, ahead of the backlog. A generation already
+     * queued, on its own or as a step of an ingest run, is moved ahead of the backlog instead.
+     */
+    public SseEmitter streamSummary(UUID documentId) {
+        DocumentVersion currentVersion = currentVersion(documentId);
+        Optional<Rendition> rendition = renditionRepository
+                .findByDocumentVersionIdAndRenditionType(currentVersion.getId(), RenditionType.SUMMARY);
+
+        if (rendition.isPresent() && rendition.get().getStatus() == RenditionStatus.COMPLETED) {
+            String summary = downloadSummaryText(rendition.get().getFilePath());
+            return summary != null
+                    ? summaryStreams.finished(SummaryStreams.COMPLETE, summary)
+                    : summaryStreams.finished(SummaryStreams.ERROR, "Summary could not be read");
         }
+        if (rendition.isPresent() && rendition.get().getStatus() == RenditionStatus.FAILED) {
+            return summaryStreams.finished(SummaryStreams.ERROR,
+                    "Summary generation failed: " + rendition.get().getErrorMessage());
+        }
+
+        SummaryStreams.Subscription subscription = summaryStreams.subscribe(currentVersion.getId());
+        if (subscription.first()) {
+            if (rendition.isEmpty() && !summaryPending(currentVersion.getId())) {
+                log.info("Queueing summary generation for streaming viewer of document version: {}",
+                        currentVersion.getId());
+                jobQueueService.enqueue(JobType.SUMMARY, currentVersion.getId(), null, JobPriority.INTERACTIVE);
+            } else {
+                jobQueueService.promote(currentVersion.getId(), JobPriority.INTERACTIVE);
+            }
+        }
+        return subscription.emitter();
+    }
+
+    // The rendition row of a generation running as an ingest step is not committed until it ends
+    private boolean summaryPending(UUID documentVersionId) {
+        return jobQueueService.pending(documentVersionId, JobType.SUMMARY, JobType.INGEST).stream()
+                .anyMatch(job -> job.getType() == JobType.SUMMARY
+                        || IngestPipelineService.parseSteps(job.getPayload()).contains(IngestStep.SUMMARY));
+    }
+
+    /**
+     * Ends the streams of this instance whose generation runs on another one, which this instance
+     * never hears from, once the stored summary is complete or has failed.
+     */
+    @Scheduled(fixedDelayString = "${app.summary.remote-check-interval-ms:5000}")
+    public void finishRemoteGenerations() {
+        for (UUID documentVersionId : summaryStreams.awaitingElsewhere()) {
+            renditionRepository.findByDocumentVersionIdAndRenditionType(documentVersionId, RenditionType.SUMMARY)
+                    .ifPresent(rendition -> {
+                        if (rendition.getStatus() == RenditionStatus.COMPLETED) {
+                            summaryStreams.completed(documentVersionId, () -> downloadSummaryText(rendition.getFilePath()));
+                        } else if (rendition.getStatus() == RenditionStatus.FAILED) {
+                            summaryStreams.failed(documentVersionId,
+                                    "Summary generation failed: " + rendition.getErrorMessage());
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Extracts the text of the version ahead of {@link #processSummary(UUID)}, so that the job finds
+     * it stored, without holding the caller's thread while it is sent for OCR. Completes at once when
+     * the summary is already done; extraction failures are left for the job to run into.
+     */
+    public CompletableFuture<Void> prepareText(UUID documentVersionId) {
+        Optional<DocumentVersion> version = documentVersionRepository.findById(documentVersionId);
+        boolean completed = renditionRepository
+                .findByDocumentVersionIdAndRenditionType(documentVersionId, RenditionType.SUMMARY)
+                .filter(rendition -> rendition.getStatus() == RenditionStatus.COMPLETED)
+                .isPresent();
+        if (version.isEmpty() || completed) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String filePath = version.get().getFilePath();
+        return extractedTextService
+                .extractAsync(version.get(), () -> blobStorageService.download(CONTAINER_DOCUMENTS, filePath))
+                .handle((text, error) -> null);
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void processSummary(UUID documentVersionId) {
+        processSummary(documentVersionId, null);
+    }
+
+    /**
+     * Summarizes the version using {@code extractedText} when the caller has already extracted it,
+     * otherwise reads the stored text of the version, extracting it from the original if there is none.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void processSummary(UUID documentVersionId, Supplier<String> extractedText) {
         DocumentVersion version = documentVersionRepository.findById(documentVersionId)
                 .orElseThrow(() -> new ResourceNotFoundException("DocumentVersion", "id", documentVersionId));
 
@@ -79,6 +177,7 @@ public class SummaryService {
             Rendition existing = existingRendition.get();
             if (existing.getStatus() == RenditionStatus.COMPLETED) {
                 log.info("Summary rendition already completed for document version: {}, skipping", documentVersionId);
+                summaryStreams.completed(documentVersionId, () -> downloadSummaryText(existing.getFilePath()));
                 return;
             }
             // Delete existing PENDING/PROCESSING/FAILED rendition and regenerate
@@ -87,6 +186,26 @@ public class SummaryService {
             renditionRepository.flush();
         }
 
+        // Identical bytes were already summarized for another version, point at that summary instead
+        if (version.getContentHash() != null) {
+            Optional<Rendition> sameContent = renditionRepository
+                    .findFirstByDocumentVersionContentHashAndRenditionTypeAndStatusAndDocumentVersionIdNot(
+                            version.getContentHash(), RenditionType.SUMMARY, RenditionStatus.COMPLETED, documentVersionId);
+            if (sameContent.isPresent()) {
+                renditionRepository.save(Rendition.builder()
+                        .renditionType(RenditionType.SUMMARY)
+                        .status(RenditionStatus.COMPLETED)
+                        .filePath(sameContent.get().getFilePath())
+                        .fileSize(sameContent.get().getFileSize())
+                        .documentVersion(version)
+                        .build());
+                log.info("Reused summary '{}' for document version: {} (content {})",
+                        sameContent.get().getFilePath(), documentVersionId, version.getContentHash());
+                summaryStreams.completed(documentVersionId, () -> downloadSummaryText(sameContent.get().getFilePath()));
+                return;
+            }
+        }
+
         // Create rendition record with PENDING status
         Rendition rendition = Rendition.builder()
                 .renditionType(RenditionType.SUMMARY)
@@ -98,22 +217,25 @@ public class SummaryService {
         // Update to PROCESSING
         rendition.setStatus(RenditionStatus.PROCESSING);
         rendition = renditionRepository.save(rendition);
+        Consumer<String> tokens = summaryStreams.started(documentVersionId);
 
         try {
-            // Download original file from blob storage
-            log.info("Downloading original file from path: {}", version.getFilePath());
-            InputStream originalFileStream = blobStorageService.download(CONTAINER_DOCUMENTS, version.getFilePath());
-
-            // Extract text using Document Intelligence
-            String extractedText = documentIntelligenceService.extractText(originalFileStream, version.getContentType());
+            String text;
+            if (extractedText != null) {
+                text = extractedText.get();
+            } else {
+                // Stored text of the version, the original is only downloaded if it was never extracted
+                text = extractedTextService.text(version,
+                        () -> blobStorageService.download(CONTAINER_DOCUMENTS, version.getFilePath()));
+            }
 
-            if (extractedText == null || extractedText.isBlank()) {
+            if (text == null || text.isBlank()) {
                 throw new RuntimeException("No text could be extracted from the document");
             }
 
             // Generate summary using Azure OpenAI
             String documentTitle = version.getDocument().getTitle();
-            String summary = summarizationService.summarize(extractedText, documentTitle);
+            String summary = summarizationService.summarize(text, documentTitle, tokens);
 
             // Upload summary to blob storage
             byte[] summaryBytes = summary.getBytes(StandardCharsets.UTF_8);
@@ -134,23 +256,19 @@ public class SummaryService {
             renditionRepository.save(rendition);
 
             log.info("Summary generation completed for document version: {}, size: {} bytes", documentVersionId, summaryBytes.length);
+            summaryStreams.completed(documentVersionId, () -> summary);
 
         } catch (Exception e) {
             log.error("Failed to generate summary for document version: {}", documentVersionId, e);
             rendition.setStatus(RenditionStatus.FAILED);
             rendition.setErrorMessage(e.getMessage());
             renditionRepository.save(rendition);
+            summaryStreams.failed(documentVersionId, "Summary generation failed: " + e.getMessage());
         }
     }
 
     public SummaryResponseDto getSummaryStatus(UUID documentId) {
-        Document document = documentRepository.findById(documentId)
-                .orElseThrow(() -> new ResourceNotFoundException("Document", "id", documentId));
-
-        DocumentVersion currentVersion = documentVersionRepository
-                .findByDocumentIdAndVersionNumber(documentId, document.getCurrentVersionNumber())
-                .orElseThrow(() -> new ResourceNotFoundException("DocumentVersion", "documentId/versionNumber",
-                        documentId + "/" + document.getCurrentVersionNumber()));
+        DocumentVersion currentVersion = currentVersion(documentId);
 
         Optional<Rendition> renditionOpt = renditionRepository
                 .findByDocumentVersionIdAndRenditionType(currentVersion.getId(), RenditionType.SUMMARY);
@@ -191,13 +309,7 @@ public class SummaryService {
     }
 
     public SummaryResponseDto regenerateSummary(UUID documentId) {
-        Document document = documentRepository.findById(documentId)
-                .orElseThrow(() -> new ResourceNotFoundException("Document", "id", documentId));
-
-        DocumentVersion currentVersion = documentVersionRepository
-                .findByDocumentIdAndVersionNumber(documentId, document.getCurrentVersionNumber())
-                .orElseThrow(() -> new ResourceNotFoundException("DocumentVersion", "documentId/versionNumber",
-                        documentId + "/" + document.getCurrentVersionNumber()));
+        DocumentVersion currentVersion = currentVersion(documentId);
 
         // Delete existing summary rendition if present
         Optional<Rendition> existingRendition = renditionRepository
@@ -214,6 +326,16 @@ public class SummaryService {
                 .build();
     }
 
+    private DocumentVersion currentVersion(UUID documentId) {
+        Document document = documentRepository.findById(documentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Document", "id", documentId));
+
+        return documentVersionRepository
+                .findByDocumentIdAndVersionNumber(documentId, document.getCurrentVersionNumber())
+                .orElseThrow(() -> new ResourceNotFoundException("DocumentVersion", "documentId/versionNumber",
+                        documentId + "/" + document.getCurrentVersionNumber()));
+    }
+
     private String downloadSummaryText(String filePath) {
         try {
             InputStream inputStream = blobStorageService.download(containerSummaries, filePath);
@@ -0,0 +1,276 @@
+package com.sedin.presales.application.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Summary generations running in this instance, keyed by document version, and the server-sent
+ * event streams watching them. Viewers that subscribe before or during a generation all attach to
+ * the same one: a late subscriber first receives the text produced so far, then every further
+ * {@value #TOKEN} event, and finally a {@value #COMPLETE} event carrying the whole summary or an
+ * {@value #ERROR} event. A generation that never starts here, because a worker on another instance
+ * picked it up, is listed by {@link #awaitingElsewhere()} so that {@link SummaryService} can finish
+ * it from the stored summary; streams still open after {@code stream-timeout} are closed.
+ * <p>
+ * Events are never written on the generating thread. Each viewer has its own queue, drained on
+ * {@code summaryStreamExecutor}, so a viewer on a slow connection only holds up itself; one that
+ * falls more than {@code max-pending-events} behind is dropped and can reconnect or poll.
+ */
+@Slf4j
+@Component
+public class SummaryStreams {
+
+    static final String TOKEN = "token";
+    static final String COMPLETE = "complete";
+    static final String ERROR = "error";
+
+    private final Map<UUID, Generation> generations = new ConcurrentHashMap<>();
+    private final Executor summaryStreamExecutor;
+
+    @Value("${app.summary.stream-timeout:PT5M}")
+    private Duration streamTimeout;
+
+    @Value("${app.summary.max-pending-events:256}")
+    private int maxPendingEvents;
+
+    public SummaryStreams(@Qualifier("summaryStreamExecutor") Executor summaryStreamExecutor) {
+        this.summaryStreamExecutor = summaryStreamExecutor;
+    }
+
+    /**
+     * Attaches a new stream to the generation of the version, registering one that has not started
+     * yet if there is none. Returns whether the version had neither, in which case the caller is
+     * the one to get the generation going.
+     */
+    Subscription subscribe(UUID documentVersionId) {
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        boolean[] created = {false};
+        Generation generation = generations.compute(documentVersionId, (id, existing) -> {
+            Generation attached = existing != null ? existing : new Generation(id);
+            created[0] = existing == null;
+            attached.attach(new Viewer(id, emitter));
+            return attached;
+        });
+        Runnable detach = () -> detach(generation, emitter);
+        emitter.onTimeout(detach);
+        emitter.onError(error -> detach.run());
+        emitter.onCompletion(detach);
+        return new Subscription(emitter, created[0]);
+    }
+
+    /**
+     * Marks the generation of the version as started, returning the listener its tokens go to.
+     */
+    Consumer<String> started(UUID documentVersionId) {
+        Generation generation = generations.computeIfAbsent(documentVersionId, Generation::new);
+        generation.start();
+        return generation::token;
+    }
+
+    void completed(UUID documentVersionId, Supplier<String> summary) {
+        Generation generation = generations.remove(documentVersionId);
+        if (generation != null) {
+            generation.finish(COMPLETE, summary.get());
+        }
+    }
+
+    void failed(UUID documentVersionId, String message) {
+        Generation generation = generations.remove(documentVersionId);
+        if (generation != null) {
+            generation.finish(ERROR, message != null ? message : "Summary generation failed");
+        }
+    }
+
+    /**
+     * Versions that viewers are waiting on here without the generation having started in this instance.
+     */
+    Set<UUID> awaitingElsewhere() {
+        Set<UUID> awaiting = new HashSet<>();
+        generations.forEach((id, generation) -> {
+            if (!generation.isStarted()) {
+                awaiting.add(id);
+            }
+        });
+        return awaiting;
+    }
+
+    /**
+     * A stream that receives the final event straight away, for summaries that are already done.
+     */
+    SseEmitter finished(String eventName, String data) {
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        try {
+            emitter.send(SseEmitter.event().name(eventName).data(data));
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    // A generation nobody watches that has not started is only a placeholder and can go
+    private void detach(Generation generation, SseEmitter emitter) {
+        if (generation.detach(emitter)) {
+            generations.remove(generation.documentVersionId, generation);
+        }
+    }
+
+    record Subscription(SseEmitter emitter, boolean first) {}
+
+    private static final class Generation {
+
+        private final UUID documentVersionId;
+        private final StringBuilder text = new StringBuilder();
+        private final List<Viewer> viewers = new ArrayList<>();
+        private boolean started;
+
+        Generation(UUID documentVersionId) {
+            this.documentVersionId = documentVersionId;
+        }
+
+        synchronized void start() {
+            // A retried generation starts over, so what was streamed of the failed attempt is dropped
+            started = true;
+            text.setLength(0);
+        }
+
+        synchronized boolean isStarted() {
+            return started;
+        }
+
+        synchronized void attach(Viewer viewer) {
+            if (!text.isEmpty() && !viewer.offer(TOKEN, text.toString(), false)) {
+                return;
+            }
+            viewers.add(viewer);
+        }
+
+        synchronized void token(String token) {
+            text.append(token);
+            viewers.removeIf(viewer -> !viewer.offer(TOKEN, token, false));
+        }
+
+        synchronized void finish(String eventName, String data) {
+            for (Viewer viewer : viewers) {
+                viewer.offer(eventName, data, true);
+            }
+            viewers.clear();
+        }
+
+        // Returns whether the generation is left unwatched and not started
+        synchronized boolean detach(SseEmitter emitter) {
+            viewers.removeIf(viewer -> viewer.emitter == emitter);
+            return viewers.isEmpty() && !started;
+        }
+    }
+
+    private record Event(String name, String data, boolean last) {}
+
+    /**
+     * One stream and the events not yet written to it. At most one drain runs at a time, so events
+     * reach the client in order.
+     */
+    private final class Viewer {
+
+        private final UUID documentVersionId;
+        private final SseEmitter emitter;
+        private final ConcurrentLinkedQueue<Event> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+        private volatile boolean tooSlow;
+
+        Viewer(UUID documentVersionId, SseEmitter emitter) {
+            this.documentVersionId = documentVersionId;
+            this.emitter = emitter;
+        }
+
+        // Returns false once the viewer is gone or has fallen too far behind
+        boolean offer(String eventName, String data, boolean last) {
+            if (closed || tooSlow) {
+                return false;
+            }
+            if (queued.incrementAndGet() > maxPendingEvents && !last) {
+                log.info("Dropping summary stream of document version {} that fell {} events behind",
+                        documentVersionId, maxPendingEvents);
+                tooSlow = true;
+            } else {
+                pending.add(new Event(eventName, data, last));
+            }
+            schedule();
+            return !tooSlow;
+        }
+
+        private void schedule() {
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                summaryStreamExecutor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                close(e);
+            }
+        }
+
+        private void drain() {
+            try {
+                Event event;
+                while (!closed && (event = pending.poll()) != null) {
+                    queued.decrementAndGet();
+                    if (tooSlow) {
+                        break;
+                    }
+                    send(event);
+                }
+                if (tooSlow) {
+                    close(new IllegalStateException("Summary stream fell too far behind"));
+                }
+            } finally {
+                draining.set(false);
+            }
+            if (!closed && (tooSlow || !pending.isEmpty())) {
+                schedule();
+            }
+        }
+
+        private void send(Event event) {
+            try {
+                emitter.send(SseEmitter.event().name(event.name()).data(event.data()));
+                if (event.last()) {
+                    closed = true;
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Summary stream of document version {} closed by the client", documentVersionId);
+                close(e);
+            }
+        }
+
+        private void close(Throwable cause) {
+            closed = true;
+            pending.clear();
+            emitter.completeWithError(cause);
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.sedin.presales.application.service;
+
+import com.sedin.presales.application.dto.CompleteUploadSessionRequest;
+import com.sedin.presales.application.dto.CreateUploadSessionRequest;
+import com.sedin.presales.application.dto.DocumentDto;
+import com.sedin.presales.application.dto.DocumentVersionDto;
+import com.sedin.presales.application.dto.UploadSessionDto;
+import com.sedin.presales.application.exception.AccessDeniedException;
+import com.sedin.presales.application.exception.BadRequestException;
+import com.sedin.presales.application.exception.ResourceNotFoundException;
+import com.sedin.presales.config.CurrentUserService;
+import com.sedin.presales.config.UserPrincipal;
+import com.sedin.presales.domain.entity.Document;
+import com.sedin.presales.domain.entity.UploadSession;
+import com.sedin.presales.domain.entity.UploadSessionChunk;
+import com.sedin.presales.domain.enums.UploadSessionStatus;
+import com.sedin.presales.domain.repository.DocumentRepository;
+import com.sedin.presales.domain.repository.UploadSessionChunkRepository;
+import com.sedin.presales.domain.repository.UploadSessionRepository;
+import com.sedin.presales.infrastructure.storage.BlobStorageService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Resumable uploads for files too large to send reliably in one multipart request. Each chunk is
+ * staged directly as a block of the target blob, so nothing is buffered on the app server and a
+ * client can retry or parallelise chunks freely. Completing the session commits the blocks in
+ * order and registers the result as a new document or a new version of an existing one.
+ * <p>
+ * Chunks arrive in any order and in parallel, so there is no running digest to finish, and reading
+ * a file this large back on the request thread would transfer it twice. The version is registered
+ * without a content hash and {@link ContentHashBackfillService} hashes it in the background.
+ */
+@Slf4j
+@Service
+public class UploadSessionService {
+
+    private static final String CONTAINER_NAME = "documents";
+    // Azure block blobs cannot be committed with more blocks than this
+    private static final int MAX_BLOCKS = 50_000;
+    private static final int MAX_MISSING_CHUNKS_REPORTED = 20;
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final UploadSessionChunkRepository uploadSessionChunkRepository;
+    private final DocumentRepository documentRepository;
+    private final DocumentService documentService;
+    private final BlobStorageService blobStorageService;
+    private final CurrentUserService currentUserService;
+
+    @Value("${app.upload-session.chunk-size-bytes:8388608}")
+    private int chunkSize;
+
+    @Value("${app.upload-session.ttl-hours:24}")
+    private long ttlHours;
+
+    public UploadSessionService(UploadSessionRepository uploadSessionRepository,
+                                UploadSessionChunkRepository uploadSessionChunkRepository,
+                                DocumentRepository documentRepository,
+                                DocumentService documentService,
+                                BlobStorageService blobStorageService,
+                                CurrentUserService currentUserService) {
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.uploadSessionChunkRepository = uploadSessionChunkRepository;
+        this.documentRepository = documentRepository;
+        this.documentService = documentService;
+        this.blobStorageService = blobStorageService;
+        this.currentUserService = currentUserService;
+    }
+
+    @Transactional
+    public UploadSessionDto create(CreateUploadSessionRequest request) {
+        log.info("Creating upload session for file '{}' ({} bytes)", request.getFileName(), request.getFileSize());
+
+        Document document = null;
+        if (request.getDocumentId() != null) {
+            documentService.checkWriteAccess(request.getDocumentId());
+            document = documentRepository.findById(request.getDocumentId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Document", "id", request.getDocumentId()));
+        }
+
+        String fileName = safeFileName(request.getFileName());
+        long totalChunks = (request.getFileSize() + chunkSize - 1) / chunkSize;
+        if (totalChunks > MAX_BLOCKS) {
+            throw new BadRequestException("File is too large to upload in chunks of " + chunkSize + " bytes");
+        }
+
+        UploadSession session = UploadSession.builder()
+                .fileName(fileName)
+                .contentType(request.getContentType())
+                .fileSize(request.getFileSize())
+                .chunkSize(chunkSize)
+                .totalChunks((int) totalChunks)
+                .blobPath(String.format("uploads/%s/%s", UUID.randomUUID(), fileName))
+                .status(UploadSessionStatus.OPEN)
+                .document(document)
+                .expiresAt(Instant.now().plus(Duration.ofHours(ttlHours)))
+                .build();
+        UploadSession saved = uploadSessionRepository.save(session);
+
+        log.info("Created upload session {} with {} chunks of {} bytes", saved.getId(), totalChunks, chunkSize);
+        return toDto(saved, List.of());
+    }
+
+    // The name is the last segment of the blob path, so it must not be able to climb out of its session folder
+    static String safeFileName(String fileName) {
+        String name = fileName == null ? "" : fileName.strip();
+        if (name.isEmpty() || name.contains("/") || name.contains("\\") || name.contains("..")) {
+            throw new BadRequestException("File name must not be empty or contain '/', '\\' or '..'");
+        }
+        return name;
+    }
+
+    public UploadSessionDto get(UUID sessionId) {
+        UploadSession session = findAccessibleSession(sessionId);
+        return toDto(session, receivedChunks(sessionId));
+    }
+
+    /**
+     * Stages one chunk as a block of the session's blob. Sending the same chunk again simply
+     * replaces the staged block, so clients can retry any chunk whose response they never saw.
+     */
+    public UploadSessionDto uploadChunk(UUID sessionId, int chunkIndex, InputStream data, long contentLength) {
+        UploadSession session = findAccessibleSession(sessionId);
+        requireOpen(session);
+
+        if (chunkIndex < 0 || chunkIndex >= session.getTotalChunks()) {
+            throw new BadRequestException("Chunk index must be between 0 and " + (session.getTotalChunks() - 1));
+        }
+        long expectedSize = expectedChunkSize(session, chunkIndex);
+        if (contentLength != expectedSize) {
+            throw new BadRequestException(String.format("Chunk %d must be %d bytes, got %d",
+                    chunkIndex, expectedSize, contentLength));
+        }
+
+        blobStorageService.stageBlock(CONTAINER_NAME, session.getBlobPath(),
+                BlobStorageService.blockId(sessionId.toString(), chunkIndex), data, expectedSize);
+        recordChunk(session, chunkIndex, expectedSize);
+
+        log.debug("Staged chunk {}/{} for upload session {}", chunkIndex + 1, session.getTotalChunks(), sessionId);
+        return toDto(session, receivedChunks(sessionId));
+    }
+
+    @Transactional
+    public UploadSessionDto complete(UUID sessionId, CompleteUploadSessionRequest request) {
+        log.info("Completing upload session: {}", sessionId);
+        UploadSession session = findAccessibleSession(sessionId);
+        requireOpen(session);
+
+        List<Integer> received = receivedChunks(sessionId);
+        if (received.size() != session.getTotalChunks()) {
+            throw new BadRequestException("Upload is incomplete, missing chunks: " + missingChunks(session, received));
+        }
+
+        boolean newDocument = session.getDocument() == null;
+        if (newDocument && (request == null || request.getDocument() == null)) {
+            throw new BadRequestException("Document details are required to complete a new document upload");
+        }
+
+        List<String> blockIds = IntStream.range(0, session.getTotalChunks())
+                .mapToObj(index -> BlobStorageService.blockId(sessionId.toString(), index))
+                .toList();
+        blobStorageService.commitBlocks(CONTAINER_NAME, session.getBlobPath(), blockIds, session.getContentType());
+
+        if (newDocument) {
+            DocumentDto document = documentService.createFromStoredBlob(request.getDocument(),
+                    session.getBlobPath(), session.getFileName(), session.getFileSize(), session.getContentType(),
+                    null);
+            session.setDocument(documentRepository.getReferenceById(document.getId()));
+            session.setVersionNumber(1);
+        } else {
+            DocumentVersionDto version = documentService.addVersionFromStoredBlob(session.getDocument().getId(),
+                    session.getBlobPath(), session.getFileName(), session.getFileSize(), session.getContentType(),
+                    null);
+            session.setVersionNumber(version.getVersionNumber());
+        }
+
+        session.setStatus(UploadSessionStatus.COMPLETED);
+        uploadSessionChunkRepository.deleteByUploadSessionId(sessionId);
+        uploadSessionRepository.save(session);
+
+        log.info("Completed upload session {} as version {} of document {}",
+                sessionId, session.getVersionNumber(), session.getDocument().getId());
+        return toDto(session, received);
+    }
+
+    @Transactional
+    public void abort(UUID sessionId) {
+        log.info("Aborting upload session: {}", sessionId);
+        UploadSession session = findAccessibleSession(sessionId);
+        requireOpen(session);
+        discard(session, UploadSessionStatus.ABORTED);
+    }
+
+    @Scheduled(fixedDelayString = "${app.upload-session.sweep-interval-ms:900000}")
+    @Transactional
+    public void expireAbandonedSessions() {
+        List<UploadSession> abandoned = uploadSessionRepository
+                .findByStatusAndExpiresAtBefore(UploadSessionStatus.OPEN, Instant.now());
+        if (abandoned.isEmpty()) {
+            return;
+        }
+
+        log.info("Expiring {} abandoned upload sessions", abandoned.size());
+        for (UploadSession session : abandoned) {
+            try {
+                discard(session, UploadSessionStatus.EXPIRED);
+            } catch (Exception e) {
+                log.warn("Failed to clean up upload session: {}", session.getId(), e);
+            }
+        }
+    }
+
+    private void discard(UploadSession session, UploadSessionStatus status) {
+        blobStorageService.discardStagedBlocks(CONTAINER_NAME, session.getBlobPath());
+        uploadSessionChunkRepository.deleteByUploadSessionId(session.getId());
+        session.setStatus(status);
+        uploadSessionRepository.save(session);
+    }
+
+    private void recordChunk(UploadSession session, int chunkIndex, long size) {
+        if (uploadSessionChunkRepository.existsByUploadSessionIdAndChunkIndex(session.getId(), chunkIndex)) {
+            return;
+        }
+        try {
+            uploadSessionChunkRepository.save(UploadSessionChunk.builder()
+                    .uploadSession(session)
+                    .chunkIndex(chunkIndex)
+                    .size(size)
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            // The same chunk was sent twice concurrently and the other request recorded it first
+            log.debug("Chunk {} of upload session {} was already recorded", chunkIndex, session.getId());
+        }
+    }
+
+    private UploadSession findAccessibleSession(UUID sessionId) {
+        UploadSession session = uploadSessionRepository.findById(sessionId)
+                .orElseThrow(() -> new ResourceNotFoundException("UploadSession", "id", sessionId));
+
+        UserPrincipal user = currentUserService.getCurrentUser();
+        if (!"ADMIN".equalsIgnoreCase(user.getRole()) && !user.getEmail().equalsIgnoreCase(session.getCreatedBy())) {
+            throw new AccessDeniedException("You do not have access to this upload session");
+        }
+        return session;
+    }
+
+    private void requireOpen(UploadSession session) {
+        if (session.getStatus() != UploadSessionStatus.OPEN) {
+            throw new BadRequestException("Upload session is " + session.getStatus().name().toLowerCase());
+        }
+        if (session.getExpiresAt().isBefore(Instant.now())) {
+            throw new BadRequestException("Upload session has expired");
+        }
+    }
+
+    private long expectedChunkSize(UploadSession session, int chunkIndex) {
+        if (chunkIndex < session.getTotalChunks() - 1) {
+            return session.getChunkSize();
+        }
+        return session.getFileSize() - (long) session.getChunkSize() * (session.getTotalChunks() - 1);
+    }
+
+    private List<Integer> receivedChunks(UUID sessionId) {
+        return uploadSessionChunkRepository.findByUploadSessionIdOrderByChunkIndexAsc(sessionId).stream()
+                .map(UploadSessionChunk::getChunkIndex)
+                .toList();
+    }
+
+    private List<Integer> missingChunks(UploadSession session, List<Integer> received) {
+        Set<Integer> receivedSet = new HashSet<>(received);
+        return IntStream.range(0, session.getTotalChunks())
+                .filter(index -> !receivedSet.contains(index))
+                .limit(MAX_MISSING_CHUNKS_REPORTED)
+                .boxed()
+                .toList();
+    }
+
+    private UploadSessionDto toDto(UploadSession session, List<Integer> receivedChunks) {
+        return UploadSessionDto.builder()
+                .id(session.getId())
+                .fileName(session.getFileName())
+                .contentType(session.getContentType())
+                .fileSize(session.getFileSize())
+                .chunkSize(session.getChunkSize())
+                .totalChunks(session.getTotalChunks())
+                .receivedChunks(receivedChunks)
+                .status(session.getStatus())
+                .documentId(session.getDocument() != null ? session.getDocument().getId() : null)
+                .versionNumber(session.getVersionNumber())
+                .expiresAt(session.getExpiresAt())
+                .build();
+    }
+}
@@ -14,7 +14,15 @@ public class AsposeConfig {
 
     @PostConstruct
     public void loadAsposeLicenses() {
-        InputStream licenseStream = getClass().getClassLoader().getResourceAsStream(LICENSE_PATH);
+        loadLicenses();
+    }
+
+    /**
+     * Applies the Aspose license to every product. Static so that conversion worker processes,
+     * which run without a Spring context, load the same license.
+     */
+    public static void loadLicenses() {
+        InputStream licenseStream = AsposeConfig.class.getClassLoader().getResourceAsStream(LICENSE_PATH);
 
         if (licenseStream == null) {
             log.warn("Aspose license file not found at '{}'. Running in evaluation mode.", LICENSE_PATH);
@@ -26,9 +34,34 @@ public class AsposeConfig {
         loadCellsLicense();
     }
 
-    private void loadSlidesLicense() {
+    /**
+     * Scans the system font folders once for each product so that the first conversion does not
+     * pay for it. Words enumerates its font sources into its cache, and the folders Slides knows
+     * about are loaded into Slides and handed to Cells. Returns the number of fonts Words found.
+     */
+    public static int preloadFonts() {
+        int fonts = 0;
+        try {
+            for (com.aspose.words.FontSourceBase source : com.aspose.words.FontSettings.getDefaultInstance().getFontsSources()) {
+                fonts += source.getAvailableFonts().size();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to preload Aspose.Words fonts: {}", e.getMessage());
+        }
+        try {
+            String[] folders = com.aspose.slides.FontsLoader.getFontFolders();
+            com.aspose.slides.FontsLoader.loadExternalFonts(folders);
+            com.aspose.cells.FontConfigs.setFontFolders(folders, true);
+            log.info("Preloaded {} Aspose.Words fonts and {} font folders for Slides and Cells", fonts, folders.length);
+        } catch (Exception e) {
+            log.warn("Failed to preload Aspose.Slides and Aspose.Cells fonts: {}", e.getMessage());
+        }
+        return fonts;
+    }
+
+    private static void loadSlidesLicense() {
         try {
-            InputStream stream = getClass().getClassLoader().getResourceAsStream(LICENSE_PATH);
+            InputStream stream = AsposeConfig.class.getClassLoader().getResourceAsStream(LICENSE_PATH);
             if (stream != null) {
                 com.aspose.slides.License slidesLicense = new com.aspose.slides.License();
                 slidesLicense.setLicense(stream);
@@ -39,9 +72,9 @@ public class AsposeConfig {
         }
     }
 
-    private void loadWordsLicense() {
+    private static void loadWordsLicense() {
         try {
-            InputStream stream = getClass().getClassLoader().getResourceAsStream(LICENSE_PATH);
+            InputStream stream = AsposeConfig.class.getClassLoader().getResourceAsStream(LICENSE_PATH);
             if (stream != null) {
                 com.aspose.words.License wordsLicense = new com.aspose.words.License();
                 wordsLicense.setLicense(stream);
@@ -52,9 +85,9 @@ public class AsposeConfig {
         }
     }
 
-    private void loadCellsLicense() {
+    private static void loadCellsLicense() {
         try {
-            InputStream stream = getClass().getClassLoader().getResourceAsStream(LICENSE_PATH);
+            InputStream stream = AsposeConfig.class.getClassLoader().getResourceAsStream(LICENSE_PATH);
             if (stream != null) {
                 com.aspose.cells.License cellsLicense = new com.aspose.cells.License();
                 cellsLicense.setLicense(stream);
@@ -1,45 +1,85 @@
 package com.sedin.presales.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
 public class AsyncConfig {
 
-    @Bean("renditionExecutor")
-    public Executor renditionExecutor() {
+    @Bean("blobTransferExecutor")
+    public Executor blobTransferExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(2);
-        executor.setMaxPoolSize(5);
-        executor.setQueueCapacity(25);
-        executor.setThreadNamePrefix("rendition-");
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(16);
+        executor.setQueueCapacity(64);
+        executor.setThreadNamePrefix("blob-transfer-");
+        // Staging blocks on the caller's thread is better than failing an upload mid-way
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
         executor.initialize();
         return executor;
     }
 
-    @Bean("indexingExecutor")
-    public Executor indexingExecutor() {
+    // Separate from blobTransferExecutor: entry uploads wait on staged blocks running there
+    @Bean("bulkIngestUploadExecutor")
+    public Executor bulkIngestUploadExecutor(@Value("${app.bulk-ingest.parallelism:4}") int parallelism) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(2);
-        executor.setMaxPoolSize(4);
-        executor.setQueueCapacity(50);
-        executor.setThreadNamePrefix("indexing-");
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(parallelism);
+        executor.setThreadNamePrefix("bulk-ingest-upload-");
         executor.initialize();
         return executor;
     }
 
-    @Bean("caseStudyExecutor")
-    public Executor caseStudyExecutor() {
+    // Separate from the job worker pools: ingest jobs block waiting for their steps to finish here
+    @Bean("ingestStepExecutor")
+    public Executor ingestStepExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(2);
-        executor.setMaxPoolSize(4);
-        executor.setQueueCapacity(20);
-        executor.setThreadNamePrefix("casestudy-");
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(64);
+        executor.setThreadNamePrefix("ingest-step-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    // Core and max size are equal so the pool bounds how many section summaries hit Azure OpenAI at once
+    @Bean("summarizationExecutor")
+    public Executor summarizationExecutor(@Value("${app.summarization.max-concurrency:4}") int maxConcurrency) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrency);
+        executor.setMaxPoolSize(maxConcurrency);
+        executor.setThreadNamePrefix("summarization-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Writes to summary streams happen here, never on the generating thread; each viewer has at most one task queued
+    @Bean("summaryStreamExecutor")
+    public Executor summaryStreamExecutor(@Value("${app.summary.stream-senders:4}") int senders) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(senders);
+        executor.setMaxPoolSize(senders);
+        executor.setThreadNamePrefix("summary-stream-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Servlet writes of streamed downloads block on the client, so each download in progress can hold a thread
+    @Bean("downloadWriteExecutor")
+    public Executor downloadWriteExecutor(@Value("${app.storage.download-writers:200}") int writers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(writers);
+        executor.setMaxPoolSize(writers);
+        executor.setThreadNamePrefix("download-write-");
         executor.initialize();
         return executor;
     }
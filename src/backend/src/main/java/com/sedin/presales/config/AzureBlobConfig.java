@@ -1,12 +1,15 @@
 package com.sedin.presales.config;
 
+import com.azure.storage.blob.BlobServiceAsyncClient;
 import com.azure.storage.blob.BlobServiceClient;
 import com.azure.storage.blob.BlobServiceClientBuilder;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
+@ConditionalOnProperty(name = "app.storage.backend", havingValue = "azure", matchIfMissing = true)
 public class AzureBlobConfig {
 
     @Value("${azure.storage.connection-string}")
@@ -18,4 +21,11 @@ public class AzureBlobConfig {
                 .connectionString(connectionString)
                 .buildClient();
     }
+
+    @Bean
+    public BlobServiceAsyncClient blobServiceAsyncClient() {
+        return new BlobServiceClientBuilder()
+                .connectionString(connectionString)
+                .buildAsyncClient();
+    }
 }
@@ -1,6 +1,6 @@
 package com.sedin.presales.config;
 
-import com.azure.ai.formrecognizer.documentanalysis.DocumentAnalysisClient;
+import com.azure.ai.formrecognizer.documentanalysis.DocumentAnalysisAsyncClient;
 import com.azure.ai.formrecognizer.documentanalysis.DocumentAnalysisClientBuilder;
 import com.azure.core.credential.AzureKeyCredential;
 import org.springframework.beans.factory.annotation.Value;
@@ -17,10 +17,10 @@ public class DocumentIntelligenceConfig {
     private String apiKey;
 
     @Bean
-    public DocumentAnalysisClient documentAnalysisClient() {
+    public DocumentAnalysisAsyncClient documentAnalysisAsyncClient() {
         return new DocumentAnalysisClientBuilder()
                 .endpoint(endpoint)
                 .credential(new AzureKeyCredential(apiKey))
-                .buildClient();
+                .buildAsyncClient();
     }
 }
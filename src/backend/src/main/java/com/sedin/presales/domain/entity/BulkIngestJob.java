@@ -0,0 +1,75 @@
+package com.sedin.presales.domain.entity;
+
+import com.sedin.presales.domain.enums.BulkIngestStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.SuperBuilder;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@SuperBuilder
+@Entity
+@Table(name = "bulk_ingest_jobs")
+public class BulkIngestJob extends BaseEntity {
+
+    @Column(name = "archive_name", nullable = false)
+    private String archiveName;
+
+    @Column(name = "archive_path", nullable = false)
+    private String archivePath;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    @Builder.Default
+    private BulkIngestStatus status = BulkIngestStatus.RUNNING;
+
+    /**
+     * Default document type for entries the manifest does not override.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "document_type_id", nullable = false)
+    private DocumentType documentType;
+
+    /**
+     * Folder the archive's top level maps onto; null means the library root.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "root_folder_id")
+    private Folder rootFolder;
+
+    @Column(name = "manifest")
+    private String manifest;
+
+    @Column(name = "total_entries", nullable = false)
+    @Builder.Default
+    private Integer totalEntries = 0;
+
+    @Column(name = "completed_entries", nullable = false)
+    @Builder.Default
+    private Integer completedEntries = 0;
+
+    @Column(name = "failed_entries", nullable = false)
+    @Builder.Default
+    private Integer failedEntries = 0;
+
+    @Column(name = "error_message")
+    private String errorMessage;
+
+    @Column(name = "completed_at")
+    private Instant completedAt;
+}
@@ -55,6 +55,15 @@ public class DocumentVersion {
     @Column(name = "content_type")
     private String contentType;
 
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    /**
+     * JSON map of ingest pipeline step to elapsed milliseconds, written when the pipeline finishes.
+     */
+    @Column(name = "ingest_timings")
+    private String ingestTimings;
+
     @Column(name = "uploaded_by")
     private String uploadedBy;
 
@@ -0,0 +1,82 @@
+package com.sedin.presales.domain.entity;
+
+import com.sedin.presales.domain.enums.JobPriority;
+import com.sedin.presales.domain.enums.JobStatus;
+import com.sedin.presales.domain.enums.JobType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.SuperBuilder;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@SuperBuilder
+@Entity
+@Table(name = "jobs")
+public class Job extends BaseEntity {
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false)
+    private JobType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    @Builder.Default
+    private JobStatus status = JobStatus.QUEUED;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "priority", nullable = false)
+    @Builder.Default
+    private JobPriority priority = JobPriority.NORMAL;
+
+    /**
+     * The document or version the job works on.
+     */
+    @Column(name = "resource_id", nullable = false)
+    private UUID resourceId;
+
+    @Column(name = "payload")
+    private String payload;
+
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "max_attempts", nullable = false)
+    private Integer maxAttempts;
+
+    /**
+     * When the job next becomes visible to workers: the earliest start for a queued job, the lease
+     * expiry for a running one.
+     */
+    @Column(name = "run_at", nullable = false)
+    private Instant runAt;
+
+    /**
+     * The due time less the head start of the job's priority, which is the order claims take jobs
+     * in. Set when the job is queued, promoted or retried; a running job keeps its place in line.
+     */
+    @Column(name = "effective_run_at", nullable = false)
+    private Instant effectiveRunAt;
+
+    @Column(name = "locked_by")
+    private String lockedBy;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    @Column(name = "completed_at")
+    private Instant completedAt;
+}
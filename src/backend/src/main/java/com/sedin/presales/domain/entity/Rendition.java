@@ -48,6 +48,10 @@ public class Rendition {
     @Column(name = "file_size")
     private Long fileSize;
 
+    // 1-based slide or page number for SLIDE_IMAGE renditions
+    @Column(name = "page_number")
+    private Integer pageNumber;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "status", nullable = false)
     @Builder.Default
@@ -56,6 +60,17 @@ public class Rendition {
     @Column(name = "error_message")
     private String errorMessage;
 
+    // SHA-256 of the original's content hash and the conversion settings; null when either is unknown
+    @Column(name = "fingerprint", length = 64)
+    private String fingerprint;
+
+    @Column(name = "conversion_stats")
+    private String conversionStats;
+
+    // Set while a render of this rendition runs; a lease left behind by a render that died runs out
+    @Column(name = "lease_expires_at")
+    private Instant leaseExpiresAt;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
 
@@ -0,0 +1,106 @@
+package com.sedin.presales.domain.entity;
+
+import com.sedin.presales.domain.enums.RenditionBackfillStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.SuperBuilder;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A run that re-renders the PDF renditions of existing document versions. Counters and the cursor
+ * are only changed through the atomic updates on its repository, as workers on several nodes
+ * record progress concurrently.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@SuperBuilder
+@Entity
+@Table(name = "rendition_backfills")
+public class RenditionBackfill extends BaseEntity {
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    @Builder.Default
+    private RenditionBackfillStatus status = RenditionBackfillStatus.RUNNING;
+
+    /**
+     * Comma-separated content types to select; null selects every type.
+     */
+    @Column(name = "content_types")
+    private String contentTypes;
+
+    @Column(name = "created_from")
+    private Instant createdFrom;
+
+    /**
+     * Exclusive upper bound on version creation time, never later than the start of the backfill.
+     */
+    @Column(name = "created_to", nullable = false)
+    private Instant createdTo;
+
+    /**
+     * Only select versions whose PDF rendition failed.
+     */
+    @Column(name = "failed_only", nullable = false)
+    @Builder.Default
+    private Boolean failedOnly = false;
+
+    @Column(name = "rate_per_minute", nullable = false)
+    private Integer ratePerMinute;
+
+    /**
+     * Versions queued or rendering at once, across all nodes.
+     */
+    @Column(name = "max_in_flight", nullable = false)
+    private Integer maxInFlight;
+
+    @Column(name = "total_versions", nullable = false)
+    @Builder.Default
+    private Integer totalVersions = 0;
+
+    @Column(name = "enqueued_versions", nullable = false)
+    @Builder.Default
+    private Integer enqueuedVersions = 0;
+
+    @Column(name = "completed_versions", nullable = false)
+    @Builder.Default
+    private Integer completedVersions = 0;
+
+    @Column(name = "failed_versions", nullable = false)
+    @Builder.Default
+    private Integer failedVersions = 0;
+
+    /**
+     * Creation time and id of the last version queued; selection resumes after it.
+     */
+    @Column(name = "cursor_created_at")
+    private Instant cursorCreatedAt;
+
+    @Column(name = "cursor_version_id")
+    private UUID cursorVersionId;
+
+    @Column(name = "selection_exhausted", nullable = false)
+    @Builder.Default
+    private Boolean selectionExhausted = false;
+
+    /**
+     * Rate-limit clock: each queued version moves it on by one interval of {@code ratePerMinute}.
+     */
+    @Column(name = "last_enqueued_at")
+    private Instant lastEnqueuedAt;
+
+    @Column(name = "completed_at")
+    private Instant completedAt;
+}
@@ -0,0 +1,6 @@
+package com.sedin.presales.domain.enums;
+
+public enum BulkIngestEntryStatus {
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,8 @@
+package com.sedin.presales.domain.enums;
+
+public enum BulkIngestStatus {
+    RUNNING,
+    COMPLETED,
+    COMPLETED_WITH_ERRORS,
+    FAILED
+}
@@ -0,0 +1,8 @@
+package com.sedin.presales.domain.enums;
+
+public enum IngestStep {
+    PDF_RENDITION,
+    SUMMARY,
+    CASE_STUDY_VALIDATION,
+    INDEX
+}
@@ -0,0 +1,23 @@
+package com.sedin.presales.domain.enums;
+
+import java.util.Locale;
+
+/**
+ * Scheduling class of a job, highest first. Within a job type, workers claim higher classes first,
+ * but a lower class is only ever held back by its head start, so it cannot starve.
+ */
+public enum JobPriority {
+    /** A user is waiting on the result, e.g. viewing a document whose rendition is not ready. */
+    INTERACTIVE,
+    /** Processing of a single upload. */
+    NORMAL,
+    /** Bulk ingest, backfills and re-renders. */
+    BACKGROUND;
+
+    /**
+     * Lower-case name used in configuration keys and metric tags.
+     */
+    public String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
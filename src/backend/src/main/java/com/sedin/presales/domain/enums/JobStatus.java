@@ -0,0 +1,8 @@
+package com.sedin.presales.domain.enums;
+
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    DEAD
+}
@@ -0,0 +1,22 @@
+package com.sedin.presales.domain.enums;
+
+import java.util.Locale;
+
+public enum JobType {
+    INGEST,
+    PDF_RENDITION,
+    SUMMARY,
+    INDEXING,
+    INDEX_REMOVAL,
+    CASE_STUDY_VALIDATION,
+    CASE_STUDY_FORMATTING,
+    RENDITION_BACKFILL,
+    BULK_INGEST;
+
+    /**
+     * Kebab-case name used in configuration keys and thread names.
+     */
+    public String key() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
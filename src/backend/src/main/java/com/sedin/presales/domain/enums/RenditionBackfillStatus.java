@@ -0,0 +1,7 @@
+package com.sedin.presales.domain.enums;
+
+public enum RenditionBackfillStatus {
+    RUNNING,
+    COMPLETED,
+    CANCELLED
+}
@@ -2,6 +2,10 @@ package com.sedin.presales.domain.enums;
 
 public enum RenditionType {
     PDF,
+    PDF_PREVIEW,
+    THUMBNAIL,
+    SLIDE_IMAGE,
     SUMMARY,
-    FORMATTED
+    FORMATTED,
+    TEXT
 }
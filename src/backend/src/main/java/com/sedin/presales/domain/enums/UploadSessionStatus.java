@@ -0,0 +1,8 @@
+package com.sedin.presales.domain.enums;
+
+public enum UploadSessionStatus {
+    OPEN,
+    COMPLETED,
+    ABORTED,
+    EXPIRED
+}
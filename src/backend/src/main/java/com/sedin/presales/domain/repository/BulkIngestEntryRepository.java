@@ -0,0 +1,23 @@
+package com.sedin.presales.domain.repository;
+
+import com.sedin.presales.domain.entity.BulkIngestEntry;
+import com.sedin.presales.domain.enums.BulkIngestEntryStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+@Repository
+public interface BulkIngestEntryRepository extends JpaRepository<BulkIngestEntry, UUID> {
+
+    List<BulkIngestEntry> findByJobIdOrderByEntryIndexAsc(UUID jobId);
+
+    @Query("SELECT e.entryIndex FROM BulkIngestEntry e WHERE e.job.id = :jobId")
+    Set<Integer> findEntryIndexesByJobId(@Param("jobId") UUID jobId);
+
+    long countByJobIdAndStatus(UUID jobId, BulkIngestEntryStatus status);
+}
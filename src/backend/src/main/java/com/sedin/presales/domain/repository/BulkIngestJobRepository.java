@@ -0,0 +1,11 @@
+package com.sedin.presales.domain.repository;
+
+import com.sedin.presales.domain.entity.BulkIngestJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface BulkIngestJobRepository extends JpaRepository<BulkIngestJob, UUID> {
+}
@@ -1,17 +1,39 @@
 package com.sedin.presales.domain.repository;
 
 import com.sedin.presales.domain.entity.DocumentVersion;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface DocumentVersionRepository extends JpaRepository<DocumentVersion, UUID> {
+public interface DocumentVersionRepository extends JpaRepository<DocumentVersion, UUID>,
+        JpaSpecificationExecutor<DocumentVersion> {
 
     List<DocumentVersion> findByDocumentIdOrderByVersionNumberDesc(UUID documentId);
 
     Optional<DocumentVersion> findByDocumentIdAndVersionNumber(UUID documentId, Integer versionNumber);
+
+    Optional<DocumentVersion> findFirstByContentHashOrderByCreatedAtAsc(String contentHash);
+
+    List<DocumentVersion> findByContentHashIsNullOrderByCreatedAtAsc(Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM DocumentVersion v WHERE v.id = :id")
+    Optional<DocumentVersion> findForUpdateById(@Param("id") UUID id);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE DocumentVersion v SET v.ingestTimings = :ingestTimings WHERE v.id = :id")
+    void updateIngestTimings(@Param("id") UUID id, @Param("ingestTimings") String ingestTimings);
 }
@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -13,4 +14,8 @@ public interface FolderRepository extends JpaRepository<Folder, UUID> {
     List<Folder> findByParentId(UUID parentId);
 
     List<Folder> findByParentIsNull();
+
+    Optional<Folder> findFirstByParentIdAndName(UUID parentId, String name);
+
+    Optional<Folder> findFirstByParentIsNullAndName(String name);
 }
@@ -0,0 +1,61 @@
+package com.sedin.presales.domain.repository;
+
+import com.sedin.presales.domain.entity.Job;
+import com.sedin.presales.domain.enums.JobStatus;
+import com.sedin.presales.domain.enums.JobType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface JobRepository extends JpaRepository<Job, UUID> {
+
+    /**
+     * Locks up to {@code limit} visible jobs of the given type: queued jobs that are due, and running
+     * jobs whose lease has expired. Rows locked by another worker are skipped rather than waited on.
+     * <p>
+     * Jobs are taken in order of {@code effective_run_at}, their due time less the head start of
+     * their priority, so a higher class goes first but a lower one that has waited longer than the
+     * difference in head starts overtakes newly queued work. The order follows
+     * {@code idx_jobs_visible}, so the claim reads jobs in line rather than sorting all that are due.
+     */
+    @Query(value = """
+            SELECT * FROM jobs
+            WHERE type = :type AND status IN ('QUEUED', 'RUNNING') AND run_at <= :now
+            ORDER BY effective_run_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<Job> lockVisible(@Param("type") String type, @Param("now") Instant now, @Param("limit") int limit);
+
+    List<Job> findByResourceIdAndTypeInAndStatusIn(UUID resourceId, Collection<JobType> types,
+                                                   Collection<JobStatus> statuses);
+
+    /**
+     * Raises queued jobs of the {@code lower} priorities to {@code priority}, moving them up the line
+     * by its head start, in seconds, from when they became due.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE jobs SET priority = :priority, effective_run_at = run_at - :headStart * INTERVAL '1 second'
+            WHERE resource_id = :resourceId AND status = 'QUEUED' AND priority IN (:lower)
+            """, nativeQuery = true)
+    int promote(@Param("resourceId") UUID resourceId, @Param("priority") String priority,
+                @Param("headStart") long headStart, @Param("lower") Collection<String> lower);
+
+    @Modifying
+    @Query("UPDATE Job j SET j.runAt = :leaseUntil WHERE j.id IN :ids AND j.status = 'RUNNING' AND j.lockedBy = :workerId")
+    int extendLeases(@Param("ids") Collection<UUID> ids, @Param("workerId") String workerId,
+                     @Param("leaseUntil") Instant leaseUntil);
+
+    @Modifying
+    @Query("DELETE FROM Job j WHERE j.status = :status AND j.completedAt < :cutoff")
+    int deleteByStatusAndCompletedAtBefore(@Param("status") JobStatus status, @Param("cutoff") Instant cutoff);
+}
@@ -0,0 +1,58 @@
+package com.sedin.presales.domain.repository;
+
+import com.sedin.presales.domain.entity.RenditionBackfill;
+import com.sedin.presales.domain.enums.RenditionBackfillStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface RenditionBackfillRepository extends JpaRepository<RenditionBackfill, UUID> {
+
+    List<RenditionBackfill> findAllByOrderByCreatedAtDesc();
+
+    /**
+     * Locks the running backfills so that only one node queues work for each at a time. Rows
+     * another node is advancing are skipped.
+     */
+    @Query(value = "SELECT * FROM rendition_backfills WHERE status = 'RUNNING' FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<RenditionBackfill> lockRunning();
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE RenditionBackfill b SET b.enqueuedVersions = b.enqueuedVersions + :count,
+                b.cursorCreatedAt = :cursorCreatedAt, b.cursorVersionId = :cursorVersionId,
+                b.selectionExhausted = :exhausted, b.lastEnqueuedAt = :lastEnqueuedAt
+            WHERE b.id = :id
+            """)
+    void recordEnqueued(@Param("id") UUID id, @Param("count") int count,
+                        @Param("cursorCreatedAt") Instant cursorCreatedAt, @Param("cursorVersionId") UUID cursorVersionId,
+                        @Param("exhausted") boolean exhausted, @Param("lastEnqueuedAt") Instant lastEnqueuedAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE RenditionBackfill b SET b.completedVersions = b.completedVersions + 1 WHERE b.id = :id")
+    void incrementCompleted(@Param("id") UUID id);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE RenditionBackfill b SET b.failedVersions = b.failedVersions + 1 WHERE b.id = :id")
+    void incrementFailed(@Param("id") UUID id);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE RenditionBackfill b SET b.status = :status, b.completedAt = :completedAt
+            WHERE b.id = :id AND b.status = 'RUNNING'
+            """)
+    int finish(@Param("id") UUID id, @Param("status") RenditionBackfillStatus status,
+               @Param("completedAt") Instant completedAt);
+}
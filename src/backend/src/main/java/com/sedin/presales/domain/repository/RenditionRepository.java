@@ -1,10 +1,14 @@
 package com.sedin.presales.domain.repository;
 
 import com.sedin.presales.domain.entity.Rendition;
+import com.sedin.presales.domain.enums.RenditionStatus;
 import com.sedin.presales.domain.enums.RenditionType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -14,5 +18,32 @@ public interface RenditionRepository extends JpaRepository<Rendition, UUID> {
 
     List<Rendition> findByDocumentVersionId(UUID documentVersionId);
 
+    boolean existsByFilePath(String filePath);
+
     Optional<Rendition> findByDocumentVersionIdAndRenditionType(UUID documentVersionId, RenditionType renditionType);
+
+    List<Rendition> findByDocumentVersionIdAndRenditionTypeIn(UUID documentVersionId,
+                                                              Collection<RenditionType> renditionTypes);
+
+    void deleteByDocumentVersionIdAndRenditionTypeIn(UUID documentVersionId, Collection<RenditionType> renditionTypes);
+
+    /**
+     * Renditions of the given type and status belonging to the current version of each document.
+     */
+    @Query("""
+            SELECT r FROM Rendition r JOIN FETCH r.documentVersion v
+            WHERE v.document.id IN :documentIds
+              AND v.versionNumber = v.document.currentVersionNumber
+              AND r.renditionType = :renditionType
+              AND r.status = :status
+            """)
+    List<Rendition> findForCurrentVersions(@Param("documentIds") Collection<UUID> documentIds,
+                                           @Param("renditionType") RenditionType renditionType,
+                                           @Param("status") RenditionStatus status);
+
+    Optional<Rendition> findFirstByDocumentVersionContentHashAndRenditionTypeAndStatusAndDocumentVersionIdNot(
+            String contentHash, RenditionType renditionType, RenditionStatus status, UUID documentVersionId);
+
+    Optional<Rendition> findFirstByFingerprintAndRenditionTypeAndStatusAndDocumentVersionIdNot(
+            String fingerprint, RenditionType renditionType, RenditionStatus status, UUID documentVersionId);
 }
@@ -0,0 +1,23 @@
+package com.sedin.presales.domain.repository;
+
+import com.sedin.presales.domain.entity.UploadSessionChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface UploadSessionChunkRepository extends JpaRepository<UploadSessionChunk, UUID> {
+
+    List<UploadSessionChunk> findByUploadSessionIdOrderByChunkIndexAsc(UUID uploadSessionId);
+
+    boolean existsByUploadSessionIdAndChunkIndex(UUID uploadSessionId, Integer chunkIndex);
+
+    @Modifying
+    @Query("DELETE FROM UploadSessionChunk c WHERE c.uploadSession.id = :uploadSessionId")
+    void deleteByUploadSessionId(@Param("uploadSessionId") UUID uploadSessionId);
+}
@@ -0,0 +1,16 @@
+package com.sedin.presales.domain.repository;
+
+import com.sedin.presales.domain.entity.UploadSession;
+import com.sedin.presales.domain.enums.UploadSessionStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, UUID> {
+
+    List<UploadSession> findByStatusAndExpiresAtBefore(UploadSessionStatus status, Instant cutoff);
+}
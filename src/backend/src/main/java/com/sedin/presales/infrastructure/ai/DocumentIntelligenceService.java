@@ -1,47 +1,122 @@
 package com.sedin.presales.infrastructure.ai;
 
-import com.azure.ai.formrecognizer.documentanalysis.DocumentAnalysisClient;
-import com.azure.ai.formrecognizer.documentanalysis.models.AnalyzeResult;
-import com.azure.ai.formrecognizer.documentanalysis.models.OperationResult;
+import com.azure.ai.formrecognizer.documentanalysis.DocumentAnalysisAsyncClient;
+import com.azure.ai.formrecognizer.documentanalysis.models.DocumentPage;
+import com.azure.ai.formrecognizer.documentanalysis.models.DocumentSpan;
 import com.azure.core.util.BinaryData;
-import com.azure.core.util.polling.SyncPoller;
+import com.azure.core.util.polling.LongRunningOperationStatus;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Text extraction with Document Intelligence on {@link DocumentAnalysisAsyncClient}. An analysis
+ * takes anywhere from seconds to minutes; its status is polled every {@code poll-interval} on the
+ * client's timers, so an analysis in flight holds no thread and {@link #analyzeAsync} can run many
+ * at once. The blocking methods are kept for callers that have nothing else to do meanwhile.
+ */
 @Slf4j
 @Service
 public class DocumentIntelligenceService {
 
     private static final String MODEL_ID = "prebuilt-read";
 
-    private final DocumentAnalysisClient documentAnalysisClient;
+    private final DocumentAnalysisAsyncClient documentAnalysisAsyncClient;
 
-    public DocumentIntelligenceService(DocumentAnalysisClient documentAnalysisClient) {
-        this.documentAnalysisClient = documentAnalysisClient;
+    @Value("${azure.document-intelligence.poll-interval:PT2S}")
+    private Duration pollInterval;
+
+    @Value("${azure.document-intelligence.timeout:PT10M}")
+    private Duration timeout;
+
+    public DocumentIntelligenceService(DocumentAnalysisAsyncClient documentAnalysisAsyncClient) {
+        this.documentAnalysisAsyncClient = documentAnalysisAsyncClient;
     }
 
     public String extractText(InputStream document, String contentType) {
-        log.info("Starting text extraction using model '{}', contentType: {}", MODEL_ID, contentType);
+        return analyze(document, contentType).content();
+    }
 
+    /**
+     * Extracts the text of the document together with the span each page or slide covers in it,
+     * blocking until the analysis is done.
+     */
+    public ExtractedText analyze(InputStream document, String contentType) {
+        Path documentFile = null;
         try {
-            byte[] documentBytes = document.readAllBytes();
-            BinaryData binaryData = BinaryData.fromBytes(documentBytes);
-
-            SyncPoller<OperationResult, AnalyzeResult> poller =
-                    documentAnalysisClient.beginAnalyzeDocument(MODEL_ID, binaryData);
-
-            AnalyzeResult result = poller.getFinalResult();
-
-            String extractedText = result.getContent();
-            log.info("Text extraction completed. Extracted {} characters", extractedText != null ? extractedText.length() : 0);
-
-            return extractedText;
+            documentFile = Files.createTempFile("analyze-", ".original");
+            Files.copy(document, documentFile, StandardCopyOption.REPLACE_EXISTING);
+            return analyzeAsync(documentFile, contentType).block();
         } catch (IOException e) {
             log.error("Failed to read document input stream for text extraction", e);
             throw new RuntimeException("Failed to read document for text extraction", e);
+        } finally {
+            if (documentFile != null) {
+                try {
+                    Files.deleteIfExists(documentFile);
+                } catch (IOException e) {
+                    log.warn("Failed to delete local copy {}", documentFile, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts the analysis of the document and completes with its text once Document Intelligence
+     * is done, or fails after {@code timeout}. The file is streamed to the service rather than read
+     * into memory and must stay in place until the returned {@link Mono} terminates. The result is
+     * handed on off the HTTP client's event loop, since callers go on to blocking storage and
+     * database work.
+     */
+    public Mono<ExtractedText> analyzeAsync(Path document, String contentType) {
+        log.info("Starting text extraction using model '{}', contentType: {}", MODEL_ID, contentType);
+        long start = System.nanoTime();
+        return Mono.defer(() -> documentAnalysisAsyncClient
+                        .beginAnalyzeDocument(MODEL_ID, BinaryData.fromFile(document))
+                        .setPollInterval(pollInterval)
+                        .last())
+                .flatMap(response -> response.getStatus() == LongRunningOperationStatus.SUCCESSFULLY_COMPLETED
+                        ? response.getFinalResult()
+                        : Mono.error(new IllegalStateException("Document analysis ended with status " + response.getStatus())))
+                .timeout(timeout)
+                .map(result -> {
+                    String extractedText = result.getContent();
+                    log.info("Text extraction completed in {} ms. Extracted {} characters",
+                            (System.nanoTime() - start) / 1_000_000, extractedText != null ? extractedText.length() : 0);
+                    return new ExtractedText(extractedText, pageSpans(result.getPages()),
+                            ExtractedText.Source.DOCUMENT_INTELLIGENCE);
+                })
+                .publishOn(Schedulers.boundedElastic());
+    }
+
+    private static List<ExtractedText.PageSpan> pageSpans(List<DocumentPage> pages) {
+        List<ExtractedText.PageSpan> spans = new ArrayList<>();
+        if (pages == null) {
+            return spans;
+        }
+        for (DocumentPage page : pages) {
+            if (page.getSpans() == null || page.getSpans().isEmpty()) {
+                continue;
+            }
+            int start = Integer.MAX_VALUE;
+            int end = 0;
+            for (DocumentSpan span : page.getSpans()) {
+                start = Math.min(start, span.getOffset());
+                end = Math.max(end, span.getOffset() + span.getLength());
+            }
+            spans.add(new ExtractedText.PageSpan(page.getPageNumber(), start, end - start));
         }
+        return spans;
     }
 }
@@ -0,0 +1,23 @@
+package com.sedin.presales.infrastructure.ai;
+
+import java.util.List;
+
+/**
+ * Text of a document with the span of {@link #content()} each page, slide or sheet occupies, and
+ * which extractor produced it.
+ */
+public record ExtractedText(String content, List<PageSpan> pages, Source source) {
+
+    public ExtractedText {
+        pages = pages == null ? List.of() : List.copyOf(pages);
+    }
+
+    public record PageSpan(int pageNumber, int offset, int length) {}
+
+    public enum Source {
+        /** Read straight from the file with Aspose, no OCR involved. */
+        LOCAL,
+        /** Analyzed by Document Intelligence {@code prebuilt-read}. */
+        DOCUMENT_INTELLIGENCE
+    }
+}
@@ -2,26 +2,80 @@ package com.sedin.presales.infrastructure.ai;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sedin.presales.infrastructure.storage.BlobStorageService;
+import com.sedin.presales.infrastructure.storage.ContentHashes;
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.splitter.DocumentSplitters;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.Tokenizer;
+import dev.langchain4j.model.azure.AzureOpenAiChatModelName;
+import dev.langchain4j.model.azure.AzureOpenAiTokenizer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
+/**
+ * Summarizes extracted document text with Azure OpenAI. Text within {@code max-input-tokens} is
+ * summarized in one request. Longer text is summarized map-reduce style: it is cut at line
+ * boundaries into sections of at most {@code section-tokens}, the sections are summarized in
+ * parallel on {@code summarizationExecutor}, whose pool size bounds how many requests run at once,
+ * and the section summaries are combined into the final summary, in rounds if they are still too
+ * long together. Budgets are counted in tokens of the o200k encoding used by the GPT-4o models.
+ * <p>
+ * Section summaries are cached in the summaries container under the hash of the section text.
+ * Sections end early after an anchor line, picked by the line's own hash, so an edit only moves the
+ * boundaries up to the next anchor and a lightly edited version reuses the other sections' summaries.
+ * <p>
+ * With a token listener, the request that produces the final summary is made with
+ * {@code stream: true} and each piece of text is passed on as it arrives.
+ */
 @Slf4j
 @Service
 public class SummarizationService {
 
-    private static final int MAX_TEXT_LENGTH = 100_000;
     private static final String API_VERSION = "2024-02-01";
+    private static final int PROMPT_REVISION = 1;
+    private static final int SUMMARY_MAX_TOKENS = 1000;
+    private static final int SECTION_SUMMARY_MAX_TOKENS = 500;
+    private static final int ANCHOR_MASK = 15;
+    private static final String SECTION_SEPARATOR = "\n\n---\n\n";
+
+    private static final String SYSTEM_PROMPT =
+            "You are an AI assistant that creates concise, professional summaries of business documents. "
+                    + "Focus on key points, technologies used, client industry, challenges, solutions, and outcomes.";
+    private static final String SECTION_PROMPT =
+            "You summarize one section of a longer business document. Keep the facts a final summary needs: "
+                    + "client, industry, scope, technologies, figures, commitments, challenges, solutions and outcomes. "
+                    + "Do not add an introduction or conclusion.";
 
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
+    private final BlobStorageService blobStorageService;
+    private final Executor summarizationExecutor;
+    // gpt-4o-mini shares the o200k encoding of gpt-4o
+    private final Tokenizer tokenizer = new AzureOpenAiTokenizer(AzureOpenAiChatModelName.GPT_4_O);
 
     @Value("${azure.openai.endpoint}")
     private String endpoint;
@@ -32,22 +86,200 @@ public class SummarizationService {
     @Value("${azure.openai.chat-deployment}")
     private String chatDeployment;
 
-    public SummarizationService(RestTemplate azureOpenAIRestTemplate, ObjectMapper objectMapper) {
+    @Value("${azure.storage.container-summaries}")
+    private String containerSummaries;
+
+    @Value("${app.summarization.max-input-tokens:24000}")
+    private int maxInputTokens;
+
+    @Value("${app.summarization.section-tokens:6000}")
+    private int sectionTokens;
+
+    public SummarizationService(RestTemplate azureOpenAIRestTemplate, ObjectMapper objectMapper,
+                                BlobStorageService blobStorageService,
+                                @Qualifier("summarizationExecutor") Executor summarizationExecutor) {
         this.restTemplate = azureOpenAIRestTemplate;
         this.objectMapper = objectMapper;
+        this.blobStorageService = blobStorageService;
+        this.summarizationExecutor = summarizationExecutor;
     }
 
     public String summarize(String extractedText, String documentTitle) {
+        return summarize(extractedText, documentTitle, null);
+    }
+
+    /**
+     * Summarizes the text, handing each piece of the final summary to {@code onToken} as Azure
+     * OpenAI produces it. A null listener makes one plain request instead.
+     */
+    public String summarize(String extractedText, String documentTitle, Consumer<String> onToken) {
         log.info("Starting summarization for document: '{}', text length: {} chars", documentTitle, extractedText.length());
 
-        String textToSummarize = extractedText;
-        if (extractedText.length() > MAX_TEXT_LENGTH) {
-            log.warn("Text exceeds {} chars, truncating from {} chars", MAX_TEXT_LENGTH, extractedText.length());
-            textToSummarize = extractedText.substring(0, MAX_TEXT_LENGTH)
-                    + "\n\n[Note: Document was truncated due to length. Summary is based on the first "
-                    + MAX_TEXT_LENGTH + " characters.]";
+        try {
+            int tokens = tokenizer.estimateTokenCountInText(extractedText);
+            String summary;
+            if (tokens <= maxInputTokens) {
+                summary = complete(SYSTEM_PROMPT,
+                        String.format("Summarize the following document titled '%s':\n\n%s", documentTitle, extractedText),
+                        SUMMARY_MAX_TOKENS, onToken);
+            } else {
+                summary = summarizeSections(extractedText, tokens, documentTitle, onToken);
+            }
+            log.info("Summarization completed for document: '{}', summary length: {} chars", documentTitle, summary.length());
+            return summary;
+        } catch (Exception e) {
+            log.error("Failed to summarize document: '{}'", documentTitle, e);
+            throw new RuntimeException("Failed to generate summary for document: " + documentTitle, e);
         }
+    }
+
+    private String summarizeSections(String text, int tokens, String documentTitle, Consumer<String> onToken) {
+        List<String> sections = split(text);
+        log.info("Document '{}' has {} tokens, summarizing {} sections of up to {} tokens",
+                documentTitle, tokens, sections.size(), sectionTokens);
+        List<String> summaries = inParallel(sections, this::summarizeSection);
 
+        // Combine in rounds until the section summaries fit in one request together
+        while (summaries.size() > 1
+                && tokenizer.estimateTokenCountInText(String.join(SECTION_SEPARATOR, summaries)) > maxInputTokens) {
+            List<String> groups = group(summaries);
+            log.info("Combining {} section summaries of '{}' in {} groups", summaries.size(), documentTitle, groups.size());
+            summaries = inParallel(groups, group -> complete(SECTION_PROMPT,
+                    "Combine these consecutive section summaries into one section summary:\n\n" + group,
+                    SECTION_SUMMARY_MAX_TOKENS, null));
+        }
+
+        return complete(SYSTEM_PROMPT, String.format(
+                "Summarize the following document titled '%s'. It was too long to read at once, so these are "
+                        + "summaries of its sections in order:\n\n%s",
+                documentTitle, String.join(SECTION_SEPARATOR, summaries)), SUMMARY_MAX_TOKENS, onToken);
+    }
+
+    /**
+     * Cuts the text at line boundaries into sections of at most {@code sectionTokens}. A section also
+     * ends after an anchor line once it is half full, so boundaries stay put around an edit. Lines
+     * longer than a section are split further by paragraph, sentence and word.
+     */
+    List<String> split(String text) {
+        List<String> sections = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int currentTokens = 0;
+        for (String line : lines(text)) {
+            int lineTokens = tokenizer.estimateTokenCountInText(line);
+            if (currentTokens > 0 && currentTokens + lineTokens > sectionTokens) {
+                sections.add(current.toString());
+                current.setLength(0);
+                currentTokens = 0;
+            }
+            current.append(line).append('\n');
+            currentTokens += lineTokens;
+            if (currentTokens >= sectionTokens / 2 && (line.strip().hashCode() & ANCHOR_MASK) == 0) {
+                sections.add(current.toString());
+                current.setLength(0);
+                currentTokens = 0;
+            }
+        }
+        if (currentTokens > 0) {
+            sections.add(current.toString());
+        }
+        return sections;
+    }
+
+    private List<String> lines(String text) {
+        List<String> lines = new ArrayList<>();
+        for (String line : text.split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            if (tokenizer.estimateTokenCountInText(line) <= sectionTokens) {
+                lines.add(line);
+            } else {
+                DocumentSplitters.recursive(sectionTokens, 0, tokenizer).split(Document.from(line)).stream()
+                        .map(TextSegment::text)
+                        .forEach(lines::add);
+            }
+        }
+        return lines;
+    }
+
+    // Packs consecutive summaries into groups that fit in one request
+    private List<String> group(List<String> summaries) {
+        List<String> groups = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        int currentTokens = 0;
+        for (String summary : summaries) {
+            int tokens = tokenizer.estimateTokenCountInText(summary);
+            if (!current.isEmpty() && currentTokens + tokens > maxInputTokens) {
+                groups.add(String.join(SECTION_SEPARATOR, current));
+                current.clear();
+                currentTokens = 0;
+            }
+            current.add(summary);
+            currentTokens += tokens;
+        }
+        if (!current.isEmpty()) {
+            groups.add(String.join(SECTION_SEPARATOR, current));
+        }
+        // Two summaries per group at least, so that every round shrinks the list
+        if (groups.size() == summaries.size()) {
+            groups.clear();
+            for (int i = 0; i < summaries.size(); i += 2) {
+                groups.add(String.join(SECTION_SEPARATOR, summaries.subList(i, Math.min(i + 2, summaries.size()))));
+            }
+        }
+        return groups;
+    }
+
+    private List<String> inParallel(List<String> inputs, Function<String, String> work) {
+        List<CompletableFuture<String>> running = inputs.stream()
+                .map(input -> CompletableFuture.supplyAsync(() -> work.apply(input), summarizationExecutor))
+                .toList();
+        try {
+            return running.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            running.forEach(future -> future.cancel(false));
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private String summarizeSection(String section) {
+        String blobPath = String.format("partials/%s.txt",
+                ContentHashes.sha256(chatDeployment + "\n" + PROMPT_REVISION + "\n" + section));
+        String cached = loadSectionSummary(blobPath);
+        if (cached != null) {
+            return cached;
+        }
+        String summary = complete(SECTION_PROMPT, "Summarize this section:\n\n" + section, SECTION_SUMMARY_MAX_TOKENS,
+                null);
+        storeSectionSummary(blobPath, summary);
+        return summary;
+    }
+
+    private String loadSectionSummary(String blobPath) {
+        try {
+            if (!blobStorageService.exists(containerSummaries, blobPath)) {
+                return null;
+            }
+            try (InputStream inputStream = blobStorageService.download(containerSummaries, blobPath)) {
+                return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to read cached section summary '{}', summarizing again", blobPath, e);
+            return null;
+        }
+    }
+
+    private void storeSectionSummary(String blobPath, String summary) {
+        try {
+            byte[] bytes = summary.getBytes(StandardCharsets.UTF_8);
+            blobStorageService.upload(containerSummaries, blobPath, new ByteArrayInputStream(bytes), bytes.length,
+                    "text/plain");
+        } catch (Exception e) {
+            log.warn("Failed to cache section summary '{}'", blobPath, e);
+        }
+    }
+
+    private String complete(String systemPrompt, String userContent, int maxTokens, Consumer<String> onToken) {
         try {
             String url = String.format("%s/openai/deployments/%s/chat/completions?api-version=%s",
                     endpoint, chatDeployment, API_VERSION);
@@ -58,39 +290,68 @@ public class SummarizationService {
 
             Map<String, Object> systemMessage = Map.of(
                     "role", "system",
-                    "content", "You are an AI assistant that creates concise, professional summaries of business documents. "
-                            + "Focus on key points, technologies used, client industry, challenges, solutions, and outcomes."
+                    "content", systemPrompt
             );
 
             Map<String, Object> userMessage = Map.of(
                     "role", "user",
-                    "content", String.format("Summarize the following document titled '%s':\n\n%s", documentTitle, textToSummarize)
+                    "content", userContent
             );
 
-            Map<String, Object> requestBody = Map.of(
-                    "messages", List.of(systemMessage, userMessage),
-                    "temperature", 0.3,
-                    "max_tokens", 1000
-            );
+            Map<String, Object> requestBody = new LinkedHashMap<>();
+            requestBody.put("messages", List.of(systemMessage, userMessage));
+            requestBody.put("temperature", 0.3);
+            requestBody.put("max_tokens", maxTokens);
+            if (onToken != null) {
+                requestBody.put("stream", true);
+            }
 
             HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
+            if (onToken != null) {
+                return restTemplate.execute(url, HttpMethod.POST, restTemplate.httpEntityCallback(request),
+                        response -> readStream(response.getBody(), onToken));
+            }
 
             String responseJson = restTemplate.postForObject(url, request, String.class);
             JsonNode responseNode = objectMapper.readTree(responseJson);
 
-            String summary = responseNode
+            return responseNode
                     .path("choices")
                     .get(0)
                     .path("message")
                     .path("content")
                     .asText();
-
-            log.info("Summarization completed for document: '{}', summary length: {} chars", documentTitle, summary.length());
-            return summary;
-
+        } catch (RuntimeException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("Failed to summarize document: '{}'", documentTitle, e);
-            throw new RuntimeException("Failed to generate summary for document: " + documentTitle, e);
+            throw new IllegalStateException("Failed to read chat completion response", e);
+        }
+    }
+
+    // Server-sent events of chat completion chunks, ended by "data: [DONE]"
+    private String readStream(InputStream body, Consumer<String> onToken) throws IOException {
+        StringBuilder content = new StringBuilder();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.startsWith("data:")) {
+                continue;
+            }
+            String data = line.substring("data:".length()).strip();
+            if (data.equals("[DONE]")) {
+                break;
+            }
+            // Azure sends the prompt filter results first, in a chunk without choices
+            JsonNode choices = objectMapper.readTree(data).path("choices");
+            if (choices.isEmpty()) {
+                continue;
+            }
+            String token = choices.get(0).path("delta").path("content").asText("");
+            if (!token.isEmpty()) {
+                content.append(token);
+                onToken.accept(token);
+            }
         }
+        return content.toString();
     }
 }
@@ -0,0 +1,49 @@
+package com.sedin.presales.infrastructure.rendition;
+
+import com.sedin.presales.domain.enums.JobPriority;
+
+import java.util.function.Supplier;
+
+/**
+ * The {@link JobPriority} of the work on the current thread, which {@link ConversionWorkerPool} uses
+ * to give a free worker to a user who is waiting before background work. Conversions are reached
+ * through renditions, summaries, indexing and validation alike, so the priority travels with the
+ * thread instead of through each of their signatures. Work that sets none counts as
+ * {@link JobPriority#NORMAL}.
+ */
+public final class ConversionPriority {
+
+    private static final ThreadLocal<JobPriority> CURRENT = new ThreadLocal<>();
+
+    private ConversionPriority() {
+    }
+
+    public static JobPriority current() {
+        JobPriority priority = CURRENT.get();
+        return priority != null ? priority : JobPriority.NORMAL;
+    }
+
+    /**
+     * Runs {@code work} at {@code priority} and restores the thread's previous priority afterwards.
+     */
+    public static <T> T call(JobPriority priority, Supplier<T> work) {
+        JobPriority previous = CURRENT.get();
+        CURRENT.set(priority);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    public static void run(JobPriority priority, Runnable work) {
+        call(priority, () -> {
+            work.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,303 @@
+package com.sedin.presales.infrastructure.rendition;
+
+import com.sedin.presales.infrastructure.ai.ExtractedText;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Framing for the pipe between {@link ConversionWorkerPool} and a {@link ConversionWorkerMain}
+ * child. Every request starts with its kind. A conversion request is then the content type, a page
+ * limit (0 for all pages), the {@link ImageOptions} and the original as length-prefixed chunks
+ * ended by an empty chunk, copied from the caller's stream so the parent never holds the whole
+ * original. The response starts with the PDF as chunks too, written while the converter produces
+ * it, so neither side holds the whole PDF. The images follow one frame at a time, each acknowledged
+ * by the parent once its {@link ImageSink} has taken it, so the child draws the next image only
+ * after the last one is stored. A status and the child's resident set size come last, then either
+ * the {@link ConversionStats} or an error message.
+ * <p>
+ * A text request is the content type and the original in chunks. Its response is the same status
+ * and resident set size, then either an error message or the image-only page count, the page
+ * spans and the UTF-8 text as chunks.
+ */
+final class ConversionProtocol {
+
+    static final byte CONVERT = 0;
+    static final byte EXTRACT_TEXT = 1;
+
+    static final byte OK = 0;
+    static final byte BAD_REQUEST = 1;
+    static final byte FAILED = 2;
+
+    private static final byte IMAGE_TAKEN = 0;
+    // Frame numbers: 0 for the thumbnail, page numbers from 1, and -1 after the last image
+    static final int THUMBNAIL = 0;
+    private static final int END_OF_IMAGES = -1;
+
+    private static final int MAX_MESSAGE_CHARS = 4096;
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private ConversionProtocol() {
+    }
+
+    /**
+     * Writes a request, reading the original from {@code original} as it goes. Failures to read
+     * {@code original} are rethrown unchecked, so an {@link IOException} always means the pipe broke.
+     */
+    static void writeRequest(DataOutputStream out, String contentType, int maxPages, ImageOptions images,
+                             InputStream original) throws IOException {
+        out.writeByte(CONVERT);
+        out.writeUTF(contentType);
+        out.writeInt(maxPages);
+        out.writeInt(images.thumbnailWidth());
+        out.writeInt(images.pageImageWidth());
+        out.writeInt(images.maxPageImages());
+        writeOriginal(out, original);
+    }
+
+    /**
+     * Writes a text request, reading the original as {@link #writeRequest} does.
+     */
+    static void writeTextRequest(DataOutputStream out, String contentType, InputStream original) throws IOException {
+        out.writeByte(EXTRACT_TEXT);
+        out.writeUTF(contentType);
+        writeOriginal(out, original);
+    }
+
+    private static void writeOriginal(DataOutputStream out, InputStream original) throws IOException {
+        ChunkedOutputStream chunks = new ChunkedOutputStream(out);
+        byte[] buffer = new byte[CHUNK_SIZE];
+        int count;
+        while ((count = read(original, buffer)) >= 0) {
+            chunks.write(buffer, 0, count);
+        }
+        chunks.finish();
+        out.flush();
+    }
+
+    private static int read(InputStream original, byte[] buffer) {
+        try {
+            return original.read(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read file for PDF conversion", e);
+        }
+    }
+
+    static ImageOptions readImageOptions(DataInputStream in) throws IOException {
+        return new ImageOptions(in.readInt(), in.readInt(), in.readInt());
+    }
+
+    /**
+     * Sends one image and waits until the parent has taken it. {@code pageNumber} is 0 for the thumbnail.
+     */
+    static void writeImage(DataOutputStream out, DataInputStream acks, int pageNumber, byte[] png) throws IOException {
+        out.writeInt(pageNumber);
+        writeBytes(out, png);
+        out.flush();
+        acks.readByte();
+    }
+
+    static void writeEndOfImages(DataOutputStream out) throws IOException {
+        out.writeInt(END_OF_IMAGES);
+    }
+
+    /**
+     * Hands each image frame to {@code sink} and acknowledges it, up to the end of the images.
+     * Failures of {@code sink} are not caught and leave the pipe out of step.
+     */
+    static void readImages(DataInputStream in, DataOutputStream acks, ImageSink sink) throws IOException {
+        int pageNumber;
+        while ((pageNumber = in.readInt()) != END_OF_IMAGES) {
+            byte[] png = readBytes(in);
+            if (pageNumber == THUMBNAIL) {
+                sink.thumbnail(png);
+            } else {
+                sink.pageImage(pageNumber, png);
+            }
+            acks.writeByte(IMAGE_TAKEN);
+            acks.flush();
+        }
+    }
+
+    static void writeResult(DataOutputStream out, ConversionStats stats) throws IOException {
+        out.writeByte(OK);
+        out.writeLong(residentSetBytes());
+        out.writeLong(stats.loadNanos());
+        out.writeLong(stats.convertNanos());
+        out.writeLong(stats.imageNanos());
+        out.writeInt(stats.pageCount());
+        out.writeLong(stats.allocatedBytes());
+        out.flush();
+    }
+
+    static ConversionStats readResult(DataInputStream in) throws IOException {
+        return ConversionStats.builder()
+                .loadNanos(in.readLong())
+                .convertNanos(in.readLong())
+                .imageNanos(in.readLong())
+                .pageCount(in.readInt())
+                .allocatedBytes(in.readLong())
+                .build();
+    }
+
+    static void writeText(DataOutputStream out, LocalTextExtractor.Result result) throws IOException {
+        out.writeByte(OK);
+        out.writeLong(residentSetBytes());
+        out.writeInt(result.imageOnlyPages());
+        List<ExtractedText.PageSpan> pages = result.text().pages();
+        out.writeInt(pages.size());
+        for (ExtractedText.PageSpan page : pages) {
+            out.writeInt(page.pageNumber());
+            out.writeInt(page.offset());
+            out.writeInt(page.length());
+        }
+        ChunkedOutputStream chunks = new ChunkedOutputStream(out);
+        chunks.write(result.text().content().getBytes(StandardCharsets.UTF_8));
+        chunks.finish();
+        out.flush();
+    }
+
+    static LocalTextExtractor.Result readText(DataInputStream in) throws IOException {
+        int imageOnlyPages = in.readInt();
+        int pageCount = in.readInt();
+        List<ExtractedText.PageSpan> pages = new ArrayList<>(pageCount);
+        for (int i = 0; i < pageCount; i++) {
+            pages.add(new ExtractedText.PageSpan(in.readInt(), in.readInt(), in.readInt()));
+        }
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        readChunks(in, content);
+        ExtractedText text = new ExtractedText(content.toString(StandardCharsets.UTF_8), pages,
+                ExtractedText.Source.LOCAL);
+        return new LocalTextExtractor.Result(text, imageOnlyPages);
+    }
+
+    static void writeError(DataOutputStream out, byte status, String message) throws IOException {
+        out.writeByte(status);
+        out.writeLong(residentSetBytes());
+        String text = message == null ? "" : message;
+        out.writeUTF(text.length() > MAX_MESSAGE_CHARS ? text.substring(0, MAX_MESSAGE_CHARS) : text);
+        out.flush();
+    }
+
+    /**
+     * Copies chunks from the pipe to {@code target} up to the terminating empty chunk: the original
+     * on the worker's side, the PDF on the caller's. Failures of {@code target} are rethrown
+     * unchecked, so an {@link IOException} always means the pipe itself broke.
+     */
+    static void readChunks(DataInputStream in, OutputStream target) throws IOException {
+        byte[] buffer = new byte[CHUNK_SIZE];
+        int length;
+        while ((length = in.readInt()) > 0) {
+            while (length > 0) {
+                int count = in.read(buffer, 0, Math.min(length, buffer.length));
+                if (count < 0) {
+                    throw new EOFException("Conversion worker closed the pipe mid-chunk");
+                }
+                try {
+                    target.write(buffer, 0, count);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to copy chunk from conversion pipe", e);
+                }
+                length -= count;
+            }
+        }
+    }
+
+    /**
+     * Frames what the converter writes as chunks of at most {@link #CHUNK_SIZE} bytes. Closing it
+     * does not close the pipe; {@link #finish()} ends the chunk sequence.
+     */
+    static final class ChunkedOutputStream extends OutputStream {
+
+        private final DataOutputStream out;
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+        private int position;
+        private boolean finished;
+
+        ChunkedOutputStream(DataOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            buffer[position++] = (byte) b;
+            if (position == buffer.length) {
+                writeChunk();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                int count = Math.min(len, buffer.length - position);
+                System.arraycopy(b, off, buffer, position, count);
+                position += count;
+                off += count;
+                len -= count;
+                if (position == buffer.length) {
+                    writeChunk();
+                }
+            }
+        }
+
+        void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            writeChunk();
+            out.writeInt(0);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private void writeChunk() throws IOException {
+            if (position > 0) {
+                out.writeInt(position);
+                out.write(buffer, 0, position);
+                position = 0;
+            }
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Resident set size of this process from {@code /proc}, or the used heap where that is not available.
+     */
+    static long residentSetBytes() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"), StandardCharsets.US_ASCII)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", "")) * 1024;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not Linux; fall through
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,16 @@
+package com.sedin.presales.infrastructure.rendition;
+
+import lombok.Builder;
+
+/**
+ * Where the time of one conversion went and how large it was. Phases are in nanoseconds: reading
+ * the original, parsing it, writing the PDF, drawing images and handing the PDF to the caller's
+ * stream. {@code allocatedBytes} is what the converting thread allocated, from the JVM's per-thread
+ * allocation counter. Counts are 0 when unknown.
+ */
+@Builder(toBuilder = true)
+public record ConversionStats(long readNanos, long loadNanos, long convertNanos, long imageNanos, long writeNanos,
+                              long inputBytes, long outputBytes, int pageCount, long allocatedBytes) {
+
+    public static final ConversionStats NONE = ConversionStats.builder().build();
+}
@@ -0,0 +1,131 @@
+package com.sedin.presales.infrastructure.rendition;
+
+import com.sedin.presales.application.exception.BadRequestException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * One conversion child process and the pipe to it. Not thread-safe: {@link ConversionWorkerPool}
+ * hands a worker to one caller at a time.
+ */
+class ConversionWorker {
+
+    private final Process process;
+    private final DataOutputStream in;
+    private final DataInputStream out;
+
+    private int jobs;
+    private boolean busy;
+    private long residentSetBytes;
+    private volatile boolean timedOut;
+
+    ConversionWorker(Process process) {
+        this.process = process;
+        this.in = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+        this.out = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+    }
+
+    /**
+     * Sends one document, read from {@code original} as it is sent, copies the PDF to {@code pdfOut}
+     * as the worker produces it, and hands each image to {@code images} as the worker draws it.
+     * Throws {@link IOException} if the process dies or is killed while converting. If this throws
+     * while {@link #isBusy()}, the pipe is out of step and the worker must be destroyed.
+     */
+    ConversionStats convert(String contentType, int maxPages, ImageOptions imageOptions, InputStream original,
+                            OutputStream pdfOut, ImageSink images) throws IOException {
+        jobs++;
+        busy = true;
+        ConversionProtocol.writeRequest(in, contentType, maxPages, imageOptions, original);
+        ConversionProtocol.readChunks(out, pdfOut);
+        ConversionProtocol.readImages(out, in, images);
+
+        readStatus("PDF conversion");
+        ConversionStats stats = ConversionProtocol.readResult(out);
+        busy = false;
+        return stats;
+    }
+
+    /**
+     * Sends one document for {@link LocalTextExtractor} to read in the worker. Fails as
+     * {@link #convert} does.
+     */
+    LocalTextExtractor.Result extractText(String contentType, InputStream original) throws IOException {
+        jobs++;
+        busy = true;
+        ConversionProtocol.writeTextRequest(in, contentType, original);
+        readStatus("Text extraction");
+        LocalTextExtractor.Result result = ConversionProtocol.readText(out);
+        busy = false;
+        return result;
+    }
+
+    // Returns on success with the result still to be read, and throws the worker's error otherwise
+    private void readStatus(String operation) throws IOException {
+        byte status = out.readByte();
+        residentSetBytes = out.readLong();
+        switch (status) {
+            case ConversionProtocol.OK -> {
+            }
+            case ConversionProtocol.BAD_REQUEST -> {
+                String message = out.readUTF();
+                busy = false;
+                throw new BadRequestException(message);
+            }
+            case ConversionProtocol.FAILED -> {
+                String message = out.readUTF();
+                busy = false;
+                throw new IllegalStateException(operation + " failed in worker: " + message);
+            }
+            default -> throw new IOException("Unexpected status " + status + " from conversion worker " + pid());
+        }
+    }
+
+    boolean isBusy() {
+        return busy;
+    }
+
+    int jobs() {
+        return jobs;
+    }
+
+    long residentSetBytes() {
+        return residentSetBytes;
+    }
+
+    boolean isAlive() {
+        return process.isAlive();
+    }
+
+    long pid() {
+        return process.pid();
+    }
+
+    void markTimedOut() {
+        timedOut = true;
+    }
+
+    boolean timedOut() {
+        return timedOut;
+    }
+
+    /**
+     * Asks the process to exit by closing its stdin.
+     */
+    void close() {
+        try {
+            in.close();
+        } catch (IOException e) {
+            // Already gone
+        }
+    }
+
+    void destroy() {
+        process.destroyForcibly();
+    }
+}
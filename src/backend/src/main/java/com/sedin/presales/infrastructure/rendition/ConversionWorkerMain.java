@@ -0,0 +1,131 @@
+package com.sedin.presales.infrastructure.rendition;
+
+import com.sedin.presales.application.exception.BadRequestException;
+import com.sedin.presales.config.AsposeConfig;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Entry point of a conversion worker process started by {@link ConversionWorkerPool}. Reads
+ * requests from stdin and answers on stdout until stdin is closed. Anything else that would print
+ * to stdout, logging included, is sent to stderr so it cannot corrupt the protocol. The original
+ * arrives in chunks and is spooled to a temporary file, deleted after each request, and images
+ * are sent as they are drawn, so the worker's heap is left to the converter. Besides conversions,
+ * a worker reads text for {@link LocalTextExtractor}.
+ */
+public final class ConversionWorkerMain {
+
+    static final String PRELOAD_FONTS_PROPERTY = "presales.rendition.preload-fonts";
+
+    private ConversionWorkerMain() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(FileDescriptor.in)));
+        System.setOut(System.err);
+        AsposeConfig.loadLicenses();
+        if (Boolean.getBoolean(PRELOAD_FONTS_PROPERTY)) {
+            AsposeConfig.preloadFonts();
+        }
+
+        while (true) {
+            byte kind;
+            try {
+                kind = in.readByte();
+            } catch (EOFException e) {
+                return;
+            }
+            if (kind == ConversionProtocol.EXTRACT_TEXT) {
+                extractText(in, out);
+            } else {
+                convert(in, out);
+            }
+        }
+    }
+
+    private static void convert(DataInputStream in, DataOutputStream out) throws IOException {
+        String contentType = in.readUTF();
+        int maxPages = in.readInt();
+        ImageOptions imageOptions = ConversionProtocol.readImageOptions(in);
+
+        Path original = spoolOriginal(in);
+        try {
+            ConversionProtocol.ChunkedOutputStream pdfOut = new ConversionProtocol.ChunkedOutputStream(out);
+            ImageSink images = new ImageSink() {
+                @Override
+                public void thumbnail(byte[] png) {
+                    pageImage(ConversionProtocol.THUMBNAIL, png);
+                }
+
+                @Override
+                public void pageImage(int pageNumber, byte[] png) {
+                    try {
+                        // The PDF is complete before the first image is drawn
+                        pdfOut.finish();
+                        ConversionProtocol.writeImage(out, in, pageNumber, png);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Conversion pipe closed while sending an image", e);
+                    }
+                }
+            };
+            try (InputStream fileStream = Files.newInputStream(original)) {
+                ConversionStats stats = PdfConverter.render(fileStream, contentType, maxPages, imageOptions, pdfOut, images);
+                pdfOut.finish();
+                ConversionProtocol.writeEndOfImages(out);
+                ConversionProtocol.writeResult(out, stats);
+            } catch (BadRequestException e) {
+                pdfOut.finish();
+                ConversionProtocol.writeEndOfImages(out);
+                ConversionProtocol.writeError(out, ConversionProtocol.BAD_REQUEST, e.getMessage());
+            } catch (Exception e) {
+                pdfOut.finish();
+                ConversionProtocol.writeEndOfImages(out);
+                ConversionProtocol.writeError(out, ConversionProtocol.FAILED, e.toString());
+            }
+        } finally {
+            Files.deleteIfExists(original);
+        }
+    }
+
+    private static void extractText(DataInputStream in, DataOutputStream out) throws IOException {
+        String contentType = in.readUTF();
+        Path original = spoolOriginal(in);
+        try {
+            LocalTextExtractor.Result result;
+            try (InputStream fileStream = Files.newInputStream(original)) {
+                result = LocalTextExtractor.read(fileStream, contentType);
+            } catch (Exception e) {
+                ConversionProtocol.writeError(out, ConversionProtocol.FAILED, e.toString());
+                return;
+            }
+            ConversionProtocol.writeText(out, result);
+        } finally {
+            Files.deleteIfExists(original);
+        }
+    }
+
+    private static Path spoolOriginal(DataInputStream in) throws IOException {
+        Path original = Files.createTempFile("conversion-", ".original");
+        try (OutputStream file = Files.newOutputStream(original)) {
+            ConversionProtocol.readChunks(in, file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(original);
+            throw e;
+        }
+        return original;
+    }
+}
@@ -0,0 +1,248 @@
+package com.sedin.presales.infrastructure.rendition;
+
+import com.sedin.presales.application.exception.BadRequestException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+
+/**
+ * Runs Aspose conversions, and the text extraction of {@link LocalTextExtractor}, in child JVMs so
+ * that a document that exhausts memory or never finishes takes down a worker instead of the API.
+ * Each worker has its own {@code max-heap} and exits on {@link OutOfMemoryError}; a conversion
+ * still running after {@code job-timeout} has its worker killed. Workers are retired after
+ * {@code max-jobs} conversions or once their resident set grows past {@code max-rss-bytes}, and a
+ * worker that dies is replaced on the next conversion.
+ * <p>
+ * When all workers are busy, the next one to free up goes to the waiting conversion of the highest
+ * {@link ConversionPriority}, so a user opening a document is served before the backlog of bulk
+ * ingests and re-render backfills.
+ * <p>
+ * Enabled with {@code app.rendition.worker.enabled}. When the first worker cannot be started,
+ * {@link PdfRenditionService} converts in-process as before.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.rendition.worker.enabled", havingValue = "true")
+public class ConversionWorkerPool {
+
+    private static final String BOOT_LAUNCHER = "org.springframework.boot.loader.launch.PropertiesLauncher";
+    private static final Duration RETIRE_GRACE = Duration.ofSeconds(5);
+
+    @Value("${app.rendition.worker.pool-size:2}")
+    private int poolSize;
+
+    @Value("${app.rendition.worker.max-heap:1g}")
+    private String maxHeap;
+
+    @Value("${app.rendition.worker.job-timeout:PT5M}")
+    private Duration jobTimeout;
+
+    @Value("${app.rendition.worker.max-jobs:50}")
+    private int maxJobs;
+
+    @Value("${app.rendition.worker.max-rss-bytes:2147483648}")
+    private long maxRssBytes;
+
+    @Value("${app.rendition.worker.jvm-options:}")
+    private String jvmOptions;
+
+    @Value("${app.rendition.warmup.preload-fonts:true}")
+    private boolean preloadFonts;
+
+    private final LinkedBlockingQueue<ConversionWorker> idle = new LinkedBlockingQueue<>();
+    private PrioritySlots slots;
+    private ScheduledExecutorService watchdog;
+    private volatile boolean available;
+
+    @PostConstruct
+    public void start() {
+        slots = new PrioritySlots(poolSize);
+        watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "conversion-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            idle.add(spawn());
+            available = true;
+            log.info("Conversion worker pool started: {} workers, {} heap, {} job timeout", poolSize, maxHeap, jobTimeout);
+        } catch (IOException e) {
+            log.warn("Could not start a conversion worker, converting in-process instead: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        available = false;
+        ConversionWorker worker;
+        while ((worker = idle.poll()) != null) {
+            worker.close();
+            worker.destroy();
+        }
+        if (watchdog != null) {
+            watchdog.shutdownNow();
+        }
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * Converts in a worker, waiting in priority order for a free one if all {@code pool-size} are
+     * busy, streaming {@code original} to it, copying the PDF to {@code pdfOut} as the worker
+     * produces it and handing each image to {@code imageSink} before the worker draws the next. A
+     * positive {@code maxPages} stops after that many pages. Storing the images counts towards
+     * {@code job-timeout}.
+     */
+    ConversionStats render(InputStream original, String contentType, int maxPages, ImageOptions images,
+                           OutputStream pdfOut, ImageSink imageSink) {
+        return withWorker("PDF conversion", contentType,
+                worker -> worker.convert(contentType, maxPages, images, original, pdfOut, imageSink));
+    }
+
+    /**
+     * Reads the text of the document in a worker for {@link LocalTextExtractor}, under the same
+     * {@code job-timeout} as conversions.
+     */
+    LocalTextExtractor.Result extractText(InputStream original, String contentType) {
+        return withWorker("Text extraction", contentType, worker -> worker.extractText(contentType, original));
+    }
+
+    private interface WorkerJob<T> {
+        T run(ConversionWorker worker) throws IOException;
+    }
+
+    private <T> T withWorker(String operation, String contentType, WorkerJob<T> job) {
+        try {
+            slots.acquire(ConversionPriority.current());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a conversion worker", e);
+        }
+        try {
+            return runInWorker(borrow(), operation, contentType, job);
+        } finally {
+            slots.release();
+        }
+    }
+
+    private <T> T runInWorker(ConversionWorker worker, String operation, String contentType, WorkerJob<T> job) {
+        ScheduledFuture<?> deadline = watchdog.schedule(() -> {
+            worker.markTimedOut();
+            worker.destroy();
+        }, jobTimeout.toMillis(), TimeUnit.MILLISECONDS);
+
+        try {
+            return job.run(worker);
+        } catch (IOException e) {
+            if (worker.timedOut()) {
+                log.warn("Conversion worker {} killed after exceeding the {} job timeout", worker.pid(), jobTimeout);
+                throw new BadRequestException(operation + " timed out after " + jobTimeout.toSeconds() + " seconds");
+            }
+            log.error("Conversion worker {} died during {} of '{}'", worker.pid(),
+                    operation.toLowerCase(Locale.ROOT), contentType, e);
+            throw new IllegalStateException(operation + " worker crashed", e);
+        } finally {
+            deadline.cancel(false);
+            // A worker that answered is healthy; one cut off mid-response cannot be reused
+            if (worker.isBusy()) {
+                worker.destroy();
+            } else {
+                release(worker);
+            }
+        }
+    }
+
+    private ConversionWorker borrow() {
+        ConversionWorker worker;
+        while ((worker = idle.poll()) != null) {
+            if (worker.isAlive()) {
+                return worker;
+            }
+            log.warn("Discarding dead conversion worker {}", worker.pid());
+        }
+        try {
+            return spawn();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to start a conversion worker", e);
+        }
+    }
+
+    private void release(ConversionWorker worker) {
+        if (worker.jobs() >= maxJobs || worker.residentSetBytes() > maxRssBytes) {
+            log.info("Retiring conversion worker {} after {} jobs at {} bytes resident",
+                    worker.pid(), worker.jobs(), worker.residentSetBytes());
+            worker.close();
+            watchdog.schedule(worker::destroy, RETIRE_GRACE.toMillis(), TimeUnit.MILLISECONDS);
+        } else if (!available) {
+            worker.close();
+        } else {
+            idle.add(worker);
+        }
+    }
+
+    private ConversionWorker spawn() throws IOException {
+        ProcessBuilder builder = new ProcessBuilder(command())
+                .redirectError(ProcessBuilder.Redirect.INHERIT);
+        ConversionWorker worker = new ConversionWorker(builder.start());
+        log.debug("Started conversion worker {}", worker.pid());
+        return worker;
+    }
+
+    List<String> command() {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Xmx" + maxHeap);
+        command.add("-XX:+ExitOnOutOfMemoryError");
+        command.add("-Djava.awt.headless=true");
+        if (preloadFonts) {
+            command.add("-D" + ConversionWorkerMain.PRELOAD_FONTS_PROPERTY + "=true");
+        }
+        if (jvmOptions != null && !jvmOptions.isBlank()) {
+            command.addAll(List.of(jvmOptions.trim().split("\\s+")));
+        }
+
+        String classPath = System.getProperty("java.class.path");
+        command.add("-cp");
+        command.add(classPath);
+        if (isBootJar(classPath)) {
+            // Packaged application: the nested jars are only reachable through the Boot launcher
+            command.add("-Dloader.main=" + ConversionWorkerMain.class.getName());
+            command.add(BOOT_LAUNCHER);
+        } else {
+            command.add(ConversionWorkerMain.class.getName());
+        }
+        return command;
+    }
+
+    private static boolean isBootJar(String classPath) {
+        if (classPath.contains(File.pathSeparator) || !classPath.endsWith(".jar")) {
+            return false;
+        }
+        try (JarFile jar = new JarFile(classPath)) {
+            return jar.getEntry("BOOT-INF/") != null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
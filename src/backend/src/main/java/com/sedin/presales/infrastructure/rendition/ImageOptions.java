@@ -0,0 +1,14 @@
+package com.sedin.presales.infrastructure.rendition;
+
+/**
+ * Images to draw alongside a conversion. A width of 0 skips that kind of image;
+ * {@code maxPageImages} caps how many page images a long document produces.
+ */
+record ImageOptions(int thumbnailWidth, int pageImageWidth, int maxPageImages) {
+
+    static final ImageOptions NONE = new ImageOptions(0, 0, 0);
+
+    boolean isEmpty() {
+        return thumbnailWidth <= 0 && pageImageWidth <= 0;
+    }
+}
@@ -0,0 +1,23 @@
+package com.sedin.presales.infrastructure.rendition;
+
+/**
+ * Receives the PNG images drawn alongside a conversion, each as soon as it is drawn and before the
+ * next one is started, so that a long document never has more than one image in memory. Page
+ * numbers are 1-based.
+ */
+public interface ImageSink {
+
+    ImageSink DISCARD = new ImageSink() {
+        @Override
+        public void thumbnail(byte[] png) {
+        }
+
+        @Override
+        public void pageImage(int pageNumber, byte[] png) {
+        }
+    };
+
+    void thumbnail(byte[] png);
+
+    void pageImage(int pageNumber, byte[] png);
+}
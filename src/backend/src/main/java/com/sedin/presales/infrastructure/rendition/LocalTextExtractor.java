@@ -0,0 +1,252 @@
+package com.sedin.presales.infrastructure.rendition;
+
+import com.aspose.cells.Cell;
+import com.aspose.cells.Workbook;
+import com.aspose.cells.Worksheet;
+import com.aspose.slides.IAutoShape;
+import com.aspose.slides.ICell;
+import com.aspose.slides.IGroupShape;
+import com.aspose.slides.IPictureFrame;
+import com.aspose.slides.IRow;
+import com.aspose.slides.IShape;
+import com.aspose.slides.ISlide;
+import com.aspose.slides.ISmartArt;
+import com.aspose.slides.ISmartArtNode;
+import com.aspose.slides.ITable;
+import com.aspose.slides.ITextFrame;
+import com.aspose.slides.Presentation;
+import com.aspose.words.Document;
+import com.aspose.words.LayoutCollector;
+import com.aspose.words.Node;
+import com.aspose.words.NodeType;
+import com.aspose.words.PdfLoadOptions;
+import com.sedin.presales.infrastructure.ai.ExtractedText;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reads the text of Office documents and text-layer PDFs directly with Aspose, page by page, so
+ * that files whose text is already there do not need OCR. Slides, Word pages and sheets each
+ * become a page of the result, and pages with no text that carry pictures are counted so the
+ * caller can tell a scanned or image-only document from one that simply has little text.
+ * <p>
+ * Like conversions, extraction runs in a {@link ConversionWorkerPool} child process under its
+ * {@code job-timeout} when the pool is enabled and started, and in-process otherwise, so a document
+ * that Aspose cannot get through costs a worker rather than the API.
+ */
+@Slf4j
+@Service
+public class LocalTextExtractor {
+
+    private static final String PDF = "application/pdf";
+    private static final String PAGE_SEPARATOR = "\n";
+
+    private final ObjectProvider<ConversionWorkerPool> conversionWorkerPool;
+
+    public LocalTextExtractor(ObjectProvider<ConversionWorkerPool> conversionWorkerPool) {
+        this.conversionWorkerPool = conversionWorkerPool;
+    }
+
+    /**
+     * Text read from the document and how much of it looked image-only.
+     */
+    public record Result(ExtractedText text, int imageOnlyPages) {
+
+        public int pageCount() {
+            return text.pages().size();
+        }
+
+        /** Characters of the text that are not whitespace. */
+        public int textCharacters() {
+            return (int) text.content().chars().filter(c -> !Character.isWhitespace(c)).count();
+        }
+    }
+
+    public static boolean supports(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        return switch (contentType) {
+            case "application/vnd.openxmlformats-officedocument.presentationml.presentation",
+                 "application/vnd.ms-powerpoint",
+                 "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+                 "application/msword",
+                 "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
+                 "application/vnd.ms-excel",
+                 "application/pdf" -> true;
+            default -> false;
+        };
+    }
+
+    public Result extract(InputStream document, String contentType) {
+        if (!supports(contentType)) {
+            throw new IllegalArgumentException("Unsupported content type for local text extraction: " + contentType);
+        }
+        long start = System.nanoTime();
+        ConversionWorkerPool pool = conversionWorkerPool.getIfAvailable();
+        Result result = pool != null && pool.isAvailable()
+                ? pool.extractText(document, contentType)
+                : read(document, contentType);
+        log.info("Extracted {} characters locally from {} pages ({} image-only) of {} in {} ms",
+                result.text().content().length(), result.pageCount(), result.imageOnlyPages(), contentType,
+                (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    /**
+     * Reads the text in this process; called by {@link #extract} and by conversion workers.
+     */
+    static Result read(InputStream document, String contentType) {
+        try {
+            return switch (contentType) {
+                case "application/vnd.openxmlformats-officedocument.presentationml.presentation",
+                     "application/vnd.ms-powerpoint" -> extractPresentation(document);
+                case "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
+                     "application/vnd.ms-excel" -> extractSpreadsheet(document);
+                // Aspose.Words loads PDFs too, keeping the text layer as text
+                default -> extractWordOrPdf(document, PDF.equals(contentType));
+            };
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to extract text locally from " + contentType, e);
+        }
+    }
+
+    private static Result extractPresentation(InputStream document) {
+        Presentation presentation = new Presentation(document);
+        try {
+            Pages pages = new Pages();
+            for (ISlide slide : presentation.getSlides()) {
+                StringBuilder text = new StringBuilder();
+                boolean pictures = appendShapes(slide.getShapes(), text);
+                pages.add(text.toString(), pictures);
+            }
+            return pages.result();
+        } finally {
+            presentation.dispose();
+        }
+    }
+
+    // Returns whether any of the shapes, or of the groups among them, is a picture
+    private static boolean appendShapes(Iterable<IShape> shapes, StringBuilder text) {
+        boolean pictures = false;
+        for (IShape shape : shapes) {
+            if (shape instanceof IAutoShape autoShape) {
+                appendText(autoShape.getTextFrame(), text);
+            } else if (shape instanceof ITable table) {
+                for (IRow row : table.getRows()) {
+                    for (ICell cell : row) {
+                        appendText(cell.getTextFrame(), text);
+                    }
+                }
+            } else if (shape instanceof ISmartArt smartArt) {
+                for (ISmartArtNode node : smartArt.getAllNodes()) {
+                    appendText(node.getTextFrame(), text);
+                }
+            } else if (shape instanceof IGroupShape group) {
+                pictures |= appendShapes(group.getShapes(), text);
+            } else if (shape instanceof IPictureFrame) {
+                pictures = true;
+            }
+        }
+        return pictures;
+    }
+
+    private static void appendText(ITextFrame frame, StringBuilder text) {
+        if (frame != null && frame.getText() != null && !frame.getText().isBlank()) {
+            text.append(frame.getText()).append('\n');
+        }
+    }
+
+    /**
+     * Lays the document out once and files each paragraph and shape under the page it starts on,
+     * instead of extracting every page as a document of its own. PDFs are imported without their
+     * images, which only the layout of scans would need; a PDF page without text counts as
+     * image-only instead.
+     */
+    private static Result extractWordOrPdf(InputStream input, boolean pdf) throws Exception {
+        Document document;
+        if (pdf) {
+            PdfLoadOptions options = new PdfLoadOptions();
+            options.setSkipPdfImages(true);
+            document = new Document(input, options);
+        } else {
+            document = new Document(input);
+        }
+        LayoutCollector layout = new LayoutCollector(document);
+        int pageCount = document.getPageCount();
+        StringBuilder[] texts = new StringBuilder[pageCount];
+        boolean[] pictures = new boolean[pageCount];
+        for (int i = 0; i < pageCount; i++) {
+            texts[i] = new StringBuilder();
+            pictures[i] = pdf;
+        }
+        for (Node paragraph : document.getChildNodes(NodeType.PARAGRAPH, true).toArray()) {
+            // Headers, footers and other nodes outside the page flow report page 0
+            int page = layout.getStartPageIndex(paragraph);
+            if (page >= 1 && page <= pageCount) {
+                texts[page - 1].append(paragraph.getText());
+            }
+        }
+        if (!pdf) {
+            for (Node shape : document.getChildNodes(NodeType.SHAPE, true).toArray()) {
+                int page = layout.getStartPageIndex(shape);
+                if (page >= 1 && page <= pageCount) {
+                    pictures[page - 1] = true;
+                }
+            }
+        }
+        Pages pages = new Pages();
+        for (int i = 0; i < pageCount; i++) {
+            pages.add(texts[i].toString(), pictures[i]);
+        }
+        return pages.result();
+    }
+
+    private static Result extractSpreadsheet(InputStream document) throws Exception {
+        Workbook workbook = new Workbook(document);
+        Pages pages = new Pages();
+        for (int i = 0; i < workbook.getWorksheets().getCount(); i++) {
+            Worksheet sheet = workbook.getWorksheets().get(i);
+            StringBuilder text = new StringBuilder();
+            Iterator<?> cells = sheet.getCells().iterator();
+            while (cells.hasNext()) {
+                String value = ((Cell) cells.next()).getStringValue();
+                if (value != null && !value.isBlank()) {
+                    text.append(value).append('\n');
+                }
+            }
+            pages.add(text.toString(), sheet.getPictures().getCount() > 0);
+        }
+        return pages.result();
+    }
+
+    /** Joins page texts into one content string, recording where each page sits in it. */
+    private static final class Pages {
+
+        private final StringBuilder content = new StringBuilder();
+        private final List<ExtractedText.PageSpan> spans = new ArrayList<>();
+        private int imageOnly;
+
+        void add(String text, boolean hasPictures) {
+            String trimmed = text == null ? "" : text.strip();
+            if (trimmed.isEmpty() && hasPictures) {
+                imageOnly++;
+            }
+            if (!content.isEmpty()) {
+                content.append(PAGE_SEPARATOR);
+            }
+            spans.add(new ExtractedText.PageSpan(spans.size() + 1, content.length(), trimmed.length()));
+            content.append(trimmed);
+        }
+
+        Result result() {
+            return new Result(new ExtractedText(content.toString(), spans, ExtractedText.Source.LOCAL), imageOnly);
+        }
+    }
+}
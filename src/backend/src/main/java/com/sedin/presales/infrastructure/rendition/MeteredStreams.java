@@ -0,0 +1,97 @@
+package com.sedin.presales.infrastructure.rendition;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Stream wrappers that count the bytes passing through and the time spent waiting on the wrapped
+ * stream, which for a blob download or block upload is the time spent on storage.
+ */
+final class MeteredStreams {
+
+    private MeteredStreams() {
+    }
+
+    static final class Input extends FilterInputStream {
+
+        private long bytes;
+        private long nanos;
+
+        Input(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            long start = System.nanoTime();
+            int b = super.read();
+            nanos += System.nanoTime() - start;
+            if (b >= 0) {
+                bytes++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            int count = in.read(b, off, len);
+            nanos += System.nanoTime() - start;
+            if (count > 0) {
+                bytes += count;
+            }
+            return count;
+        }
+
+        long bytes() {
+            return bytes;
+        }
+
+        long nanos() {
+            return nanos;
+        }
+    }
+
+    static final class Output extends FilterOutputStream {
+
+        private long bytes;
+        private long nanos;
+
+        Output(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            long start = System.nanoTime();
+            out.write(b);
+            nanos += System.nanoTime() - start;
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            out.write(b, off, len);
+            nanos += System.nanoTime() - start;
+            bytes += len;
+        }
+
+        // The caller owns the wrapped stream and closes it
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+
+        long bytes() {
+            return bytes;
+        }
+
+        long nanos() {
+            return nanos;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.sedin.presales.infrastructure.rendition;
+
+import com.aspose.cells.ImageOrPrintOptions;
+import com.aspose.cells.ImageType;
+import com.aspose.cells.PdfSaveOptions;
+import com.aspose.cells.SheetRender;
+import com.aspose.cells.Workbook;
+import com.aspose.slides.IImage;
+import com.aspose.slides.ImageFormat;
+import com.aspose.slides.Presentation;
+import com.aspose.words.Document;
+import com.aspose.words.ImageSaveOptions;
+import com.aspose.words.PageRange;
+import com.aspose.words.PageSet;
+import com.sedin.presales.application.exception.BadRequestException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.awt.Dimension;
+import java.awt.geom.Dimension2D;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.security.CodeSource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * The Aspose conversions themselves, free of Spring so that they run the same way inside the API
+ * and inside a {@link ConversionWorkerMain} child process. Images are drawn from the same loaded
+ * document as the PDF, so asking for them does not parse the file again, and handed to an
+ * {@link ImageSink} one at a time as they are drawn.
+ */
+@Slf4j
+final class PdfConverter {
+
+    // Spreadsheet pages have no natural aspect ratio, so their thumbnails are drawn at 4:3
+    private static final double SHEET_THUMBNAIL_ASPECT = 0.75;
+
+    // Bump when a change to the conversion code alters its output, so existing renditions go stale
+    private static final int SETTINGS_REVISION = 1;
+
+    private static final Map<Class<?>, String> LIBRARY_VERSIONS = new ConcurrentHashMap<>();
+
+    private PdfConverter() {
+    }
+
+    /**
+     * Converts the document, writing the PDF to {@code pdfOut} as Aspose produces it, and then draws
+     * the images {@code images} asks for into {@code imageSink}. A positive {@code maxPages} stops
+     * after that many slides, pages or sheet pages. PDF originals are copied through
+     * and get no images, and spreadsheets only a thumbnail of their first page. Time spent in
+     * {@code imageSink} is left out of the returned image phase.
+     */
+    static ConversionStats render(InputStream fileStream, String contentType, int maxPages, ImageOptions images,
+                                  OutputStream pdfOut, ImageSink imageSink) {
+        if (contentType == null) {
+            throw new BadRequestException("Content type is required for PDF conversion");
+        }
+
+        long allocatedBefore = allocatedBytes();
+        TimedImageSink sink = new TimedImageSink(imageSink);
+        ConversionStats stats = switch (contentType) {
+            case "application/vnd.openxmlformats-officedocument.presentationml.presentation",
+                 "application/vnd.ms-powerpoint" -> convertPresentationToPdf(fileStream, maxPages, images, pdfOut, sink);
+            case "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+                 "application/msword" -> convertWordToPdf(fileStream, maxPages, images, pdfOut, sink);
+            case "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
+                 "application/vnd.ms-excel" -> convertSpreadsheetToPdf(fileStream, maxPages, images, pdfOut, sink);
+            case "application/pdf" -> copyPdf(fileStream, pdfOut);
+            default -> throw new BadRequestException("Unsupported content type for PDF conversion: " + contentType);
+        };
+        long allocatedAfter = allocatedBytes();
+        return allocatedBefore < 0 || allocatedAfter < 0 ? stats : stats.toBuilder()
+                .allocatedBytes(allocatedAfter - allocatedBefore)
+                .build();
+    }
+
+    // Bytes allocated so far by the current thread, or -1 where the JVM does not count them
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    /**
+     * Describes everything that decides the output of {@link #render}: the Aspose product and its
+     * version, the page limit and the images that product draws. Two conversions of the same bytes
+     * with the same description produce the same renditions.
+     */
+    static String settings(String contentType, int maxPages, ImageOptions images) {
+        if (contentType == null) {
+            throw new BadRequestException("Content type is required for PDF conversion");
+        }
+
+        String common = "r" + SETTINGS_REVISION + ";pages=" + Math.max(maxPages, 0);
+        String pageImages = images.pageImageWidth() + "x" + images.maxPageImages();
+        return switch (contentType) {
+            case "application/vnd.openxmlformats-officedocument.presentationml.presentation",
+                 "application/vnd.ms-powerpoint" -> "slides/" + libraryVersion(Presentation.class) + ";" + common
+                    + ";thumbnail=" + images.thumbnailWidth() + ";page-images=" + pageImages;
+            case "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+                 "application/msword" -> "words/" + libraryVersion(Document.class) + ";" + common
+                    + ";thumbnail=" + images.thumbnailWidth() + ";page-images=" + pageImages;
+            case "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
+                 "application/vnd.ms-excel" -> "cells/" + libraryVersion(Workbook.class) + ";" + common
+                    + ";thumbnail=" + images.thumbnailWidth();
+            case "application/pdf" -> "copy";
+            default -> throw new BadRequestException("Unsupported content type for PDF conversion: " + contentType);
+        };
+    }
+
+    // The jar name carries the version when the manifest does not, also inside a Boot fat jar
+    private static String libraryVersion(Class<?> type) {
+        return LIBRARY_VERSIONS.computeIfAbsent(type, key -> {
+            String version = key.getPackage() != null ? key.getPackage().getImplementationVersion() : null;
+            if (version != null) {
+                return version;
+            }
+            CodeSource source = key.getProtectionDomain().getCodeSource();
+            if (source == null || source.getLocation() == null) {
+                return "unknown";
+            }
+            String location = source.getLocation().toString().replaceAll("[!/]+$", "");
+            return location.substring(location.lastIndexOf('/') + 1);
+        });
+    }
+
+    private static ConversionStats convertPresentationToPdf(InputStream fileStream, int maxPages, ImageOptions images,
+                                                            OutputStream pdfOut, TimedImageSink sink) {
+        log.debug("Converting presentation to PDF using Aspose.Slides");
+        try {
+            long start = System.nanoTime();
+            Presentation presentation = new Presentation(fileStream);
+            long loaded = System.nanoTime();
+            try {
+                int slideCount = presentation.getSlides().size();
+                if (maxPages > 0 && maxPages < slideCount) {
+                    // Slide numbers passed to save are 1-based
+                    int[] slides = IntStream.rangeClosed(1, maxPages).toArray();
+                    presentation.save(pdfOut, slides, com.aspose.slides.SaveFormat.Pdf);
+                } else {
+                    presentation.save(pdfOut, com.aspose.slides.SaveFormat.Pdf);
+                }
+                log.debug("Presentation converted to PDF successfully");
+                long converted = System.nanoTime();
+
+                if (images.thumbnailWidth() > 0 && slideCount > 0) {
+                    sink.thumbnail(slideImage(presentation, 0, images.thumbnailWidth()));
+                }
+                if (images.pageImageWidth() > 0) {
+                    for (int i = 0; i < Math.min(slideCount, images.maxPageImages()); i++) {
+                        sink.pageImage(i + 1, slideImage(presentation, i, images.pageImageWidth()));
+                    }
+                }
+                return stats(start, loaded, converted, slideCount, sink);
+            } finally {
+                presentation.dispose();
+            }
+        } catch (BadRequestException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to convert presentation to PDF", e);
+            throw new BadRequestException("Failed to convert presentation to PDF");
+        }
+    }
+
+    private static byte[] slideImage(Presentation presentation, int index, int width) {
+        Dimension2D slideSize = presentation.getSlideSize().getSize();
+        int height = (int) Math.round(width * slideSize.getHeight() / slideSize.getWidth());
+        IImage image = presentation.getSlides().get_Item(index).getImage(new Dimension(width, height));
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            image.save(outputStream, ImageFormat.Png);
+            return outputStream.toByteArray();
+        } finally {
+            image.dispose();
+        }
+    }
+
+    private static ConversionStats convertWordToPdf(InputStream fileStream, int maxPages, ImageOptions images,
+                                                    OutputStream pdfOut, TimedImageSink sink) {
+        log.debug("Converting Word document to PDF using Aspose.Words");
+        try {
+            long start = System.nanoTime();
+            Document document = new Document(fileStream);
+            long loaded = System.nanoTime();
+            if (maxPages > 0) {
+                com.aspose.words.PdfSaveOptions saveOptions = new com.aspose.words.PdfSaveOptions();
+                saveOptions.setPageSet(new PageSet(new PageRange(0, maxPages - 1)));
+                document.save(pdfOut, saveOptions);
+            } else {
+                document.save(pdfOut, com.aspose.words.SaveFormat.PDF);
+            }
+            log.debug("Word document converted to PDF successfully");
+            long converted = System.nanoTime();
+
+            // Layout was computed for the PDF above and is reused for the page count and images
+            int pageCount = document.getPageCount();
+            if (images.thumbnailWidth() > 0 && pageCount > 0) {
+                sink.thumbnail(pageImage(document, 0, images.thumbnailWidth()));
+            }
+            if (images.pageImageWidth() > 0) {
+                for (int i = 0; i < Math.min(pageCount, images.maxPageImages()); i++) {
+                    sink.pageImage(i + 1, pageImage(document, i, images.pageImageWidth()));
+                }
+            }
+            return stats(start, loaded, converted, pageCount, sink);
+        } catch (BadRequestException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to convert Word document to PDF", e);
+            throw new BadRequestException("Failed to convert Word document to PDF");
+        }
+    }
+
+    private static byte[] pageImage(Document document, int pageIndex, int width) throws Exception {
+        ImageSaveOptions options = new ImageSaveOptions(com.aspose.words.SaveFormat.PNG);
+        options.setPageSet(new PageSet(pageIndex));
+        // Resolution is in dots per inch and page width in points, 72 to the inch
+        options.setResolution(width * 72f / document.getPageInfo(pageIndex).getWidthInPoints());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        document.save(outputStream, options);
+        return outputStream.toByteArray();
+    }
+
+    private static ConversionStats convertSpreadsheetToPdf(InputStream fileStream, int maxPages, ImageOptions images,
+                                                           OutputStream pdfOut, TimedImageSink sink) {
+        log.debug("Converting spreadsheet to PDF using Aspose.Cells");
+        try {
+            long start = System.nanoTime();
+            Workbook workbook = new Workbook(fileStream);
+            long loaded = System.nanoTime();
+            PdfSaveOptions saveOptions = new PdfSaveOptions();
+            if (maxPages > 0) {
+                saveOptions.setPageIndex(0);
+                saveOptions.setPageCount(maxPages);
+            }
+            workbook.save(pdfOut, saveOptions);
+            log.debug("Spreadsheet converted to PDF successfully");
+            long converted = System.nanoTime();
+
+            // Sheets stand in for pages, which Cells only counts by laying every sheet out
+            int sheetCount = workbook.getWorksheets().getCount();
+            byte[] thumbnail = images.thumbnailWidth() > 0 && sheetCount > 0
+                    ? sheetThumbnail(workbook, images.thumbnailWidth()) : null;
+            if (thumbnail != null) {
+                sink.thumbnail(thumbnail);
+            }
+            return stats(start, loaded, converted, sheetCount, sink);
+        } catch (BadRequestException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to convert spreadsheet to PDF", e);
+            throw new BadRequestException("Failed to convert spreadsheet to PDF");
+        }
+    }
+
+    private static byte[] sheetThumbnail(Workbook workbook, int width) throws Exception {
+        ImageOrPrintOptions options = new ImageOrPrintOptions();
+        options.setImageType(ImageType.PNG);
+        options.setDesiredSize(width, (int) Math.round(width * SHEET_THUMBNAIL_ASPECT));
+        SheetRender render = new SheetRender(workbook.getWorksheets().get(0), options);
+        if (render.getPageCount() == 0) {
+            return null;
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        render.toImage(0, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private static ConversionStats copyPdf(InputStream fileStream, OutputStream pdfOut) {
+        log.debug("File is already PDF, copying bytes");
+        try {
+            long start = System.nanoTime();
+            fileStream.transferTo(pdfOut);
+            return stats(start, start, System.nanoTime(), 0, null);
+        } catch (Exception e) {
+            log.error("Failed to read PDF file", e);
+            throw new BadRequestException("Failed to read PDF file");
+        }
+    }
+
+    private static ConversionStats stats(long start, long loaded, long converted, int pageCount, TimedImageSink sink) {
+        long sinkNanos = sink != null ? sink.nanos : 0;
+        return ConversionStats.builder()
+                .loadNanos(loaded - start)
+                .convertNanos(converted - loaded)
+                .imageNanos(Math.max(0, System.nanoTime() - converted - sinkNanos))
+                .pageCount(pageCount)
+                .build();
+    }
+
+    // Counts the time the caller's sink takes, which is storing images rather than drawing them
+    private static final class TimedImageSink implements ImageSink {
+
+        private final ImageSink target;
+        private long nanos;
+
+        TimedImageSink(ImageSink target) {
+            this.target = target;
+        }
+
+        @Override
+        public void thumbnail(byte[] png) {
+            long start = System.nanoTime();
+            try {
+                target.thumbnail(png);
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void pageImage(int pageNumber, byte[] png) {
+            long start = System.nanoTime();
+            try {
+                target.pageImage(pageNumber, png);
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+    }
+}
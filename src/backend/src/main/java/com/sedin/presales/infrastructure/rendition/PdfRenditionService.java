@@ -1,99 +1,153 @@
 package com.sedin.presales.infrastructure.rendition;
 
-import com.aspose.cells.PdfSaveOptions;
-import com.aspose.cells.Workbook;
-import com.aspose.slides.Presentation;
-import com.aspose.words.Document;
 import com.sedin.presales.application.exception.BadRequestException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Converts documents to PDF. Conversions run in a {@link ConversionWorkerPool} child process when
+ * the pool is enabled and started, and in-process otherwise.
+ * <p>
+ * Each conversion records the {@code rendition.phase} timer for parsing ({@code load}), writing
+ * the PDF ({@code convert}) and drawing images ({@code images}), and {@code rendition.input.bytes},
+ * {@code rendition.output.bytes}, {@code rendition.pages} and {@code rendition.allocated.bytes}
+ * summaries, all tagged by content type and rendition. Time spent reading the original or writing
+ * to {@code pdfOut} is left out of the phases and reported in the returned {@link ConversionStats}.
+ */
 @Slf4j
 @Service
 public class PdfRenditionService {
 
-    public byte[] convertToPdf(InputStream fileStream, String contentType) {
+    private static final String PDF = "application/pdf";
+    private static final String RENDITION_FULL = "pdf";
+    private static final String RENDITION_PREVIEW = "pdf-preview";
+
+    @Value("${app.rendition.images.enabled:true}")
+    private boolean imagesEnabled;
+
+    @Value("${app.rendition.images.thumbnail-width:320}")
+    private int thumbnailWidth;
+
+    @Value("${app.rendition.images.page-width:1280}")
+    private int pageImageWidth;
+
+    @Value("${app.rendition.images.max-pages:300}")
+    private int maxPageImages;
+
+    private final ObjectProvider<ConversionWorkerPool> conversionWorkerPool;
+    private final MeterRegistry meterRegistry;
+
+    public PdfRenditionService(ObjectProvider<ConversionWorkerPool> conversionWorkerPool, MeterRegistry meterRegistry) {
+        this.conversionWorkerPool = conversionWorkerPool;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Converts the whole document, writing the PDF to {@code pdfOut} as it is produced rather than
+     * holding it in memory, and from the same parse draws a thumbnail of the first slide or page and
+     * an image of each slide or page, sized by {@code app.rendition.images}. Each image goes to
+     * {@code images} as soon as it is drawn, after the PDF is complete.
+     */
+    public ConversionStats convertToPdf(InputStream fileStream, String contentType, OutputStream pdfOut,
+                                        ImageSink images) {
         log.info("Converting file with content type '{}' to PDF", contentType);
+        return convert(fileStream, contentType, 0, fullImages(), pdfOut, images);
+    }
+
+    /**
+     * Converts only the first {@code maxPages} slides or pages, for a preview that is ready long
+     * before the full rendition of a large document. No images are drawn.
+     */
+    public ConversionStats convertToPdfPreview(InputStream fileStream, String contentType, int maxPages,
+                                               OutputStream pdfOut) {
+        log.info("Converting first {} pages of file with content type '{}' to PDF", maxPages, contentType);
+        return convert(fileStream, contentType, maxPages, ImageOptions.NONE, pdfOut, ImageSink.DISCARD);
+    }
+
+    /**
+     * Describes how a file of this type would be converted now, by {@link #convertToPdf} when
+     * {@code maxPages} is 0 and by {@link #convertToPdfPreview} otherwise: the converter and its
+     * version, the page limit and the images drawn. Renditions of the same bytes made with the same
+     * settings are interchangeable.
+     */
+    public String conversionSettings(String contentType, int maxPages) {
+        return PdfConverter.settings(contentType, maxPages, maxPages > 0 ? ImageOptions.NONE : fullImages());
+    }
+
+    private ImageOptions fullImages() {
+        return imagesEnabled ? new ImageOptions(thumbnailWidth, pageImageWidth, maxPageImages) : ImageOptions.NONE;
+    }
 
+    private ConversionStats convert(InputStream fileStream, String contentType, int maxPages, ImageOptions images,
+                                    OutputStream pdfOut, ImageSink imageSink) {
         if (contentType == null) {
             throw new BadRequestException("Content type is required for PDF conversion");
         }
 
-        return switch (contentType) {
-            case "application/vnd.openxmlformats-officedocument.presentationml.presentation",
-                 "application/vnd.ms-powerpoint" -> convertPresentationToPdf(fileStream);
-            case "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
-                 "application/msword" -> convertWordToPdf(fileStream);
-            case "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
-                 "application/vnd.ms-excel" -> convertSpreadsheetToPdf(fileStream);
-            case "application/pdf" -> readAllBytes(fileStream);
-            default -> throw new BadRequestException("Unsupported content type for PDF conversion: " + contentType);
-        };
-    }
+        MeteredStreams.Input in = new MeteredStreams.Input(fileStream);
+        MeteredStreams.Output out = new MeteredStreams.Output(pdfOut);
+        ConversionWorkerPool pool = conversionWorkerPool.getIfAvailable();
+        boolean inWorker = pool != null && pool.isAvailable() && !PDF.equals(contentType);
+        ConversionStats converter = inWorker
+                ? pool.render(in, contentType, maxPages, images, out, imageSink)
+                : PdfConverter.render(in, contentType, maxPages, images, out, imageSink);
 
-    private byte[] convertPresentationToPdf(InputStream fileStream) {
-        log.debug("Converting presentation to PDF using Aspose.Slides");
-        try {
-            Presentation presentation = new Presentation(fileStream);
-            try {
-                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-                presentation.save(outputStream, com.aspose.slides.SaveFormat.Pdf);
-                log.debug("Presentation converted to PDF successfully, size: {} bytes", outputStream.size());
-                return outputStream.toByteArray();
-            } finally {
-                presentation.dispose();
-            }
-        } catch (BadRequestException e) {
-            throw e;
-        } catch (Exception e) {
-            log.error("Failed to convert presentation to PDF", e);
-            throw new BadRequestException("Failed to convert presentation to PDF");
-        }
+        // In-process, the original is read while it is parsed and the PDF written out while it is saved
+        ConversionStats stats = converter.toBuilder()
+                .readNanos(in.nanos())
+                .writeNanos(out.nanos())
+                .inputBytes(in.bytes())
+                .outputBytes(out.bytes())
+                .loadNanos(inWorker ? converter.loadNanos() : Math.max(0, converter.loadNanos() - in.nanos()))
+                .convertNanos(inWorker ? converter.convertNanos() : Math.max(0, converter.convertNanos() - out.nanos()))
+                .build();
+        record(contentType, maxPages > 0 ? RENDITION_PREVIEW : RENDITION_FULL, stats);
+        return stats;
     }
 
-    private byte[] convertWordToPdf(InputStream fileStream) {
-        log.debug("Converting Word document to PDF using Aspose.Words");
-        try {
-            Document document = new Document(fileStream);
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            document.save(outputStream, com.aspose.words.SaveFormat.PDF);
-            log.debug("Word document converted to PDF successfully, size: {} bytes", outputStream.size());
-            return outputStream.toByteArray();
-        } catch (BadRequestException e) {
-            throw e;
-        } catch (Exception e) {
-            log.error("Failed to convert Word document to PDF", e);
-            throw new BadRequestException("Failed to convert Word document to PDF");
+    private void record(String contentType, String rendition, ConversionStats stats) {
+        phase("load", contentType, rendition).record(stats.loadNanos(), TimeUnit.NANOSECONDS);
+        phase("convert", contentType, rendition).record(stats.convertNanos(), TimeUnit.NANOSECONDS);
+        phase("images", contentType, rendition).record(stats.imageNanos(), TimeUnit.NANOSECONDS);
+        summary("rendition.input.bytes", "Size of originals converted", "bytes", contentType, rendition)
+                .record(stats.inputBytes());
+        summary("rendition.output.bytes", "Size of PDFs produced", "bytes", contentType, rendition)
+                .record(stats.outputBytes());
+        if (stats.pageCount() > 0) {
+            summary("rendition.pages", "Slides, pages or sheets per converted document", null, contentType, rendition)
+                    .record(stats.pageCount());
+        }
+        if (stats.allocatedBytes() > 0) {
+            summary("rendition.allocated.bytes", "Heap allocated by the converting thread", "bytes", contentType, rendition)
+                    .record(stats.allocatedBytes());
         }
     }
 
-    private byte[] convertSpreadsheetToPdf(InputStream fileStream) {
-        log.debug("Converting spreadsheet to PDF using Aspose.Cells");
-        try {
-            Workbook workbook = new Workbook(fileStream);
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            PdfSaveOptions saveOptions = new PdfSaveOptions();
-            workbook.save(outputStream, saveOptions);
-            log.debug("Spreadsheet converted to PDF successfully, size: {} bytes", outputStream.size());
-            return outputStream.toByteArray();
-        } catch (BadRequestException e) {
-            throw e;
-        } catch (Exception e) {
-            log.error("Failed to convert spreadsheet to PDF", e);
-            throw new BadRequestException("Failed to convert spreadsheet to PDF");
-        }
+    private Timer phase(String phase, String contentType, String rendition) {
+        return Timer.builder("rendition.phase")
+                .description("Time spent in each phase of producing a rendition")
+                .tag("phase", phase)
+                .tag("content.type", contentType)
+                .tag("rendition", rendition)
+                .register(meterRegistry);
     }
 
-    private byte[] readAllBytes(InputStream fileStream) {
-        log.debug("File is already PDF, reading bytes");
-        try {
-            return fileStream.readAllBytes();
-        } catch (Exception e) {
-            log.error("Failed to read PDF file", e);
-            throw new BadRequestException("Failed to read PDF file");
-        }
+    private DistributionSummary summary(String name, String description, String baseUnit, String contentType,
+                                        String rendition) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .baseUnit(baseUnit)
+                .tag("content.type", contentType)
+                .tag("rendition", rendition)
+                .register(meterRegistry);
     }
 }
@@ -0,0 +1,102 @@
+package com.sedin.presales.infrastructure.rendition;
+
+import com.sedin.presales.domain.enums.JobPriority;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A counting semaphore that hands a released slot to the waiter of the highest {@link JobPriority},
+ * and among equals to the one that has waited longest. A slot is never taken past a waiter, so
+ * interactive conversions queue ahead of any backlog of background work but never preempt it.
+ */
+final class PrioritySlots {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityQueue<Waiter> waiting = new PriorityQueue<>(
+            Comparator.comparing(Waiter::priority).thenComparingLong(Waiter::arrival));
+    private int free;
+    private long arrivals;
+
+    PrioritySlots(int slots) {
+        this.free = slots;
+    }
+
+    void acquire(JobPriority priority) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            if (free > 0 && waiting.isEmpty()) {
+                free--;
+                return;
+            }
+            Waiter waiter = new Waiter(priority, arrivals++, lock.newCondition());
+            waiting.add(waiter);
+            try {
+                while (!waiter.granted) {
+                    waiter.turn.await();
+                }
+            } catch (InterruptedException e) {
+                // A slot granted while the interrupt was being delivered goes to the next in line
+                if (waiter.granted) {
+                    handOff();
+                } else {
+                    waiting.remove(waiter);
+                }
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release() {
+        lock.lock();
+        try {
+            handOff();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int waiting(JobPriority priority) {
+        lock.lock();
+        try {
+            return (int) waiting.stream().filter(waiter -> waiter.priority == priority).count();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void handOff() {
+        Waiter next = waiting.poll();
+        if (next == null) {
+            free++;
+        } else {
+            next.granted = true;
+            next.turn.signal();
+        }
+    }
+
+    private static final class Waiter {
+        private final JobPriority priority;
+        private final long arrival;
+        private final Condition turn;
+        private boolean granted;
+
+        Waiter(JobPriority priority, long arrival, Condition turn) {
+            this.priority = priority;
+            this.arrival = arrival;
+            this.turn = turn;
+        }
+
+        JobPriority priority() {
+            return priority;
+        }
+
+        long arrival() {
+            return arrival;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.sedin.presales.infrastructure.rendition;
+
+import com.aspose.cells.Workbook;
+import com.aspose.slides.IAutoShape;
+import com.aspose.slides.Presentation;
+import com.aspose.slides.ShapeType;
+import com.aspose.words.Document;
+import com.aspose.words.DocumentBuilder;
+import com.sedin.presales.config.AsposeConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Warms Aspose up before the instance takes traffic. The first conversion after a deploy is several
+ * times slower than the rest while fonts are scanned and the JIT compiles the converters, so this
+ * preloads the font sources and converts a small generated presentation, Word document and
+ * spreadsheet through {@link PdfRenditionService}. Application runners finish before Spring marks
+ * the instance ready, so the readiness probe stays down until warm-up is done.
+ * <p>
+ * The first conversion of each type and the average of the {@code iterations} after it are logged
+ * and recorded on the {@code rendition.warmup} timer, tagged by phase, to show what warm-up saves.
+ * A failure is logged and does not stop startup.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.rendition.warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class RenditionWarmup implements ApplicationRunner {
+
+    static final String PPTX = "application/vnd.openxmlformats-officedocument.presentationml.presentation";
+    static final String DOCX = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+    static final String XLSX = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    private static final String SAMPLE_TEXT = "Rendition warm-up";
+
+    private final PdfRenditionService pdfRenditionService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.rendition.warmup.preload-fonts:true}")
+    private boolean preloadFonts;
+
+    @Value("${app.rendition.warmup.iterations:3}")
+    private int iterations;
+
+    private Function<String, byte[]> samples = RenditionWarmup::buildSample;
+
+    public RenditionWarmup(PdfRenditionService pdfRenditionService, MeterRegistry meterRegistry) {
+        this.pdfRenditionService = pdfRenditionService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        if (preloadFonts) {
+            AsposeConfig.preloadFonts();
+        }
+        for (String contentType : List.of(PPTX, DOCX, XLSX)) {
+            warmUp(contentType);
+        }
+        log.info("Aspose warm-up finished in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void warmUp(String contentType) {
+        try {
+            byte[] sample = samples.apply(contentType);
+            long first = convert(sample, contentType);
+            timer(contentType, "first").record(first, TimeUnit.NANOSECONDS);
+
+            long steady = 0;
+            for (int i = 0; i < iterations; i++) {
+                long elapsed = convert(sample, contentType);
+                timer(contentType, "steady").record(elapsed, TimeUnit.NANOSECONDS);
+                steady += elapsed;
+            }
+            if (iterations > 0) {
+                log.info("Aspose warm-up for {}: first conversion {} ms, steady state {} ms over {} runs",
+                        contentType, first / 1_000_000, steady / iterations / 1_000_000, iterations);
+            } else {
+                log.info("Aspose warm-up for {}: first conversion {} ms", contentType, first / 1_000_000);
+            }
+        } catch (Exception e) {
+            log.warn("Aspose warm-up failed for {}", contentType, e);
+        }
+    }
+
+    private long convert(byte[] sample, String contentType) {
+        long start = System.nanoTime();
+        pdfRenditionService.convertToPdf(new ByteArrayInputStream(sample), contentType, OutputStream.nullOutputStream(),
+                ImageSink.DISCARD);
+        return System.nanoTime() - start;
+    }
+
+    private Timer timer(String contentType, String phase) {
+        return Timer.builder("rendition.warmup")
+                .description("Aspose conversions run at startup, first versus steady state")
+                .tag("content.type", contentType)
+                .tag("phase", phase)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Builds a one-page document of the given type with a line of text, so that fonts are laid out
+     * and the text paths of the converters are exercised.
+     */
+    static byte[] buildSample(String contentType) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            switch (contentType) {
+                case PPTX -> {
+                    Presentation presentation = new Presentation();
+                    try {
+                        IAutoShape shape = presentation.getSlides().get_Item(0).getShapes()
+                                .addAutoShape(ShapeType.Rectangle, 50, 50, 600, 100);
+                        shape.getTextFrame().setText(SAMPLE_TEXT);
+                        presentation.save(out, com.aspose.slides.SaveFormat.Pptx);
+                    } finally {
+                        presentation.dispose();
+                    }
+                }
+                case DOCX -> {
+                    Document document = new Document();
+                    new DocumentBuilder(document).writeln(SAMPLE_TEXT);
+                    document.save(out, com.aspose.words.SaveFormat.DOCX);
+                }
+                case XLSX -> {
+                    Workbook workbook = new Workbook();
+                    workbook.getWorksheets().get(0).getCells().get("A1").putValue(SAMPLE_TEXT);
+                    workbook.save(out, com.aspose.cells.SaveFormat.XLSX);
+                }
+                default -> throw new IllegalArgumentException("No warm-up sample for " + contentType);
+            }
+            return out.toByteArray();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to build warm-up sample for " + contentType, e);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.sedin.presales.infrastructure.storage;
+
+import com.azure.core.util.BinaryData;
+import com.azure.core.util.Context;
+import com.azure.storage.blob.BlobClient;
+import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.BlobServiceClient;
+import com.azure.storage.blob.models.BlobHttpHeaders;
+import com.azure.storage.blob.models.BlobProperties;
+import com.azure.storage.blob.models.BlobRange;
+import com.azure.storage.blob.models.BlobRequestConditions;
+import com.azure.storage.blob.models.BlobStorageException;
+import com.azure.storage.blob.options.BlockBlobCommitBlockListOptions;
+import com.azure.storage.blob.sas.BlobSasPermission;
+import com.azure.storage.blob.sas.BlobServiceSasSignatureValues;
+import com.azure.storage.blob.specialized.BlockBlobClient;
+import com.azure.storage.common.sas.SasProtocol;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link BlobStore} backed by Azure Blob Storage. Streams larger than the staged-upload threshold
+ * are split into blocks that are staged in parallel and committed in one request.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.storage.backend", havingValue = "azure", matchIfMissing = true)
+public class AzureBlobStore implements BlobStore {
+
+    private final BlobServiceClient blobServiceClient;
+    private final Executor blobTransferExecutor;
+
+    @Value("${azure.storage.upload.staged-threshold-bytes:33554432}")
+    private long stagedUploadThreshold;
+
+    @Value("${azure.storage.upload.block-size-bytes:8388608}")
+    private int blockSize;
+
+    @Value("${azure.storage.upload.max-blocks-in-flight:4}")
+    private int maxBlocksInFlight;
+
+    public AzureBlobStore(BlobServiceClient blobServiceClient,
+                          @Qualifier("blobTransferExecutor") Executor blobTransferExecutor) {
+        this.blobServiceClient = blobServiceClient;
+        this.blobTransferExecutor = blobTransferExecutor;
+    }
+
+    @Override
+    public String upload(String container, String blobName, InputStream data, long length, String contentType) {
+        if (length > stagedUploadThreshold) {
+            return uploadInBlocks(container, blobName, data, contentType);
+        }
+        log.info("Uploading blob '{}' to container '{}'", blobName, container);
+        BlobClient blobClient = getBlobClient(container, blobName);
+        BlobHttpHeaders headers = new BlobHttpHeaders().setContentType(contentType);
+        blobClient.upload(data, length, true);
+        blobClient.setHttpHeaders(headers);
+        return blobClient.getBlobUrl();
+    }
+
+    /**
+     * Streams the input into fixed-size blocks, stages up to {@code maxBlocksInFlight} of them in
+     * parallel, then commits the block list together with the content-type headers in one request.
+     * At most {@code (maxBlocksInFlight + 1) * blockSize} bytes are held in memory per upload,
+     * so the stream length does not need to be known up front.
+     */
+    @Override
+    public String uploadInBlocks(String container, String blobName, InputStream data, String contentType) {
+        log.info("Uploading blob '{}' to container '{}' in blocks of {} bytes", blobName, container, blockSize);
+        BlobClient blobClient = getBlobClient(container, blobName);
+        BlockBlobClient blockBlobClient = blobClient.getBlockBlobClient();
+
+        String uploadId = UUID.randomUUID().toString();
+        List<String> blockIds = new ArrayList<>();
+        List<CompletableFuture<Void>> stagedBlocks = new ArrayList<>();
+        Semaphore inFlight = new Semaphore(maxBlocksInFlight);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        try {
+            byte[] block;
+            while ((block = data.readNBytes(blockSize)).length > 0) {
+                inFlight.acquire();
+                if (failure.get() != null) {
+                    inFlight.release();
+                    break;
+                }
+                String blockId = BlobStorageService.blockId(uploadId, blockIds.size());
+                blockIds.add(blockId);
+                BinaryData blockData = BinaryData.fromBytes(block);
+                stagedBlocks.add(CompletableFuture
+                        .runAsync(() -> blockBlobClient.stageBlock(blockId, blockData), blobTransferExecutor)
+                        .whenComplete((ignored, error) -> {
+                            if (error != null) {
+                                failure.compareAndSet(null, error);
+                            }
+                            inFlight.release();
+                        }));
+            }
+            CompletableFuture.allOf(stagedBlocks.toArray(new CompletableFuture[0])).join();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read upload stream for blob " + blobName, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while uploading blob " + blobName, e);
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Failed to stage block for blob " + blobName, e.getCause());
+        }
+
+        commitBlockList(blockBlobClient, blockIds, contentType);
+        log.info("Committed {} blocks for blob '{}' in container '{}'", blockIds.size(), blobName, container);
+        return blobClient.getBlobUrl();
+    }
+
+    @Override
+    public void stageBlock(String container, String blobName, String blockId, InputStream data, long length) {
+        log.debug("Staging block '{}' ({} bytes) for blob '{}' in container '{}'", blockId, length, blobName, container);
+        getBlobClient(container, blobName).getBlockBlobClient().stageBlock(blockId, data, length);
+    }
+
+    @Override
+    public String commitBlocks(String container, String blobName, List<String> blockIds, String contentType) {
+        BlobClient blobClient = getBlobClient(container, blobName);
+        commitBlockList(blobClient.getBlockBlobClient(), blockIds, contentType);
+        log.info("Committed {} blocks for blob '{}' in container '{}'", blockIds.size(), blobName, container);
+        return blobClient.getBlobUrl();
+    }
+
+    /**
+     * Frees blocks staged for a blob that will never be committed. The service only drops
+     * uncommitted blocks when a block list is committed, so an empty list is committed on condition
+     * that nothing is committed under the name yet, and exactly that empty blob is then deleted. A
+     * blob that is already committed there (a live rendition a failed re-run was replacing) is never
+     * touched; its abandoned blocks are left for the service to expire.
+     */
+    @Override
+    public void discardStagedBlocks(String container, String blobName) {
+        log.info("Discarding staged blocks for blob '{}' in container '{}'", blobName, container);
+        BlobClient blobClient = getBlobClient(container, blobName);
+        BlockBlobCommitBlockListOptions emptyCommit = new BlockBlobCommitBlockListOptions(List.of())
+                .setRequestConditions(new BlobRequestConditions().setIfNoneMatch("*"));
+        String emptyBlobETag;
+        try {
+            emptyBlobETag = blobClient.getBlockBlobClient()
+                    .commitBlockListWithResponse(emptyCommit, null, Context.NONE)
+                    .getValue().getETag();
+        } catch (BlobStorageException e) {
+            if (!isConditionFailure(e)) {
+                throw e;
+            }
+            log.info("Blob '{}' in container '{}' is already committed; leaving its staged blocks to expire",
+                    blobName, container);
+            return;
+        }
+        try {
+            blobClient.deleteIfExistsWithResponse(null, new BlobRequestConditions().setIfMatch(emptyBlobETag),
+                    null, Context.NONE);
+        } catch (BlobStorageException e) {
+            if (!isConditionFailure(e)) {
+                throw e;
+            }
+            // Another writer committed the name after the empty commit; its blob stays
+            log.info("Blob '{}' in container '{}' was committed meanwhile; keeping it", blobName, container);
+        }
+    }
+
+    private static boolean isConditionFailure(BlobStorageException e) {
+        return e.getStatusCode() == 409 || e.getStatusCode() == 412;
+    }
+
+    @Override
+    public InputStream download(String container, String blobName) {
+        log.info("Downloading blob '{}' from container '{}'", blobName, container);
+        BlobClient blobClient = getBlobClient(container, blobName);
+        return blobClient.openInputStream();
+    }
+
+    @Override
+    public InputStream downloadRange(String container, String blobName, long offset, long count) {
+        log.info("Downloading bytes {}-{} of blob '{}' from container '{}'",
+                offset, offset + count - 1, blobName, container);
+        BlobClient blobClient = getBlobClient(container, blobName);
+        return blobClient.openInputStream(new BlobRange(offset, count), null);
+    }
+
+    @Override
+    public BlobInfo getInfo(String container, String blobName) {
+        BlobProperties properties = getBlobClient(container, blobName).getProperties();
+        return new BlobInfo(properties.getETag(), properties.getBlobSize());
+    }
+
+    @Override
+    public void delete(String container, String blobName) {
+        log.info("Deleting blob '{}' from container '{}'", blobName, container);
+        BlobClient blobClient = getBlobClient(container, blobName);
+        blobClient.deleteIfExists();
+    }
+
+    @Override
+    public String generateSasUrl(String container, String blobName, Instant expiresAt) {
+        log.info("Generating SAS URL for blob '{}' in container '{}' expiring at {}", blobName, container, expiresAt);
+        BlobClient blobClient = getBlobClient(container, blobName);
+
+        BlobSasPermission permissions = new BlobSasPermission().setReadPermission(true);
+        BlobServiceSasSignatureValues sasValues = new BlobServiceSasSignatureValues(
+                OffsetDateTime.ofInstant(expiresAt, ZoneOffset.UTC), permissions)
+                .setProtocol(SasProtocol.HTTPS_ONLY);
+
+        String sasToken = blobClient.generateSas(sasValues);
+        return blobClient.getBlobUrl() + "?" + sasToken;
+    }
+
+    @Override
+    public boolean exists(String container, String blobName) {
+        BlobClient blobClient = getBlobClient(container, blobName);
+        return blobClient.exists();
+    }
+
+    private void commitBlockList(BlockBlobClient blockBlobClient, List<String> blockIds, String contentType) {
+        BlockBlobCommitBlockListOptions commitOptions = new BlockBlobCommitBlockListOptions(blockIds)
+                .setHeaders(new BlobHttpHeaders().setContentType(contentType));
+        blockBlobClient.commitBlockListWithResponse(commitOptions, null, Context.NONE);
+    }
+
+    private BlobClient getBlobClient(String container, String blobName) {
+        BlobContainerClient containerClient = blobServiceClient.getBlobContainerClient(container);
+        return containerClient.getBlobClient(blobName);
+    }
+}
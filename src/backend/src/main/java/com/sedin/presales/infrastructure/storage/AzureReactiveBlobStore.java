@@ -0,0 +1,71 @@
+package com.sedin.presales.infrastructure.storage;
+
+import com.azure.storage.blob.BlobAsyncClient;
+import com.azure.storage.blob.BlobServiceAsyncClient;
+import com.azure.storage.blob.models.BlobDownloadAsyncResponse;
+import com.azure.storage.blob.models.BlobHttpHeaders;
+import com.azure.storage.blob.models.BlobRange;
+import com.azure.storage.blob.models.ParallelTransferOptions;
+import com.azure.storage.blob.options.BlobParallelUploadOptions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link ReactiveBlobStore} on {@link BlobServiceAsyncClient}. Transfers run on the client's Netty
+ * event loop, so no thread is held while waiting on the network.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.storage.backend", havingValue = "azure", matchIfMissing = true)
+public class AzureReactiveBlobStore implements ReactiveBlobStore {
+
+    private final BlobServiceAsyncClient blobServiceAsyncClient;
+
+    @Value("${azure.storage.upload.block-size-bytes:8388608}")
+    private long blockSize;
+
+    @Value("${azure.storage.upload.max-blocks-in-flight:4}")
+    private int maxBlocksInFlight;
+
+    public AzureReactiveBlobStore(BlobServiceAsyncClient blobServiceAsyncClient) {
+        this.blobServiceAsyncClient = blobServiceAsyncClient;
+    }
+
+    @Override
+    public Flux<ByteBuffer> download(String container, String blobName) {
+        log.info("Streaming blob '{}' from container '{}'", blobName, container);
+        return getBlobAsyncClient(container, blobName).downloadStream();
+    }
+
+    @Override
+    public Flux<ByteBuffer> downloadRange(String container, String blobName, long offset, long count) {
+        log.info("Streaming bytes {}-{} of blob '{}' from container '{}'",
+                offset, offset + count - 1, blobName, container);
+        return getBlobAsyncClient(container, blobName)
+                .downloadStreamWithResponse(new BlobRange(offset, count), null, null, false)
+                .flatMapMany(BlobDownloadAsyncResponse::getValue);
+    }
+
+    @Override
+    public Mono<String> upload(String container, String blobName, Flux<ByteBuffer> data, String contentType) {
+        BlobAsyncClient blobAsyncClient = getBlobAsyncClient(container, blobName);
+        BlobParallelUploadOptions options = new BlobParallelUploadOptions(data)
+                .setHeaders(new BlobHttpHeaders().setContentType(contentType))
+                .setParallelTransferOptions(new ParallelTransferOptions()
+                        .setBlockSizeLong(blockSize)
+                        .setMaxConcurrency(maxBlocksInFlight));
+        return blobAsyncClient.uploadWithResponse(options)
+                .doOnSubscribe(subscription -> log.info("Streaming upload of blob '{}' to container '{}'", blobName, container))
+                .map(response -> blobAsyncClient.getBlobUrl());
+    }
+
+    private BlobAsyncClient getBlobAsyncClient(String container, String blobName) {
+        return blobServiceAsyncClient.getBlobContainerAsyncClient(container).getBlobAsyncClient(blobName);
+    }
+}
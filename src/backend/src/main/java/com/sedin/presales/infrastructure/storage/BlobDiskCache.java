@@ -0,0 +1,296 @@
+package com.sedin.presales.infrastructure.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Size-bounded read-through cache of blob content on local disk, shared by every pipeline that
+ * reads originals through {@link BlobStorageService#download}. Entries are keyed by container,
+ * blob name and ETag, so an overwritten blob is never served stale; the old copy simply ages out.
+ * <p>
+ * Eviction is least-recently-used over the total bytes on disk. Concurrent requests for a blob
+ * that is not cached yet share one download instead of each fetching it. Hits, misses, coalesced
+ * requests and evictions are published as {@code blob.cache.*} meters.
+ */
+@Slf4j
+@Component
+public class BlobDiskCache {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    @Value("${app.storage.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.storage.cache.directory:${java.io.tmpdir}/presales-blob-cache}")
+    private String directory;
+
+    @Value("${app.storage.cache.max-size-bytes:2147483648}")
+    private long maxSizeBytes;
+
+    @Value("${app.storage.cache.containers:documents}")
+    private List<String> containers;
+
+    private final MeterRegistry meterRegistry;
+
+    // Access-ordered, so iteration starts at the least recently used entry; guarded by this
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+    private long currentSizeBytes;
+    private Path root;
+
+    private Counter hits;
+    private Counter misses;
+    private Counter coalesced;
+    private Counter bypassed;
+    private Counter evictions;
+
+    public BlobDiskCache(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        hits = requestCounter("hit");
+        misses = requestCounter("miss");
+        coalesced = requestCounter("coalesced");
+        bypassed = requestCounter("bypass");
+        evictions = Counter.builder("blob.cache.evictions")
+                .description("Cached blobs removed to stay under the size limit")
+                .register(meterRegistry);
+        Gauge.builder("blob.cache.size", this, BlobDiskCache::currentSizeBytes)
+                .description("Bytes of blob content held in the disk cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("blob.cache.entries", this, BlobDiskCache::entryCount)
+                .description("Blobs held in the disk cache")
+                .register(meterRegistry);
+
+        if (!enabled) {
+            log.info("Blob disk cache disabled");
+            return;
+        }
+        root = Path.of(directory).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        loadExistingEntries();
+        log.info("Blob disk cache at {} holding {} blobs ({} of {} bytes) for containers {}",
+                root, entryCount(), currentSizeBytes(), maxSizeBytes, containers);
+    }
+
+    public boolean handles(String container) {
+        return enabled && containers.contains(container);
+    }
+
+    /**
+     * Opens the cached copy of the blob, downloading it with {@code fetch} first if this version is
+     * not on disk yet. Blobs larger than a quarter of the cache are streamed straight through so a
+     * single large file cannot flush everything else.
+     */
+    public InputStream open(String container, String blobName, BlobInfo info, Supplier<InputStream> fetch) {
+        if (info.size() > maxSizeBytes / 4) {
+            bypassed.increment();
+            return fetch.get();
+        }
+        String key = key(container, blobName, info.eTag());
+
+        Path cached = lookup(key);
+        if (cached != null) {
+            InputStream in = openCached(key, cached);
+            if (in != null) {
+                hits.increment();
+                return in;
+            }
+        }
+
+        CompletableFuture<Path> download = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inFlight.putIfAbsent(key, download);
+        Path filled;
+        if (existing != null) {
+            coalesced.increment();
+            filled = await(existing, container, blobName);
+        } else {
+            misses.increment();
+            try {
+                filled = fill(key, fetch);
+                download.complete(filled);
+            } catch (RuntimeException e) {
+                download.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, download);
+            }
+        }
+
+        InputStream in = openCached(key, filled);
+        // Only possible when the entry was evicted straight away, e.g. by a burst of larger blobs
+        return in != null ? in : fetch.get();
+    }
+
+    synchronized long currentSizeBytes() {
+        return currentSizeBytes;
+    }
+
+    synchronized int entryCount() {
+        return entries.size();
+    }
+
+    private Counter requestCounter(String result) {
+        return Counter.builder("blob.cache.requests")
+                .description("Blob reads served through the disk cache")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private synchronized Path lookup(String key) {
+        return entries.get(key) != null ? root.resolve(key) : null;
+    }
+
+    private InputStream openCached(String key, Path path) {
+        try {
+            InputStream in = Files.newInputStream(path);
+            // Keeps the on-disk order in step with the index for the rebuild after a restart
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            return in;
+        } catch (NoSuchFileException e) {
+            forget(key);
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open cached blob " + path, e);
+        }
+    }
+
+    private Path fill(String key, Supplier<InputStream> fetch) {
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(root, key, TEMP_SUFFIX);
+            try (InputStream in = fetch.get()) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Path target = root.resolve(key);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            register(key, Files.size(target));
+            return target;
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw new UncheckedIOException("Failed to cache blob under key " + key, e);
+        } catch (RuntimeException e) {
+            deleteQuietly(temp);
+            throw e;
+        }
+    }
+
+    private Path await(CompletableFuture<Path> download, String container, String blobName) {
+        try {
+            return download.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Failed to download blob " + container + "/" + blobName, e.getCause());
+        }
+    }
+
+    private synchronized void register(String key, long size) {
+        Long previous = entries.put(key, size);
+        currentSizeBytes += size - (previous != null ? previous : 0);
+        evictToLimit(key);
+    }
+
+    private synchronized void forget(String key) {
+        Long size = entries.remove(key);
+        if (size != null) {
+            currentSizeBytes -= size;
+        }
+    }
+
+    // Open readers keep their file handle, so deleting an entry in use is safe on POSIX filesystems
+    private synchronized void evictToLimit(String keep) {
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while (currentSizeBytes > maxSizeBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            if (entry.getKey().equals(keep)) {
+                continue;
+            }
+            eldest.remove();
+            currentSizeBytes -= entry.getValue();
+            deleteQuietly(root.resolve(entry.getKey()));
+            evictions.increment();
+            log.debug("Evicted cached blob {} ({} bytes)", entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void loadExistingEntries() throws IOException {
+        try (Stream<Path> files = Files.list(root)) {
+            List<Path> cached = files.filter(Files::isRegularFile).toList();
+            cached.stream().filter(path -> path.getFileName().toString().endsWith(TEMP_SUFFIX))
+                    .forEach(this::deleteQuietly);
+            cached.stream().filter(path -> !path.getFileName().toString().endsWith(TEMP_SUFFIX))
+                    .sorted(Comparator.comparing(this::lastModified))
+                    .forEach(path -> register(path.getFileName().toString(), sizeOf(path)));
+        }
+    }
+
+    private static String key(String container, String blobName, String eTag) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((container + "/" + blobName + "@" + eTag).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private long sizeOf(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete cached blob file {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.sedin.presales.infrastructure.storage;
+
+/**
+ * Identity of the bytes currently stored under a blob name. The ETag changes whenever the blob is
+ * overwritten, so it can be used to key copies of the content.
+ */
+public record BlobInfo(String eTag, long size) {
+}
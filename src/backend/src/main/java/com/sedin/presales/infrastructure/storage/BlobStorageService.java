@@ -1,20 +1,23 @@
 package com.sedin.presales.infrastructure.storage;
 
-import com.azure.storage.blob.BlobClient;
-import com.azure.storage.blob.BlobContainerClient;
-import com.azure.storage.blob.BlobServiceClient;
-import com.azure.storage.blob.models.BlobHttpHeaders;
-import com.azure.storage.blob.sas.BlobSasPermission;
-import com.azure.storage.blob.sas.BlobServiceSasSignatureValues;
-import com.azure.storage.common.sas.SasProtocol;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.List;
 import java.util.Set;
 
+/**
+ * Entry point for blob storage used by the application services. Sanitizes content types and
+ * delegates to the configured {@link BlobStore}: Azure by default, or the local filesystem when
+ * {@code app.storage.backend=filesystem}. Full downloads from the containers configured under
+ * {@code app.storage.cache} are read through {@link BlobDiskCache}, and signed URLs are reused
+ * through {@link SasUrlCache} until the blob is written again.
+ */
 @Slf4j
 @Service
 public class BlobStorageService {
@@ -33,62 +36,99 @@ public class BlobStorageService {
             "application/octet-stream"
     );
 
-    private final BlobServiceClient blobServiceClient;
+    @Value("${azure.storage.upload.block-size-bytes:8388608}")
+    private int blockSize;
 
-    public BlobStorageService(BlobServiceClient blobServiceClient) {
-        this.blobServiceClient = blobServiceClient;
+    private final BlobStore blobStore;
+    private final BlobDiskCache blobDiskCache;
+    private final SasUrlCache sasUrlCache;
+
+    public BlobStorageService(BlobStore blobStore, BlobDiskCache blobDiskCache, SasUrlCache sasUrlCache) {
+        this.blobStore = blobStore;
+        this.blobDiskCache = blobDiskCache;
+        this.sasUrlCache = sasUrlCache;
     }
 
     public String upload(String container, String blobName, InputStream data, long length, String contentType) {
-        log.info("Uploading blob '{}' to container '{}'", blobName, container);
-        String sanitizedContentType = sanitizeContentType(contentType);
-        BlobClient blobClient = getBlobClient(container, blobName);
-        BlobHttpHeaders headers = new BlobHttpHeaders().setContentType(sanitizedContentType);
-        blobClient.upload(data, length, true);
-        blobClient.setHttpHeaders(headers);
-        return blobClient.getBlobUrl();
+        String url = blobStore.upload(container, blobName, data, length, sanitizeContentType(contentType));
+        sasUrlCache.invalidate(container, blobName);
+        return url;
+    }
+
+    public String uploadInBlocks(String container, String blobName, InputStream data, String contentType) {
+        String url = blobStore.uploadInBlocks(container, blobName, data, sanitizeContentType(contentType));
+        sasUrlCache.invalidate(container, blobName);
+        return url;
+    }
+
+    /**
+     * Stages a single block straight from the given stream without buffering it. The block stays
+     * uncommitted, and invisible to readers, until {@link #commitBlocks} names it in a block list.
+     */
+    public void stageBlock(String container, String blobName, String blockId, InputStream data, long length) {
+        blobStore.stageBlock(container, blobName, blockId, data, length);
+    }
+
+    public String commitBlocks(String container, String blobName, List<String> blockIds, String contentType) {
+        String url = blobStore.commitBlocks(container, blobName, blockIds, sanitizeContentType(contentType));
+        sasUrlCache.invalidate(container, blobName);
+        return url;
+    }
+
+    /**
+     * Opens a stream that uploads what is written to it block by block, holding at most one block
+     * in memory. The blob appears when {@link BlockUploadOutputStream#commit()} is called.
+     */
+    public BlockUploadOutputStream openBlockUpload(String container, String blobName, String contentType) {
+        return new BlockUploadOutputStream(this, container, blobName, contentType, blockSize);
+    }
+
+    public void discardStagedBlocks(String container, String blobName) {
+        blobStore.discardStagedBlocks(container, blobName);
+        sasUrlCache.invalidate(container, blobName);
     }
 
     public InputStream download(String container, String blobName) {
-        log.info("Downloading blob '{}' from container '{}'", blobName, container);
-        BlobClient blobClient = getBlobClient(container, blobName);
-        return blobClient.openInputStream();
+        if (blobDiskCache.handles(container)) {
+            BlobInfo info = blobStore.getInfo(container, blobName);
+            return blobDiskCache.open(container, blobName, info, () -> blobStore.download(container, blobName));
+        }
+        return blobStore.download(container, blobName);
     }
 
-    public void delete(String container, String blobName) {
-        log.info("Deleting blob '{}' from container '{}'", blobName, container);
-        BlobClient blobClient = getBlobClient(container, blobName);
-        blobClient.deleteIfExists();
+    public InputStream downloadRange(String container, String blobName, long offset, long count) {
+        return blobStore.downloadRange(container, blobName, offset, count);
     }
 
-    public String generateSasUrl(String container, String blobName, Duration validity) {
-        log.info("Generating SAS URL for blob '{}' in container '{}' with validity {}", blobName, container, validity);
-        BlobClient blobClient = getBlobClient(container, blobName);
+    public BlobInfo getInfo(String container, String blobName) {
+        return blobStore.getInfo(container, blobName);
+    }
 
-        BlobSasPermission permissions = new BlobSasPermission().setReadPermission(true);
-        BlobServiceSasSignatureValues sasValues = new BlobServiceSasSignatureValues(
-                OffsetDateTime.now().plus(validity), permissions)
-                .setProtocol(SasProtocol.HTTPS_ONLY);
+    public void delete(String container, String blobName) {
+        blobStore.delete(container, blobName);
+        sasUrlCache.invalidate(container, blobName);
+    }
 
-        String sasToken = blobClient.generateSas(sasValues);
-        return blobClient.getBlobUrl() + "?" + sasToken;
+    public String generateSasUrl(String container, String blobName, Duration validity) {
+        return sasUrlCache.get(container, blobName, validity,
+                expiresAt -> blobStore.generateSasUrl(container, blobName, expiresAt));
     }
 
     public boolean exists(String container, String blobName) {
-        BlobClient blobClient = getBlobClient(container, blobName);
-        return blobClient.exists();
+        return blobStore.exists(container, blobName);
+    }
+
+    // Block IDs must all have the same length within a blob, hence the zero-padded index
+    public static String blockId(String uploadId, int index) {
+        String raw = String.format("%s-%06d", uploadId, index);
+        return Base64.getEncoder().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
     }
 
-    private String sanitizeContentType(String contentType) {
+    static String sanitizeContentType(String contentType) {
         if (contentType == null || !ALLOWED_CONTENT_TYPES.contains(contentType)) {
             log.warn("Untrusted content type '{}', defaulting to application/octet-stream", contentType);
             return "application/octet-stream";
         }
         return contentType;
     }
-
-    private BlobClient getBlobClient(String container, String blobName) {
-        BlobContainerClient containerClient = blobServiceClient.getBlobContainerClient(container);
-        return containerClient.getBlobClient(blobName);
-    }
 }
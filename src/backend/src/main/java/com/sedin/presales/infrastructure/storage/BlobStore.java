@@ -0,0 +1,55 @@
+package com.sedin.presales.infrastructure.storage;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Storage backend behind {@link BlobStorageService}. Content types passed in have already been
+ * sanitized by the service; implementations only store and return them.
+ */
+public interface BlobStore {
+
+    String upload(String container, String blobName, InputStream data, long length, String contentType);
+
+    /**
+     * Uploads a stream of unknown length, staging it in blocks where the backend supports that.
+     */
+    String uploadInBlocks(String container, String blobName, InputStream data, String contentType);
+
+    void stageBlock(String container, String blobName, String blockId, InputStream data, long length);
+
+    String commitBlocks(String container, String blobName, List<String> blockIds, String contentType);
+
+    void discardStagedBlocks(String container, String blobName);
+
+    InputStream download(String container, String blobName);
+
+    /**
+     * Reads {@code count} bytes starting at {@code offset} without transferring the rest of the blob.
+     */
+    InputStream downloadRange(String container, String blobName, long offset, long count);
+
+    /**
+     * Returns the current ETag and size of the blob without reading its content.
+     */
+    BlobInfo getInfo(String container, String blobName);
+
+    void delete(String container, String blobName);
+
+    boolean exists(String container, String blobName);
+
+    /**
+     * Returns a read-only URL for the blob that stops working once {@code validity} has elapsed.
+     */
+    default String generateSasUrl(String container, String blobName, Duration validity) {
+        return generateSasUrl(container, blobName, Instant.now().plus(validity));
+    }
+
+    /**
+     * Returns a read-only URL for the blob that stops working at {@code expiresAt}. Signing the same
+     * blob with the same expiry yields the same URL.
+     */
+    String generateSasUrl(String container, String blobName, Instant expiresAt);
+}
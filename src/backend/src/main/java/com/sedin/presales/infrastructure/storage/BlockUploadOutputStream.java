@@ -0,0 +1,126 @@
+package com.sedin.presales.infrastructure.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Writes a block blob as it is produced: every {@code blockSize} bytes written are staged as one
+ * block, so no more than one block is ever held in memory however large the blob grows. Nothing
+ * is visible to readers until {@link #commit()}. Closing without committing discards whatever was
+ * staged, which makes try-with-resources safe for producers that can fail half way.
+ * <p>
+ * Not thread-safe. Obtain one from {@link BlobStorageService#openBlockUpload}.
+ */
+@Slf4j
+public class BlockUploadOutputStream extends OutputStream {
+
+    private final BlobStorageService blobStorageService;
+    private final String container;
+    private final String blobName;
+    private final String contentType;
+    private final String uploadId = UUID.randomUUID().toString();
+    private final byte[] buffer;
+    private final List<String> blockIds = new ArrayList<>();
+
+    private int position;
+    private long size;
+    private boolean committed;
+    private boolean closed;
+
+    BlockUploadOutputStream(BlobStorageService blobStorageService, String container, String blobName,
+                            String contentType, int blockSize) {
+        this.blobStorageService = blobStorageService;
+        this.container = container;
+        this.blobName = blobName;
+        this.contentType = contentType;
+        this.buffer = new byte[blockSize];
+    }
+
+    @Override
+    public void write(int b) {
+        ensureOpen();
+        buffer[position++] = (byte) b;
+        size++;
+        if (position == buffer.length) {
+            stageBuffer();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        Objects.checkFromIndexSize(off, len, b.length);
+        ensureOpen();
+        while (len > 0) {
+            int count = Math.min(len, buffer.length - position);
+            System.arraycopy(b, off, buffer, position, count);
+            position += count;
+            size += count;
+            off += count;
+            len -= count;
+            if (position == buffer.length) {
+                stageBuffer();
+            }
+        }
+    }
+
+    /**
+     * Stages the last partial block and commits the blob. Returns the blob URL.
+     */
+    public String commit() {
+        ensureOpen();
+        stageBuffer();
+        String url = blobStorageService.commitBlocks(container, blobName, blockIds, contentType);
+        committed = true;
+        log.debug("Committed {} bytes in {} blocks to blob '{}'", size, blockIds.size(), blobName);
+        return url;
+    }
+
+    /**
+     * Bytes written so far.
+     */
+    public long size() {
+        return size;
+    }
+
+    // Partial blocks are only staged on commit: converters flush often, and each staged block is a request
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (!committed && !blockIds.isEmpty()) {
+            try {
+                blobStorageService.discardStagedBlocks(container, blobName);
+            } catch (RuntimeException e) {
+                log.warn("Failed to discard staged blocks of blob '{}' in container '{}'", blobName, container, e);
+            }
+        }
+    }
+
+    private void stageBuffer() {
+        if (position == 0) {
+            return;
+        }
+        String blockId = BlobStorageService.blockId(uploadId, blockIds.size());
+        blobStorageService.stageBlock(container, blobName, blockId, new ByteArrayInputStream(buffer, 0, position), position);
+        blockIds.add(blockId);
+        position = 0;
+    }
+
+    private void ensureOpen() {
+        if (closed || committed) {
+            throw new IllegalStateException("Upload of blob '" + blobName + "' is already finished");
+        }
+    }
+}
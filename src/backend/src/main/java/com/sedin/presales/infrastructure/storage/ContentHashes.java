@@ -0,0 +1,52 @@
+package com.sedin.presales.infrastructure.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 helpers for content-addressing original files. The digest is computed as the bytes
+ * are streamed to storage, so hashing never needs a second pass over the file.
+ */
+public final class ContentHashes {
+
+    private static final String ALGORITHM = "SHA-256";
+
+    private ContentHashes() {
+    }
+
+    public static DigestInputStream digesting(InputStream inputStream) {
+        try {
+            return new DigestInputStream(inputStream, MessageDigest.getInstance(ALGORITHM));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+
+    /**
+     * Drains whatever the consumer left unread and returns the lowercase hex digest of the whole stream.
+     */
+    public static String finish(DigestInputStream digestStream) throws IOException {
+        digestStream.transferTo(OutputStream.nullOutputStream());
+        return HexFormat.of().formatHex(digestStream.getMessageDigest().digest());
+    }
+
+    public static String sha256(InputStream inputStream) throws IOException {
+        try (DigestInputStream digestStream = digesting(inputStream)) {
+            return finish(digestStream);
+        }
+    }
+
+    public static String sha256(String text) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance(ALGORITHM).digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+}
@@ -0,0 +1,535 @@
+package com.sedin.presales.infrastructure.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * {@link BlobStore} on the local filesystem, for on-prem installs and for load-testing the
+ * rendition and indexing pipelines without an Azure account.
+ * <p>
+ * Writes go to a temp file in the target directory and are renamed into place, so readers never
+ * see a partial blob. Reads above {@code mmap-threshold-bytes} are memory-mapped, and blocks and
+ * signed downloads are copied with {@link FileChannel#transferTo}. "SAS" URLs are HMAC-signed
+ * links to {@code LocalBlobController}. Per-request latency and a bandwidth cap can be configured
+ * to approximate Azure's throughput when benchmarking.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.storage.backend", havingValue = "filesystem")
+public class FileSystemBlobStore implements BlobStore {
+
+    public static final String SIGNED_URL_PATH = "/api/v1/local-blobs/";
+
+    private static final String METADATA_DIR = ".metadata";
+    private static final String STAGING_DIR = ".staging";
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final long TRANSFER_SLICE_BYTES = 1024 * 1024;
+
+    @Value("${app.storage.filesystem.root:${java.io.tmpdir}/presales-blobs}")
+    private String rootDirectory;
+
+    @Value("${app.storage.filesystem.base-url:http://localhost:8080}")
+    private String baseUrl;
+
+    @Value("${app.storage.filesystem.signing-key:}")
+    private String signingKey;
+
+    @Value("${app.storage.filesystem.mmap-threshold-bytes:4194304}")
+    private long mmapThreshold;
+
+    @Value("${app.storage.filesystem.mmap-window-bytes:67108864}")
+    private int mmapWindowBytes;
+
+    @Value("${app.storage.filesystem.simulated-latency-ms:0}")
+    private long simulatedLatencyMs;
+
+    @Value("${app.storage.filesystem.max-bytes-per-second:0}")
+    private long maxBytesPerSecond;
+
+    private Path root;
+    private SecretKeySpec signingKeySpec;
+
+    @PostConstruct
+    void init() throws IOException {
+        root = Path.of(rootDirectory).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+
+        byte[] key;
+        if (signingKey == null || signingKey.isBlank()) {
+            log.warn("No app.storage.filesystem.signing-key configured, signed blob URLs will not survive a restart");
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+        } else {
+            key = signingKey.getBytes(StandardCharsets.UTF_8);
+        }
+        signingKeySpec = new SecretKeySpec(key, HMAC_ALGORITHM);
+        log.info("Filesystem blob store rooted at {}", root);
+    }
+
+    @Override
+    public String upload(String container, String blobName, InputStream data, long length, String contentType) {
+        log.info("Uploading blob '{}' to container '{}'", blobName, container);
+        simulateLatency();
+        Path target = resolve(container, blobName);
+        writeAtomically(target, data);
+        writeContentType(container, blobName, contentType);
+        return blobUrl(container, blobName);
+    }
+
+    @Override
+    public String uploadInBlocks(String container, String blobName, InputStream data, String contentType) {
+        // A local file has no block size limit, so a stream of unknown length is written in one pass
+        return upload(container, blobName, data, -1, contentType);
+    }
+
+    @Override
+    public void stageBlock(String container, String blobName, String blockId, InputStream data, long length) {
+        log.debug("Staging block '{}' ({} bytes) for blob '{}' in container '{}'", blockId, length, blobName, container);
+        simulateLatency();
+        Path blockFile = stagingDirectory(container, blobName).resolve(blockFileName(blockId));
+        long written = writeAtomically(blockFile, data);
+        if (written != length) {
+            deleteQuietly(blockFile);
+            throw new IllegalArgumentException(String.format(
+                    "Block '%s' for blob '%s' was %d bytes, expected %d", blockId, blobName, written, length));
+        }
+    }
+
+    @Override
+    public String commitBlocks(String container, String blobName, List<String> blockIds, String contentType) {
+        simulateLatency();
+        Path target = resolve(container, blobName);
+        Path staging = stagingDirectory(container, blobName);
+        Path temp = null;
+        try {
+            Files.createDirectories(target.getParent());
+            temp = Files.createTempFile(target.getParent(), ".commit-", ".tmp");
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                for (String blockId : blockIds) {
+                    Path blockFile = staging.resolve(blockFileName(blockId));
+                    if (!Files.isRegularFile(blockFile)) {
+                        throw new IllegalArgumentException("Block '" + blockId + "' has not been staged for blob " + blobName);
+                    }
+                    try (FileChannel in = FileChannel.open(blockFile, StandardOpenOption.READ)) {
+                        transferFully(in, out);
+                    }
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw new UncheckedIOException("Failed to commit blocks for blob " + blobName, e);
+        } catch (RuntimeException e) {
+            deleteQuietly(temp);
+            throw e;
+        }
+
+        writeContentType(container, blobName, contentType);
+        deleteRecursively(staging);
+        log.info("Committed {} blocks for blob '{}' in container '{}'", blockIds.size(), blobName, container);
+        return blobUrl(container, blobName);
+    }
+
+    @Override
+    public void discardStagedBlocks(String container, String blobName) {
+        log.info("Discarding staged blocks for blob '{}' in container '{}'", blobName, container);
+        deleteRecursively(stagingDirectory(container, blobName));
+        delete(container, blobName);
+    }
+
+    @Override
+    public InputStream download(String container, String blobName) {
+        log.info("Downloading blob '{}' from container '{}'", blobName, container);
+        simulateLatency();
+        Path path = resolve(container, blobName);
+        try {
+            long size = Files.size(path);
+            InputStream in = size >= mmapThreshold
+                    ? new MappedFileInputStream(path, mmapWindowBytes, 0, size)
+                    : Files.newInputStream(path);
+            return paced(in);
+        } catch (NoSuchFileException e) {
+            throw new UncheckedIOException("Blob " + container + "/" + blobName + " does not exist", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open blob " + container + "/" + blobName, e);
+        }
+    }
+
+    @Override
+    public InputStream downloadRange(String container, String blobName, long offset, long count) {
+        log.info("Downloading bytes {}-{} of blob '{}' from container '{}'",
+                offset, offset + count - 1, blobName, container);
+        simulateLatency();
+        Path path = resolve(container, blobName);
+        try {
+            if (count >= mmapThreshold) {
+                return paced(new MappedFileInputStream(path, mmapWindowBytes, offset, count));
+            }
+            // Small ranges are copied out; the channel-backed stream seeks rather than reading the skipped bytes
+            try (InputStream in = Files.newInputStream(path)) {
+                in.skipNBytes(offset);
+                return paced(new ByteArrayInputStream(in.readNBytes((int) count)));
+            }
+        } catch (NoSuchFileException e) {
+            throw new UncheckedIOException("Blob " + container + "/" + blobName + " does not exist", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open blob " + container + "/" + blobName, e);
+        }
+    }
+
+    // Size plus modification time stands in for Azure's ETag; every write renames a new file into place
+    @Override
+    public BlobInfo getInfo(String container, String blobName) {
+        Path path = resolve(container, blobName);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            String eTag = String.format("\"%x-%x\"", attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS), attributes.size());
+            return new BlobInfo(eTag, attributes.size());
+        } catch (NoSuchFileException e) {
+            throw new UncheckedIOException("Blob " + container + "/" + blobName + " does not exist", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read attributes of blob " + container + "/" + blobName, e);
+        }
+    }
+
+    @Override
+    public void delete(String container, String blobName) {
+        log.info("Deleting blob '{}' from container '{}'", blobName, container);
+        deleteQuietly(resolve(container, blobName));
+        deleteQuietly(metadataPath(container, blobName));
+    }
+
+    @Override
+    public boolean exists(String container, String blobName) {
+        return Files.isRegularFile(resolve(container, blobName));
+    }
+
+    @Override
+    public String generateSasUrl(String container, String blobName, Instant expiresAt) {
+        log.info("Generating signed URL for blob '{}' in container '{}' expiring at {}", blobName, container, expiresAt);
+        long expires = expiresAt.getEpochSecond();
+        return blobUrl(container, blobName) + "?expires=" + expires + "&sig=" + sign(container, blobName, expires);
+    }
+
+    public boolean isValidSignature(String container, String blobName, long expires, String signature) {
+        if (signature == null || Instant.now().getEpochSecond() > expires) {
+            return false;
+        }
+        byte[] expected = sign(container, blobName, expires).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public Path path(String container, String blobName) {
+        return resolve(container, blobName);
+    }
+
+    public String contentType(String container, String blobName) {
+        Path metadata = metadataPath(container, blobName);
+        try {
+            return Files.isRegularFile(metadata) ? Files.readString(metadata) : DEFAULT_CONTENT_TYPE;
+        } catch (IOException e) {
+            return DEFAULT_CONTENT_TYPE;
+        }
+    }
+
+    /**
+     * Whether a bandwidth cap is configured. Zero-copy paths that bypass the JVM, such as the
+     * servlet container's sendfile, must not be used while throttled.
+     */
+    public boolean isThrottled() {
+        return maxBytesPerSecond > 0;
+    }
+
+    /**
+     * Copies the whole blob to {@code target} with {@link FileChannel#transferTo}, letting the OS
+     * move the bytes without staging them on the heap where the target channel allows it.
+     */
+    public long transferTo(String container, String blobName, WritableByteChannel target) throws IOException {
+        simulateLatency();
+        try (FileChannel in = FileChannel.open(resolve(container, blobName), StandardOpenOption.READ)) {
+            return transferFully(in, target);
+        }
+    }
+
+    private long writeAtomically(Path target, InputStream data) {
+        Path temp = null;
+        try {
+            Files.createDirectories(target.getParent());
+            temp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+            long written = 0;
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE);
+                 ReadableByteChannel in = Channels.newChannel(paced(data))) {
+                long transferred;
+                while ((transferred = out.transferFrom(in, written, TRANSFER_SLICE_BYTES)) > 0) {
+                    written += transferred;
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return written;
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw new UncheckedIOException("Failed to write blob " + target, e);
+        }
+    }
+
+    private long transferFully(FileChannel in, WritableByteChannel out) throws IOException {
+        long size = in.size();
+        long position = 0;
+        Pacer pacer = new Pacer(maxBytesPerSecond);
+        while (position < size) {
+            long count = isThrottled() ? Math.min(TRANSFER_SLICE_BYTES, size - position) : size - position;
+            long transferred = in.transferTo(position, count, out);
+            position += transferred;
+            pacer.pace(transferred);
+        }
+        return size;
+    }
+
+    private void writeContentType(String container, String blobName, String contentType) {
+        Path metadata = metadataPath(container, blobName);
+        String value = contentType != null ? contentType : DEFAULT_CONTENT_TYPE;
+        writeAtomically(metadata, new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Path resolve(String container, String blobName) {
+        if (container == null || container.isBlank() || container.startsWith(".") || container.contains("/")) {
+            throw new IllegalArgumentException("Invalid container name: " + container);
+        }
+        Path containerDir = root.resolve(container).normalize();
+        Path path = containerDir.resolve(blobName).normalize();
+        if (!path.startsWith(containerDir) || path.equals(containerDir)) {
+            throw new IllegalArgumentException("Invalid blob name: " + blobName);
+        }
+        return path;
+    }
+
+    private Path metadataPath(String container, String blobName) {
+        Path blob = resolve(container, blobName);
+        return root.resolve(METADATA_DIR).resolve(root.relativize(blob));
+    }
+
+    // One directory per blob, named by a hash so arbitrarily deep blob names stay flat
+    private Path stagingDirectory(String container, String blobName) {
+        resolve(container, blobName);
+        try {
+            String key = ContentHashes.sha256(new ByteArrayInputStream(
+                    (container + "/" + blobName).getBytes(StandardCharsets.UTF_8)));
+            return root.resolve(STAGING_DIR).resolve(key);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String blockFileName(String blockId) {
+        return HexFormat.of().formatHex(blockId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String blobUrl(String container, String blobName) {
+        return baseUrl + SIGNED_URL_PATH + container + "/" + UriUtils.encodePath(blobName, StandardCharsets.UTF_8);
+    }
+
+    private String sign(String container, String blobName, long expires) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKeySpec);
+            byte[] digest = mac.doFinal((container + "\n" + blobName + "\n" + expires).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to sign blob URL", e);
+        }
+    }
+
+    private InputStream paced(InputStream in) {
+        return isThrottled() ? new PacedInputStream(in, new Pacer(maxBytesPerSecond)) : in;
+    }
+
+    private void simulateLatency() {
+        if (simulatedLatencyMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(simulatedLatencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while simulating storage latency", e);
+        }
+    }
+
+    private void deleteRecursively(Path directory) {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(this::deleteQuietly);
+        } catch (IOException e) {
+            log.warn("Failed to delete directory {}", directory, e);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete {}", path, e);
+        }
+    }
+
+    /**
+     * Sleeps just long enough to keep the running average at or below the configured rate.
+     */
+    private static final class Pacer {
+
+        private final long bytesPerSecond;
+        private final long startNanos = System.nanoTime();
+        private long totalBytes;
+
+        Pacer(long bytesPerSecond) {
+            this.bytesPerSecond = bytesPerSecond;
+        }
+
+        void pace(long bytes) {
+            if (bytesPerSecond <= 0 || bytes <= 0) {
+                return;
+            }
+            totalBytes += bytes;
+            long dueNanos = totalBytes * 1_000_000_000L / bytesPerSecond;
+            long aheadMillis = (dueNanos - (System.nanoTime() - startNanos)) / 1_000_000L;
+            if (aheadMillis > 0) {
+                try {
+                    Thread.sleep(aheadMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private static final class PacedInputStream extends FilterInputStream {
+
+        private final Pacer pacer;
+
+        PacedInputStream(InputStream in, Pacer pacer) {
+            super(in);
+            this.pacer = pacer;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                pacer.pace(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            pacer.pace(n);
+            return n;
+        }
+    }
+
+    /**
+     * Streams {@code [offset, offset + count)} of a file through read-only mappings of at most
+     * {@code windowBytes}, so large blobs are served from the page cache without a heap copy.
+     */
+    private static final class MappedFileInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private final long end;
+        private final int windowBytes;
+        private long windowStart;
+        private ByteBuffer window;
+
+        MappedFileInputStream(Path path, int windowBytes, long offset, long count) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            this.end = Math.min(channel.size(), offset + count);
+            this.windowBytes = windowBytes;
+            mapWindow(Math.min(offset, end));
+        }
+
+        @Override
+        public int read() throws IOException {
+            return ensureRemaining() ? window.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!ensureRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, window.remaining());
+            window.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, end - windowStart - window.position());
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        private boolean ensureRemaining() throws IOException {
+            if (window.hasRemaining()) {
+                return true;
+            }
+            long next = windowStart + window.capacity();
+            if (next >= end) {
+                return false;
+            }
+            mapWindow(next);
+            return true;
+        }
+
+        private void mapWindow(long start) throws IOException {
+            windowStart = start;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowBytes, end - start));
+        }
+    }
+}
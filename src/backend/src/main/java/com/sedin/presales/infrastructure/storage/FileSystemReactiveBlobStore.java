@@ -0,0 +1,96 @@
+package com.sedin.presales.infrastructure.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+
+/**
+ * {@link ReactiveBlobStore} for the filesystem backend. Local disk has no asynchronous client, so
+ * reads and writes go through {@link FileSystemBlobStore} on the bounded elastic scheduler, in
+ * chunks, keeping request threads free as with the Azure store.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.storage.backend", havingValue = "filesystem")
+public class FileSystemReactiveBlobStore implements ReactiveBlobStore {
+
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    private final FileSystemBlobStore fileSystemBlobStore;
+
+    public FileSystemReactiveBlobStore(FileSystemBlobStore fileSystemBlobStore) {
+        this.fileSystemBlobStore = fileSystemBlobStore;
+    }
+
+    @Override
+    public Flux<ByteBuffer> download(String container, String blobName) {
+        return chunks(() -> fileSystemBlobStore.download(container, blobName));
+    }
+
+    @Override
+    public Flux<ByteBuffer> downloadRange(String container, String blobName, long offset, long count) {
+        return chunks(() -> fileSystemBlobStore.downloadRange(container, blobName, offset, count));
+    }
+
+    @Override
+    public Mono<String> upload(String container, String blobName, Flux<ByteBuffer> data, String contentType) {
+        return Mono.usingWhen(
+                Mono.fromCallable(() -> Files.createTempFile("reactive-upload-", ".tmp")).subscribeOn(Schedulers.boundedElastic()),
+                temp -> DataBufferUtils.write(data.map(DefaultDataBufferFactory.sharedInstance::wrap), temp)
+                        .then(Mono.fromCallable(() -> uploadFile(container, blobName, temp, contentType))
+                                .subscribeOn(Schedulers.boundedElastic())),
+                temp -> Mono.fromRunnable(() -> deleteQuietly(temp)).subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    private Flux<ByteBuffer> chunks(Callable<InputStream> opener) {
+        return Flux.using(opener,
+                        in -> Flux.<ByteBuffer>generate(sink -> {
+                            try {
+                                byte[] chunk = in.readNBytes(CHUNK_SIZE);
+                                if (chunk.length == 0) {
+                                    sink.complete();
+                                } else {
+                                    sink.next(ByteBuffer.wrap(chunk));
+                                }
+                            } catch (IOException e) {
+                                sink.error(e);
+                            }
+                        }),
+                        this::closeQuietly)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private String uploadFile(String container, String blobName, Path file, String contentType) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return fileSystemBlobStore.upload(container, blobName, in, Files.size(file), contentType);
+        }
+    }
+
+    private void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException e) {
+            log.debug("Failed to close blob stream", e);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete temp upload file {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.sedin.presales.infrastructure.storage;
+
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Non-blocking variant of {@link BlobStorageService} for callers that stream: controllers writing
+ * a download straight to the response and code composing transfers without parking a thread per
+ * blob. Content types are sanitized and signed URLs invalidated exactly as in the blocking service.
+ */
+@Service
+public class ReactiveBlobStorageService {
+
+    private final ReactiveBlobStore reactiveBlobStore;
+    private final SasUrlCache sasUrlCache;
+
+    public ReactiveBlobStorageService(ReactiveBlobStore reactiveBlobStore, SasUrlCache sasUrlCache) {
+        this.reactiveBlobStore = reactiveBlobStore;
+        this.sasUrlCache = sasUrlCache;
+    }
+
+    public Flux<ByteBuffer> download(String container, String blobName) {
+        return reactiveBlobStore.download(container, blobName);
+    }
+
+    public Flux<ByteBuffer> downloadRange(String container, String blobName, long offset, long count) {
+        return reactiveBlobStore.downloadRange(container, blobName, offset, count);
+    }
+
+    public Mono<String> upload(String container, String blobName, Flux<ByteBuffer> data, String contentType) {
+        return reactiveBlobStore.upload(container, blobName, data, BlobStorageService.sanitizeContentType(contentType))
+                .doOnSuccess(url -> sasUrlCache.invalidate(container, blobName));
+    }
+}
@@ -0,0 +1,22 @@
+package com.sedin.presales.infrastructure.storage;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Non-blocking counterpart of {@link BlobStore} behind {@link ReactiveBlobStorageService}. Nothing
+ * is transferred until the returned publisher is subscribed to.
+ */
+public interface ReactiveBlobStore {
+
+    Flux<ByteBuffer> download(String container, String blobName);
+
+    Flux<ByteBuffer> downloadRange(String container, String blobName, long offset, long count);
+
+    /**
+     * Uploads the stream, replacing any existing blob, and emits the blob URL when it is committed.
+     */
+    Mono<String> upload(String container, String blobName, Flux<ByteBuffer> data, String contentType);
+}
@@ -0,0 +1,139 @@
+package com.sedin.presales.infrastructure.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Reuses signed read URLs so that browsers and CDNs can cache what they point at. Expiry times are
+ * rounded up to {@code expiry-bucket} boundaries, which makes every caller in the same bucket get
+ * an identical URL, and a URL is handed out again until it is within {@code refresh-margin} of
+ * expiring. Callers are therefore guaranteed at least {@code refresh-margin} of remaining validity.
+ * <p>
+ * Overwriting or deleting a blob drops its URLs. The next URL issued for it expires one bucket
+ * after any URL handed out before, so clients never keep serving the old content from cache.
+ * Hits and misses are published as {@code blob.sas.requests}.
+ */
+@Slf4j
+@Component
+public class SasUrlCache {
+
+    @Value("${app.storage.sas.expiry-bucket:PT15M}")
+    private Duration expiryBucket;
+
+    @Value("${app.storage.sas.refresh-margin:PT15M}")
+    private Duration refreshMargin;
+
+    @Value("${app.storage.sas.max-entries:10000}")
+    private int maxEntries;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    // Access-ordered so the least recently requested URL is dropped first; guarded by this
+    private final LinkedHashMap<Key, IssuedUrl> issued = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, IssuedUrl> eldest) {
+            return size() > maxEntries;
+        }
+    };
+    // Latest expiry handed out for blobs that have since been overwritten; guarded by this
+    private final Map<BlobKey, Instant> retired = new HashMap<>();
+
+    private Clock clock = Clock.systemUTC();
+
+    public SasUrlCache(MeterRegistry meterRegistry) {
+        this.hits = Counter.builder("blob.sas.requests")
+                .description("Signed blob URL requests")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("blob.sas.requests")
+                .description("Signed blob URL requests")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached URL for the blob, or signs a new one with {@code signer}, which receives
+     * the bucket-aligned expiry to sign for.
+     */
+    public String get(String container, String blobName, Duration validity, Function<Instant, String> signer) {
+        Instant now = clock.instant();
+        Key key = new Key(container, blobName, validity);
+        synchronized (this) {
+            IssuedUrl cached = issued.get(key);
+            if (cached != null && now.isBefore(cached.expiresAt().minus(refreshMargin))) {
+                hits.increment();
+                return cached.url();
+            }
+        }
+
+        misses.increment();
+        Instant expiresAt = alignToBucket(now.plus(validity));
+        synchronized (this) {
+            Instant retiredExpiry = retired.get(key.blob());
+            if (retiredExpiry != null && !expiresAt.isAfter(retiredExpiry)) {
+                expiresAt = retiredExpiry.plus(expiryBucket);
+            }
+        }
+
+        String url = signer.apply(expiresAt);
+        synchronized (this) {
+            issued.put(key, new IssuedUrl(url, expiresAt));
+        }
+        return url;
+    }
+
+    /**
+     * Forgets every URL issued for the blob. Call whenever its content changes.
+     */
+    public synchronized void invalidate(String container, String blobName) {
+        BlobKey blob = new BlobKey(container, blobName);
+        Instant now = clock.instant();
+        retired.values().removeIf(expiry -> expiry.isBefore(now));
+
+        Instant latest = retired.get(blob);
+        var entries = issued.entrySet().iterator();
+        while (entries.hasNext()) {
+            var entry = entries.next();
+            if (entry.getKey().blob().equals(blob)) {
+                Instant expiresAt = entry.getValue().expiresAt();
+                if (latest == null || expiresAt.isAfter(latest)) {
+                    latest = expiresAt;
+                }
+                entries.remove();
+            }
+        }
+        if (latest != null) {
+            retired.put(blob, latest);
+            log.debug("Invalidated signed URLs for blob '{}' in container '{}'", blobName, container);
+        }
+    }
+
+    private Instant alignToBucket(Instant instant) {
+        long bucketMillis = expiryBucket.toMillis();
+        long millis = instant.toEpochMilli();
+        long aligned = ((millis + bucketMillis - 1) / bucketMillis) * bucketMillis;
+        return Instant.ofEpochMilli(aligned);
+    }
+
+    private record BlobKey(String container, String blobName) {}
+
+    private record Key(BlobKey blob, Duration validity) {
+        Key(String container, String blobName, Duration validity) {
+            this(new BlobKey(container, blobName), validity);
+        }
+    }
+
+    private record IssuedUrl(String url, Instant expiresAt) {}
+}
@@ -0,0 +1,4 @@
+-- SHA-256 of the original file bytes, used to share blobs and derived artifacts between identical uploads
+ALTER TABLE document_versions ADD COLUMN content_hash VARCHAR(64);
+
+CREATE INDEX IF NOT EXISTS idx_document_versions_content_hash ON document_versions (content_hash);
@@ -0,0 +1,28 @@
+CREATE TABLE upload_sessions (
+    id              UUID          PRIMARY KEY DEFAULT gen_random_uuid(),
+    file_name       VARCHAR(500)  NOT NULL,
+    content_type    VARCHAR(255),
+    file_size       BIGINT        NOT NULL,
+    chunk_size      INTEGER       NOT NULL,
+    total_chunks    INTEGER       NOT NULL,
+    blob_path       VARCHAR(1000) NOT NULL,
+    status          VARCHAR(20)   NOT NULL DEFAULT 'OPEN' CHECK (status IN ('OPEN', 'COMPLETED', 'ABORTED', 'EXPIRED')),
+    document_id     UUID          REFERENCES documents(id) ON DELETE CASCADE,
+    version_number  INTEGER,
+    expires_at      TIMESTAMPTZ   NOT NULL,
+    created_at      TIMESTAMPTZ   NOT NULL DEFAULT NOW(),
+    updated_at      TIMESTAMPTZ   NOT NULL DEFAULT NOW(),
+    created_by      VARCHAR(255),
+    updated_by      VARCHAR(255)
+);
+
+CREATE INDEX idx_upload_sessions_status_expires_at ON upload_sessions (status, expires_at);
+
+CREATE TABLE upload_session_chunks (
+    id                 UUID        PRIMARY KEY DEFAULT gen_random_uuid(),
+    upload_session_id  UUID        NOT NULL REFERENCES upload_sessions(id) ON DELETE CASCADE,
+    chunk_index        INTEGER     NOT NULL,
+    size               BIGINT      NOT NULL,
+    created_at         TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    CONSTRAINT uq_upload_session_chunks_index UNIQUE (upload_session_id, chunk_index)
+);
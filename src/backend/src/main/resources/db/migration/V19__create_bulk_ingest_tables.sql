@@ -0,0 +1,32 @@
+CREATE TABLE bulk_ingest_jobs (
+    id                 UUID          PRIMARY KEY DEFAULT gen_random_uuid(),
+    archive_name       VARCHAR(500)  NOT NULL,
+    archive_path       VARCHAR(1000) NOT NULL,
+    status             VARCHAR(30)   NOT NULL DEFAULT 'RUNNING' CHECK (status IN ('RUNNING', 'COMPLETED', 'COMPLETED_WITH_ERRORS', 'FAILED')),
+    document_type_id   UUID          NOT NULL REFERENCES document_types(id),
+    root_folder_id     UUID          REFERENCES folders(id) ON DELETE SET NULL,
+    manifest           TEXT,
+    total_entries      INTEGER       NOT NULL DEFAULT 0,
+    completed_entries  INTEGER       NOT NULL DEFAULT 0,
+    failed_entries     INTEGER       NOT NULL DEFAULT 0,
+    error_message      TEXT,
+    completed_at       TIMESTAMPTZ,
+    created_at         TIMESTAMPTZ   NOT NULL DEFAULT NOW(),
+    updated_at         TIMESTAMPTZ   NOT NULL DEFAULT NOW(),
+    created_by         VARCHAR(255),
+    updated_by         VARCHAR(255)
+);
+
+CREATE TABLE bulk_ingest_entries (
+    id             UUID          PRIMARY KEY DEFAULT gen_random_uuid(),
+    job_id         UUID          NOT NULL REFERENCES bulk_ingest_jobs(id) ON DELETE CASCADE,
+    entry_index    INTEGER       NOT NULL,
+    entry_path     VARCHAR(1000) NOT NULL,
+    status         VARCHAR(20)   NOT NULL CHECK (status IN ('COMPLETED', 'FAILED')),
+    file_size      BIGINT,
+    document_id    UUID          REFERENCES documents(id) ON DELETE SET NULL,
+    error_message  TEXT,
+    created_at     TIMESTAMPTZ   NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_bulk_ingest_entries_job_id ON bulk_ingest_entries (job_id, entry_index);
@@ -0,0 +1,2 @@
+-- JSON object of ingest pipeline step name to wall-clock milliseconds for the last run on this version
+ALTER TABLE document_versions ADD COLUMN ingest_timings TEXT;
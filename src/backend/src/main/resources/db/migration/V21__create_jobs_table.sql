@@ -0,0 +1,21 @@
+CREATE TABLE jobs (
+    id            UUID          PRIMARY KEY DEFAULT gen_random_uuid(),
+    type          VARCHAR(40)   NOT NULL,
+    status        VARCHAR(20)   NOT NULL DEFAULT 'QUEUED' CHECK (status IN ('QUEUED', 'RUNNING', 'SUCCEEDED', 'DEAD')),
+    resource_id   UUID          NOT NULL,
+    payload       TEXT,
+    attempts      INTEGER       NOT NULL DEFAULT 0,
+    max_attempts  INTEGER       NOT NULL,
+    run_at        TIMESTAMPTZ   NOT NULL DEFAULT NOW(),
+    locked_by     VARCHAR(255),
+    last_error    TEXT,
+    completed_at  TIMESTAMPTZ,
+    created_at    TIMESTAMPTZ   NOT NULL DEFAULT NOW(),
+    updated_at    TIMESTAMPTZ   NOT NULL DEFAULT NOW(),
+    created_by    VARCHAR(255),
+    updated_by    VARCHAR(255)
+);
+
+-- Workers poll per type for due queued jobs and expired leases; finished jobs drop out of the index
+CREATE INDEX idx_jobs_visible ON jobs (type, run_at) WHERE status IN ('QUEUED', 'RUNNING');
+CREATE INDEX idx_jobs_resource_id ON jobs (resource_id);
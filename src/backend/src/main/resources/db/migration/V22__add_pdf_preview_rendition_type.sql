@@ -0,0 +1,4 @@
+-- First-pages PDF shown while the full rendition of a large document is still converting
+ALTER TABLE renditions DROP CONSTRAINT IF EXISTS renditions_rendition_type_check;
+ALTER TABLE renditions ADD CONSTRAINT renditions_rendition_type_check
+    CHECK (rendition_type IN ('PDF', 'PDF_PREVIEW', 'SUMMARY', 'FORMATTED'));
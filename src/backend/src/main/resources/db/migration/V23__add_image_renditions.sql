@@ -0,0 +1,8 @@
+-- Thumbnail of the first slide or page, and one image per slide or page
+ALTER TABLE renditions ADD COLUMN page_number INTEGER;
+
+ALTER TABLE renditions DROP CONSTRAINT IF EXISTS renditions_rendition_type_check;
+ALTER TABLE renditions ADD CONSTRAINT renditions_rendition_type_check
+    CHECK (rendition_type IN ('PDF', 'PDF_PREVIEW', 'THUMBNAIL', 'SLIDE_IMAGE', 'SUMMARY', 'FORMATTED'));
+
+CREATE INDEX idx_renditions_version_type_page ON renditions (document_version_id, rendition_type, page_number);
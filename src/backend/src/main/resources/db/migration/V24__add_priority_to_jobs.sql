@@ -0,0 +1,3 @@
+ALTER TABLE jobs
+    ADD COLUMN priority VARCHAR(20) NOT NULL DEFAULT 'NORMAL'
+        CHECK (priority IN ('INTERACTIVE', 'NORMAL', 'BACKGROUND'));
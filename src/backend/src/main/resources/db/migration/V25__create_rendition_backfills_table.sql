@@ -0,0 +1,26 @@
+CREATE TABLE rendition_backfills (
+    id                   UUID          PRIMARY KEY DEFAULT gen_random_uuid(),
+    status               VARCHAR(20)   NOT NULL DEFAULT 'RUNNING' CHECK (status IN ('RUNNING', 'COMPLETED', 'CANCELLED')),
+    content_types        TEXT,
+    created_from         TIMESTAMPTZ,
+    created_to           TIMESTAMPTZ   NOT NULL,
+    failed_only          BOOLEAN       NOT NULL DEFAULT FALSE,
+    rate_per_minute      INTEGER       NOT NULL,
+    max_in_flight        INTEGER       NOT NULL,
+    total_versions       INTEGER       NOT NULL DEFAULT 0,
+    enqueued_versions    INTEGER       NOT NULL DEFAULT 0,
+    completed_versions   INTEGER       NOT NULL DEFAULT 0,
+    failed_versions      INTEGER       NOT NULL DEFAULT 0,
+    cursor_created_at    TIMESTAMPTZ,
+    cursor_version_id    UUID,
+    selection_exhausted  BOOLEAN       NOT NULL DEFAULT FALSE,
+    last_enqueued_at     TIMESTAMPTZ,
+    completed_at         TIMESTAMPTZ,
+    created_at           TIMESTAMPTZ   NOT NULL DEFAULT NOW(),
+    updated_at           TIMESTAMPTZ   NOT NULL DEFAULT NOW(),
+    created_by           VARCHAR(255),
+    updated_by           VARCHAR(255)
+);
+
+-- Backfills walk versions in creation order from a saved cursor
+CREATE INDEX idx_document_versions_created_at_id ON document_versions (created_at, id);
@@ -0,0 +1,5 @@
+-- Hash of the original's content hash and the conversion settings used, so that a rendition is
+-- reused wherever the same bytes are converted the same way and goes stale when the settings change
+ALTER TABLE renditions ADD COLUMN fingerprint VARCHAR(64);
+
+CREATE INDEX idx_renditions_fingerprint ON renditions (fingerprint, rendition_type) WHERE status = 'COMPLETED';
@@ -0,0 +1,3 @@
+-- JSON breakdown of the last conversion into this rendition: milliseconds per phase (download, load,
+-- convert, images, upload, total), input and output bytes, pages and heap allocated while converting
+ALTER TABLE renditions ADD COLUMN conversion_stats TEXT;
@@ -0,0 +1,4 @@
+-- Extracted text of a version, stored once per content hash and shared by summary and indexing
+ALTER TABLE renditions DROP CONSTRAINT IF EXISTS renditions_rendition_type_check;
+ALTER TABLE renditions ADD CONSTRAINT renditions_rendition_type_check
+    CHECK (rendition_type IN ('PDF', 'PDF_PREVIEW', 'THUMBNAIL', 'SLIDE_IMAGE', 'SUMMARY', 'FORMATTED', 'TEXT'));
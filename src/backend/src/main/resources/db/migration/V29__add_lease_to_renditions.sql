@@ -0,0 +1,3 @@
+-- Held by the render converting a rendition and committed before it starts, so other renders of the
+-- same rendition wait for it; a render that dies leaves a lease that simply runs out
+ALTER TABLE renditions ADD COLUMN lease_expires_at TIMESTAMPTZ;
@@ -0,0 +1,83 @@
+package com.sedin.presales.api.controller;
+
+import com.sedin.presales.application.dto.BulkIngestEntryDto;
+import com.sedin.presales.application.dto.BulkIngestJobDto;
+import com.sedin.presales.application.exception.GlobalExceptionHandler;
+import com.sedin.presales.application.service.BulkIngestService;
+import com.sedin.presales.config.JwtTokenProvider;
+import com.sedin.presales.config.TestSecurityConfig;
+import com.sedin.presales.domain.enums.BulkIngestEntryStatus;
+import com.sedin.presales.domain.enums.BulkIngestStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(BulkIngestController.class)
+@Import({TestSecurityConfig.class, GlobalExceptionHandler.class})
+class BulkIngestControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private BulkIngestService bulkIngestService;
+
+    @MockitoBean
+    private JwtTokenProvider jwtTokenProvider;
+
+    private final UUID jobId = UUID.randomUUID();
+    private final UUID documentTypeId = UUID.randomUUID();
+
+    @Test
+    void start_shouldReturn202WithJobId() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "decks.zip", "application/zip", new byte[]{1, 2});
+        MockMultipartFile manifest = new MockMultipartFile("manifest", "", MediaType.APPLICATION_JSON_VALUE,
+                "[{\"path\":\"Sales/deck.pptx\",\"title\":\"Deck\"}]".getBytes());
+        when(bulkIngestService.start(any(), eq(documentTypeId), isNull(),
+                argThat(entries -> entries.size() == 1 && "Deck".equals(entries.get(0).getTitle()))))
+                .thenReturn(BulkIngestJobDto.builder().id(jobId).status(BulkIngestStatus.RUNNING).build());
+
+        mockMvc.perform(multipart("/api/v1/bulk-ingest")
+                        .file(file)
+                        .file(manifest)
+                        .param("documentTypeId", documentTypeId.toString()))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.data.id").value(jobId.toString()))
+                .andExpect(jsonPath("$.data.status").value("RUNNING"));
+    }
+
+    @Test
+    void get_shouldReturnEntryProgress() throws Exception {
+        when(bulkIngestService.get(jobId)).thenReturn(BulkIngestJobDto.builder()
+                .id(jobId)
+                .status(BulkIngestStatus.RUNNING)
+                .totalEntries(2)
+                .completedEntries(1)
+                .entries(List.of(BulkIngestEntryDto.builder()
+                        .index(0).path("deck.pptx").status(BulkIngestEntryStatus.COMPLETED).build()))
+                .build());
+
+        mockMvc.perform(get("/api/v1/bulk-ingest/{id}", jobId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.completedEntries").value(1))
+                .andExpect(jsonPath("$.data.entries[0].path").value("deck.pptx"));
+    }
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sedin.presales.application.dto.CreateDocumentRequest;
 import com.sedin.presales.application.dto.DocumentDetailDto;
 import com.sedin.presales.application.dto.DocumentDto;
+import com.sedin.presales.application.dto.DocumentThumbnailDto;
 import com.sedin.presales.application.dto.DocumentVersionDto;
 import com.sedin.presales.application.dto.IndexToggleResponseDto;
 import com.sedin.presales.application.dto.PagedResponse;
@@ -17,29 +18,46 @@ import com.sedin.presales.domain.enums.DocumentStatus;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Flux;
 
-import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Executor;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(DocumentController.class)
-@Import({TestSecurityConfig.class, GlobalExceptionHandler.class})
+@Import({TestSecurityConfig.class, GlobalExceptionHandler.class, StreamingBodies.class})
 class DocumentControllerTest {
 
+    // Chunks are written on the request thread, so headers are on the response before the first perform returns
+    @TestConfiguration
+    static class DownloadWriters {
+        @Bean("downloadWriteExecutor")
+        Executor downloadWriteExecutor() {
+            return Runnable::run;
+        }
+    }
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -122,6 +140,23 @@ class DocumentControllerTest {
                 .andExpect(jsonPath("$.data.totalElements").value(1));
     }
 
+    @Test
+    void getThumbnails_shouldReturnThumbnailUrlsForRequestedIds() throws Exception {
+        UUID otherId = UUID.randomUUID();
+        DocumentThumbnailDto thumbnail = DocumentThumbnailDto.builder()
+                .documentId(testId)
+                .versionNumber(1)
+                .thumbnailUrl("https://blob/thumbnail.png?sas")
+                .build();
+        when(documentService.getThumbnailUrls(List.of(testId, otherId))).thenReturn(List.of(thumbnail));
+
+        mockMvc.perform(get("/api/v1/documents/thumbnails")
+                        .param("ids", testId.toString(), otherId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].documentId").value(testId.toString()))
+                .andExpect(jsonPath("$.data[0].thumbnailUrl").value("https://blob/thumbnail.png?sas"));
+    }
+
     @Test
     void getById_shouldReturnDocumentDetail() throws Exception {
         DocumentDetailDto dto = buildDocumentDetailDto();
@@ -230,7 +265,6 @@ class DocumentControllerTest {
     @Test
     void downloadVersion_shouldReturnFile() throws Exception {
         byte[] fileContent = "file content bytes".getBytes();
-        ByteArrayInputStream inputStream = new ByteArrayInputStream(fileContent);
 
         DocumentVersion docVersion = DocumentVersion.builder()
                 .id(UUID.randomUUID())
@@ -240,12 +274,114 @@ class DocumentControllerTest {
                 .build();
 
         when(documentService.getDocumentVersion(testId, 1)).thenReturn(docVersion);
-        when(documentService.downloadVersion(testId, 1)).thenReturn(inputStream);
+        when(documentService.downloadVersion(testId, 1)).thenReturn(Flux.just(ByteBuffer.wrap(fileContent)));
 
-        mockMvc.perform(get("/api/v1/documents/{id}/versions/1/download", testId))
+        MvcResult result = mockMvc.perform(get("/api/v1/documents/{id}/versions/1/download", testId))
+                .andExpect(request().asyncStarted())
                 .andExpect(status().isOk())
                 .andExpect(header().string("Content-Disposition", "attachment; filename=\"test.pdf\""))
-                .andExpect(content().contentType(MediaType.APPLICATION_PDF));
+                .andExpect(content().contentType(MediaType.APPLICATION_PDF))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(fileContent));
+    }
+
+    private DocumentVersion buildRangedVersion() {
+        return DocumentVersion.builder()
+                .id(UUID.randomUUID())
+                .versionNumber(1)
+                .fileName("deck.pdf")
+                .fileSize(1000L)
+                .contentType("application/pdf")
+                .contentHash("abc123")
+                .createdAt(Instant.parse("2025-01-15T10:00:00Z"))
+                .build();
+    }
+
+    @Test
+    void downloadVersion_shouldAdvertiseRangesAndLength() throws Exception {
+        when(documentService.getDocumentVersion(testId, 1)).thenReturn(buildRangedVersion());
+        when(documentService.downloadVersion(testId, 1)).thenReturn(Flux.just(ByteBuffer.wrap(new byte[1000])));
+
+        mockMvc.perform(get("/api/v1/documents/{id}/versions/1/download", testId))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Accept-Ranges", "bytes"))
+                .andExpect(header().longValue("Content-Length", 1000L))
+                .andExpect(header().string("ETag", "\"abc123\""))
+                .andExpect(header().exists("Last-Modified"));
+    }
+
+    @Test
+    void downloadVersion_shouldReturn206ForSingleRange() throws Exception {
+        when(documentService.getDocumentVersion(testId, 1)).thenReturn(buildRangedVersion());
+        when(documentService.downloadVersionRange(testId, 1, 100L, 50L))
+                .thenReturn(Flux.just(ByteBuffer.wrap(new byte[50])));
+
+        mockMvc.perform(get("/api/v1/documents/{id}/versions/1/download", testId)
+                        .header("Range", "bytes=100-149"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 100-149/1000"))
+                .andExpect(header().longValue("Content-Length", 50L));
+
+        verify(documentService, never()).downloadVersion(any(), any());
+    }
+
+    @Test
+    void downloadVersion_shouldReturn206ForSuffixRange() throws Exception {
+        when(documentService.getDocumentVersion(testId, 1)).thenReturn(buildRangedVersion());
+        when(documentService.downloadVersionRange(testId, 1, 900L, 100L))
+                .thenReturn(Flux.just(ByteBuffer.wrap(new byte[100])));
+
+        mockMvc.perform(get("/api/v1/documents/{id}/versions/1/download", testId)
+                        .header("Range", "bytes=-100"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 900-999/1000"));
+    }
+
+    @Test
+    void downloadVersion_shouldReturn416WhenRangeStartsPastEnd() throws Exception {
+        when(documentService.getDocumentVersion(testId, 1)).thenReturn(buildRangedVersion());
+
+        mockMvc.perform(get("/api/v1/documents/{id}/versions/1/download", testId)
+                        .header("Range", "bytes=1000-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */1000"));
+    }
+
+    @Test
+    void downloadVersion_shouldReturnFullFileWhenIfRangeDoesNotMatch() throws Exception {
+        when(documentService.getDocumentVersion(testId, 1)).thenReturn(buildRangedVersion());
+        when(documentService.downloadVersion(testId, 1)).thenReturn(Flux.just(ByteBuffer.wrap(new byte[1000])));
+
+        mockMvc.perform(get("/api/v1/documents/{id}/versions/1/download", testId)
+                        .header("Range", "bytes=100-149")
+                        .header("If-Range", "\"stale\""))
+                .andExpect(status().isOk());
+
+        verify(documentService, never()).downloadVersionRange(any(), any(), anyLong(), anyLong());
+    }
+
+    @Test
+    void downloadVersion_shouldReturn304WhenETagMatches() throws Exception {
+        when(documentService.getDocumentVersion(testId, 1)).thenReturn(buildRangedVersion());
+
+        mockMvc.perform(get("/api/v1/documents/{id}/versions/1/download", testId)
+                        .header("If-None-Match", "\"abc123\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"abc123\""));
+
+        verify(documentService, never()).downloadVersion(any(), any());
+    }
+
+    @Test
+    void downloadVersion_shouldReturn304WhenNotModifiedSince() throws Exception {
+        when(documentService.getDocumentVersion(testId, 1)).thenReturn(buildRangedVersion());
+
+        mockMvc.perform(get("/api/v1/documents/{id}/versions/1/download", testId)
+                        .header("If-Modified-Since", "Wed, 15 Jan 2025 10:00:00 GMT"))
+                .andExpect(status().isNotModified());
     }
 
     @Test
@@ -0,0 +1,139 @@
+package com.sedin.presales.api.controller;
+
+import com.sedin.presales.application.service.DocumentService;
+import com.sedin.presales.config.AsyncConfig;
+import com.sedin.presales.domain.entity.DocumentVersion;
+import jakarta.servlet.Filter;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Drives 200 concurrent version downloads through {@link DocumentController} to clients that take
+ * every 64 KiB write slowly, once with the writes on Reactor's shared bounded elastic scheduler and
+ * once on the dedicated download writer pool. Prints wall time, peak JVM threads and how long an
+ * unrelated bounded elastic task waited to run while the downloads were being written. Only runs
+ * when {@code BENCHMARK_DOWNLOADS} is set.
+ */
+@EnabledIfEnvironmentVariable(named = "BENCHMARK_DOWNLOADS", matches = ".+")
+class DownloadStreamingBenchmarkTest {
+
+    private static final int CONCURRENT_DOWNLOADS = 200;
+    private static final int CHUNKS = 32;
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final long CLIENT_WRITE_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    @Test
+    void compareSharedAndDedicatedWriters() throws Exception {
+        ThreadPoolTaskExecutor dedicated = (ThreadPoolTaskExecutor) new AsyncConfig()
+                .downloadWriteExecutor(CONCURRENT_DOWNLOADS);
+        try {
+            download("bounded elastic", task -> Schedulers.boundedElastic().schedule(task));
+            download("dedicated", dedicated);
+        } finally {
+            dedicated.shutdown();
+        }
+    }
+
+    private void download(String writers, Executor executor) throws Exception {
+        DocumentService documentService = mock(DocumentService.class);
+        DocumentVersion version = DocumentVersion.builder()
+                .id(UUID.randomUUID())
+                .versionNumber(1)
+                .fileName("deck.pptx")
+                .fileSize((long) CHUNKS * CHUNK_SIZE)
+                .contentType("application/octet-stream")
+                .build();
+        when(documentService.getDocumentVersion(any(), eq(1))).thenReturn(version);
+        when(documentService.downloadVersion(any(), eq(1))).thenAnswer(invocation -> Flux.range(0, CHUNKS)
+                .map(chunk -> ByteBuffer.wrap(new byte[CHUNK_SIZE])));
+        AtomicLong written = new AtomicLong();
+        MockMvc mockMvc = MockMvcBuilders
+                .standaloneSetup(new DocumentController(documentService, new StreamingBodies(executor)))
+                .addFilters(slowClient(written))
+                .build();
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        long start = System.nanoTime();
+        List<MvcResult> downloads = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_DOWNLOADS; i++) {
+            downloads.add(mockMvc.perform(get("/api/v1/documents/{id}/versions/1/download", UUID.randomUUID()))
+                    .andReturn());
+        }
+        long probeStart = System.nanoTime();
+        long probeWait = Mono.fromCallable(() -> System.nanoTime() - probeStart)
+                .subscribeOn(Schedulers.boundedElastic())
+                .block();
+        for (MvcResult download : downloads) {
+            download.getAsyncResult(TimeUnit.MINUTES.toMillis(5));
+        }
+
+        System.out.printf("%-15s %d downloads of %d KiB: %d ms, peak threads %d, bounded elastic task waited %d ms%n",
+                writers, CONCURRENT_DOWNLOADS, CHUNKS * CHUNK_SIZE / 1024, (System.nanoTime() - start) / 1_000_000,
+                threads.getPeakThreadCount(), probeWait / 1_000_000);
+        assertThat(written).hasValue((long) CONCURRENT_DOWNLOADS * CHUNKS * CHUNK_SIZE);
+    }
+
+    // A client on a slow link: every write blocks the writing thread until the bytes are taken
+    private static Filter slowClient(AtomicLong written) {
+        return (request, response, chain) -> chain.doFilter(request,
+                new HttpServletResponseWrapper((HttpServletResponse) response) {
+                    private final ServletOutputStream out = new ServletOutputStream() {
+                        @Override
+                        public boolean isReady() {
+                            return true;
+                        }
+
+                        @Override
+                        public void setWriteListener(WriteListener writeListener) {
+                            throw new UnsupportedOperationException();
+                        }
+
+                        @Override
+                        public void write(int b) {
+                            written.incrementAndGet();
+                        }
+
+                        @Override
+                        public void write(byte[] b, int off, int len) {
+                            LockSupport.parkNanos(CLIENT_WRITE_NANOS);
+                            written.addAndGet(len);
+                        }
+                    };
+
+                    @Override
+                    public ServletOutputStream getOutputStream() {
+                        return out;
+                    }
+                });
+    }
+}
@@ -0,0 +1,79 @@
+package com.sedin.presales.api.controller;
+
+import com.sedin.presales.application.exception.GlobalExceptionHandler;
+import com.sedin.presales.config.JwtTokenProvider;
+import com.sedin.presales.config.TestSecurityConfig;
+import com.sedin.presales.infrastructure.storage.FileSystemBlobStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = LocalBlobController.class, properties = "app.storage.backend=filesystem")
+@Import({TestSecurityConfig.class, GlobalExceptionHandler.class})
+class LocalBlobControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private FileSystemBlobStore fileSystemBlobStore;
+
+    @MockitoBean
+    private JwtTokenProvider jwtTokenProvider;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void download_shouldStreamBlobForValidSignature() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("deck.pdf"), "pdf-bytes");
+        when(fileSystemBlobStore.isValidSignature("renditions", "docs/1/my deck.pdf", 123L, "sig")).thenReturn(true);
+        when(fileSystemBlobStore.exists("renditions", "docs/1/my deck.pdf")).thenReturn(true);
+        when(fileSystemBlobStore.path("renditions", "docs/1/my deck.pdf")).thenReturn(file);
+        when(fileSystemBlobStore.contentType("renditions", "docs/1/my deck.pdf")).thenReturn("application/pdf");
+        doAnswer(invocation -> {
+            WritableByteChannel channel = invocation.getArgument(2);
+            channel.write(ByteBuffer.wrap("pdf-bytes".getBytes()));
+            return 9L;
+        }).when(fileSystemBlobStore).transferTo(eq("renditions"), eq("docs/1/my deck.pdf"), any(WritableByteChannel.class));
+
+        mockMvc.perform(get(URI.create("/api/v1/local-blobs/renditions/docs/1/my%20deck.pdf"))
+                        .param("expires", "123")
+                        .param("sig", "sig"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/pdf"))
+                .andExpect(header().longValue("Content-Length", 9L))
+                .andExpect(content().string("pdf-bytes"));
+    }
+
+    @Test
+    void download_shouldReturn403ForInvalidSignature() throws Exception {
+        when(fileSystemBlobStore.isValidSignature("renditions", "a.pdf", 123L, "forged")).thenReturn(false);
+
+        mockMvc.perform(get("/api/v1/local-blobs/renditions/a.pdf")
+                        .param("expires", "123")
+                        .param("sig", "forged"))
+                .andExpect(status().isForbidden());
+
+        verify(fileSystemBlobStore, never()).transferTo(any(), any(), any());
+    }
+}
@@ -0,0 +1,95 @@
+package com.sedin.presales.api.controller;
+
+import com.sedin.presales.application.dto.RenditionBackfillDto;
+import com.sedin.presales.application.exception.GlobalExceptionHandler;
+import com.sedin.presales.application.service.RenditionBackfillService;
+import com.sedin.presales.config.JwtTokenProvider;
+import com.sedin.presales.config.TestSecurityConfig;
+import com.sedin.presales.domain.enums.RenditionBackfillStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(RenditionBackfillController.class)
+@Import({TestSecurityConfig.class, GlobalExceptionHandler.class})
+class RenditionBackfillControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private RenditionBackfillService renditionBackfillService;
+
+    @MockitoBean
+    private JwtTokenProvider jwtTokenProvider;
+
+    private final UUID backfillId = UUID.randomUUID();
+
+    @Test
+    void start_shouldReturn202WithBackfill() throws Exception {
+        when(renditionBackfillService.start(argThat(request -> request.getContentTypes().equals(List.of("application/msword"))
+                && Boolean.TRUE.equals(request.getFailedOnly()))))
+                .thenReturn(RenditionBackfillDto.builder().id(backfillId).status(RenditionBackfillStatus.RUNNING)
+                        .totalVersions(12).build());
+
+        mockMvc.perform(post("/api/v1/rendition-backfills")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"contentTypes\":[\"application/msword\"],\"failedOnly\":true}"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.data.id").value(backfillId.toString()))
+                .andExpect(jsonPath("$.data.totalVersions").value(12));
+    }
+
+    @Test
+    void start_shouldRejectNonPositiveRate() throws Exception {
+        mockMvc.perform(post("/api/v1/rendition-backfills")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ratePerMinute\":0}"))
+                .andExpect(status().isBadRequest());
+
+        verify(renditionBackfillService, never()).start(any());
+    }
+
+    @Test
+    void get_shouldReturnProgress() throws Exception {
+        when(renditionBackfillService.get(backfillId)).thenReturn(RenditionBackfillDto.builder()
+                .id(backfillId)
+                .status(RenditionBackfillStatus.RUNNING)
+                .totalVersions(10)
+                .completedVersions(4)
+                .percentComplete(40.0)
+                .build());
+
+        mockMvc.perform(get("/api/v1/rendition-backfills/{id}", backfillId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.completedVersions").value(4))
+                .andExpect(jsonPath("$.data.percentComplete").value(40.0));
+    }
+
+    @Test
+    void cancel_shouldReturnCancelledBackfill() throws Exception {
+        when(renditionBackfillService.cancel(backfillId)).thenReturn(RenditionBackfillDto.builder()
+                .id(backfillId).status(RenditionBackfillStatus.CANCELLED).build());
+
+        mockMvc.perform(post("/api/v1/rendition-backfills/{id}/cancel", backfillId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.status").value("CANCELLED"));
+    }
+}
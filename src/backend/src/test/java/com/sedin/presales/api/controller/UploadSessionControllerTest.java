@@ -0,0 +1,135 @@
+package com.sedin.presales.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sedin.presales.application.dto.CompleteUploadSessionRequest;
+import com.sedin.presales.application.dto.CreateDocumentRequest;
+import com.sedin.presales.application.dto.CreateUploadSessionRequest;
+import com.sedin.presales.application.dto.UploadSessionDto;
+import com.sedin.presales.application.exception.GlobalExceptionHandler;
+import com.sedin.presales.application.service.UploadSessionService;
+import com.sedin.presales.config.JwtTokenProvider;
+import com.sedin.presales.config.TestSecurityConfig;
+import com.sedin.presales.domain.enums.UploadSessionStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(UploadSessionController.class)
+@Import({TestSecurityConfig.class, GlobalExceptionHandler.class})
+class UploadSessionControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private UploadSessionService uploadSessionService;
+
+    @MockitoBean
+    private JwtTokenProvider jwtTokenProvider;
+
+    private final UUID sessionId = UUID.randomUUID();
+
+    private UploadSessionDto buildSessionDto(List<Integer> receivedChunks, UploadSessionStatus status) {
+        return UploadSessionDto.builder()
+                .id(sessionId)
+                .fileName("deck.pptx")
+                .fileSize(10L)
+                .chunkSize(4)
+                .totalChunks(3)
+                .receivedChunks(receivedChunks)
+                .status(status)
+                .build();
+    }
+
+    @Test
+    void create_shouldReturn201() throws Exception {
+        CreateUploadSessionRequest request = CreateUploadSessionRequest.builder()
+                .fileName("deck.pptx")
+                .fileSize(10L)
+                .build();
+        when(uploadSessionService.create(any(CreateUploadSessionRequest.class)))
+                .thenReturn(buildSessionDto(List.of(), UploadSessionStatus.OPEN));
+
+        mockMvc.perform(post("/api/v1/upload-sessions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.id").value(sessionId.toString()))
+                .andExpect(jsonPath("$.data.totalChunks").value(3));
+    }
+
+    @Test
+    void create_shouldReturn400WhenFileSizeMissing() throws Exception {
+        CreateUploadSessionRequest request = CreateUploadSessionRequest.builder()
+                .fileName("deck.pptx")
+                .build();
+
+        mockMvc.perform(post("/api/v1/upload-sessions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void uploadChunk_shouldPassRequestBodyAndLengthToService() throws Exception {
+        when(uploadSessionService.uploadChunk(eq(sessionId), eq(1), any(InputStream.class), eq(4L)))
+                .thenReturn(buildSessionDto(List.of(1), UploadSessionStatus.OPEN));
+
+        mockMvc.perform(put("/api/v1/upload-sessions/{id}/chunks/{index}", sessionId, 1)
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[]{1, 2, 3, 4}))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.receivedChunks[0]").value(1));
+    }
+
+    @Test
+    void get_shouldReturnReceivedChunks() throws Exception {
+        when(uploadSessionService.get(sessionId)).thenReturn(buildSessionDto(List.of(0, 2), UploadSessionStatus.OPEN));
+
+        mockMvc.perform(get("/api/v1/upload-sessions/{id}", sessionId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.receivedChunks.length()").value(2));
+    }
+
+    @Test
+    void complete_shouldReturn201() throws Exception {
+        CompleteUploadSessionRequest request = CompleteUploadSessionRequest.builder()
+                .document(CreateDocumentRequest.builder().title("Deck").documentTypeId(UUID.randomUUID()).build())
+                .build();
+        when(uploadSessionService.complete(eq(sessionId), any(CompleteUploadSessionRequest.class)))
+                .thenReturn(buildSessionDto(List.of(0, 1, 2), UploadSessionStatus.COMPLETED));
+
+        mockMvc.perform(post("/api/v1/upload-sessions/{id}/complete", sessionId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.status").value("COMPLETED"));
+    }
+
+    @Test
+    void abort_shouldReturn200() throws Exception {
+        doNothing().when(uploadSessionService).abort(sessionId);
+
+        mockMvc.perform(delete("/api/v1/upload-sessions/{id}", sessionId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true));
+    }
+}
@@ -0,0 +1,322 @@
+package com.sedin.presales.application.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sedin.presales.application.dto.BulkIngestManifestEntry;
+import com.sedin.presales.application.dto.DocumentDto;
+import com.sedin.presales.application.exception.ResourceNotFoundException;
+import com.sedin.presales.domain.entity.BulkIngestEntry;
+import com.sedin.presales.domain.entity.BulkIngestJob;
+import com.sedin.presales.domain.entity.Document;
+import com.sedin.presales.domain.entity.DocumentType;
+import com.sedin.presales.domain.entity.Folder;
+import com.sedin.presales.domain.enums.BulkIngestEntryStatus;
+import com.sedin.presales.domain.enums.BulkIngestStatus;
+import com.sedin.presales.domain.repository.BulkIngestEntryRepository;
+import com.sedin.presales.domain.repository.BulkIngestJobRepository;
+import com.sedin.presales.domain.repository.DocumentRepository;
+import com.sedin.presales.domain.repository.DocumentVersionRepository;
+import com.sedin.presales.domain.repository.FolderRepository;
+import com.sedin.presales.infrastructure.storage.BlobStorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class BulkIngestProcessorTest {
+
+    private static final String ARCHIVE_PATH = "bulk-ingest/abc/archive.zip";
+
+    @Mock
+    private BulkIngestJobRepository bulkIngestJobRepository;
+
+    @Mock
+    private BulkIngestEntryRepository bulkIngestEntryRepository;
+
+    @Mock
+    private DocumentRepository documentRepository;
+
+    @Mock
+    private DocumentVersionRepository documentVersionRepository;
+
+    @Mock
+    private FolderRepository folderRepository;
+
+    @Mock
+    private DocumentService documentService;
+
+    @Mock
+    private BlobStorageService blobStorageService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private BulkIngestProcessor processor;
+
+    private final UUID documentTypeId = UUID.randomUUID();
+    private final List<BulkIngestEntry> savedEntries = new ArrayList<>();
+    private final List<List<DocumentService.StoredBlobDocument>> createdBatches = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        processor = new BulkIngestProcessor(bulkIngestJobRepository, bulkIngestEntryRepository, documentRepository,
+                documentVersionRepository, folderRepository, documentService, blobStorageService, objectMapper,
+                Runnable::run);
+        ReflectionTestUtils.setField(processor, "parallelism", 2);
+        ReflectionTestUtils.setField(processor, "batchSize", 25);
+        ReflectionTestUtils.setField(processor, "maxEntryBytes", 1024L);
+
+        when(bulkIngestJobRepository.save(any(BulkIngestJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(bulkIngestEntryRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<BulkIngestEntry> entries = invocation.getArgument(0);
+            savedEntries.addAll(entries);
+            return entries;
+        });
+        when(folderRepository.save(any(Folder.class))).thenAnswer(invocation -> {
+            Folder folder = invocation.getArgument(0);
+            folder.setId(UUID.randomUUID());
+            return folder;
+        });
+        when(documentVersionRepository.findFirstByContentHashOrderByCreatedAtAsc(anyString())).thenReturn(Optional.empty());
+        when(documentRepository.getReferenceById(any(UUID.class))).thenAnswer(invocation -> {
+            Document document = Document.builder().build();
+            document.setId(invocation.getArgument(0));
+            return document;
+        });
+        when(documentService.createFromStoredBlobs(anyList())).thenAnswer(invocation -> {
+            List<DocumentService.StoredBlobDocument> blobs = invocation.getArgument(0);
+            createdBatches.add(blobs);
+            return blobs.stream().map(blob -> DocumentDto.builder().id(UUID.randomUUID()).build()).toList();
+        });
+    }
+
+    private BulkIngestJob buildJob(String manifest) {
+        DocumentType documentType = DocumentType.builder().name("Proposal").build();
+        documentType.setId(documentTypeId);
+        BulkIngestJob job = BulkIngestJob.builder()
+                .archiveName("archive.zip")
+                .archivePath(ARCHIVE_PATH)
+                .documentType(documentType)
+                .manifest(manifest)
+                .build();
+        job.setId(UUID.randomUUID());
+        return job;
+    }
+
+    private byte[] zip(Map<String, byte[]> entries) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()));
+                zip.write(entry.getValue());
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private void archiveContains(Map<String, byte[]> entries) throws IOException {
+        when(blobStorageService.download("documents", ARCHIVE_PATH))
+                .thenReturn(new ByteArrayInputStream(zip(entries)));
+    }
+
+    @Test
+    @DisplayName("ingest should map directories to folders and create documents in one batch")
+    void ingest_shouldMapFoldersAndCreateDocumentsInBatch() throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("Sales/2024/deck.pptx", "deck".getBytes());
+        entries.put("Sales/notes.pdf", "notes".getBytes());
+        entries.put("__MACOSX/Sales/._deck.pptx", "junk".getBytes());
+        entries.put("Sales/.DS_Store", "junk".getBytes());
+        entries.put("readme.txt", "readme".getBytes());
+        archiveContains(entries);
+        when(folderRepository.findFirstByParentIsNullAndName("Sales")).thenReturn(Optional.empty());
+        when(folderRepository.findFirstByParentIdAndName(any(UUID.class), eq("2024"))).thenReturn(Optional.empty());
+        BulkIngestJob job = buildJob(null);
+
+        processor.ingest(job);
+
+        assertThat(createdBatches).hasSize(1);
+        List<DocumentService.StoredBlobDocument> blobs = createdBatches.get(0);
+        assertThat(blobs).extracting(blob -> blob.request().getTitle()).containsExactly("deck", "notes", "readme");
+        assertThat(blobs).extracting(DocumentService.StoredBlobDocument::fileName)
+                .containsExactly("deck.pptx", "notes.pdf", "readme.txt");
+        assertThat(blobs.get(2).request().getFolderId()).isNull();
+        assertThat(blobs.get(0).request().getFolderId()).isNotEqualTo(blobs.get(1).request().getFolderId());
+        assertThat(blobs).allSatisfy(blob -> {
+            assertThat(blob.request().getDocumentTypeId()).isEqualTo(documentTypeId);
+            assertThat(blob.contentHash()).hasSize(64);
+        });
+        assertThat(blobs.get(1).contentType()).isEqualTo("application/pdf");
+
+        ArgumentCaptor<Folder> folders = ArgumentCaptor.forClass(Folder.class);
+        verify(folderRepository, times(2)).save(folders.capture());
+        assertThat(folders.getAllValues()).extracting(Folder::getName).containsExactly("Sales", "2024");
+        assertThat(folders.getAllValues().get(1).getParent()).isSameAs(folders.getAllValues().get(0));
+
+        verify(blobStorageService, times(3)).upload(eq("documents"), anyString(), any(), anyLong(), anyString());
+        assertThat(savedEntries).extracting(BulkIngestEntry::getStatus).containsOnly(BulkIngestEntryStatus.COMPLETED);
+        assertThat(job.getStatus()).isEqualTo(BulkIngestStatus.COMPLETED);
+        assertThat(job.getTotalEntries()).isEqualTo(3);
+        assertThat(job.getCompletedEntries()).isEqualTo(3);
+        verify(blobStorageService).delete("documents", ARCHIVE_PATH);
+    }
+
+    @Test
+    @DisplayName("ingest should apply manifest overrides and report manifest lines missing from the archive")
+    void ingest_shouldApplyManifestAndReportMissingEntries() throws IOException {
+        UUID caseStudyTypeId = UUID.randomUUID();
+        List<BulkIngestManifestEntry> manifest = List.of(
+                BulkIngestManifestEntry.builder().path("deck.pptx").title("Acme Proposal")
+                        .customerName("Acme").documentTypeId(caseStudyTypeId).build(),
+                BulkIngestManifestEntry.builder().path("missing.pdf").title("Missing").build());
+        archiveContains(Map.of("deck.pptx", "deck".getBytes()));
+        BulkIngestJob job = buildJob(objectMapper.writeValueAsString(manifest));
+
+        processor.ingest(job);
+
+        DocumentService.StoredBlobDocument blob = createdBatches.get(0).get(0);
+        assertThat(blob.request().getTitle()).isEqualTo("Acme Proposal");
+        assertThat(blob.request().getCustomerName()).isEqualTo("Acme");
+        assertThat(blob.request().getDocumentTypeId()).isEqualTo(caseStudyTypeId);
+
+        assertThat(savedEntries).hasSize(2);
+        BulkIngestEntry missing = savedEntries.get(1);
+        assertThat(missing.getEntryPath()).isEqualTo("missing.pdf");
+        assertThat(missing.getStatus()).isEqualTo(BulkIngestEntryStatus.FAILED);
+        assertThat(job.getStatus()).isEqualTo(BulkIngestStatus.COMPLETED_WITH_ERRORS);
+        assertThat(job.getFailedEntries()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("ingest should fail oversized and empty entries without uploading them")
+    void ingest_shouldRejectOversizedAndEmptyEntries() throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("huge.pdf", new byte[2048]);
+        entries.put("empty.pdf", new byte[0]);
+        entries.put("ok.pdf", "ok".getBytes());
+        archiveContains(entries);
+        BulkIngestJob job = buildJob(null);
+
+        processor.ingest(job);
+
+        verify(blobStorageService, times(1)).upload(eq("documents"), anyString(), any(), anyLong(), anyString());
+        assertThat(savedEntries).extracting(BulkIngestEntry::getEntryPath, BulkIngestEntry::getStatus)
+                .containsExactlyInAnyOrder(
+                        tuple("huge.pdf", BulkIngestEntryStatus.FAILED),
+                        tuple("empty.pdf", BulkIngestEntryStatus.FAILED),
+                        tuple("ok.pdf", BulkIngestEntryStatus.COMPLETED));
+    }
+
+    @Test
+    @DisplayName("ingest should retry a failed batch entry by entry so only bad entries fail")
+    void ingest_shouldRetryFailedBatchIndividually() throws IOException {
+        UUID unknownTypeId = UUID.randomUUID();
+        List<BulkIngestManifestEntry> manifest = List.of(
+                BulkIngestManifestEntry.builder().path("bad.pdf").documentTypeId(unknownTypeId).build());
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("good.pdf", "good".getBytes());
+        entries.put("bad.pdf", "bad".getBytes());
+        archiveContains(entries);
+        when(documentService.createFromStoredBlobs(anyList())).thenAnswer(invocation -> {
+            List<DocumentService.StoredBlobDocument> blobs = invocation.getArgument(0);
+            if (blobs.stream().anyMatch(blob -> unknownTypeId.equals(blob.request().getDocumentTypeId()))) {
+                throw new ResourceNotFoundException("DocumentType", "id", unknownTypeId);
+            }
+            return blobs.stream().map(blob -> DocumentDto.builder().id(UUID.randomUUID()).build()).toList();
+        });
+        BulkIngestJob job = buildJob(objectMapper.writeValueAsString(manifest));
+
+        processor.ingest(job);
+
+        verify(documentService, times(3)).createFromStoredBlobs(anyList());
+        assertThat(savedEntries).extracting(BulkIngestEntry::getEntryPath, BulkIngestEntry::getStatus)
+                .containsExactlyInAnyOrder(
+                        tuple("good.pdf", BulkIngestEntryStatus.COMPLETED),
+                        tuple("bad.pdf", BulkIngestEntryStatus.FAILED));
+        verify(blobStorageService).delete(eq("documents"), contains("/entries/1/bad.pdf"));
+    }
+
+    @Test
+    @DisplayName("process should mark the job failed and delete the archive when the archive is corrupt")
+    void process_shouldFailJobForCorruptArchive() throws IOException {
+        byte[] archive = zip(Map.of("deck.pptx", new byte[4096]));
+        when(blobStorageService.download("documents", ARCHIVE_PATH))
+                .thenReturn(new ByteArrayInputStream(Arrays.copyOf(archive, 60)));
+        BulkIngestJob job = buildJob(null);
+        when(bulkIngestJobRepository.findById(job.getId())).thenReturn(Optional.of(job));
+
+        processor.process(job.getId());
+
+        assertThat(job.getStatus()).isEqualTo(BulkIngestStatus.FAILED);
+        assertThat(job.getCompletedAt()).isNotNull();
+        verify(bulkIngestJobRepository, atLeastOnce()).save(job);
+        verify(blobStorageService).delete("documents", ARCHIVE_PATH);
+    }
+
+    @Test
+    @DisplayName("ingest should resume after the entries a previous run already recorded")
+    void ingest_shouldSkipRecordedEntries() throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("first.pdf", "first".getBytes());
+        entries.put("second.pdf", "second".getBytes());
+        archiveContains(entries);
+        BulkIngestJob job = buildJob(null);
+        when(bulkIngestEntryRepository.findEntryIndexesByJobId(job.getId())).thenReturn(Set.of(0));
+        when(bulkIngestEntryRepository.countByJobIdAndStatus(job.getId(), BulkIngestEntryStatus.COMPLETED)).thenReturn(1L);
+
+        processor.ingest(job);
+
+        verify(blobStorageService, times(1)).upload(eq("documents"), anyString(), any(), anyLong(), anyString());
+        assertThat(savedEntries).extracting(BulkIngestEntry::getEntryPath).containsExactly("second.pdf");
+        assertThat(job.getCompletedEntries()).isEqualTo(2);
+        assertThat(job.getStatus()).isEqualTo(BulkIngestStatus.COMPLETED);
+    }
+
+    @Test
+    @DisplayName("process should skip a job that has already finished")
+    void process_shouldSkipFinishedJob() {
+        BulkIngestJob job = buildJob(null);
+        job.setStatus(BulkIngestStatus.COMPLETED);
+        when(bulkIngestJobRepository.findById(job.getId())).thenReturn(Optional.of(job));
+
+        processor.process(job.getId());
+
+        verify(blobStorageService, never()).download(anyString(), anyString());
+    }
+}
@@ -0,0 +1,182 @@
+package com.sedin.presales.application.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sedin.presales.application.dto.BulkIngestJobDto;
+import com.sedin.presales.application.dto.BulkIngestManifestEntry;
+import com.sedin.presales.application.exception.AccessDeniedException;
+import com.sedin.presales.application.exception.BadRequestException;
+import com.sedin.presales.config.CurrentUserService;
+import com.sedin.presales.config.UserPrincipal;
+import com.sedin.presales.domain.entity.BulkIngestEntry;
+import com.sedin.presales.domain.entity.BulkIngestJob;
+import com.sedin.presales.domain.entity.DocumentType;
+import com.sedin.presales.domain.enums.BulkIngestEntryStatus;
+import com.sedin.presales.domain.enums.BulkIngestStatus;
+import com.sedin.presales.domain.enums.JobType;
+import com.sedin.presales.domain.repository.BulkIngestEntryRepository;
+import com.sedin.presales.domain.repository.BulkIngestJobRepository;
+import com.sedin.presales.domain.repository.DocumentTypeRepository;
+import com.sedin.presales.domain.repository.FolderRepository;
+import com.sedin.presales.infrastructure.storage.BlobStorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BulkIngestServiceTest {
+
+    @Mock
+    private BulkIngestJobRepository bulkIngestJobRepository;
+
+    @Mock
+    private BulkIngestEntryRepository bulkIngestEntryRepository;
+
+    @Mock
+    private DocumentTypeRepository documentTypeRepository;
+
+    @Mock
+    private FolderRepository folderRepository;
+
+    @Mock
+    private BlobStorageService blobStorageService;
+
+    @Mock
+    private JobQueueService jobQueueService;
+
+    @Mock
+    private CurrentUserService currentUserService;
+
+    private BulkIngestService bulkIngestService;
+
+    private final UUID documentTypeId = UUID.randomUUID();
+    private final UUID jobId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        bulkIngestService = new BulkIngestService(bulkIngestJobRepository, bulkIngestEntryRepository,
+                documentTypeRepository, folderRepository, blobStorageService, jobQueueService,
+                currentUserService, new ObjectMapper());
+    }
+
+    private void mockUser(String email, String role) {
+        when(currentUserService.getCurrentUser()).thenReturn(UserPrincipal.builder()
+                .userId(UUID.randomUUID().toString())
+                .email(email)
+                .role(role)
+                .build());
+    }
+
+    private BulkIngestJob buildJob() {
+        BulkIngestJob job = BulkIngestJob.builder()
+                .archiveName("decks.zip")
+                .archivePath("bulk-ingest/abc/decks.zip")
+                .status(BulkIngestStatus.RUNNING)
+                .build();
+        job.setId(jobId);
+        job.setCreatedBy("editor@test.com");
+        return job;
+    }
+
+    @Test
+    @DisplayName("start should store the archive, save the job and queue processing")
+    void start_shouldStoreArchiveAndQueueJob() {
+        MockMultipartFile archive = new MockMultipartFile("file", "decks.zip", "application/zip", new byte[]{1, 2, 3});
+        DocumentType documentType = DocumentType.builder().name("Proposal").build();
+        documentType.setId(documentTypeId);
+        when(documentTypeRepository.findById(documentTypeId)).thenReturn(Optional.of(documentType));
+        when(bulkIngestJobRepository.save(any(BulkIngestJob.class))).thenAnswer(invocation -> {
+            BulkIngestJob job = invocation.getArgument(0);
+            job.setId(jobId);
+            return job;
+        });
+        List<BulkIngestManifestEntry> manifest = List.of(
+                BulkIngestManifestEntry.builder().path("Sales/deck.pptx").title("Deck").build());
+
+        BulkIngestJobDto result = bulkIngestService.start(archive, documentTypeId, null, manifest);
+
+        ArgumentCaptor<String> archivePath = ArgumentCaptor.forClass(String.class);
+        verify(blobStorageService).upload(eq("documents"), archivePath.capture(), any(InputStream.class),
+                eq(3L), eq("application/octet-stream"));
+        assertThat(archivePath.getValue()).startsWith("bulk-ingest/").endsWith("/decks.zip");
+
+        ArgumentCaptor<BulkIngestJob> saved = ArgumentCaptor.forClass(BulkIngestJob.class);
+        verify(bulkIngestJobRepository).save(saved.capture());
+        assertThat(saved.getValue().getArchivePath()).isEqualTo(archivePath.getValue());
+        assertThat(saved.getValue().getManifest()).contains("Sales/deck.pptx");
+        verify(jobQueueService).enqueue(JobType.BULK_INGEST, jobId);
+        assertThat(result.getId()).isEqualTo(jobId);
+        assertThat(result.getStatus()).isEqualTo(BulkIngestStatus.RUNNING);
+    }
+
+    @Test
+    @DisplayName("start should reject a manifest that lists the same path twice")
+    void start_shouldRejectDuplicateManifestPaths() {
+        MockMultipartFile archive = new MockMultipartFile("file", "decks.zip", "application/zip", new byte[]{1});
+        when(documentTypeRepository.findById(documentTypeId)).thenReturn(Optional.of(DocumentType.builder().build()));
+        List<BulkIngestManifestEntry> manifest = List.of(
+                BulkIngestManifestEntry.builder().path("deck.pptx").build(),
+                BulkIngestManifestEntry.builder().path("/deck.pptx").build());
+
+        assertThatThrownBy(() -> bulkIngestService.start(archive, documentTypeId, null, manifest))
+                .isInstanceOf(BadRequestException.class);
+        verify(blobStorageService, never()).upload(anyString(), anyString(), any(), anyLong(), anyString());
+        verify(jobQueueService, never()).enqueue(any(), any());
+    }
+
+    @Test
+    @DisplayName("start should reject an empty archive")
+    void start_shouldRejectEmptyArchive() {
+        MockMultipartFile archive = new MockMultipartFile("file", "decks.zip", "application/zip", new byte[0]);
+
+        assertThatThrownBy(() -> bulkIngestService.start(archive, documentTypeId, null, null))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Archive is required");
+    }
+
+    @Test
+    @DisplayName("get should return per-entry progress to the user who started the job")
+    void get_shouldReturnEntriesForOwner() {
+        mockUser("editor@test.com", "EDITOR");
+        BulkIngestJob job = buildJob();
+        when(bulkIngestJobRepository.findById(jobId)).thenReturn(Optional.of(job));
+        when(bulkIngestEntryRepository.findByJobIdOrderByEntryIndexAsc(jobId)).thenReturn(List.of(
+                BulkIngestEntry.builder().entryIndex(0).entryPath("deck.pptx").status(BulkIngestEntryStatus.COMPLETED).build(),
+                BulkIngestEntry.builder().entryIndex(1).entryPath("big.pdf").status(BulkIngestEntryStatus.FAILED)
+                        .errorMessage("Entry is too large").build()));
+
+        BulkIngestJobDto result = bulkIngestService.get(jobId);
+
+        assertThat(result.getEntries()).hasSize(2);
+        assertThat(result.getEntries().get(1).getErrorMessage()).isEqualTo("Entry is too large");
+    }
+
+    @Test
+    @DisplayName("get should deny access to other non-admin users")
+    void get_shouldDenyOtherUsers() {
+        mockUser("someone@test.com", "EDITOR");
+        when(bulkIngestJobRepository.findById(jobId)).thenReturn(Optional.of(buildJob()));
+
+        assertThatThrownBy(() -> bulkIngestService.get(jobId))
+                .isInstanceOf(AccessDeniedException.class);
+    }
+}
@@ -49,6 +49,9 @@ class CaseStudyFormattingServiceTest {
     @Mock
     private PptTemplateBuilder pptTemplateBuilder;
 
+    @Mock
+    private JobQueueService jobQueueService;
+
     private CaseStudyFormattingService formattingService;
 
     private final ObjectMapper objectMapper = new ObjectMapper();
@@ -63,7 +66,8 @@ class CaseStudyFormattingServiceTest {
                 renditionRepository,
                 blobStorageService,
                 pptTemplateBuilder,
-                objectMapper
+                objectMapper,
+                jobQueueService
         );
     }
 
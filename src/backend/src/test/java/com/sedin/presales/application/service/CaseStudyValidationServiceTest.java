@@ -70,6 +70,9 @@ class CaseStudyValidationServiceTest {
     @Mock
     private AclService aclService;
 
+    @Mock
+    private JobQueueService jobQueueService;
+
     @Mock
     private PlatformTransactionManager transactionManager;
 
@@ -93,6 +96,7 @@ class CaseStudyValidationServiceTest {
                 objectMapper,
                 currentUserService,
                 aclService,
+                jobQueueService,
                 transactionManager
         );
     }
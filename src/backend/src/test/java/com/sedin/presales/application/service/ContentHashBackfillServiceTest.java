@@ -0,0 +1,97 @@
+package com.sedin.presales.application.service;
+
+import com.sedin.presales.domain.entity.DocumentVersion;
+import com.sedin.presales.domain.repository.DocumentVersionRepository;
+import com.sedin.presales.infrastructure.storage.BlobStorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ContentHashBackfillServiceTest {
+
+    @Mock
+    private DocumentVersionRepository documentVersionRepository;
+
+    @Mock
+    private BlobStorageService blobStorageService;
+
+    @InjectMocks
+    private ContentHashBackfillService backfillService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(backfillService, "enabled", true);
+        ReflectionTestUtils.setField(backfillService, "batchSize", 10);
+    }
+
+    private DocumentVersion buildVersion(String path) {
+        DocumentVersion version = DocumentVersion.builder()
+                .filePath(path)
+                .build();
+        version.setId(UUID.randomUUID());
+        return version;
+    }
+
+    @Test
+    @DisplayName("backfillBatch should hash each unhashed version and save it")
+    void backfillBatch_shouldHashAndSaveVersions() {
+        DocumentVersion version = buildVersion("documents/a/1/a.pdf");
+
+        when(documentVersionRepository.findByContentHashIsNullOrderByCreatedAtAsc(any(Pageable.class)))
+                .thenReturn(List.of(version));
+        when(blobStorageService.download("documents", "documents/a/1/a.pdf"))
+                .thenReturn(new ByteArrayInputStream("abc".getBytes()));
+
+        backfillService.backfillBatch();
+
+        assertThat(version.getContentHash())
+                .isEqualTo("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+        verify(documentVersionRepository).save(version);
+    }
+
+    @Test
+    @DisplayName("backfillBatch should skip versions whose blob previously failed to download")
+    void backfillBatch_shouldSkipPreviouslyFailedVersions() {
+        DocumentVersion version = buildVersion("documents/missing/1/a.pdf");
+
+        when(documentVersionRepository.findByContentHashIsNullOrderByCreatedAtAsc(any(Pageable.class)))
+                .thenReturn(List.of(version));
+        when(blobStorageService.download("documents", "documents/missing/1/a.pdf"))
+                .thenThrow(new RuntimeException("BlobNotFound"));
+
+        backfillService.backfillBatch();
+        backfillService.backfillBatch();
+
+        assertThat(version.getContentHash()).isNull();
+        verify(blobStorageService, times(1)).download("documents", "documents/missing/1/a.pdf");
+        verify(documentVersionRepository, never()).save(any(DocumentVersion.class));
+    }
+
+    @Test
+    @DisplayName("backfillBatch should do nothing when disabled")
+    void backfillBatch_shouldDoNothingWhenDisabled() {
+        ReflectionTestUtils.setField(backfillService, "enabled", false);
+
+        backfillService.backfillBatch();
+
+        verify(documentVersionRepository, never()).findByContentHashIsNullOrderByCreatedAtAsc(any(Pageable.class));
+    }
+}
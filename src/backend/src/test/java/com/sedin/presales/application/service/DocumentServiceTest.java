@@ -6,6 +6,7 @@ import com.sedin.presales.application.dto.CreateDocumentRequest;
 import com.sedin.presales.application.dto.DocumentDetailDto;
 import com.sedin.presales.application.dto.DocumentDownloadDto;
 import com.sedin.presales.application.dto.DocumentDto;
+import com.sedin.presales.application.dto.DocumentThumbnailDto;
 import com.sedin.presales.application.dto.DocumentVersionDto;
 import com.sedin.presales.application.dto.DocumentViewDto;
 import com.sedin.presales.application.dto.IndexToggleResponseDto;
@@ -23,6 +24,9 @@ import com.sedin.presales.domain.entity.Industry;
 import com.sedin.presales.domain.entity.Rendition;
 import com.sedin.presales.domain.entity.Technology;
 import com.sedin.presales.domain.enums.DocumentStatus;
+import com.sedin.presales.domain.enums.IngestStep;
+import com.sedin.presales.domain.enums.JobPriority;
+import com.sedin.presales.domain.enums.JobType;
 import com.sedin.presales.domain.enums.RenditionStatus;
 import com.sedin.presales.domain.enums.RenditionType;
 import com.sedin.presales.domain.repository.BusinessUnitRepository;
@@ -38,13 +42,17 @@ import com.sedin.presales.domain.repository.SbuRepository;
 import com.sedin.presales.domain.repository.TechnologyRepository;
 import com.sedin.presales.config.CurrentUserService;
 import com.sedin.presales.infrastructure.storage.BlobStorageService;
+import com.sedin.presales.infrastructure.storage.ReactiveBlobStorageService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
 
 import com.sedin.presales.application.dto.PagedResponse;
 import com.sedin.presales.config.UserPrincipal;
@@ -59,10 +67,12 @@ import org.springframework.data.jpa.domain.Specification;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -71,11 +81,13 @@ import java.util.UUID;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -119,10 +131,10 @@ class DocumentServiceTest {
     private BlobStorageService blobStorageService;
 
     @Mock
-    private DocumentMapper documentMapper;
+    private ReactiveBlobStorageService reactiveBlobStorageService;
 
     @Mock
-    private RenditionService renditionService;
+    private DocumentMapper documentMapper;
 
     @Mock
     private CurrentUserService currentUserService;
@@ -131,10 +143,10 @@ class DocumentServiceTest {
     private AclService aclService;
 
     @Mock
-    private IndexingService indexingService;
+    private JobQueueService jobQueueService;
 
     @Mock
-    private CaseStudyValidationService caseStudyValidationService;
+    private IngestPipelineService ingestPipelineService;
 
     @InjectMocks
     private DocumentService documentService;
@@ -208,6 +220,42 @@ class DocumentServiceTest {
         verify(documentRepository).save(any(Document.class));
         verify(documentVersionRepository).save(any(DocumentVersion.class));
         verify(blobStorageService).upload(anyString(), anyString(), any(InputStream.class), anyLong(), anyString());
+        verify(ingestPipelineService).enqueue(savedVersion.getId(), EnumSet.of(IngestStep.PDF_RENDITION), JobPriority.NORMAL);
+    }
+
+    @Test
+    @DisplayName("upload should queue summary and case study validation in the ingest pipeline for case studies")
+    void upload_shouldQueueCaseStudyStepsInIngestPipeline() throws IOException {
+        ReflectionTestUtils.setField(documentService, "summarizeOnUpload", true);
+        UUID docTypeId = UUID.randomUUID();
+        DocumentType caseStudyType = DocumentType.builder().name("Case Study").isActive(true).build();
+        caseStudyType.setId(docTypeId);
+        CreateDocumentRequest request = CreateDocumentRequest.builder()
+                .title("Case Study").documentTypeId(docTypeId).build();
+
+        MultipartFile file = mock(MultipartFile.class);
+        when(file.isEmpty()).thenReturn(false);
+        when(file.getOriginalFilename()).thenReturn("case.pptx");
+        when(file.getSize()).thenReturn(10L);
+        when(file.getContentType()).thenReturn("application/vnd.openxmlformats-officedocument.presentationml.presentation");
+        when(file.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[10]));
+
+        Document savedDocument = Document.builder()
+                .title("Case Study").status(DocumentStatus.ACTIVE).currentVersionNumber(1).documentType(caseStudyType).build();
+        savedDocument.setId(UUID.randomUUID());
+        DocumentVersion savedVersion = DocumentVersion.builder()
+                .document(savedDocument).versionNumber(1).filePath("documents/case.pptx").fileName("case.pptx").build();
+        savedVersion.setId(UUID.randomUUID());
+
+        when(documentTypeRepository.findById(docTypeId)).thenReturn(Optional.of(caseStudyType));
+        when(documentRepository.save(any(Document.class))).thenReturn(savedDocument);
+        when(documentVersionRepository.save(any(DocumentVersion.class))).thenReturn(savedVersion);
+
+        documentService.upload(file, request);
+
+        verify(ingestPipelineService).enqueue(savedVersion.getId(),
+                EnumSet.of(IngestStep.PDF_RENDITION, IngestStep.SUMMARY, IngestStep.CASE_STUDY_VALIDATION),
+                JobPriority.NORMAL);
     }
 
     @Test
@@ -466,8 +514,8 @@ class DocumentServiceTest {
     }
 
     @Test
-    @DisplayName("downloadVersion should return input stream")
-    void downloadVersion_shouldReturnInputStream() {
+    @DisplayName("downloadVersion should stream the version from blob storage")
+    void downloadVersion_shouldStreamContent() {
         mockAdminUser();
         UUID docId = UUID.randomUUID();
         int versionNumber = 1;
@@ -481,17 +529,16 @@ class DocumentServiceTest {
                 .build();
         version.setId(UUID.randomUUID());
 
-        InputStream expectedStream = new ByteArrayInputStream("file-content".getBytes());
+        Flux<ByteBuffer> expectedStream = Flux.just(ByteBuffer.wrap("file-content".getBytes()));
 
         when(documentVersionRepository.findByDocumentIdAndVersionNumber(docId, versionNumber))
                 .thenReturn(Optional.of(version));
-        when(blobStorageService.download("documents", filePath)).thenReturn(expectedStream);
+        when(reactiveBlobStorageService.download("documents", filePath)).thenReturn(expectedStream);
 
-        InputStream result = documentService.downloadVersion(docId, versionNumber);
+        Flux<ByteBuffer> result = documentService.downloadVersion(docId, versionNumber);
 
-        assertThat(result).isNotNull();
-        assertThat(result).isEqualTo(expectedStream);
-        verify(blobStorageService).download("documents", filePath);
+        assertThat(result).isSameAs(expectedStream);
+        verify(reactiveBlobStorageService).download("documents", filePath);
     }
 
     @Test
@@ -604,7 +651,7 @@ class DocumentServiceTest {
     }
 
     @Test
-    @DisplayName("toggleRagIndex should enable indexing and trigger async indexDocument")
+    @DisplayName("toggleRagIndex should enable indexing and queue an indexing job")
     void toggleRagIndex_shouldEnableIndexingAndTriggerAsync() {
         UUID id = UUID.randomUUID();
         Document document = Document.builder()
@@ -622,8 +669,8 @@ class DocumentServiceTest {
         assertThat(result.getDocumentId()).isEqualTo(id);
         assertThat(result.isRagIndexed()).isTrue();
         assertThat(result.getMessage()).isEqualTo("Document queued for indexing");
-        verify(indexingService).indexDocument(id);
-        verify(indexingService, never()).removeFromIndex(any(UUID.class));
+        verify(jobQueueService).enqueue(JobType.INDEXING, id);
+        verify(jobQueueService, never()).enqueue(eq(JobType.INDEX_REMOVAL), any(UUID.class));
         // ragIndexed is NOT set eagerly — IndexingService sets it on success
         verify(documentRepository, never()).save(any(Document.class));
     }
@@ -648,8 +695,8 @@ class DocumentServiceTest {
         assertThat(result.getDocumentId()).isEqualTo(id);
         assertThat(result.isRagIndexed()).isFalse();
         assertThat(result.getMessage()).isEqualTo("Document removed from search index");
-        verify(indexingService).removeFromIndex(id);
-        verify(indexingService, never()).indexDocument(any(UUID.class));
+        verify(jobQueueService).enqueue(JobType.INDEX_REMOVAL, id);
+        verify(jobQueueService, never()).enqueue(eq(JobType.INDEXING), any(UUID.class));
     }
 
     @Test
@@ -712,7 +759,9 @@ class DocumentServiceTest {
 
         documentService.uploadNewVersion(docId, file, "Updated content");
 
-        verify(indexingService).indexDocument(docId);
+        verify(ingestPipelineService).enqueue(savedVersion.getId(), EnumSet.of(IngestStep.PDF_RENDITION, IngestStep.INDEX),
+                JobPriority.NORMAL);
+        verify(jobQueueService, never()).enqueue(JobType.INDEXING, docId);
     }
 
     // ==================== Testing Gap 1: Negative ACL tests for write operations ====================
@@ -1135,6 +1184,58 @@ class DocumentServiceTest {
         assertThat(result.getContentType()).isEqualTo("application/pdf");
     }
 
+    @Test
+    @DisplayName("getViewUrl should return the first-pages preview while the full rendition is processing")
+    void getViewUrl_shouldReturnPreview_whenOnlyPreviewCompleted() {
+        mockAdminUser();
+        UUID docId = UUID.randomUUID();
+        UUID versionId = UUID.randomUUID();
+
+        Document document = Document.builder()
+                .title("Test Doc")
+                .status(DocumentStatus.ACTIVE)
+                .currentVersionNumber(1)
+                .build();
+        document.setId(docId);
+
+        DocumentVersion version = DocumentVersion.builder()
+                .document(document)
+                .versionNumber(1)
+                .filePath("documents/" + docId + "/1/deck.pptx")
+                .fileName("deck.pptx")
+                .build();
+        version.setId(versionId);
+
+        Rendition full = Rendition.builder()
+                .renditionType(RenditionType.PDF)
+                .status(RenditionStatus.PROCESSING)
+                .documentVersion(version)
+                .build();
+        Rendition preview = Rendition.builder()
+                .renditionType(RenditionType.PDF_PREVIEW)
+                .status(RenditionStatus.COMPLETED)
+                .filePath("renditions/" + versionId + "/preview.pdf")
+                .documentVersion(version)
+                .build();
+
+        when(documentRepository.findById(docId)).thenReturn(Optional.of(document));
+        when(documentVersionRepository.findByDocumentIdAndVersionNumber(docId, 1))
+                .thenReturn(Optional.of(version));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.PDF))
+                .thenReturn(Optional.of(full));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.PDF_PREVIEW))
+                .thenReturn(Optional.of(preview));
+        when(blobStorageService.generateSasUrl(eq("renditions"), eq("renditions/" + versionId + "/preview.pdf"), any(Duration.class)))
+                .thenReturn("https://blob/preview.pdf?sas");
+
+        DocumentViewDto result = documentService.getViewUrl(docId);
+
+        assertThat(result.getStatus()).isEqualTo("PREVIEW");
+        assertThat(result.getPreview()).isTrue();
+        assertThat(result.getViewUrl()).isEqualTo("https://blob/preview.pdf?sas");
+        assertThat(result.getMessage()).contains("processing");
+    }
+
     @Test
     @DisplayName("getViewUrl should return status PENDING when rendition is still processing")
     void getViewUrl_shouldReturnPendingStatus_whenRenditionProcessing() {
@@ -1178,6 +1279,7 @@ class DocumentServiceTest {
         assertThat(result.getStatus()).isEqualTo("PENDING");
         assertThat(result.getViewUrl()).isNull();
         assertThat(result.getMessage()).contains("pending");
+        verify(jobQueueService).promote(versionId, JobPriority.INTERACTIVE);
     }
 
     @Test
@@ -1217,6 +1319,53 @@ class DocumentServiceTest {
         assertThat(result.getMessage()).contains("not available");
     }
 
+    @Test
+    @DisplayName("getThumbnailUrls should return thumbnails of current versions the caller can read, in one query")
+    void getThumbnailUrls_shouldFilterByAclAndQueryOnce() {
+        UUID userId = UUID.randomUUID();
+        UserPrincipal editorUser = UserPrincipal.builder()
+                .userId(userId.toString())
+                .email("editor@test.com")
+                .role("EDITOR")
+                .build();
+        when(currentUserService.getCurrentUser()).thenReturn(editorUser);
+
+        UUID readable = UUID.randomUUID();
+        UUID hidden = UUID.randomUUID();
+        when(aclService.getAccessibleResourceIds(userId, ResourceType.DOCUMENT, Permission.READ))
+                .thenReturn(Set.of(readable));
+
+        Document document = Document.builder().title("Deck").currentVersionNumber(2).build();
+        document.setId(readable);
+        DocumentVersion version = DocumentVersion.builder().document(document).versionNumber(2).build();
+        Rendition thumbnail = Rendition.builder()
+                .renditionType(RenditionType.THUMBNAIL)
+                .status(RenditionStatus.COMPLETED)
+                .filePath("renditions/v2/thumbnail.png")
+                .documentVersion(version)
+                .build();
+        when(renditionRepository.findForCurrentVersions(Set.of(readable), RenditionType.THUMBNAIL, RenditionStatus.COMPLETED))
+                .thenReturn(List.of(thumbnail));
+        when(blobStorageService.generateSasUrl(eq("renditions"), eq("renditions/v2/thumbnail.png"), any(Duration.class)))
+                .thenReturn("https://blob/thumbnail.png?sas");
+
+        List<DocumentThumbnailDto> result = documentService.getThumbnailUrls(List.of(readable, hidden));
+
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).getDocumentId()).isEqualTo(readable);
+        assertThat(result.get(0).getVersionNumber()).isEqualTo(2);
+        assertThat(result.get(0).getThumbnailUrl()).isEqualTo("https://blob/thumbnail.png?sas");
+    }
+
+    @Test
+    @DisplayName("getThumbnailUrls should reject batches larger than a page")
+    void getThumbnailUrls_shouldRejectOversizedBatch() {
+        List<UUID> ids = java.util.stream.Stream.generate(UUID::randomUUID).limit(101).toList();
+
+        assertThatThrownBy(() -> documentService.getThumbnailUrls(ids))
+                .isInstanceOf(BadRequestException.class);
+    }
+
     @Test
     @DisplayName("getDownloadUrl should return correct download URL with SAS token")
     void getDownloadUrl_shouldReturnCorrectDownloadUrl() {
@@ -1369,8 +1518,74 @@ class DocumentServiceTest {
     }
 
     @Test
-    @DisplayName("downloadVersion should return InputStream from blob storage with ACL check")
-    void downloadVersion_shouldReturnInputStream_withAclCheck() {
+    @DisplayName("createFromStoredBlobs should insert documents and versions with one saveAll each")
+    void createFromStoredBlobs_shouldBatchInserts() {
+        UUID docTypeId = UUID.randomUUID();
+        DocumentType docType = DocumentType.builder().name("Proposal").build();
+        docType.setId(docTypeId);
+        when(documentTypeRepository.findById(docTypeId)).thenReturn(Optional.of(docType));
+        when(documentRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Document> documents = invocation.getArgument(0);
+            documents.forEach(document -> document.setId(UUID.randomUUID()));
+            return documents;
+        });
+        when(documentVersionRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<DocumentVersion> versions = invocation.getArgument(0);
+            versions.forEach(version -> version.setId(UUID.randomUUID()));
+            return versions;
+        });
+        when(documentMapper.toDto(any(Document.class))).thenAnswer(invocation ->
+                DocumentDto.builder().id(((Document) invocation.getArgument(0)).getId()).build());
+
+        List<DocumentService.StoredBlobDocument> blobs = List.of(
+                new DocumentService.StoredBlobDocument(
+                        CreateDocumentRequest.builder().title("Deck A").documentTypeId(docTypeId).build(),
+                        "bulk-ingest/job/entries/0/a.pptx", "a.pptx", 10L, "application/pdf", "hash-a"),
+                new DocumentService.StoredBlobDocument(
+                        CreateDocumentRequest.builder().title("Deck B").documentTypeId(docTypeId).build(),
+                        "bulk-ingest/job/entries/1/b.pptx", "b.pptx", 20L, "application/pdf", "hash-b"));
+
+        List<DocumentDto> result = documentService.createFromStoredBlobs(blobs);
+
+        assertThat(result).hasSize(2);
+        verify(documentTypeRepository, times(1)).findById(docTypeId);
+        verify(documentRepository, never()).save(any(Document.class));
+        ArgumentCaptor<List<DocumentVersion>> versions = ArgumentCaptor.forClass(List.class);
+        verify(documentVersionRepository).saveAll(versions.capture());
+        assertThat(versions.getValue()).extracting(DocumentVersion::getFilePath)
+                .containsExactly("bulk-ingest/job/entries/0/a.pptx", "bulk-ingest/job/entries/1/b.pptx");
+        assertThat(versions.getValue()).extracting(DocumentVersion::getVersionNumber).containsOnly(1);
+        verify(ingestPipelineService, times(2)).enqueue(any(UUID.class), eq(EnumSet.of(IngestStep.PDF_RENDITION)),
+                eq(JobPriority.BACKGROUND));
+        verify(documentMetadataRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("downloadVersionRange should read only the requested range from blob storage")
+    void downloadVersionRange_shouldReadRangeFromBlobStorage() {
+        mockAdminUser();
+        UUID docId = UUID.randomUUID();
+        String filePath = "documents/" + docId + "/1/file.pdf";
+
+        DocumentVersion version = DocumentVersion.builder()
+                .versionNumber(1)
+                .filePath(filePath)
+                .fileName("file.pdf")
+                .build();
+        Flux<ByteBuffer> expectedStream = Flux.just(ByteBuffer.wrap("range".getBytes()));
+
+        when(documentVersionRepository.findByDocumentIdAndVersionNumber(docId, 1)).thenReturn(Optional.of(version));
+        when(reactiveBlobStorageService.downloadRange("documents", filePath, 100L, 5L)).thenReturn(expectedStream);
+
+        Flux<ByteBuffer> result = documentService.downloadVersionRange(docId, 1, 100L, 5L);
+
+        assertThat(result).isSameAs(expectedStream);
+        verify(reactiveBlobStorageService, never()).download(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("downloadVersion should stream from blob storage with ACL check")
+    void downloadVersion_shouldStreamContent_withAclCheck() {
         mockAdminUser();
         UUID docId = UUID.randomUUID();
         int versionNumber = 2;
@@ -1384,16 +1599,131 @@ class DocumentServiceTest {
                 .build();
         version.setId(UUID.randomUUID());
 
-        InputStream expectedStream = new ByteArrayInputStream("file-content".getBytes());
+        Flux<ByteBuffer> expectedStream = Flux.just(ByteBuffer.wrap("file-content".getBytes()));
 
         when(documentVersionRepository.findByDocumentIdAndVersionNumber(docId, versionNumber))
                 .thenReturn(Optional.of(version));
-        when(blobStorageService.download("documents", filePath)).thenReturn(expectedStream);
+        when(reactiveBlobStorageService.download("documents", filePath)).thenReturn(expectedStream);
 
-        InputStream result = documentService.downloadVersion(docId, versionNumber);
+        Flux<ByteBuffer> result = documentService.downloadVersion(docId, versionNumber);
 
-        assertThat(result).isNotNull();
-        assertThat(result).isEqualTo(expectedStream);
-        verify(blobStorageService).download("documents", filePath);
+        assertThat(result).isSameAs(expectedStream);
+        verify(reactiveBlobStorageService).download("documents", filePath);
+    }
+
+    @Test
+    @DisplayName("upload should record the SHA-256 of the streamed bytes on the version")
+    void upload_shouldRecordContentHash() throws IOException {
+        UUID docTypeId = UUID.randomUUID();
+        UUID docId = UUID.randomUUID();
+        DocumentType documentType = DocumentType.builder().name("Proposal").isActive(true).build();
+        documentType.setId(docTypeId);
+        Document savedDocument = Document.builder().title("Deck").currentVersionNumber(1).documentType(documentType).build();
+        savedDocument.setId(docId);
+
+        MultipartFile file = mock(MultipartFile.class);
+        when(file.isEmpty()).thenReturn(false);
+        when(file.getOriginalFilename()).thenReturn("deck.pptx");
+        when(file.getSize()).thenReturn(3L);
+        when(file.getContentType()).thenReturn("application/pdf");
+        when(file.getInputStream()).thenReturn(new ByteArrayInputStream("abc".getBytes()));
+
+        when(documentTypeRepository.findById(docTypeId)).thenReturn(Optional.of(documentType));
+        when(documentRepository.save(any(Document.class))).thenReturn(savedDocument);
+        when(documentVersionRepository.findFirstByContentHashOrderByCreatedAtAsc(anyString())).thenReturn(Optional.empty());
+        when(documentVersionRepository.save(any(DocumentVersion.class))).thenAnswer(invocation -> {
+            DocumentVersion v = invocation.getArgument(0);
+            v.setId(UUID.randomUUID());
+            return v;
+        });
+
+        documentService.upload(file, CreateDocumentRequest.builder().title("Deck").documentTypeId(docTypeId).build());
+
+        ArgumentCaptor<DocumentVersion> captor = ArgumentCaptor.forClass(DocumentVersion.class);
+        verify(documentVersionRepository).save(captor.capture());
+        assertThat(captor.getValue().getContentHash())
+                .isEqualTo("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+        assertThat(captor.getValue().getFilePath()).isEqualTo("documents/" + docId + "/1/deck.pptx");
+        verify(blobStorageService, never()).delete(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("uploadNewVersion should reuse the existing blob when the content hash is already known")
+    void uploadNewVersion_shouldReuseBlobForKnownContentHash() throws IOException {
+        mockAdminUser();
+        UUID docId = UUID.randomUUID();
+        DocumentType proposalType = DocumentType.builder().name("Proposal").isActive(true).build();
+        Document document = Document.builder()
+                .title("Deck")
+                .status(DocumentStatus.ACTIVE)
+                .currentVersionNumber(1)
+                .documentType(proposalType)
+                .build();
+        document.setId(docId);
+
+        MultipartFile file = mock(MultipartFile.class);
+        when(file.isEmpty()).thenReturn(false);
+        when(file.getOriginalFilename()).thenReturn("deck.pptx");
+        when(file.getSize()).thenReturn(3L);
+        when(file.getContentType()).thenReturn("application/pdf");
+        when(file.getInputStream()).thenReturn(new ByteArrayInputStream("abc".getBytes()));
+
+        DocumentVersion existing = DocumentVersion.builder()
+                .filePath("documents/other/1/deck.pptx")
+                .contentHash("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad")
+                .build();
+
+        when(documentRepository.findById(docId)).thenReturn(Optional.of(document));
+        when(documentVersionRepository.findFirstByContentHashOrderByCreatedAtAsc(existing.getContentHash()))
+                .thenReturn(Optional.of(existing));
+        when(documentVersionRepository.save(any(DocumentVersion.class))).thenAnswer(invocation -> {
+            DocumentVersion v = invocation.getArgument(0);
+            v.setId(UUID.randomUUID());
+            return v;
+        });
+
+        documentService.uploadNewVersion(docId, file, "same bytes");
+
+        ArgumentCaptor<DocumentVersion> captor = ArgumentCaptor.forClass(DocumentVersion.class);
+        verify(documentVersionRepository).save(captor.capture());
+        assertThat(captor.getValue().getFilePath()).isEqualTo("documents/other/1/deck.pptx");
+        assertThat(captor.getValue().getContentHash()).isEqualTo(existing.getContentHash());
+        verify(blobStorageService).delete("documents", "documents/" + docId + "/2/deck.pptx");
+    }
+
+    @Test
+    @DisplayName("addVersionFromStoredBlob should reuse the existing blob when the content hash is already known")
+    void addVersionFromStoredBlob_shouldReuseBlobForKnownContentHash() {
+        mockAdminUser();
+        UUID docId = UUID.randomUUID();
+        Document document = Document.builder()
+                .title("Deck")
+                .status(DocumentStatus.ACTIVE)
+                .currentVersionNumber(1)
+                .build();
+        document.setId(docId);
+        DocumentVersion existing = DocumentVersion.builder()
+                .filePath("documents/other/1/deck.pptx")
+                .contentHash("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad")
+                .build();
+
+        when(documentRepository.findById(docId)).thenReturn(Optional.of(document));
+        when(documentVersionRepository.findFirstByContentHashOrderByCreatedAtAsc(existing.getContentHash()))
+                .thenReturn(Optional.of(existing));
+        when(documentVersionRepository.save(any(DocumentVersion.class))).thenAnswer(invocation -> {
+            DocumentVersion v = invocation.getArgument(0);
+            v.setId(UUID.randomUUID());
+            return v;
+        });
+
+        documentService.addVersionFromStoredBlob(docId, "uploads/abc/deck.pptx", "deck.pptx", 3L,
+                "application/pdf", existing.getContentHash());
+
+        ArgumentCaptor<DocumentVersion> captor = ArgumentCaptor.forClass(DocumentVersion.class);
+        verify(documentVersionRepository).save(captor.capture());
+        assertThat(captor.getValue().getFilePath()).isEqualTo("documents/other/1/deck.pptx");
+        assertThat(captor.getValue().getContentHash()).isEqualTo(existing.getContentHash());
+        assertThat(captor.getValue().getVersionNumber()).isEqualTo(2);
+        verify(blobStorageService).delete("documents", "uploads/abc/deck.pptx");
     }
 }
@@ -0,0 +1,297 @@
+package com.sedin.presales.application.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sedin.presales.domain.entity.DocumentVersion;
+import com.sedin.presales.domain.entity.Rendition;
+import com.sedin.presales.domain.enums.RenditionStatus;
+import com.sedin.presales.domain.enums.RenditionType;
+import com.sedin.presales.domain.repository.RenditionRepository;
+import com.sedin.presales.infrastructure.ai.DocumentIntelligenceService;
+import com.sedin.presales.infrastructure.ai.ExtractedText;
+import com.sedin.presales.infrastructure.rendition.LocalTextExtractor;
+import com.sedin.presales.infrastructure.storage.BlobStorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ExtractedTextServiceTest {
+
+    private static final String PDF = "application/pdf";
+
+    @Mock
+    private RenditionRepository renditionRepository;
+
+    @Mock
+    private DocumentIntelligenceService documentIntelligenceService;
+
+    @Mock
+    private LocalTextExtractor localTextExtractor;
+
+    @Mock
+    private BlobStorageService blobStorageService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ExtractedTextService extractedTextService;
+    private DocumentVersion version;
+
+    @BeforeEach
+    void setUp() {
+        extractedTextService = new ExtractedTextService(renditionRepository, documentIntelligenceService,
+                localTextExtractor, blobStorageService, objectMapper, meterRegistry);
+        ReflectionTestUtils.setField(extractedTextService, "localEnabled", true);
+        ReflectionTestUtils.setField(extractedTextService, "minCharsPerPage", 20);
+        ReflectionTestUtils.setField(extractedTextService, "maxImageOnlyRatio", 0.25);
+        version = DocumentVersion.builder()
+                .filePath("documents/1/1/report.pdf")
+                .contentType(PDF)
+                .contentHash("abc123")
+                .build();
+        version.setId(UUID.randomUUID());
+    }
+
+    private static LocalTextExtractor.Result local(String content, int pages, int imageOnlyPages) {
+        List<ExtractedText.PageSpan> spans = new ArrayList<>();
+        for (int i = 1; i <= pages; i++) {
+            spans.add(new ExtractedText.PageSpan(i, 0, 0));
+        }
+        return new LocalTextExtractor.Result(new ExtractedText(content, spans, ExtractedText.Source.LOCAL),
+                imageOnlyPages);
+    }
+
+    private InputStream gzipped(ExtractedText text) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            objectMapper.writeValue(gzip, text);
+        }
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    @Test
+    @DisplayName("extract should analyze a local copy of the original and store the text compressed under the content hash")
+    void extract_shouldAnalyzeAndStoreText() throws Exception {
+        ExtractedText analyzed = new ExtractedText("Page one\nPage two",
+                List.of(new ExtractedText.PageSpan(1, 0, 8), new ExtractedText.PageSpan(2, 9, 8)),
+                ExtractedText.Source.DOCUMENT_INTELLIGENCE);
+        when(localTextExtractor.extract(any(InputStream.class), eq(PDF))).thenReturn(local("scan", 2, 2));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(version.getId(), RenditionType.TEXT))
+                .thenReturn(Optional.empty());
+        when(blobStorageService.exists("renditions", "text/abc123.json.gz")).thenReturn(false);
+        List<Path> sent = new ArrayList<>();
+        when(documentIntelligenceService.analyzeAsync(any(Path.class), eq(PDF))).thenAnswer(invocation -> {
+            Path document = invocation.getArgument(0);
+            assertThat(document).hasContent("pdf");
+            sent.add(document);
+            return Mono.just(analyzed);
+        });
+
+        ExtractedText result = extractedTextService.extract(version, () -> new ByteArrayInputStream("pdf".getBytes()));
+
+        assertThat(result).isEqualTo(analyzed);
+        assertThat(sent).singleElement().satisfies(document -> assertThat(document).doesNotExist());
+        ArgumentCaptor<InputStream> uploaded = ArgumentCaptor.forClass(InputStream.class);
+        verify(blobStorageService).upload(eq("renditions"), eq("text/abc123.json.gz"), uploaded.capture(), anyLong(),
+                eq("application/gzip"));
+        try (InputStream in = new GZIPInputStream(uploaded.getValue())) {
+            assertThat(objectMapper.readValue(in, ExtractedText.class)).isEqualTo(analyzed);
+        }
+        ArgumentCaptor<Rendition> saved = ArgumentCaptor.forClass(Rendition.class);
+        verify(renditionRepository).save(saved.capture());
+        assertThat(saved.getValue().getRenditionType()).isEqualTo(RenditionType.TEXT);
+        assertThat(saved.getValue().getStatus()).isEqualTo(RenditionStatus.COMPLETED);
+        assertThat(saved.getValue().getFilePath()).isEqualTo("text/abc123.json.gz");
+        assertThat(meterRegistry.get("text.extraction").tag("source", "document_intelligence").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("extract should read the stored text of the version without touching the original")
+    void extract_shouldReadStoredText() throws Exception {
+        ExtractedText stored = new ExtractedText("Stored text", List.of(new ExtractedText.PageSpan(1, 0, 11)),
+                ExtractedText.Source.LOCAL);
+        Rendition rendition = Rendition.builder()
+                .renditionType(RenditionType.TEXT)
+                .status(RenditionStatus.COMPLETED)
+                .filePath("text/abc123.json.gz")
+                .build();
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(version.getId(), RenditionType.TEXT))
+                .thenReturn(Optional.of(rendition));
+        when(blobStorageService.download("renditions", "text/abc123.json.gz")).thenReturn(gzipped(stored));
+
+        ExtractedText result = extractedTextService.extract(version, () -> {
+            throw new AssertionError("original must not be read");
+        });
+
+        assertThat(result).isEqualTo(stored);
+        verify(documentIntelligenceService, never()).analyzeAsync(any(), anyString());
+        verify(renditionRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("extract should reuse text stored for identical content and record it for this version")
+    void extract_shouldReuseTextOfSameContent() throws Exception {
+        ExtractedText stored = new ExtractedText("Shared text", List.of(), ExtractedText.Source.LOCAL);
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(version.getId(), RenditionType.TEXT))
+                .thenReturn(Optional.empty());
+        when(blobStorageService.exists("renditions", "text/abc123.json.gz")).thenReturn(true);
+        when(blobStorageService.download("renditions", "text/abc123.json.gz")).thenReturn(gzipped(stored));
+
+        String result = extractedTextService.text(version, () -> {
+            throw new AssertionError("original must not be read");
+        });
+
+        assertThat(result).isEqualTo("Shared text");
+        verify(documentIntelligenceService, never()).analyzeAsync(any(), anyString());
+        ArgumentCaptor<Rendition> saved = ArgumentCaptor.forClass(Rendition.class);
+        verify(renditionRepository).save(saved.capture());
+        assertThat(saved.getValue().getFilePath()).isEqualTo("text/abc123.json.gz");
+        assertThat(saved.getValue().getDocumentVersion()).isSameAs(version);
+    }
+
+    @Test
+    @DisplayName("extract should not store blank text so that a later run extracts again")
+    void extract_shouldNotStoreBlankText() {
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(version.getId(), RenditionType.TEXT))
+                .thenReturn(Optional.empty());
+        when(blobStorageService.exists("renditions", "text/abc123.json.gz")).thenReturn(false);
+        when(localTextExtractor.extract(any(InputStream.class), eq(PDF))).thenReturn(local("", 1, 0));
+        when(documentIntelligenceService.analyzeAsync(any(Path.class), eq(PDF)))
+                .thenReturn(Mono.just(new ExtractedText("", List.of(), ExtractedText.Source.DOCUMENT_INTELLIGENCE)));
+
+        assertThat(extractedTextService.text(version, () -> new ByteArrayInputStream(new byte[0]))).isEmpty();
+
+        verify(blobStorageService, never()).upload(anyString(), anyString(), any(), anyLong(), anyString());
+        verify(renditionRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("extract should keep readable local text and never call Document Intelligence")
+    void extract_shouldUseLocalTextWhenReadable() {
+        String text = "Quarterly delivery review for the retail programme";
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(version.getId(), RenditionType.TEXT))
+                .thenReturn(Optional.empty());
+        when(blobStorageService.exists("renditions", "text/abc123.json.gz")).thenReturn(false);
+        when(localTextExtractor.extract(any(InputStream.class), eq(PDF))).thenReturn(local(text, 2, 0));
+
+        ExtractedText result = extractedTextService.extract(version, () -> new ByteArrayInputStream("pdf".getBytes()));
+
+        assertThat(result.content()).isEqualTo(text);
+        assertThat(result.source()).isEqualTo(ExtractedText.Source.LOCAL);
+        verify(documentIntelligenceService, never()).analyzeAsync(any(), anyString());
+        verify(blobStorageService).upload(eq("renditions"), eq("text/abc123.json.gz"), any(InputStream.class),
+                anyLong(), eq("application/gzip"));
+        assertThat(meterRegistry.get("text.extraction").tag("source", "local").tag("content.type", PDF)
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("extract should fall back to Document Intelligence when local extraction fails")
+    void extract_shouldFallBackWhenLocalExtractionFails() {
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(version.getId(), RenditionType.TEXT))
+                .thenReturn(Optional.empty());
+        when(blobStorageService.exists("renditions", "text/abc123.json.gz")).thenReturn(false);
+        when(localTextExtractor.extract(any(InputStream.class), eq(PDF)))
+                .thenThrow(new RuntimeException("Corrupt file"));
+        when(documentIntelligenceService.analyzeAsync(any(Path.class), eq(PDF)))
+                .thenReturn(Mono.just(new ExtractedText("OCR text", List.of(), ExtractedText.Source.DOCUMENT_INTELLIGENCE)));
+
+        assertThat(extractedTextService.text(version, () -> new ByteArrayInputStream("pdf".getBytes())))
+                .isEqualTo("OCR text");
+    }
+
+    @Test
+    @DisplayName("readable should reject sparse text and mostly image-only pages")
+    void readable_shouldApplyQualityHeuristic() {
+        String perPage = "x".repeat(20);
+
+        assertThat(extractedTextService.readable(local(perPage.repeat(4), 4, 1))).isTrue();
+        assertThat(extractedTextService.readable(local(perPage.repeat(3), 4, 0))).isFalse();
+        assertThat(extractedTextService.readable(local(perPage.repeat(4), 4, 2))).isFalse();
+        assertThat(extractedTextService.readable(local("", 0, 0))).isFalse();
+    }
+
+    @Test
+    @DisplayName("extract should skip the local extractor when it is disabled")
+    void extract_shouldSkipLocalWhenDisabled() {
+        ReflectionTestUtils.setField(extractedTextService, "localEnabled", false);
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(version.getId(), RenditionType.TEXT))
+                .thenReturn(Optional.empty());
+        when(blobStorageService.exists("renditions", "text/abc123.json.gz")).thenReturn(false);
+        when(documentIntelligenceService.analyzeAsync(any(Path.class), eq(PDF)))
+                .thenReturn(Mono.just(new ExtractedText("OCR text", List.of(), ExtractedText.Source.DOCUMENT_INTELLIGENCE)));
+
+        extractedTextService.text(version, () -> new ByteArrayInputStream("pdf".getBytes()));
+
+        verify(localTextExtractor, never()).extract(any(), anyString());
+    }
+
+    @Test
+    @DisplayName("extractAsync should return before the analysis is done and store the text once it is")
+    void extractAsync_shouldNotWaitForAnalysis() {
+        Sinks.One<ExtractedText> analysis = Sinks.one();
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(version.getId(), RenditionType.TEXT))
+                .thenReturn(Optional.empty());
+        when(blobStorageService.exists("renditions", "text/abc123.json.gz")).thenReturn(false);
+        when(localTextExtractor.extract(any(InputStream.class), eq(PDF))).thenReturn(local("scan", 2, 2));
+        when(documentIntelligenceService.analyzeAsync(any(Path.class), eq(PDF))).thenReturn(analysis.asMono());
+
+        CompletableFuture<ExtractedText> result =
+                extractedTextService.extractAsync(version, () -> new ByteArrayInputStream("pdf".getBytes()));
+
+        assertThat(result).isNotDone();
+        verify(blobStorageService, never()).upload(anyString(), anyString(), any(), anyLong(), anyString());
+
+        analysis.tryEmitValue(new ExtractedText("OCR text", List.of(), ExtractedText.Source.DOCUMENT_INTELLIGENCE));
+
+        assertThat(result).isCompletedWithValueMatching(text -> text.content().equals("OCR text"));
+        verify(blobStorageService).upload(eq("renditions"), eq("text/abc123.json.gz"), any(InputStream.class),
+                anyLong(), eq("application/gzip"));
+    }
+
+    @Test
+    @DisplayName("extract should rethrow a failed analysis as it was raised")
+    void extract_shouldRethrowAnalysisFailure() {
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(version.getId(), RenditionType.TEXT))
+                .thenReturn(Optional.empty());
+        when(blobStorageService.exists("renditions", "text/abc123.json.gz")).thenReturn(false);
+        when(localTextExtractor.extract(any(InputStream.class), eq(PDF))).thenReturn(local("scan", 2, 2));
+        when(documentIntelligenceService.analyzeAsync(any(Path.class), eq(PDF)))
+                .thenReturn(Mono.error(new IllegalStateException("Document analysis ended with status FAILED")));
+
+        assertThatThrownBy(() -> extractedTextService.extract(version, () -> new ByteArrayInputStream("pdf".getBytes())))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("FAILED");
+        verify(renditionRepository, never()).save(any());
+    }
+}
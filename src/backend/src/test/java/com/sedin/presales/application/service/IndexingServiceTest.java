@@ -1,6 +1,7 @@
 package com.sedin.presales.application.service;
 
 import com.azure.search.documents.SearchDocument;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sedin.presales.domain.entity.Document;
 import com.sedin.presales.domain.entity.DocumentMetadata;
 import com.sedin.presales.domain.entity.DocumentType;
@@ -11,10 +12,11 @@ import com.sedin.presales.domain.enums.DocumentStatus;
 import com.sedin.presales.domain.repository.DocumentMetadataRepository;
 import com.sedin.presales.domain.repository.DocumentRepository;
 import com.sedin.presales.domain.repository.DocumentVersionRepository;
-import com.sedin.presales.infrastructure.ai.DocumentIntelligenceService;
 import com.sedin.presales.infrastructure.ai.EmbeddingService;
+import com.sedin.presales.infrastructure.ai.ExtractedText;
 import com.sedin.presales.infrastructure.search.AzureSearchService;
 import com.sedin.presales.infrastructure.storage.BlobStorageService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -22,20 +24,26 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -56,7 +64,7 @@ class IndexingServiceTest {
     private BlobStorageService blobStorageService;
 
     @Mock
-    private DocumentIntelligenceService documentIntelligenceService;
+    private ExtractedTextService extractedTextService;
 
     @Mock
     private EmbeddingService embeddingService;
@@ -64,12 +72,21 @@ class IndexingServiceTest {
     @Mock
     private AzureSearchService azureSearchService;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private IndexingService indexingService;
 
     @Captor
     private ArgumentCaptor<List<SearchDocument>> searchDocumentsCaptor;
 
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(indexingService, "containerEmbeddings", "embeddings");
+        ReflectionTestUtils.setField(indexingService, "embeddingDeployment", "text-embedding-3-small");
+    }
+
     @Test
     @DisplayName("indexDocument should extract text, chunk, embed, and upload to search index")
     void indexDocument_shouldExtractTextChunkEmbedAndUpload() {
@@ -122,7 +139,10 @@ class IndexingServiceTest {
         when(documentVersionRepository.findByDocumentIdAndVersionNumber(documentId, 1))
                 .thenReturn(Optional.of(version));
         when(blobStorageService.download("documents", version.getFilePath())).thenReturn(fileStream);
-        when(documentIntelligenceService.extractText(fileStream, "application/pdf")).thenReturn(extractedText);
+        when(extractedTextService.text(eq(version), any())).thenAnswer(invocation -> {
+            assertThat(invocation.<Supplier<InputStream>>getArgument(1).get()).isSameAs(fileStream);
+            return extractedText;
+        });
         when(embeddingService.generateEmbeddings(anyList()))
                 .thenReturn(List.of(List.of(0.1f, 0.2f, 0.3f)));
         when(documentMetadataRepository.findByDocumentId(documentId)).thenReturn(Optional.of(metadata));
@@ -131,7 +151,7 @@ class IndexingServiceTest {
         indexingService.indexDocument(documentId);
 
         verify(blobStorageService).download("documents", version.getFilePath());
-        verify(documentIntelligenceService).extractText(fileStream, "application/pdf");
+        verify(extractedTextService).text(eq(version), any());
         verify(embeddingService).generateEmbeddings(anyList());
         verify(azureSearchService).deleteDocumentChunks(documentId.toString());
         verify(azureSearchService).uploadDocuments(searchDocumentsCaptor.capture());
@@ -176,7 +196,10 @@ class IndexingServiceTest {
         when(documentVersionRepository.findByDocumentIdAndVersionNumber(documentId, 1))
                 .thenReturn(Optional.of(version));
         when(blobStorageService.download("documents", version.getFilePath())).thenReturn(fileStream);
-        when(documentIntelligenceService.extractText(fileStream, "application/pdf")).thenReturn("");
+        when(extractedTextService.text(eq(version), any())).thenAnswer(invocation -> {
+            invocation.<Supplier<InputStream>>getArgument(1).get();
+            return "";
+        });
 
         indexingService.indexDocument(documentId);
 
@@ -226,4 +249,112 @@ class IndexingServiceTest {
         List<String> chunks = indexingService.chunkText(null, 1000, 100);
         assertThat(chunks).isEmpty();
     }
+
+    @Test
+    @DisplayName("indexDocument should reuse cached chunk embeddings for known content")
+    void indexDocument_shouldReuseCachedEmbeddingsForContentHash() {
+        UUID documentId = UUID.randomUUID();
+
+        Document document = Document.builder()
+                .title("Test Document")
+                .status(DocumentStatus.ACTIVE)
+                .currentVersionNumber(1)
+                .ragIndexed(false)
+                .build();
+        document.setId(documentId);
+        document.setCreatedAt(Instant.now());
+
+        DocumentVersion version = DocumentVersion.builder()
+                .document(document)
+                .versionNumber(1)
+                .filePath("documents/" + documentId + "/1/test.pdf")
+                .contentType("application/pdf")
+                .contentHash("abc123")
+                .build();
+        version.setId(UUID.randomUUID());
+
+        String cached = "{\"chunks\":[\"cached chunk\"],\"embeddings\":[[0.1,0.2]]}";
+
+        when(documentRepository.findById(documentId)).thenReturn(Optional.of(document));
+        when(documentVersionRepository.findByDocumentIdAndVersionNumber(documentId, 1))
+                .thenReturn(Optional.of(version));
+        when(blobStorageService.exists(eq("embeddings"), startsWith("embeddings/abc123/text-embedding-3-small/")))
+                .thenReturn(true);
+        when(blobStorageService.download(eq("embeddings"), startsWith("embeddings/abc123/text-embedding-3-small/")))
+                .thenReturn(new ByteArrayInputStream(cached.getBytes(StandardCharsets.UTF_8)));
+        when(documentMetadataRepository.findByDocumentId(documentId)).thenReturn(Optional.empty());
+        when(documentRepository.save(any(Document.class))).thenReturn(document);
+
+        indexingService.indexDocument(documentId);
+
+        verify(extractedTextService, never()).text(any(), any());
+        verify(embeddingService, never()).generateEmbeddings(anyList());
+        verify(azureSearchService).uploadDocuments(searchDocumentsCaptor.capture());
+        assertThat(searchDocumentsCaptor.getValue()).hasSize(1);
+        assertThat(searchDocumentsCaptor.getValue().get(0).get("content")).isEqualTo("cached chunk");
+    }
+
+    @Test
+    @DisplayName("indexVersion should index the given version from supplied text without downloading it")
+    void indexVersion_shouldUseSuppliedText() {
+        UUID documentId = UUID.randomUUID();
+        UUID versionId = UUID.randomUUID();
+        Document document = Document.builder()
+                .title("Test Document")
+                .status(DocumentStatus.ACTIVE)
+                .currentVersionNumber(2)
+                .ragIndexed(true)
+                .build();
+        document.setId(documentId);
+        DocumentVersion version = DocumentVersion.builder()
+                .document(document)
+                .versionNumber(2)
+                .filePath("documents/" + documentId + "/2/test.pdf")
+                .fileName("test.pdf")
+                .contentType("application/pdf")
+                .build();
+        version.setId(versionId);
+
+        when(documentVersionRepository.findById(versionId)).thenReturn(Optional.of(version));
+        when(embeddingService.generateEmbeddings(anyList())).thenReturn(List.of(List.of(0.1f)));
+        when(documentMetadataRepository.findByDocumentId(documentId)).thenReturn(Optional.empty());
+
+        indexingService.indexVersion(versionId, () -> "Text extracted once by the ingest pipeline.");
+
+        verify(blobStorageService, never()).download(anyString(), anyString());
+        verify(extractedTextService, never()).text(any(), any());
+        verify(azureSearchService).uploadDocuments(searchDocumentsCaptor.capture());
+        assertThat(searchDocumentsCaptor.getValue()).singleElement()
+                .satisfies(doc -> assertThat(doc.get("versionId")).isEqualTo(versionId.toString()));
+        assertThat(document.getRagIndexed()).isTrue();
+    }
+
+    @Test
+    @DisplayName("prepareText should extract the text of the current version unless its content has embeddings")
+    void prepareText_shouldExtractUnlessEmbeddingsExist() {
+        UUID documentId = UUID.randomUUID();
+        Document document = Document.builder().title("Scanned Contract").currentVersionNumber(2).build();
+        document.setId(documentId);
+        DocumentVersion version = DocumentVersion.builder()
+                .document(document)
+                .versionNumber(2)
+                .filePath("documents/" + documentId + "/2/contract.pdf")
+                .contentType("application/pdf")
+                .contentHash("abc123")
+                .build();
+        when(documentRepository.findById(documentId)).thenReturn(Optional.of(document));
+        when(documentVersionRepository.findByDocumentIdAndVersionNumber(documentId, 2)).thenReturn(Optional.of(version));
+        when(blobStorageService.exists(eq("embeddings"), anyString())).thenReturn(false, true);
+        CompletableFuture<ExtractedText> ocr = new CompletableFuture<>();
+        when(extractedTextService.extractAsync(eq(version), any())).thenReturn(ocr);
+
+        CompletableFuture<Void> pending = indexingService.prepareText(documentId);
+        CompletableFuture<Void> cached = indexingService.prepareText(documentId);
+
+        assertThat(pending).isNotDone();
+        assertThat(cached).isDone();
+        ocr.completeExceptionally(new IllegalStateException("Document analysis ended with status FAILED"));
+        assertThat(pending).isCompleted();
+        verify(extractedTextService).extractAsync(eq(version), any());
+    }
 }
@@ -0,0 +1,293 @@
+package com.sedin.presales.application.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sedin.presales.domain.entity.DocumentVersion;
+import com.sedin.presales.domain.enums.IngestStep;
+import com.sedin.presales.domain.enums.JobPriority;
+import com.sedin.presales.domain.enums.JobType;
+import com.sedin.presales.domain.repository.DocumentVersionRepository;
+import com.sedin.presales.infrastructure.rendition.PptTextExtractor;
+import com.sedin.presales.infrastructure.storage.BlobStorageService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IngestPipelineServiceTest {
+
+    private static final String PPTX = "application/vnd.openxmlformats-officedocument.presentationml.presentation";
+
+    @Mock
+    private DocumentVersionRepository documentVersionRepository;
+
+    @Mock
+    private BlobStorageService blobStorageService;
+
+    @Mock
+    private ExtractedTextService extractedTextService;
+
+    @Mock
+    private PptTextExtractor pptTextExtractor;
+
+    @Mock
+    private RenditionService renditionService;
+
+    @Mock
+    private SummaryService summaryService;
+
+    @Mock
+    private CaseStudyValidationService caseStudyValidationService;
+
+    @Mock
+    private IndexingService indexingService;
+
+    @Mock
+    private JobQueueService jobQueueService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ExecutorService executor;
+    private IngestPipelineService ingestPipelineService;
+    private UUID versionId;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        ingestPipelineService = new IngestPipelineService(documentVersionRepository, blobStorageService,
+                extractedTextService, pptTextExtractor, renditionService, summaryService,
+                caseStudyValidationService, indexingService, objectMapper, jobQueueService, executor);
+
+        versionId = UUID.randomUUID();
+    }
+
+    private void stubVersion() {
+        DocumentVersion version = DocumentVersion.builder()
+                .filePath("documents/1/1/deck.pptx")
+                .fileName("deck.pptx")
+                .contentType(PPTX)
+                .build();
+        version.setId(versionId);
+        when(documentVersionRepository.findById(versionId)).thenReturn(Optional.of(version));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private void stubDownload() {
+        when(blobStorageService.download("documents", "documents/1/1/deck.pptx"))
+                .thenAnswer(invocation -> new ByteArrayInputStream("pptx-bytes".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Long> savedTimings() throws Exception {
+        ArgumentCaptor<String> json = ArgumentCaptor.forClass(String.class);
+        verify(documentVersionRepository).updateIngestTimings(eq(versionId), json.capture());
+        return objectMapper.readValue(json.getValue(), Map.class);
+    }
+
+    @Test
+    @DisplayName("run should download the original once and extract text once for all steps")
+    @SuppressWarnings("unchecked")
+    void run_shouldShareOneDownloadAndExtractionAcrossSteps() throws Exception {
+        stubVersion();
+        stubDownload();
+        when(extractedTextService.textAsync(any(DocumentVersion.class), any())).thenAnswer(invocation -> {
+            invocation.<Supplier<InputStream>>getArgument(1).get();
+            return CompletableFuture.completedFuture("extracted text");
+        });
+        when(pptTextExtractor.extractText(any(InputStream.class))).thenReturn("slide text");
+        doAnswer(invocation -> {
+            byte[] bytes = ((Supplier<InputStream>) invocation.getArgument(1)).get().readAllBytes();
+            assertThat(new String(bytes, StandardCharsets.UTF_8)).isEqualTo("pptx-bytes");
+            return null;
+        }).when(renditionService).processRendition(eq(versionId), any());
+        doAnswer(invocation -> {
+            assertThat(((Supplier<String>) invocation.getArgument(1)).get()).isEqualTo("extracted text");
+            return null;
+        }).when(summaryService).processSummary(eq(versionId), any());
+        doAnswer(invocation -> {
+            assertThat(((Supplier<String>) invocation.getArgument(1)).get()).isEqualTo("extracted text");
+            return null;
+        }).when(indexingService).indexVersion(eq(versionId), any());
+        doAnswer(invocation -> {
+            assertThat(((Supplier<String>) invocation.getArgument(1)).get()).isEqualTo("slide text");
+            return null;
+        }).when(caseStudyValidationService).validate(eq(versionId), any());
+
+        ingestPipelineService.run(versionId, EnumSet.allOf(IngestStep.class), JobPriority.NORMAL).join();
+
+        verify(blobStorageService, times(1)).download(anyString(), anyString());
+        verify(extractedTextService, times(1)).textAsync(any(DocumentVersion.class), any());
+        verify(pptTextExtractor, times(1)).extractText(any(InputStream.class));
+        assertThat(savedTimings()).containsKeys("download", "extract-text", "extract-slide-text", "pdf-rendition",
+                "summary", "case-study-validation", "index", "total");
+    }
+
+    @Test
+    @DisplayName("run should give each step its own stream over one local copy and delete it afterwards")
+    @SuppressWarnings("unchecked")
+    void run_shouldStreamLocalCopyToEachStepAndDeleteIt() throws Exception {
+        stubVersion();
+        stubDownload();
+        List<Path> before = localCopies();
+        List<InputStream> opened = new ArrayList<>();
+        doAnswer(invocation -> {
+            InputStream first = ((Supplier<InputStream>) invocation.getArgument(1)).get();
+            InputStream second = ((Supplier<InputStream>) invocation.getArgument(1)).get();
+            assertThat(first).isNotSameAs(second);
+            assertThat(new String(first.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("pptx-bytes");
+            assertThat(new String(second.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("pptx-bytes");
+            assertThat(localCopies()).hasSize(before.size() + 1);
+            opened.add(first);
+            opened.add(second);
+            return null;
+        }).when(renditionService).processRendition(eq(versionId), any());
+
+        ingestPipelineService.run(versionId, EnumSet.of(IngestStep.PDF_RENDITION), JobPriority.NORMAL).join();
+
+        for (InputStream in : opened) {
+            in.close();
+        }
+        assertThat(opened).hasSize(2);
+        assertThat(localCopies()).containsExactlyInAnyOrderElementsOf(before);
+        verify(blobStorageService, times(1)).download(anyString(), anyString());
+    }
+
+    private static List<Path> localCopies() throws Exception {
+        try (var files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(path -> path.getFileName().toString().startsWith("ingest-")).toList();
+        }
+    }
+
+    @Test
+    @DisplayName("run should not produce artifacts that no requested step needs")
+    void run_shouldSkipUnneededArtifacts() throws Exception {
+        stubVersion();
+        ingestPipelineService.run(versionId, EnumSet.of(IngestStep.PDF_RENDITION), JobPriority.NORMAL).join();
+
+        InOrder previewFirst = inOrder(renditionService);
+        previewFirst.verify(renditionService).processPreview(eq(versionId), any());
+        previewFirst.verify(renditionService).processRendition(eq(versionId), any());
+        verify(blobStorageService, never()).download(anyString(), anyString());
+        verify(extractedTextService, never()).textAsync(any(), any());
+        verify(summaryService, never()).processSummary(any(UUID.class), any());
+        assertThat(savedTimings()).containsOnlyKeys("pdf-rendition", "total");
+    }
+
+    @Test
+    @DisplayName("run should keep running other steps and record timings when one step fails")
+    void run_shouldIsolateFailingSteps() throws Exception {
+        stubVersion();
+        doThrow(new RuntimeException("Aspose failed")).when(renditionService).processRendition(eq(versionId), any());
+
+        ingestPipelineService.run(versionId, EnumSet.of(IngestStep.PDF_RENDITION, IngestStep.INDEX), JobPriority.NORMAL).join();
+
+        verify(indexingService).indexVersion(eq(versionId), any());
+        assertThat(savedTimings()).containsKeys("pdf-rendition", "index", "total");
+    }
+
+    @Test
+    @DisplayName("enqueue should queue an ingest job whose payload round-trips the requested steps")
+    void enqueue_shouldQueueIngestJobWithSteps() {
+        EnumSet<IngestStep> steps = EnumSet.of(IngestStep.PDF_RENDITION, IngestStep.INDEX);
+
+        ingestPipelineService.enqueue(versionId, steps);
+
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(jobQueueService).enqueue(eq(JobType.INGEST), eq(versionId), payload.capture(), eq(JobPriority.NORMAL));
+        assertThat(IngestPipelineService.parseSteps(payload.getValue())).isEqualTo(steps);
+    }
+
+    @Test
+    @DisplayName("run should not download the original when the text is already stored")
+    void run_shouldSkipDownloadWhenTextIsStored() throws Exception {
+        stubVersion();
+        when(extractedTextService.textAsync(any(DocumentVersion.class), any()))
+                .thenReturn(CompletableFuture.completedFuture("stored text"));
+        doAnswer(invocation -> {
+            assertThat(invocation.<Supplier<String>>getArgument(1).get()).isEqualTo("stored text");
+            return null;
+        }).when(indexingService).indexVersion(eq(versionId), any());
+
+        ingestPipelineService.run(versionId, EnumSet.of(IngestStep.INDEX), JobPriority.NORMAL).join();
+
+        verify(blobStorageService, never()).download(anyString(), anyString());
+        assertThat(savedTimings()).containsOnlyKeys("extract-text", "index", "total");
+    }
+
+    @Test
+    @DisplayName("run should return while its steps are still running and save timings once they finish")
+    void run_shouldReturnBeforeStepsFinish() throws Exception {
+        stubVersion();
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> release.await(5, TimeUnit.SECONDS)).when(renditionService).processRendition(eq(versionId), any());
+
+        CompletableFuture<Void> run = ingestPipelineService.run(versionId, EnumSet.of(IngestStep.PDF_RENDITION), JobPriority.NORMAL);
+
+        assertThat(run).isNotDone();
+        verify(documentVersionRepository, never()).updateIngestTimings(any(), anyString());
+
+        release.countDown();
+        run.get(5, TimeUnit.SECONDS);
+        assertThat(savedTimings()).containsKeys("pdf-rendition", "total");
+    }
+
+    @Test
+    @DisplayName("run should not hold a step thread while the text is out for OCR")
+    void run_shouldNotHoldStepThreadWhileTextIsPending() {
+        executor.shutdownNow();
+        executor = Executors.newSingleThreadExecutor();
+        ingestPipelineService = new IngestPipelineService(documentVersionRepository, blobStorageService,
+                extractedTextService, pptTextExtractor, renditionService, summaryService,
+                caseStudyValidationService, indexingService, objectMapper, jobQueueService, executor);
+        stubVersion();
+        CompletableFuture<String> ocr = new CompletableFuture<>();
+        when(extractedTextService.textAsync(any(DocumentVersion.class), any())).thenReturn(ocr);
+        // The rendition can only finish on the single step thread if the summary is not parked on it
+        doAnswer(invocation -> ocr.complete("scanned text")).when(renditionService).processRendition(eq(versionId), any());
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> ingestPipelineService.run(versionId, EnumSet.of(IngestStep.SUMMARY, IngestStep.PDF_RENDITION), JobPriority.NORMAL).join());
+
+        verify(summaryService).processSummary(eq(versionId), any());
+    }
+}
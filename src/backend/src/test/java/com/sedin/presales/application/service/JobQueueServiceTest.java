@@ -0,0 +1,201 @@
+package com.sedin.presales.application.service;
+
+import com.sedin.presales.domain.entity.Job;
+import com.sedin.presales.domain.enums.JobPriority;
+import com.sedin.presales.domain.enums.JobStatus;
+import com.sedin.presales.domain.enums.JobType;
+import com.sedin.presales.domain.repository.JobRepository;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JobQueueServiceTest {
+
+    private static final Instant NOW = Instant.parse("2025-06-01T12:00:00Z");
+    private static final String WORKER = "worker-1";
+
+    @Mock
+    private JobRepository jobRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private JobQueueService jobQueueService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        jobQueueService = new JobQueueService(jobRepository, meterRegistry);
+        ReflectionTestUtils.setField(jobQueueService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(jobQueueService, "visibilityTimeout", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(jobQueueService, "initialBackoff", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(jobQueueService, "maxBackoff", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(jobQueueService, "interactiveHeadStart", Duration.ofHours(1));
+        ReflectionTestUtils.setField(jobQueueService, "normalHeadStart", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(jobQueueService, "clock", Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    private Job job(JobStatus status, int attempts) {
+        Job job = Job.builder()
+                .type(JobType.PDF_RENDITION)
+                .status(status)
+                .resourceId(UUID.randomUUID())
+                .attempts(attempts)
+                .maxAttempts(3)
+                .runAt(NOW.minusSeconds(1))
+                .lockedBy(status == JobStatus.RUNNING ? WORKER : null)
+                .build();
+        job.setId(UUID.randomUUID());
+        return job;
+    }
+
+    @Test
+    @DisplayName("enqueue should store a queued job of normal priority that is due immediately")
+    void enqueue_shouldStoreDueJob() {
+        UUID versionId = UUID.randomUUID();
+        when(jobRepository.save(any(Job.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        jobQueueService.enqueue(JobType.SUMMARY, versionId);
+
+        ArgumentCaptor<Job> saved = ArgumentCaptor.forClass(Job.class);
+        verify(jobRepository).save(saved.capture());
+        assertThat(saved.getValue().getType()).isEqualTo(JobType.SUMMARY);
+        assertThat(saved.getValue().getStatus()).isEqualTo(JobStatus.QUEUED);
+        assertThat(saved.getValue().getResourceId()).isEqualTo(versionId);
+        assertThat(saved.getValue().getMaxAttempts()).isEqualTo(3);
+        assertThat(saved.getValue().getRunAt()).isEqualTo(NOW);
+        assertThat(saved.getValue().getPriority()).isEqualTo(JobPriority.NORMAL);
+        assertThat(saved.getValue().getEffectiveRunAt()).isEqualTo(NOW.minus(Duration.ofMinutes(10)));
+    }
+
+    @Test
+    @DisplayName("enqueue should move a job up the line by the head start of its priority")
+    void enqueue_shouldSetEffectiveRunAtFromPriority() {
+        when(jobRepository.save(any(Job.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Job interactive = jobQueueService.enqueue(JobType.PDF_RENDITION, UUID.randomUUID(), null, JobPriority.INTERACTIVE);
+        Job background = jobQueueService.enqueue(JobType.PDF_RENDITION, UUID.randomUUID(), null, JobPriority.BACKGROUND);
+
+        assertThat(interactive.getEffectiveRunAt()).isEqualTo(NOW.minus(Duration.ofHours(1)));
+        assertThat(background.getEffectiveRunAt()).isEqualTo(NOW);
+    }
+
+    @Test
+    @DisplayName("claim should lease visible jobs and dead-letter expired leases on their last attempt")
+    void claim_shouldLeaseJobsAndDeadLetterExhaustedLeases() {
+        Job queued = job(JobStatus.QUEUED, 0);
+        Job expiredLease = job(JobStatus.RUNNING, 1);
+        Job exhausted = job(JobStatus.RUNNING, 3);
+        when(jobRepository.lockVisible("PDF_RENDITION", NOW, 3))
+                .thenReturn(List.of(queued, expiredLease, exhausted));
+
+        List<Job> claimed = jobQueueService.claim(JobType.PDF_RENDITION, "worker-2", 3);
+
+        assertThat(claimed).containsExactly(queued, expiredLease);
+        assertThat(queued.getStatus()).isEqualTo(JobStatus.RUNNING);
+        assertThat(queued.getLockedBy()).isEqualTo("worker-2");
+        assertThat(queued.getAttempts()).isEqualTo(1);
+        assertThat(queued.getRunAt()).isEqualTo(NOW.plus(Duration.ofMinutes(10)));
+        assertThat(expiredLease.getAttempts()).isEqualTo(2);
+        assertThat(exhausted.getStatus()).isEqualTo(JobStatus.DEAD);
+        assertThat(exhausted.getLastError()).contains("Lease expired");
+    }
+
+    @Test
+    @DisplayName("claim should record how long each queued job waited after becoming due, by type and priority")
+    void claim_shouldRecordQueueWaitPerPriority() {
+        Job background = job(JobStatus.QUEUED, 0);
+        background.setPriority(JobPriority.BACKGROUND);
+        background.setRunAt(NOW.minusSeconds(90));
+        when(jobRepository.lockVisible("PDF_RENDITION", NOW, 1)).thenReturn(List.of(background));
+
+        jobQueueService.claim(JobType.PDF_RENDITION, WORKER, 1);
+
+        Timer wait = meterRegistry.find("jobs.queue.wait")
+                .tags("type", "pdf-rendition", "priority", "background").timer();
+        assertThat(wait).isNotNull();
+        assertThat(wait.count()).isEqualTo(1);
+        assertThat(wait.totalTime(TimeUnit.SECONDS)).isEqualTo(90.0);
+    }
+
+    @Test
+    @DisplayName("promote should raise only queued jobs of a lower priority")
+    void promote_shouldRaiseLowerPriorities() {
+        UUID versionId = UUID.randomUUID();
+        when(jobRepository.promote(versionId, "INTERACTIVE", 3600L, List.of("NORMAL", "BACKGROUND")))
+                .thenReturn(2);
+
+        assertThat(jobQueueService.promote(versionId, JobPriority.INTERACTIVE)).isEqualTo(2);
+        assertThat(jobQueueService.promote(versionId, JobPriority.BACKGROUND)).isZero();
+
+        verify(jobRepository, never()).promote(eq(versionId), eq("BACKGROUND"), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("fail should requeue with exponential backoff until attempts run out, then dead-letter")
+    void fail_shouldBackOffThenDeadLetter() {
+        Job running = job(JobStatus.RUNNING, 2);
+        when(jobRepository.findById(running.getId())).thenReturn(Optional.of(running));
+
+        jobQueueService.fail(running.getId(), WORKER, new IllegalStateException("Aspose crashed"));
+
+        assertThat(running.getStatus()).isEqualTo(JobStatus.QUEUED);
+        assertThat(running.getRunAt()).isEqualTo(NOW.plus(Duration.ofMinutes(1)));
+        assertThat(running.getEffectiveRunAt()).isEqualTo(NOW.plus(Duration.ofMinutes(1)).minus(Duration.ofMinutes(10)));
+        assertThat(running.getLastError()).isEqualTo("IllegalStateException: Aspose crashed");
+        assertThat(running.getLockedBy()).isNull();
+
+        running.setStatus(JobStatus.RUNNING);
+        running.setLockedBy(WORKER);
+        running.setAttempts(3);
+        jobQueueService.fail(running.getId(), WORKER, new IllegalStateException("Aspose crashed again"));
+
+        assertThat(running.getStatus()).isEqualTo(JobStatus.DEAD);
+        assertThat(running.getCompletedAt()).isEqualTo(NOW);
+    }
+
+    @Test
+    @DisplayName("complete should ignore workers that lost their lease")
+    void complete_shouldIgnoreLostLease() {
+        Job reclaimed = job(JobStatus.RUNNING, 2);
+        reclaimed.setLockedBy("worker-2");
+        when(jobRepository.findById(reclaimed.getId())).thenReturn(Optional.of(reclaimed));
+
+        jobQueueService.complete(reclaimed.getId(), WORKER);
+
+        assertThat(reclaimed.getStatus()).isEqualTo(JobStatus.RUNNING);
+        assertThat(reclaimed.getLockedBy()).isEqualTo("worker-2");
+    }
+
+    @Test
+    @DisplayName("backoff should double per attempt up to the configured maximum")
+    void backoff_shouldDoubleUpToMaximum() {
+        assertThat(jobQueueService.backoff(1)).isEqualTo(Duration.ofSeconds(30));
+        assertThat(jobQueueService.backoff(2)).isEqualTo(Duration.ofMinutes(1));
+        assertThat(jobQueueService.backoff(4)).isEqualTo(Duration.ofMinutes(4));
+        assertThat(jobQueueService.backoff(10)).isEqualTo(Duration.ofMinutes(5));
+    }
+}
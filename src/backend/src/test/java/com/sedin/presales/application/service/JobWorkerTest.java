@@ -0,0 +1,281 @@
+package com.sedin.presales.application.service;
+
+import com.sedin.presales.domain.entity.Job;
+import com.sedin.presales.domain.enums.IngestStep;
+import com.sedin.presales.domain.enums.JobPriority;
+import com.sedin.presales.domain.enums.JobType;
+import com.sedin.presales.infrastructure.rendition.ConversionPriority;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JobWorkerTest {
+
+    @Mock
+    private JobQueueService jobQueueService;
+
+    @Mock
+    private IngestPipelineService ingestPipelineService;
+
+    @Mock
+    private RenditionService renditionService;
+
+    @Mock
+    private SummaryService summaryService;
+
+    @Mock
+    private IndexingService indexingService;
+
+    @Mock
+    private CaseStudyValidationService caseStudyValidationService;
+
+    @Mock
+    private CaseStudyFormattingService caseStudyFormattingService;
+
+    @Mock
+    private RenditionBackfillService renditionBackfillService;
+
+    @Mock
+    private BulkIngestProcessor bulkIngestProcessor;
+
+    private JobWorker jobWorker;
+
+    @BeforeEach
+    void setUp() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("app.jobs.concurrency.pdf-rendition", "2")
+                .withProperty("app.jobs.concurrency.ingest", "1")
+                .withProperty("app.jobs.concurrency.rendition-backfill", "1");
+        for (JobType type : EnumSet.complementOf(EnumSet.of(JobType.PDF_RENDITION, JobType.INGEST, JobType.RENDITION_BACKFILL))) {
+            environment.setProperty("app.jobs.concurrency." + type.key(), "0");
+        }
+        jobWorker = new JobWorker(jobQueueService, ingestPipelineService, renditionService, summaryService,
+                indexingService, caseStudyValidationService, caseStudyFormattingService, renditionBackfillService,
+                bulkIngestProcessor, environment);
+        jobWorker.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        jobWorker.stop();
+    }
+
+    private Job job(JobType type, String payload) {
+        Job job = Job.builder().type(type).resourceId(UUID.randomUUID()).payload(payload).attempts(1).maxAttempts(5).build();
+        job.setId(UUID.randomUUID());
+        return job;
+    }
+
+    @Test
+    @DisplayName("poll should claim only enabled types, up to their free threads")
+    void poll_shouldClaimPerTypeUpToConcurrency() {
+        when(jobQueueService.claim(eq(JobType.PDF_RENDITION), anyString(), anyInt())).thenReturn(List.of());
+        when(jobQueueService.claim(eq(JobType.INGEST), anyString(), anyInt())).thenReturn(List.of());
+
+        jobWorker.poll();
+
+        verify(jobQueueService).claim(eq(JobType.PDF_RENDITION), anyString(), eq(2));
+        verify(jobQueueService).claim(eq(JobType.INGEST), anyString(), eq(1));
+        verify(jobQueueService, never()).claim(eq(JobType.SUMMARY), anyString(), anyInt());
+    }
+
+    @Test
+    @DisplayName("execute should dispatch the job to its handler and complete it")
+    void execute_shouldDispatchAndComplete() {
+        Job job = job(JobType.INGEST, "PDF_RENDITION,SUMMARY");
+        when(jobQueueService.claim(eq(JobType.INGEST), anyString(), anyInt())).thenReturn(List.of(job));
+        when(jobQueueService.claim(eq(JobType.PDF_RENDITION), anyString(), anyInt())).thenReturn(List.of());
+        when(ingestPipelineService.run(job.getResourceId(), EnumSet.of(IngestStep.PDF_RENDITION, IngestStep.SUMMARY), JobPriority.NORMAL))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        jobWorker.poll();
+
+        verify(ingestPipelineService, timeout(5000))
+                .run(job.getResourceId(), EnumSet.of(IngestStep.PDF_RENDITION, IngestStep.SUMMARY), JobPriority.NORMAL);
+        verify(jobQueueService, timeout(5000)).complete(eq(job.getId()), anyString());
+    }
+
+    @Test
+    @DisplayName("execute should hold an ingest job's slot, not its thread, until the pipeline finishes")
+    void execute_shouldCompleteIngestWhenPipelineFinishes() {
+        Job job = job(JobType.INGEST, "PDF_RENDITION");
+        CompletableFuture<Void> pipeline = new CompletableFuture<>();
+        when(jobQueueService.claim(eq(JobType.INGEST), anyString(), anyInt())).thenReturn(List.of(job), List.of());
+        when(ingestPipelineService.run(job.getResourceId(), EnumSet.of(IngestStep.PDF_RENDITION), JobPriority.NORMAL)).thenReturn(pipeline);
+
+        jobWorker.poll();
+        verify(ingestPipelineService, timeout(5000)).run(job.getResourceId(), EnumSet.of(IngestStep.PDF_RENDITION), JobPriority.NORMAL);
+
+        // The only ingest slot is still taken, so nothing more is claimed while the pipeline runs
+        jobWorker.poll();
+        verify(jobQueueService, times(1)).claim(eq(JobType.INGEST), anyString(), anyInt());
+        verify(jobQueueService, never()).complete(any(), anyString());
+
+        // Complete once the worker is listening, so the job finishes on this thread before the next poll
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (pipeline.getNumberOfDependents() == 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        pipeline.complete(null);
+
+        verify(jobQueueService).complete(eq(job.getId()), anyString());
+        jobWorker.poll();
+        verify(jobQueueService, times(2)).claim(eq(JobType.INGEST), anyString(), eq(1));
+    }
+
+    @Test
+    @DisplayName("execute should fail an ingest job whose pipeline fails")
+    void execute_shouldFailIngestWhenPipelineFails() {
+        Job job = job(JobType.INGEST, "INDEX");
+        RuntimeException failure = new RuntimeException("Step executor rejected the run");
+        CompletableFuture<Void> pipeline = new CompletableFuture<>();
+        when(ingestPipelineService.run(job.getResourceId(), EnumSet.of(IngestStep.INDEX), JobPriority.NORMAL)).thenReturn(pipeline);
+
+        jobWorker.execute(job);
+        pipeline.completeExceptionally(new CompletionException(failure));
+
+        verify(jobQueueService).fail(eq(job.getId()), anyString(), eq(failure));
+        verify(jobQueueService, never()).complete(any(), anyString());
+    }
+
+    @Test
+    @DisplayName("execute should report a failing job so it can be retried")
+    void execute_shouldReportFailure() {
+        Job job = job(JobType.PDF_RENDITION, null);
+        RuntimeException failure = new RuntimeException("Aspose crashed");
+        doThrow(failure).when(renditionService).processRendition(job.getResourceId());
+
+        jobWorker.execute(job);
+
+        verify(jobQueueService).fail(eq(job.getId()), anyString(), eq(failure));
+        verify(jobQueueService, never()).complete(any(), anyString());
+    }
+
+    @Test
+    @DisplayName("execute should pass a backfill job's version and backfill id to the backfill service")
+    void execute_shouldDispatchRenditionBackfill() {
+        UUID backfillId = UUID.randomUUID();
+        Job job = job(JobType.RENDITION_BACKFILL, backfillId.toString());
+
+        jobWorker.execute(job);
+
+        verify(renditionBackfillService).processVersion(backfillId, job.getResourceId(), false);
+        verify(jobQueueService).complete(eq(job.getId()), anyString());
+    }
+
+    @Test
+    @DisplayName("execute should run a job at its priority, so its conversions queue for a worker behind interactive ones")
+    void execute_shouldRunAtJobPriority() {
+        UUID backfillId = UUID.randomUUID();
+        Job job = job(JobType.RENDITION_BACKFILL, backfillId.toString());
+        job.setPriority(JobPriority.BACKGROUND);
+        List<JobPriority> seen = new ArrayList<>();
+        doAnswer(invocation -> seen.add(ConversionPriority.current()))
+                .when(renditionBackfillService).processVersion(backfillId, job.getResourceId(), false);
+
+        jobWorker.execute(job);
+
+        assertThat(seen).containsExactly(JobPriority.BACKGROUND);
+        assertThat(ConversionPriority.current()).isEqualTo(JobPriority.NORMAL);
+    }
+
+    @Test
+    @DisplayName("execute should give the thread back while a summary job's text is out for OCR")
+    void execute_shouldReleaseThreadWhileTextIsPending() throws InterruptedException {
+        startSummaryWorker(1);
+        Job job = job(JobType.SUMMARY, null);
+        CompletableFuture<Void> ocr = new CompletableFuture<>();
+        when(summaryService.prepareText(job.getResourceId())).thenReturn(ocr);
+
+        jobWorker.execute(job);
+
+        verify(summaryService, never()).processSummary(any(UUID.class));
+        // The one job allowed to wait for text is waiting, so no more are claimed
+        jobWorker.poll();
+        verify(jobQueueService, never()).claim(eq(JobType.SUMMARY), anyString(), anyInt());
+
+        ocr.complete(null);
+
+        verify(summaryService, timeout(5000)).processSummary(job.getResourceId());
+        verify(jobQueueService, timeout(5000)).complete(eq(job.getId()), anyString());
+    }
+
+    @Test
+    @DisplayName("a job whose text arrives should wait for a free slot rather than run beside the job that took it")
+    void execute_shouldResumeWithinConcurrency() throws InterruptedException {
+        startSummaryWorker(2);
+        Job parked = job(JobType.SUMMARY, null);
+        Job next = job(JobType.SUMMARY, null);
+        CompletableFuture<Void> ocr = new CompletableFuture<>();
+        CountDownLatch nextStarted = new CountDownLatch(1);
+        CountDownLatch nextMayFinish = new CountDownLatch(1);
+        when(jobQueueService.claim(eq(JobType.SUMMARY), anyString(), anyInt()))
+                .thenReturn(List.of(parked), List.of(next), List.of());
+        when(summaryService.prepareText(parked.getResourceId())).thenReturn(ocr);
+        when(summaryService.prepareText(next.getResourceId())).thenReturn(CompletableFuture.completedFuture(null));
+        doAnswer(invocation -> {
+            nextStarted.countDown();
+            nextMayFinish.await();
+            return null;
+        }).when(summaryService).processSummary(next.getResourceId());
+
+        // The parked job lends its only slot to the next claim
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!nextStarted.await(20, TimeUnit.MILLISECONDS) && System.nanoTime() < deadline) {
+            jobWorker.poll();
+        }
+        ocr.complete(null);
+
+        verify(summaryService, after(300).never()).processSummary(parked.getResourceId());
+        jobWorker.poll();
+        verify(jobQueueService, times(2)).claim(eq(JobType.SUMMARY), anyString(), eq(1));
+
+        nextMayFinish.countDown();
+
+        verify(summaryService, timeout(5000)).processSummary(parked.getResourceId());
+        verify(jobQueueService, timeout(5000)).complete(eq(parked.getId()), anyString());
+    }
+
+    private void startSummaryWorker(int maxAwaitingText) throws InterruptedException {
+        jobWorker.stop();
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("app.jobs.concurrency.summary", "1")
+                .withProperty("app.jobs.max-awaiting-text", String.valueOf(maxAwaitingText));
+        for (JobType type : EnumSet.complementOf(EnumSet.of(JobType.SUMMARY))) {
+            environment.setProperty("app.jobs.concurrency." + type.key(), "0");
+        }
+        jobWorker = new JobWorker(jobQueueService, ingestPipelineService, renditionService, summaryService,
+                indexingService, caseStudyValidationService, caseStudyFormattingService, renditionBackfillService,
+                bulkIngestProcessor, environment);
+        jobWorker.start();
+    }
+}
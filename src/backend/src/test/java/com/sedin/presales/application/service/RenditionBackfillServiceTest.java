@@ -0,0 +1,296 @@
+package com.sedin.presales.application.service;
+
+import com.sedin.presales.application.dto.RenditionBackfillDto;
+import com.sedin.presales.application.dto.StartRenditionBackfillRequest;
+import com.sedin.presales.application.exception.BadRequestException;
+import com.sedin.presales.application.exception.ResourceNotFoundException;
+import com.sedin.presales.domain.entity.DocumentVersion;
+import com.sedin.presales.domain.entity.RenditionBackfill;
+import com.sedin.presales.domain.enums.JobPriority;
+import com.sedin.presales.domain.enums.JobType;
+import com.sedin.presales.domain.enums.RenditionBackfillStatus;
+import com.sedin.presales.domain.enums.RenditionType;
+import com.sedin.presales.domain.repository.DocumentVersionRepository;
+import com.sedin.presales.domain.repository.RenditionBackfillRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RenditionBackfillServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-01T12:00:00Z");
+
+    @Mock
+    private RenditionBackfillRepository renditionBackfillRepository;
+
+    @Mock
+    private DocumentVersionRepository documentVersionRepository;
+
+    @Mock
+    private JobQueueService jobQueueService;
+
+    @Mock
+    private RenditionService renditionService;
+
+    @InjectMocks
+    private RenditionBackfillService renditionBackfillService;
+
+    private final UUID backfillId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(renditionBackfillService, "clock", Clock.fixed(NOW, ZoneOffset.UTC));
+        ReflectionTestUtils.setField(renditionBackfillService, "defaultRatePerMinute", 30);
+        ReflectionTestUtils.setField(renditionBackfillService, "defaultMaxInFlight", 4);
+    }
+
+    private RenditionBackfill.RenditionBackfillBuilder<?, ?> backfill() {
+        return RenditionBackfill.builder()
+                .id(backfillId)
+                .createdTo(NOW.minus(Duration.ofDays(1)))
+                .ratePerMinute(30)
+                .maxInFlight(4)
+                .createdAt(NOW.minus(Duration.ofMinutes(10)));
+    }
+
+    private List<DocumentVersion> versions(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> DocumentVersion.builder().id(UUID.randomUUID())
+                        .createdAt(NOW.minus(Duration.ofDays(30 - i))).build())
+                .toList();
+    }
+
+    private void stubNextPage(List<DocumentVersion> versions) {
+        when(documentVersionRepository.findBy(ArgumentMatchers.<Specification<DocumentVersion>>any(), any()))
+                .thenReturn(versions);
+    }
+
+    @Test
+    @DisplayName("start should apply defaults, cap the window at now and count the selected versions")
+    void start_shouldCountSelectionAndApplyDefaults() {
+        when(documentVersionRepository.count(ArgumentMatchers.<Specification<DocumentVersion>>any())).thenReturn(42L);
+        when(renditionBackfillRepository.save(any(RenditionBackfill.class))).thenAnswer(invocation -> {
+            RenditionBackfill saved = invocation.getArgument(0);
+            saved.setId(backfillId);
+            return saved;
+        });
+
+        RenditionBackfillDto result = renditionBackfillService.start(StartRenditionBackfillRequest.builder()
+                .contentTypes(List.of("application/msword", " "))
+                .createdTo(NOW.plus(Duration.ofDays(1)))
+                .build());
+
+        ArgumentCaptor<RenditionBackfill> captor = ArgumentCaptor.forClass(RenditionBackfill.class);
+        verify(renditionBackfillRepository).save(captor.capture());
+        RenditionBackfill saved = captor.getValue();
+        assertThat(saved.getCreatedTo()).isEqualTo(NOW);
+        assertThat(saved.getContentTypes()).isEqualTo("application/msword");
+        assertThat(saved.getRatePerMinute()).isEqualTo(30);
+        assertThat(saved.getMaxInFlight()).isEqualTo(4);
+        assertThat(result.getTotalVersions()).isEqualTo(42);
+        assertThat(result.getStatus()).isEqualTo(RenditionBackfillStatus.RUNNING);
+    }
+
+    @Test
+    @DisplayName("start should reject a window that ends before it starts")
+    void start_shouldRejectEmptyWindow() {
+        assertThatThrownBy(() -> renditionBackfillService.start(StartRenditionBackfillRequest.builder()
+                .createdFrom(NOW.minus(Duration.ofDays(1)))
+                .createdTo(NOW.minus(Duration.ofDays(2)))
+                .build()))
+                .isInstanceOf(BadRequestException.class);
+
+        verify(renditionBackfillRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("advance should queue up to the in-flight cap and checkpoint the cursor with the jobs")
+    void advance_shouldQueueUpToInFlightCapAndCheckpoint() {
+        when(renditionBackfillRepository.lockRunning()).thenReturn(List.of(backfill().build()));
+        List<DocumentVersion> page = versions(4);
+        stubNextPage(page);
+
+        renditionBackfillService.advance();
+
+        for (DocumentVersion version : page) {
+            verify(jobQueueService).enqueue(JobType.RENDITION_BACKFILL, version.getId(), backfillId.toString(),
+                    JobPriority.BACKGROUND);
+        }
+        DocumentVersion last = page.get(3);
+        // A minute's credit at 30 a minute, of which 4 were used at 2 seconds each
+        verify(renditionBackfillRepository).recordEnqueued(backfillId, 4, last.getCreatedAt(), last.getId(), false,
+                NOW.minus(Duration.ofMinutes(1)).plus(Duration.ofSeconds(8)));
+    }
+
+    @Test
+    @DisplayName("advance should hold back until the rate allows another version")
+    void advance_shouldRespectRate() {
+        when(renditionBackfillRepository.lockRunning()).thenReturn(List.of(backfill()
+                .lastEnqueuedAt(NOW.minus(Duration.ofSeconds(1)))
+                .build()));
+
+        renditionBackfillService.advance();
+
+        verify(documentVersionRepository, never()).findBy(ArgumentMatchers.<Specification<DocumentVersion>>any(), any());
+        verify(renditionBackfillRepository, never()).recordEnqueued(any(), anyInt(), any(), any(), anyBoolean(), any());
+    }
+
+    @Test
+    @DisplayName("advance should not queue more while the in-flight cap is reached")
+    void advance_shouldRespectInFlightCap() {
+        when(renditionBackfillRepository.lockRunning()).thenReturn(List.of(backfill()
+                .enqueuedVersions(10).completedVersions(5).failedVersions(1)
+                .build()));
+
+        renditionBackfillService.advance();
+
+        verify(jobQueueService, never()).enqueue(any(), any(), any(), any(JobPriority.class));
+    }
+
+    @Test
+    @DisplayName("advance should mark the selection exhausted when a page comes back short")
+    void advance_shouldMarkSelectionExhausted() {
+        when(renditionBackfillRepository.lockRunning()).thenReturn(List.of(backfill().build()));
+        List<DocumentVersion> page = versions(1);
+        stubNextPage(page);
+
+        renditionBackfillService.advance();
+
+        verify(renditionBackfillRepository).recordEnqueued(eq(backfillId), eq(1), eq(page.get(0).getCreatedAt()),
+                eq(page.get(0).getId()), eq(true), any());
+    }
+
+    @Test
+    @DisplayName("advance should complete an exhausted backfill once nothing is in flight")
+    void advance_shouldCompleteWhenDrained() {
+        when(renditionBackfillRepository.lockRunning()).thenReturn(List.of(backfill()
+                .selectionExhausted(true).enqueuedVersions(3).completedVersions(2).failedVersions(1)
+                .build()));
+        when(renditionBackfillRepository.finish(backfillId, RenditionBackfillStatus.COMPLETED, NOW)).thenReturn(1);
+
+        renditionBackfillService.advance();
+
+        verify(renditionBackfillRepository).finish(backfillId, RenditionBackfillStatus.COMPLETED, NOW);
+        verify(documentVersionRepository, never()).findBy(ArgumentMatchers.<Specification<DocumentVersion>>any(), any());
+    }
+
+    @Test
+    @DisplayName("processVersion should count successful and failed re-renders")
+    void processVersion_shouldCountOutcome() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        when(renditionBackfillRepository.findById(backfillId)).thenReturn(Optional.of(backfill().build()));
+        when(renditionService.rerender(first)).thenReturn(true);
+        when(renditionService.rerender(second)).thenReturn(false);
+
+        renditionBackfillService.processVersion(backfillId, first, false);
+        renditionBackfillService.processVersion(backfillId, second, false);
+
+        verify(renditionBackfillRepository).incrementCompleted(backfillId);
+        verify(renditionBackfillRepository).incrementFailed(backfillId);
+    }
+
+    @Test
+    @DisplayName("processVersion should count a version whose re-render throws as failed")
+    void processVersion_shouldCountUnexpectedErrorAsFailed() {
+        UUID versionId = UUID.randomUUID();
+        when(renditionBackfillRepository.findById(backfillId)).thenReturn(Optional.of(backfill().build()));
+        when(renditionService.rerender(versionId)).thenThrow(new IllegalStateException("blob store unavailable"));
+
+        renditionBackfillService.processVersion(backfillId, versionId, false);
+
+        verify(renditionBackfillRepository).incrementFailed(backfillId);
+    }
+
+    @Test
+    @DisplayName("processVersion should retry a version still being rendered, counting it only on the last attempt")
+    void processVersion_shouldRetryRenditionInProgress() {
+        UUID versionId = UUID.randomUUID();
+        when(renditionBackfillRepository.findById(backfillId)).thenReturn(Optional.of(backfill().build()));
+        RenditionService.RenditionInProgressException inProgress = new RenditionService.RenditionInProgressException(
+                versionId, RenditionType.PDF);
+        when(renditionService.rerender(versionId)).thenThrow(inProgress);
+
+        assertThatThrownBy(() -> renditionBackfillService.processVersion(backfillId, versionId, false)).isSameAs(inProgress);
+        verify(renditionBackfillRepository, never()).incrementFailed(any());
+
+        renditionBackfillService.processVersion(backfillId, versionId, true);
+
+        verify(renditionBackfillRepository).incrementFailed(backfillId);
+        verify(renditionBackfillRepository, never()).incrementCompleted(any());
+    }
+
+    @Test
+    @DisplayName("processVersion should skip versions of a cancelled backfill")
+    void processVersion_shouldSkipCancelledBackfill() {
+        when(renditionBackfillRepository.findById(backfillId)).thenReturn(Optional.of(backfill()
+                .status(RenditionBackfillStatus.CANCELLED).build()));
+
+        renditionBackfillService.processVersion(backfillId, UUID.randomUUID(), false);
+
+        verify(renditionService, never()).rerender(any());
+        verify(renditionBackfillRepository, never()).incrementCompleted(any());
+    }
+
+    @Test
+    @DisplayName("get should report throughput and an estimated completion time")
+    void get_shouldEstimateCompletion() {
+        when(renditionBackfillRepository.findById(backfillId)).thenReturn(Optional.of(backfill()
+                .totalVersions(40).enqueuedVersions(24).completedVersions(18).failedVersions(2)
+                .build()));
+
+        RenditionBackfillDto result = renditionBackfillService.get(backfillId);
+
+        assertThat(result.getPercentComplete()).isEqualTo(50.0);
+        assertThat(result.getVersionsPerMinute()).isEqualTo(2.0);
+        assertThat(result.getEstimatedCompletionAt()).isEqualTo(NOW.plus(Duration.ofMinutes(10)));
+    }
+
+    @Test
+    @DisplayName("cancel should reject a backfill that has already finished")
+    void cancel_shouldRejectFinishedBackfill() {
+        when(renditionBackfillRepository.findById(backfillId)).thenReturn(Optional.of(backfill()
+                .status(RenditionBackfillStatus.COMPLETED).build()));
+        when(renditionBackfillRepository.finish(backfillId, RenditionBackfillStatus.CANCELLED, NOW)).thenReturn(0);
+
+        assertThatThrownBy(() -> renditionBackfillService.cancel(backfillId)).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    @DisplayName("get should throw when the backfill does not exist")
+    void get_shouldThrowWhenMissing() {
+        when(renditionBackfillRepository.findById(backfillId)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> renditionBackfillService.get(backfillId)).isInstanceOf(ResourceNotFoundException.class);
+        verify(renditionBackfillRepository, times(1)).findById(backfillId);
+    }
+}
@@ -1,5 +1,6 @@
 package com.sedin.presales.application.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sedin.presales.application.dto.RenditionDto;
 import com.sedin.presales.application.exception.ResourceNotFoundException;
 import com.sedin.presales.domain.entity.DocumentVersion;
@@ -8,18 +9,29 @@ import com.sedin.presales.domain.enums.RenditionStatus;
 import com.sedin.presales.domain.enums.RenditionType;
 import com.sedin.presales.domain.repository.DocumentVersionRepository;
 import com.sedin.presales.domain.repository.RenditionRepository;
+import com.sedin.presales.infrastructure.rendition.ConversionStats;
+import com.sedin.presales.infrastructure.rendition.ImageSink;
 import com.sedin.presales.infrastructure.rendition.PdfRenditionService;
 import com.sedin.presales.infrastructure.storage.BlobStorageService;
+import com.sedin.presales.infrastructure.storage.BlockUploadOutputStream;
+import com.sedin.presales.infrastructure.storage.ContentHashes;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
@@ -29,8 +41,12 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.matches;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -50,11 +66,37 @@ class RenditionServiceTest {
     @Mock
     private BlobStorageService blobStorageService;
 
-    @InjectMocks
+    @Mock
+    private BlockUploadOutputStream pdfUpload;
+
+    @Mock
+    private JobQueueService jobQueueService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     private RenditionService renditionService;
 
+    @BeforeEach
+    void setUp() {
+        renditionService = new RenditionService(renditionRepository, documentVersionRepository, pdfRenditionService,
+                blobStorageService, jobQueueService, new ObjectMapper(), meterRegistry, transactionManager);
+        ReflectionTestUtils.setField(renditionService, "renditionLease", Duration.ofMinutes(15));
+    }
+
     private final UUID versionId = UUID.randomUUID();
 
+    private void stubPdfUpload(String blobPath) {
+        when(blobStorageService.openBlockUpload("renditions", blobPath, "application/pdf")).thenReturn(pdfUpload);
+    }
+
+    // Each render writes its images under renditions/<version>/images-<millis>
+    private String images(String file) {
+        return "renditions/" + versionId + "/images-\\d+" + file.replace(".", "\\.");
+    }
+
     private DocumentVersion buildDocumentVersion() {
         return DocumentVersion.builder()
                 .id(versionId)
@@ -91,21 +133,24 @@ class RenditionServiceTest {
             return r;
         });
         when(blobStorageService.download("documents", version.getFilePath())).thenReturn(fileStream);
-        when(pdfRenditionService.convertToPdf(any(InputStream.class), eq(version.getContentType())))
-                .thenReturn(pdfBytes);
+        stubPdfUpload("renditions/" + versionId + "/document.pdf");
+        when(pdfRenditionService.convertToPdf(any(InputStream.class), eq(version.getContentType()), eq(pdfUpload), any(ImageSink.class)))
+                .thenReturn(ConversionStats.NONE);
+        when(pdfUpload.size()).thenReturn((long) pdfBytes.length);
 
         renditionService.processRendition(versionId);
 
         ArgumentCaptor<Rendition> captor = ArgumentCaptor.forClass(Rendition.class);
-        // save is called 3 times: PENDING, PROCESSING, COMPLETED
+        // save is called 3 times: PROCESSING with the lease, COMPLETED, lease released
         verify(renditionRepository, org.mockito.Mockito.times(3)).save(captor.capture());
         Rendition finalRendition = captor.getAllValues().get(2);
         assertThat(finalRendition.getStatus()).isEqualTo(RenditionStatus.COMPLETED);
         assertThat(finalRendition.getFilePath()).contains("renditions/");
         assertThat(finalRendition.getFileSize()).isEqualTo((long) pdfBytes.length);
 
-        verify(blobStorageService).upload(eq("renditions"), anyString(),
-                any(InputStream.class), eq((long) pdfBytes.length), eq("application/pdf"));
+        verify(pdfUpload).commit();
+        verify(pdfUpload).close();
+        verify(blobStorageService, never()).upload(anyString(), anyString(), any(InputStream.class), anyLong(), anyString());
     }
 
     @Test
@@ -117,16 +162,18 @@ class RenditionServiceTest {
         when(documentVersionRepository.findById(versionId)).thenReturn(Optional.of(version));
         when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.PDF))
                 .thenReturn(Optional.of(completedRendition));
+        when(renditionRepository.save(any(Rendition.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         renditionService.processRendition(versionId);
 
-        verify(renditionRepository, never()).save(any(Rendition.class));
+        assertThat(completedRendition.getStatus()).isEqualTo(RenditionStatus.COMPLETED);
+        assertThat(completedRendition.getLeaseExpiresAt()).isNull();
         verify(blobStorageService, never()).download(anyString(), anyString());
     }
 
     @Test
-    @DisplayName("processRendition should delete existing failed rendition and regenerate")
-    void processRendition_shouldDeleteExistingFailedAndRegenerate() throws Exception {
+    @DisplayName("processRendition should regenerate an existing failed rendition in place")
+    void processRendition_shouldRegenerateExistingFailed() throws Exception {
         DocumentVersion version = buildDocumentVersion();
         Rendition failedRendition = buildRendition(RenditionStatus.FAILED);
         byte[] pdfBytes = "new-pdf-content".getBytes();
@@ -141,13 +188,14 @@ class RenditionServiceTest {
         });
         when(blobStorageService.download("documents", version.getFilePath()))
                 .thenReturn(new ByteArrayInputStream("content".getBytes()));
-        when(pdfRenditionService.convertToPdf(any(InputStream.class), eq(version.getContentType())))
-                .thenReturn(pdfBytes);
+        stubPdfUpload("renditions/" + versionId + "/document.pdf");
+        when(pdfRenditionService.convertToPdf(any(InputStream.class), eq(version.getContentType()), eq(pdfUpload), any(ImageSink.class)))
+                .thenReturn(ConversionStats.NONE);
+        when(pdfUpload.size()).thenReturn((long) pdfBytes.length);
 
         renditionService.processRendition(versionId);
 
-        verify(renditionRepository).delete(failedRendition);
-        verify(renditionRepository).flush();
+        verify(renditionRepository, never()).delete(any(Rendition.class));
         ArgumentCaptor<Rendition> captor = ArgumentCaptor.forClass(Rendition.class);
         verify(renditionRepository, org.mockito.Mockito.atLeast(3)).save(captor.capture());
         Rendition lastSaved = captor.getAllValues().get(captor.getAllValues().size() - 1);
@@ -169,7 +217,8 @@ class RenditionServiceTest {
         });
         when(blobStorageService.download("documents", version.getFilePath()))
                 .thenReturn(new ByteArrayInputStream("content".getBytes()));
-        when(pdfRenditionService.convertToPdf(any(InputStream.class), eq(version.getContentType())))
+        stubPdfUpload("renditions/" + versionId + "/document.pdf");
+        when(pdfRenditionService.convertToPdf(any(InputStream.class), eq(version.getContentType()), eq(pdfUpload), any(ImageSink.class)))
                 .thenThrow(new RuntimeException("Conversion failed"));
 
         renditionService.processRendition(versionId);
@@ -179,6 +228,8 @@ class RenditionServiceTest {
         Rendition lastSaved = captor.getAllValues().get(captor.getAllValues().size() - 1);
         assertThat(lastSaved.getStatus()).isEqualTo(RenditionStatus.FAILED);
         assertThat(lastSaved.getErrorMessage()).isEqualTo("Conversion failed");
+        verify(pdfUpload, never()).commit();
+        verify(pdfUpload).close();
     }
 
     @Test
@@ -232,4 +283,476 @@ class RenditionServiceTest {
         assertThat(results.get(0).getRenditionType()).isEqualTo(RenditionType.PDF);
         assertThat(results.get(1).getRenditionType()).isEqualTo(RenditionType.SUMMARY);
     }
+
+    @Test
+    @DisplayName("processRendition should reuse a completed rendition with the same fingerprint")
+    void processRendition_shouldReuseRenditionWithSameFingerprint() {
+        DocumentVersion version = buildDocumentVersion();
+        version.setContentHash("abc123");
+        Rendition sameContent = buildRendition(RenditionStatus.COMPLETED);
+        sameContent.setFilePath("renditions/other/document.pdf");
+        String fingerprint = ContentHashes.sha256("abc123\nslides/24.12;r1");
+
+        when(documentVersionRepository.findById(versionId)).thenReturn(Optional.of(version));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.PDF))
+                .thenReturn(Optional.empty());
+        when(pdfRenditionService.conversionSettings(version.getContentType(), 0)).thenReturn("slides/24.12;r1");
+        when(renditionRepository.findFirstByFingerprintAndRenditionTypeAndStatusAndDocumentVersionIdNot(
+                fingerprint, RenditionType.PDF, RenditionStatus.COMPLETED, versionId))
+                .thenReturn(Optional.of(sameContent));
+        when(renditionRepository.save(any(Rendition.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        renditionService.processRendition(versionId);
+
+        ArgumentCaptor<Rendition> captor = ArgumentCaptor.forClass(Rendition.class);
+        verify(renditionRepository, org.mockito.Mockito.times(3)).save(captor.capture());
+        assertThat(captor.getValue().getStatus()).isEqualTo(RenditionStatus.COMPLETED);
+        assertThat(captor.getValue().getFilePath()).isEqualTo("renditions/other/document.pdf");
+        assertThat(captor.getValue().getFingerprint()).isEqualTo(fingerprint);
+        verify(blobStorageService, never()).download(anyString(), anyString());
+        verify(pdfRenditionService, never()).convertToPdf(any(InputStream.class), anyString(), any(OutputStream.class), any());
+    }
+
+    @Test
+    @DisplayName("processRendition should record the fingerprint on a new rendition")
+    void processRendition_shouldRecordFingerprint() {
+        DocumentVersion version = buildDocumentVersion();
+        version.setContentHash("abc123");
+
+        when(documentVersionRepository.findById(versionId)).thenReturn(Optional.of(version));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.PDF))
+                .thenReturn(Optional.empty());
+        when(pdfRenditionService.conversionSettings(version.getContentType(), 0)).thenReturn("slides/24.12;r1");
+        when(renditionRepository.findFirstByFingerprintAndRenditionTypeAndStatusAndDocumentVersionIdNot(
+                anyString(), eq(RenditionType.PDF), eq(RenditionStatus.COMPLETED), eq(versionId)))
+                .thenReturn(Optional.empty());
+        when(renditionRepository.save(any(Rendition.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(blobStorageService.download("documents", version.getFilePath()))
+                .thenReturn(new ByteArrayInputStream("original-content".getBytes()));
+        stubPdfUpload("renditions/" + versionId + "/document.pdf");
+        when(pdfRenditionService.convertToPdf(any(InputStream.class), eq(version.getContentType()), eq(pdfUpload), any(ImageSink.class)))
+                .thenReturn(ConversionStats.NONE);
+
+        renditionService.processRendition(versionId);
+
+        ArgumentCaptor<Rendition> captor = ArgumentCaptor.forClass(Rendition.class);
+        verify(renditionRepository, org.mockito.Mockito.times(3)).save(captor.capture());
+        assertThat(captor.getAllValues().get(2).getFingerprint())
+                .isEqualTo(ContentHashes.sha256("abc123\nslides/24.12;r1"));
+    }
+
+    @Test
+    @DisplayName("processRendition should skip a completed rendition whose fingerprint still matches")
+    void processRendition_shouldSkipWhenFingerprintMatches() {
+        DocumentVersion version = buildDocumentVersion();
+        version.setContentHash("abc123");
+        Rendition completed = buildRendition(RenditionStatus.COMPLETED);
+        completed.setFingerprint(ContentHashes.sha256("abc123\nslides/24.12;r1"));
+
+        when(documentVersionRepository.findById(versionId)).thenReturn(Optional.of(version));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.PDF))
+                .thenReturn(Optional.of(completed));
+        when(pdfRenditionService.conversionSettings(version.getContentType(), 0)).thenReturn("slides/24.12;r1");
+        when(renditionRepository.save(any(Rendition.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        renditionService.processRendition(versionId);
+
+        assertThat(completed.getLeaseExpiresAt()).isNull();
+        verify(blobStorageService, never()).download(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("processRendition should replace a completed PDF made with other settings, keeping it until the new one is stored")
+    void processRendition_shouldReplaceStaleRendition() {
+        DocumentVersion version = buildDocumentVersion();
+        version.setContentHash("abc123");
+        Rendition stale = buildRendition(RenditionStatus.COMPLETED);
+        String oldPath = stale.getFilePath();
+        stale.setFingerprint(ContentHashes.sha256("abc123\nslides/24.11;r1"));
+        String fingerprint = ContentHashes.sha256("abc123\nslides/24.12;r1");
+
+        when(documentVersionRepository.findById(versionId)).thenReturn(Optional.of(version));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.PDF))
+                .thenReturn(Optional.of(stale));
+        when(pdfRenditionService.conversionSettings(version.getContentType(), 0)).thenReturn("slides/24.12;r1");
+        when(renditionRepository.findFirstByFingerprintAndRenditionTypeAndStatusAndDocumentVersionIdNot(
+                fingerprint, RenditionType.PDF, RenditionStatus.COMPLETED, versionId))
+                .thenReturn(Optional.empty());
+        when(blobStorageService.download("documents", version.getFilePath()))
+                .thenReturn(new ByteArrayInputStream("original-content".getBytes()));
+        when(blobStorageService.openBlockUpload(eq("renditions"), startsWith("renditions/" + versionId + "/document-"),
+                eq("application/pdf"))).thenReturn(pdfUpload);
+        when(pdfRenditionService.convertToPdf(any(InputStream.class), eq(version.getContentType()), eq(pdfUpload), any(ImageSink.class)))
+                .thenReturn(ConversionStats.NONE);
+        when(renditionRepository.existsByFilePath(oldPath)).thenReturn(false);
+        when(renditionRepository.save(any(Rendition.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        renditionService.processRendition(versionId);
+
+        verify(renditionRepository, never()).delete(any(Rendition.class));
+        assertThat(stale.getStatus()).isEqualTo(RenditionStatus.COMPLETED);
+        assertThat(stale.getFingerprint()).isEqualTo(fingerprint);
+        assertThat(stale.getFilePath()).startsWith("renditions/" + versionId + "/document-");
+        verify(blobStorageService).delete("renditions", oldPath);
+    }
+
+    @Test
+    @DisplayName("processPreview should render only the first pages to a separate preview rendition")
+    void processPreview_shouldRenderFirstPagesAsPreview() {
+        ReflectionTestUtils.setField(renditionService, "previewPages", 5);
+        DocumentVersion version = buildDocumentVersion();
+
+        when(documentVersionRepository.findById(versionId)).thenReturn(Optional.of(version));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(eq(versionId), any(RenditionType.class)))
+                .thenReturn(Optional.empty());
+        when(renditionRepository.save(any(Rendition.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        stubPdfUpload("renditions/" + versionId + "/preview.pdf");
+        when(pdfRenditionService.convertToPdfPreview(any(InputStream.class), eq(version.getContentType()), eq(5),
+                eq(pdfUpload))).thenReturn(ConversionStats.NONE);
+
+        renditionService.processPreview(versionId, () -> new ByteArrayInputStream("original".getBytes()));
+
+        ArgumentCaptor<Rendition> captor = ArgumentCaptor.forClass(Rendition.class);
+        verify(renditionRepository, org.mockito.Mockito.times(3)).save(captor.capture());
+        Rendition finalRendition = captor.getAllValues().get(2);
+        assertThat(finalRendition.getRenditionType()).isEqualTo(RenditionType.PDF_PREVIEW);
+        assertThat(finalRendition.getStatus()).isEqualTo(RenditionStatus.COMPLETED);
+        assertThat(finalRendition.getFilePath()).isEqualTo("renditions/" + versionId + "/preview.pdf");
+        verify(pdfRenditionService).convertToPdfPreview(any(InputStream.class), eq(version.getContentType()), eq(5),
+                eq(pdfUpload));
+        verify(pdfUpload).commit();
+        verify(pdfRenditionService, never()).convertToPdf(any(InputStream.class), anyString(), any(OutputStream.class), any());
+        verify(blobStorageService, never()).download(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("processPreview should skip when the full PDF rendition is already completed")
+    void processPreview_shouldSkipWhenFullRenditionCompleted() {
+        ReflectionTestUtils.setField(renditionService, "previewPages", 5);
+        DocumentVersion version = buildDocumentVersion();
+
+        when(documentVersionRepository.findById(versionId)).thenReturn(Optional.of(version));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.PDF))
+                .thenReturn(Optional.of(buildRendition(RenditionStatus.COMPLETED)));
+
+        renditionService.processPreview(versionId, null);
+
+        verify(renditionRepository, never()).save(any(Rendition.class));
+        verify(pdfRenditionService, never()).convertToPdfPreview(any(InputStream.class), anyString(), anyInt(),
+                any(OutputStream.class));
+    }
+
+    @Test
+    @DisplayName("processRendition should store the thumbnail and one image per slide under a folder of the render's own")
+    void processRendition_shouldStoreThumbnailAndSlideImages() {
+        DocumentVersion version = buildDocumentVersion();
+
+        when(documentVersionRepository.findById(versionId)).thenReturn(Optional.of(version));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.PDF))
+                .thenReturn(Optional.empty());
+        when(renditionRepository.save(any(Rendition.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        stubPdfUpload("renditions/" + versionId + "/document.pdf");
+        when(pdfRenditionService.convertToPdf(any(InputStream.class), eq(version.getContentType()), eq(pdfUpload), any(ImageSink.class)))
+                .thenAnswer(invocation -> {
+                    ImageSink images = invocation.getArgument(3);
+                    images.thumbnail("thumb".getBytes());
+                    images.pageImage(1, "slide-1".getBytes());
+                    // Each image is uploaded as soon as it is handed over, before the next one is drawn
+                    verify(blobStorageService).upload(eq("renditions"), matches(images("/slides/1.png")),
+                            any(InputStream.class), eq(7L), eq("image/png"));
+                    images.pageImage(2, "slide-2".getBytes());
+                    return ConversionStats.NONE;
+                });
+
+        renditionService.processRendition(versionId, () -> new ByteArrayInputStream("original".getBytes()));
+
+        verify(renditionRepository).deleteByDocumentVersionIdAndRenditionTypeIn(
+                versionId, java.util.EnumSet.of(RenditionType.THUMBNAIL, RenditionType.SLIDE_IMAGE));
+        verify(blobStorageService).upload(eq("renditions"), matches(images("/thumbnail.png")),
+                any(InputStream.class), eq(5L), eq("image/png"));
+        verify(blobStorageService).upload(eq("renditions"), matches(images("/slides/2.png")),
+                any(InputStream.class), eq(7L), eq("image/png"));
+
+        ArgumentCaptor<Rendition> captor = ArgumentCaptor.forClass(Rendition.class);
+        verify(renditionRepository, org.mockito.Mockito.times(6)).save(captor.capture());
+        List<Rendition> images = captor.getAllValues().subList(2, 5);
+        assertThat(images).extracting(Rendition::getRenditionType)
+                .containsExactly(RenditionType.THUMBNAIL, RenditionType.SLIDE_IMAGE, RenditionType.SLIDE_IMAGE);
+        assertThat(images).extracting(Rendition::getPageNumber).containsExactly(null, 1, 2);
+    }
+
+    @Test
+    @DisplayName("processRendition should complete the PDF and skip the remaining images after an image upload fails")
+    void processRendition_shouldSkipImagesAfterFailedUpload() {
+        DocumentVersion version = buildDocumentVersion();
+        when(documentVersionRepository.findById(versionId)).thenReturn(Optional.of(version));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.PDF))
+                .thenReturn(Optional.empty());
+        when(renditionRepository.save(any(Rendition.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        stubPdfUpload("renditions/" + versionId + "/document.pdf");
+        when(blobStorageService.upload(eq("renditions"), matches(images("/slides/1.png")),
+                any(InputStream.class), anyLong(), eq("image/png"))).thenThrow(new RuntimeException("Storage unavailable"));
+        when(pdfRenditionService.convertToPdf(any(InputStream.class), eq(version.getContentType()), eq(pdfUpload), any(ImageSink.class)))
+                .thenAnswer(invocation -> {
+                    ImageSink images = invocation.getArgument(3);
+                    images.pageImage(1, "slide-1".getBytes());
+                    images.pageImage(2, "slide-2".getBytes());
+                    return ConversionStats.NONE;
+                });
+
+        renditionService.processRendition(versionId, () -> new ByteArrayInputStream("original".getBytes()));
+
+        verify(blobStorageService, never()).upload(eq("renditions"), matches(images("/slides/2.png")),
+                any(InputStream.class), anyLong(), anyString());
+        ArgumentCaptor<Rendition> captor = ArgumentCaptor.forClass(Rendition.class);
+        verify(renditionRepository, org.mockito.Mockito.times(3)).save(captor.capture());
+        assertThat(captor.getAllValues().get(2).getStatus()).isEqualTo(RenditionStatus.COMPLETED);
+    }
+
+    @Test
+    @DisplayName("rerender should store the new PDF under a fresh path and delete the old one after commit")
+    void rerender_shouldSwapPathAndDeleteOldBlobAfterCommit() {
+        DocumentVersion version = buildDocumentVersion();
+        Rendition rendition = buildRendition(RenditionStatus.COMPLETED);
+        String oldPath = rendition.getFilePath();
+
+        when(documentVersionRepository.findById(versionId)).thenReturn(Optional.of(version));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.PDF))
+                .thenReturn(Optional.of(rendition));
+        when(blobStorageService.download("documents", version.getFilePath()))
+                .thenReturn(new ByteArrayInputStream("original-content".getBytes()));
+        when(blobStorageService.openBlockUpload(eq("renditions"), startsWith("renditions/" + versionId + "/document-"),
+                eq("application/pdf"))).thenReturn(pdfUpload);
+        when(pdfRenditionService.convertToPdf(any(InputStream.class), eq(version.getContentType()), eq(pdfUpload), any(ImageSink.class)))
+                .thenReturn(ConversionStats.NONE);
+        when(pdfUpload.size()).thenReturn(2048L);
+        when(renditionRepository.existsByFilePath(oldPath)).thenReturn(false);
+        when(renditionRepository.save(any(Rendition.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertThat(renditionService.rerender(versionId)).isTrue();
+
+            assertThat(rendition.getFilePath()).startsWith("renditions/" + versionId + "/document-").isNotEqualTo(oldPath);
+            assertThat(rendition.getFileSize()).isEqualTo(2048L);
+            assertThat(rendition.getLeaseExpiresAt()).isNull();
+            verify(blobStorageService, never()).delete("renditions", oldPath);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(blobStorageService).delete("renditions", oldPath);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("rerender should keep the existing PDF when conversion fails")
+    void rerender_shouldKeepExistingPdfWhenConversionFails() {
+        DocumentVersion version = buildDocumentVersion();
+        Rendition rendition = buildRendition(RenditionStatus.COMPLETED);
+        String oldPath = rendition.getFilePath();
+
+        when(documentVersionRepository.findById(versionId)).thenReturn(Optional.of(version));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.PDF))
+                .thenReturn(Optional.of(rendition));
+        when(blobStorageService.download("documents", version.getFilePath()))
+                .thenReturn(new ByteArrayInputStream("original-content".getBytes()));
+        when(blobStorageService.openBlockUpload(eq("renditions"), anyString(), eq("application/pdf"))).thenReturn(pdfUpload);
+        when(pdfRenditionService.convertToPdf(any(InputStream.class), eq(version.getContentType()), eq(pdfUpload), any(ImageSink.class)))
+                .thenThrow(new RuntimeException("Aspose failed"));
+        when(renditionRepository.save(any(Rendition.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertThat(renditionService.rerender(versionId)).isFalse();
+
+        assertThat(rendition.getFilePath()).isEqualTo(oldPath);
+        assertThat(rendition.getStatus()).isEqualTo(RenditionStatus.COMPLETED);
+        assertThat(rendition.getLeaseExpiresAt()).isNull();
+        verify(pdfUpload, never()).commit();
+    }
+
+    @Test
+    @DisplayName("rerender should point the image rows at the new images and delete the old ones only after commit")
+    void rerender_shouldSwapImagesAndDeleteOldOnesAfterCommit() {
+        DocumentVersion version = buildDocumentVersion();
+        Rendition rendition = buildRendition(RenditionStatus.COMPLETED);
+        String oldThumbnail = "renditions/" + versionId + "/thumbnail.png";
+        Rendition oldImage = Rendition.builder()
+                .renditionType(RenditionType.THUMBNAIL)
+                .status(RenditionStatus.COMPLETED)
+                .filePath(oldThumbnail)
+                .documentVersion(version)
+                .build();
+
+        when(documentVersionRepository.findById(versionId)).thenReturn(Optional.of(version));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.PDF))
+                .thenReturn(Optional.of(rendition));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionTypeIn(
+                versionId, java.util.EnumSet.of(RenditionType.THUMBNAIL, RenditionType.SLIDE_IMAGE)))
+                .thenReturn(List.of(oldImage));
+        when(renditionRepository.save(any(Rendition.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(blobStorageService.download("documents", version.getFilePath()))
+                .thenReturn(new ByteArrayInputStream("original-content".getBytes()));
+        when(blobStorageService.openBlockUpload(eq("renditions"), startsWith("renditions/" + versionId + "/document-"),
+                eq("application/pdf"))).thenReturn(pdfUpload);
+        when(pdfRenditionService.convertToPdf(any(InputStream.class), eq(version.getContentType()), eq(pdfUpload), any(ImageSink.class)))
+                .thenAnswer(invocation -> {
+                    ImageSink images = invocation.getArgument(3);
+                    images.thumbnail("thumb".getBytes());
+                    return ConversionStats.NONE;
+                });
+        when(renditionRepository.existsByFilePath(anyString())).thenReturn(false);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertThat(renditionService.rerender(versionId)).isTrue();
+
+            verify(blobStorageService).upload(eq("renditions"), matches(images("/thumbnail.png")),
+                    any(InputStream.class), eq(5L), eq("image/png"));
+            ArgumentCaptor<Rendition> captor = ArgumentCaptor.forClass(Rendition.class);
+            verify(renditionRepository, org.mockito.Mockito.atLeastOnce()).save(captor.capture());
+            assertThat(captor.getAllValues()).filteredOn(saved -> saved.getRenditionType() == RenditionType.THUMBNAIL)
+                    .singleElement()
+                    .satisfies(thumbnail -> assertThat(thumbnail.getFilePath()).matches(images("/thumbnail.png")));
+            verify(blobStorageService, never()).delete("renditions", oldThumbnail);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(blobStorageService).delete("renditions", oldThumbnail);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("rerender should delete the images it uploaded when the conversion fails, leaving the current ones")
+    void rerender_shouldDiscardNewImagesWhenConversionFails() {
+        DocumentVersion version = buildDocumentVersion();
+        Rendition rendition = buildRendition(RenditionStatus.COMPLETED);
+
+        when(documentVersionRepository.findById(versionId)).thenReturn(Optional.of(version));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.PDF))
+                .thenReturn(Optional.of(rendition));
+        when(renditionRepository.save(any(Rendition.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(blobStorageService.download("documents", version.getFilePath()))
+                .thenReturn(new ByteArrayInputStream("original-content".getBytes()));
+        when(blobStorageService.openBlockUpload(eq("renditions"), anyString(), eq("application/pdf"))).thenReturn(pdfUpload);
+        when(pdfRenditionService.convertToPdf(any(InputStream.class), eq(version.getContentType()), eq(pdfUpload), any(ImageSink.class)))
+                .thenAnswer(invocation -> {
+                    ImageSink images = invocation.getArgument(3);
+                    images.thumbnail("thumb".getBytes());
+                    throw new RuntimeException("Aspose failed");
+                });
+
+        assertThat(renditionService.rerender(versionId)).isFalse();
+
+        verify(blobStorageService).delete(eq("renditions"), matches(images("/thumbnail.png")));
+        verify(renditionRepository, never()).deleteByDocumentVersionIdAndRenditionTypeIn(any(), any());
+    }
+
+    @Test
+    @DisplayName("rerender should not report a rendition that is still being generated as re-rendered")
+    void rerender_shouldRejectRenditionInProgress() {
+        Rendition processing = buildRendition(RenditionStatus.PROCESSING);
+        processing.setLeaseExpiresAt(Instant.now().plusSeconds(60));
+        when(documentVersionRepository.findById(versionId)).thenReturn(Optional.of(buildDocumentVersion()));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.PDF))
+                .thenReturn(Optional.of(processing));
+
+        assertThatThrownBy(() -> renditionService.rerender(versionId))
+                .isInstanceOf(RenditionService.RenditionInProgressException.class);
+
+        verify(renditionRepository, never()).save(any(Rendition.class));
+        verify(blobStorageService, never()).download(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("processRendition should take over a rendition whose render died and left its lease to run out")
+    void processRendition_shouldTakeOverExpiredLease() {
+        DocumentVersion version = buildDocumentVersion();
+        Rendition abandoned = buildRendition(RenditionStatus.PROCESSING);
+        abandoned.setLeaseExpiresAt(Instant.now().minusSeconds(60));
+
+        when(documentVersionRepository.findById(versionId)).thenReturn(Optional.of(version));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.PDF))
+                .thenReturn(Optional.of(abandoned));
+        when(renditionRepository.save(any(Rendition.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        stubPdfUpload("renditions/" + versionId + "/document.pdf");
+        when(pdfRenditionService.convertToPdf(any(InputStream.class), eq(version.getContentType()), eq(pdfUpload), any(ImageSink.class)))
+                .thenReturn(ConversionStats.NONE);
+
+        renditionService.processRendition(versionId, () -> new ByteArrayInputStream("original".getBytes()));
+
+        assertThat(abandoned.getStatus()).isEqualTo(RenditionStatus.COMPLETED);
+        assertThat(abandoned.getLeaseExpiresAt()).isNull();
+    }
+
+    @Test
+    @DisplayName("processRendition should commit PROCESSING and the lease before it starts converting")
+    void processRendition_shouldCommitClaimBeforeConverting() {
+        DocumentVersion version = buildDocumentVersion();
+        when(documentVersionRepository.findById(versionId)).thenReturn(Optional.of(version));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.PDF))
+                .thenReturn(Optional.empty());
+        when(renditionRepository.save(any(Rendition.class))).thenAnswer(invocation -> {
+            Rendition r = invocation.getArgument(0);
+            if (r.getId() == null) {
+                assertThat(r.getStatus()).isEqualTo(RenditionStatus.PROCESSING);
+                assertThat(r.getLeaseExpiresAt()).isAfter(Instant.now());
+                r.setId(UUID.randomUUID());
+            }
+            return r;
+        });
+        stubPdfUpload("renditions/" + versionId + "/document.pdf");
+        when(pdfRenditionService.convertToPdf(any(InputStream.class), eq(version.getContentType()), eq(pdfUpload), any(ImageSink.class)))
+                .thenReturn(ConversionStats.NONE);
+
+        renditionService.processRendition(versionId, () -> new ByteArrayInputStream("original".getBytes()));
+
+        var order = inOrder(documentVersionRepository, renditionRepository, transactionManager, pdfRenditionService);
+        order.verify(documentVersionRepository).findForUpdateById(versionId);
+        order.verify(renditionRepository).save(any(Rendition.class));
+        order.verify(transactionManager).commit(any());
+        order.verify(pdfRenditionService).convertToPdf(any(InputStream.class), anyString(), any(OutputStream.class), any());
+    }
+
+    @Test
+    @DisplayName("processRendition should record phase timers and store the timing breakdown on the rendition")
+    void processRendition_shouldRecordConversionStats() throws Exception {
+        DocumentVersion version = buildDocumentVersion();
+        ConversionStats stats = ConversionStats.builder()
+                .readNanos(2_000_000_000L)
+                .loadNanos(3_000_000_000L)
+                .convertNanos(4_000_000_000L)
+                .writeNanos(1_000_000_000L)
+                .inputBytes(1000)
+                .outputBytes(800)
+                .pageCount(12)
+                .allocatedBytes(5_000_000)
+                .build();
+
+        when(documentVersionRepository.findById(versionId)).thenReturn(Optional.of(version));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.PDF))
+                .thenReturn(Optional.empty());
+        when(renditionRepository.save(any(Rendition.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(blobStorageService.download("documents", version.getFilePath()))
+                .thenReturn(new ByteArrayInputStream("original-content".getBytes()));
+        stubPdfUpload("renditions/" + versionId + "/document.pdf");
+        when(pdfRenditionService.convertToPdf(any(InputStream.class), eq(version.getContentType()), eq(pdfUpload), any(ImageSink.class)))
+                .thenReturn(stats);
+
+        renditionService.processRendition(versionId);
+
+        ArgumentCaptor<Rendition> captor = ArgumentCaptor.forClass(Rendition.class);
+        verify(renditionRepository, org.mockito.Mockito.times(3)).save(captor.capture());
+        var breakdown = new ObjectMapper().readTree(captor.getAllValues().get(2).getConversionStats());
+        assertThat(breakdown.get("loadMs").asLong()).isEqualTo(3000);
+        assertThat(breakdown.get("convertMs").asLong()).isEqualTo(4000);
+        assertThat(breakdown.get("downloadMs").asLong()).isGreaterThanOrEqualTo(2000);
+        assertThat(breakdown.get("uploadMs").asLong()).isGreaterThanOrEqualTo(1000);
+        assertThat(breakdown.get("pages").asLong()).isEqualTo(12);
+        assertThat(breakdown.get("allocatedBytes").asLong()).isEqualTo(5_000_000);
+
+        assertThat(meterRegistry.get("rendition.phase").tag("phase", "download").tag("rendition", "pdf")
+                .tag("content.type", version.getContentType()).timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("rendition.duration").tag("outcome", "success").timer().count()).isEqualTo(1);
+    }
 }
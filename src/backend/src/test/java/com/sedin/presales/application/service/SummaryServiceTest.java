@@ -4,13 +4,16 @@ import com.sedin.presales.application.dto.SummaryResponseDto;
 import com.sedin.presales.application.exception.ResourceNotFoundException;
 import com.sedin.presales.domain.entity.Document;
 import com.sedin.presales.domain.entity.DocumentVersion;
+import com.sedin.presales.domain.entity.Job;
 import com.sedin.presales.domain.entity.Rendition;
+import com.sedin.presales.domain.enums.JobPriority;
+import com.sedin.presales.domain.enums.JobType;
 import com.sedin.presales.domain.enums.RenditionStatus;
 import com.sedin.presales.domain.enums.RenditionType;
 import com.sedin.presales.domain.repository.DocumentRepository;
 import com.sedin.presales.domain.repository.DocumentVersionRepository;
 import com.sedin.presales.domain.repository.RenditionRepository;
-import com.sedin.presales.infrastructure.ai.DocumentIntelligenceService;
+import com.sedin.presales.infrastructure.ai.ExtractedText;
 import com.sedin.presales.infrastructure.ai.SummarizationService;
 import com.sedin.presales.infrastructure.storage.BlobStorageService;
 import org.junit.jupiter.api.BeforeEach;
@@ -22,19 +25,25 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -52,7 +61,7 @@ class SummaryServiceTest {
     private RenditionRepository renditionRepository;
 
     @Mock
-    private DocumentIntelligenceService documentIntelligenceService;
+    private ExtractedTextService extractedTextService;
 
     @Mock
     private SummarizationService summarizationService;
@@ -60,6 +69,12 @@ class SummaryServiceTest {
     @Mock
     private BlobStorageService blobStorageService;
 
+    @Mock
+    private JobQueueService jobQueueService;
+
+    @Mock
+    private SummaryStreams summaryStreams;
+
     @InjectMocks
     private SummaryService summaryService;
 
@@ -119,11 +134,9 @@ class SummaryServiceTest {
             if (r.getId() == null) r.setId(UUID.randomUUID());
             return r;
         });
-        when(blobStorageService.download("documents", version.getFilePath()))
-                .thenReturn(new ByteArrayInputStream("original-content".getBytes()));
-        when(documentIntelligenceService.extractText(any(InputStream.class), eq(version.getContentType())))
+        when(extractedTextService.text(eq(version), any()))
                 .thenReturn(extractedText);
-        when(summarizationService.summarize(extractedText, "Test Case Study"))
+        when(summarizationService.summarize(eq(extractedText), eq("Test Case Study"), any()))
                 .thenReturn(summaryText);
 
         summaryService.processSummary(versionId);
@@ -137,6 +150,8 @@ class SummaryServiceTest {
 
         verify(blobStorageService).upload(eq("summaries"), anyString(),
                 any(InputStream.class), eq((long) summaryBytes.length), eq("text/plain"));
+        verify(summaryStreams).started(versionId);
+        verify(summaryStreams).completed(eq(versionId), any());
     }
 
     @Test
@@ -168,9 +183,7 @@ class SummaryServiceTest {
             if (r.getId() == null) r.setId(UUID.randomUUID());
             return r;
         });
-        when(blobStorageService.download("documents", version.getFilePath()))
-                .thenReturn(new ByteArrayInputStream("content".getBytes()));
-        when(documentIntelligenceService.extractText(any(InputStream.class), eq(version.getContentType())))
+        when(extractedTextService.text(eq(version), any()))
                 .thenThrow(new RuntimeException("Extraction service unavailable"));
 
         summaryService.processSummary(versionId);
@@ -195,9 +208,7 @@ class SummaryServiceTest {
             if (r.getId() == null) r.setId(UUID.randomUUID());
             return r;
         });
-        when(blobStorageService.download("documents", version.getFilePath()))
-                .thenReturn(new ByteArrayInputStream("content".getBytes()));
-        when(documentIntelligenceService.extractText(any(InputStream.class), eq(version.getContentType())))
+        when(extractedTextService.text(eq(version), any()))
                 .thenReturn("");
 
         summaryService.processSummary(versionId);
@@ -264,25 +275,13 @@ class SummaryServiceTest {
                 .thenReturn(Optional.of(version));
         when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.SUMMARY))
                 .thenReturn(Optional.empty());
-        // generateSummary will call processSummary synchronously in unit test context.
-        // processSummary will call documentVersionRepository.findById which we need to mock.
-        // The generateSummary method catches all exceptions, so even if processSummary fails, it won't propagate.
-        when(documentVersionRepository.findById(versionId)).thenReturn(Optional.of(version));
-        // processSummary will find no existing rendition (already mocked above as empty),
-        // then try to save/download/etc. Let the save work and download fail gracefully.
-        when(renditionRepository.save(any(Rendition.class))).thenAnswer(invocation -> {
-            Rendition r = invocation.getArgument(0);
-            if (r.getId() == null) r.setId(UUID.randomUUID());
-            return r;
-        });
-        when(blobStorageService.download(eq("documents"), anyString()))
-                .thenThrow(new RuntimeException("Not set up for this test"));
 
         SummaryResponseDto result = summaryService.getSummaryStatus(documentId);
 
         assertThat(result.getDocumentId()).isEqualTo(documentId);
         assertThat(result.getStatus()).isEqualTo(RenditionStatus.PENDING);
         assertThat(result.getMessage()).isEqualTo("Summary generation has been initiated");
+        verify(jobQueueService).enqueue(JobType.SUMMARY, versionId);
     }
 
     @Test
@@ -297,16 +296,183 @@ class SummaryServiceTest {
                 .thenReturn(Optional.of(version));
         when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.SUMMARY))
                 .thenReturn(Optional.of(existingRendition));
-        // generateSummary will be called synchronously; processSummary will call
-        // findByDocumentVersionIdAndRenditionType again and see COMPLETED (same mock),
-        // so it will skip processing. Only need findById for version lookup.
-        when(documentVersionRepository.findById(versionId)).thenReturn(Optional.of(version));
 
         SummaryResponseDto result = summaryService.regenerateSummary(documentId);
 
         verify(renditionRepository).delete(existingRendition);
+        verify(jobQueueService).enqueue(JobType.SUMMARY, versionId);
         assertThat(result.getDocumentId()).isEqualTo(documentId);
         assertThat(result.getStatus()).isEqualTo(RenditionStatus.PENDING);
         assertThat(result.getMessage()).isEqualTo("Summary regeneration has been initiated");
     }
+
+    @Test
+    @DisplayName("processSummary should reuse a completed summary of identical content")
+    void processSummary_shouldReuseSummaryForSameContentHash() {
+        DocumentVersion version = buildDocumentVersion();
+        version.setContentHash("abc123");
+        Rendition sameContent = buildSummaryRendition(RenditionStatus.COMPLETED);
+
+        when(documentVersionRepository.findById(versionId)).thenReturn(Optional.of(version));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.SUMMARY))
+                .thenReturn(Optional.empty());
+        when(renditionRepository.findFirstByDocumentVersionContentHashAndRenditionTypeAndStatusAndDocumentVersionIdNot(
+                "abc123", RenditionType.SUMMARY, RenditionStatus.COMPLETED, versionId))
+                .thenReturn(Optional.of(sameContent));
+
+        summaryService.processSummary(versionId);
+
+        ArgumentCaptor<Rendition> captor = ArgumentCaptor.forClass(Rendition.class);
+        verify(renditionRepository).save(captor.capture());
+        assertThat(captor.getValue().getStatus()).isEqualTo(RenditionStatus.COMPLETED);
+        assertThat(captor.getValue().getFilePath()).isEqualTo(sameContent.getFilePath());
+        verify(blobStorageService, never()).download(anyString(), anyString());
+        verify(summarizationService, never()).summarize(anyString(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("streamSummary should send a completed summary straight away")
+    void streamSummary_shouldSendCompletedSummary() {
+        Rendition completedRendition = buildSummaryRendition(RenditionStatus.COMPLETED);
+        SseEmitter emitter = new SseEmitter();
+
+        when(documentRepository.findById(documentId)).thenReturn(Optional.of(buildDocument()));
+        when(documentVersionRepository.findByDocumentIdAndVersionNumber(documentId, 1))
+                .thenReturn(Optional.of(buildDocumentVersion()));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.SUMMARY))
+                .thenReturn(Optional.of(completedRendition));
+        when(blobStorageService.download("summaries", completedRendition.getFilePath()))
+                .thenReturn(new ByteArrayInputStream("Done.".getBytes(StandardCharsets.UTF_8)));
+        when(summaryStreams.finished(SummaryStreams.COMPLETE, "Done.")).thenReturn(emitter);
+
+        assertThat(summaryService.streamSummary(documentId)).isSameAs(emitter);
+        verify(summaryStreams, never()).subscribe(any());
+    }
+
+    @Test
+    @DisplayName("streamSummary should queue an interactive job for the first viewer of a missing summary")
+    void streamSummary_shouldQueueInteractiveJobForFirstViewer() {
+        SseEmitter emitter = new SseEmitter();
+
+        when(documentRepository.findById(documentId)).thenReturn(Optional.of(buildDocument()));
+        when(documentVersionRepository.findByDocumentIdAndVersionNumber(documentId, 1))
+                .thenReturn(Optional.of(buildDocumentVersion()));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.SUMMARY))
+                .thenReturn(Optional.empty());
+        when(summaryStreams.subscribe(versionId)).thenReturn(new SummaryStreams.Subscription(emitter, true));
+
+        assertThat(summaryService.streamSummary(documentId)).isSameAs(emitter);
+        verify(jobQueueService).enqueue(eq(JobType.SUMMARY), eq(versionId), isNull(), eq(JobPriority.INTERACTIVE));
+    }
+
+    @Test
+    @DisplayName("streamSummary should only attach later viewers to the running generation")
+    void streamSummary_shouldAttachLaterViewers() {
+        SseEmitter emitter = new SseEmitter();
+
+        when(documentRepository.findById(documentId)).thenReturn(Optional.of(buildDocument()));
+        when(documentVersionRepository.findByDocumentIdAndVersionNumber(documentId, 1))
+                .thenReturn(Optional.of(buildDocumentVersion()));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.SUMMARY))
+                .thenReturn(Optional.of(buildSummaryRendition(RenditionStatus.PROCESSING)));
+        when(summaryStreams.subscribe(versionId)).thenReturn(new SummaryStreams.Subscription(emitter, false));
+
+        assertThat(summaryService.streamSummary(documentId)).isSameAs(emitter);
+        verify(jobQueueService, never()).promote(any(), any());
+    }
+
+    @Test
+    @DisplayName("streamSummary should promote the pending job for the first viewer")
+    void streamSummary_shouldPromotePendingJobForFirstViewer() {
+        when(documentRepository.findById(documentId)).thenReturn(Optional.of(buildDocument()));
+        when(documentVersionRepository.findByDocumentIdAndVersionNumber(documentId, 1))
+                .thenReturn(Optional.of(buildDocumentVersion()));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.SUMMARY))
+                .thenReturn(Optional.of(buildSummaryRendition(RenditionStatus.PENDING)));
+        when(summaryStreams.subscribe(versionId)).thenReturn(new SummaryStreams.Subscription(new SseEmitter(), true));
+
+        summaryService.streamSummary(documentId);
+
+        verify(jobQueueService).promote(versionId, JobPriority.INTERACTIVE);
+    }
+
+    @Test
+    @DisplayName("streamSummary should promote an ingest run that will summarize instead of queueing another generation")
+    void streamSummary_shouldPromoteIngestRunForFirstViewer() {
+        when(documentRepository.findById(documentId)).thenReturn(Optional.of(buildDocument()));
+        when(documentVersionRepository.findByDocumentIdAndVersionNumber(documentId, 1))
+                .thenReturn(Optional.of(buildDocumentVersion()));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.SUMMARY))
+                .thenReturn(Optional.empty());
+        when(summaryStreams.subscribe(versionId)).thenReturn(new SummaryStreams.Subscription(new SseEmitter(), true));
+        when(jobQueueService.pending(versionId, JobType.SUMMARY, JobType.INGEST)).thenReturn(List.of(Job.builder()
+                .type(JobType.INGEST)
+                .resourceId(versionId)
+                .payload("PDF_RENDITION,SUMMARY,INDEX")
+                .build()));
+
+        summaryService.streamSummary(documentId);
+
+        verify(jobQueueService, never()).enqueue(any(), any(), any(), any());
+        verify(jobQueueService).promote(versionId, JobPriority.INTERACTIVE);
+    }
+
+    @Test
+    @DisplayName("finishRemoteGenerations should complete streams whose summary was stored by another instance")
+    @SuppressWarnings("unchecked")
+    void finishRemoteGenerations_shouldCompleteFromStoredSummary() {
+        Rendition completedRendition = buildSummaryRendition(RenditionStatus.COMPLETED);
+        when(summaryStreams.awaitingElsewhere()).thenReturn(Set.of(versionId));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.SUMMARY))
+                .thenReturn(Optional.of(completedRendition));
+        when(blobStorageService.download("summaries", completedRendition.getFilePath()))
+                .thenReturn(new ByteArrayInputStream("Done.".getBytes(StandardCharsets.UTF_8)));
+
+        summaryService.finishRemoteGenerations();
+
+        ArgumentCaptor<Supplier<String>> summary = ArgumentCaptor.forClass(Supplier.class);
+        verify(summaryStreams).completed(eq(versionId), summary.capture());
+        assertThat(summary.getValue().get()).isEqualTo("Done.");
+    }
+
+    @Test
+    @DisplayName("finishRemoteGenerations should leave streams alone while the summary is still being generated")
+    void finishRemoteGenerations_shouldWaitForRunningGeneration() {
+        when(summaryStreams.awaitingElsewhere()).thenReturn(Set.of(versionId));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.SUMMARY))
+                .thenReturn(Optional.of(buildSummaryRendition(RenditionStatus.PROCESSING)));
+
+        summaryService.finishRemoteGenerations();
+
+        verify(summaryStreams, never()).completed(any(), any());
+        verify(summaryStreams, never()).failed(any(), any());
+    }
+
+    @Test
+    @DisplayName("prepareText should extract the text of a version still to be summarized, without waiting for it")
+    void prepareText_shouldExtractTextOfUnsummarizedVersion() {
+        DocumentVersion version = buildDocumentVersion();
+        CompletableFuture<ExtractedText> ocr = new CompletableFuture<>();
+        when(documentVersionRepository.findById(versionId)).thenReturn(Optional.of(version));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.SUMMARY))
+                .thenReturn(Optional.of(buildSummaryRendition(RenditionStatus.PENDING)));
+        when(extractedTextService.extractAsync(eq(version), any())).thenReturn(ocr);
+
+        CompletableFuture<Void> prepared = summaryService.prepareText(versionId);
+
+        assertThat(prepared).isNotDone();
+        ocr.complete(new ExtractedText("Scanned text", List.of(), ExtractedText.Source.DOCUMENT_INTELLIGENCE));
+        assertThat(prepared).isCompleted();
+    }
+
+    @Test
+    @DisplayName("prepareText should not extract text for a completed summary")
+    void prepareText_shouldSkipCompletedSummary() {
+        when(documentVersionRepository.findById(versionId)).thenReturn(Optional.of(buildDocumentVersion()));
+        when(renditionRepository.findByDocumentVersionIdAndRenditionType(versionId, RenditionType.SUMMARY))
+                .thenReturn(Optional.of(buildSummaryRendition(RenditionStatus.COMPLETED)));
+
+        assertThat(summaryService.prepareText(versionId)).isDone();
+        verify(extractedTextService, never()).extractAsync(any(), any());
+    }
 }
@@ -0,0 +1,157 @@
+package com.sedin.presales.application.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SummaryStreamsTest {
+
+    private SummaryStreams summaryStreams;
+
+    private final UUID versionId = UUID.randomUUID();
+
+    // Sends run when the test says so, standing in for a viewer whose connection is slow
+    private final List<Runnable> sends = new ArrayList<>();
+    private boolean sendInline = true;
+
+    @BeforeEach
+    void setUp() {
+        summaryStreams = new SummaryStreams(task -> {
+            if (sendInline) {
+                task.run();
+            } else {
+                sends.add(task);
+            }
+        });
+        ReflectionTestUtils.setField(summaryStreams, "streamTimeout", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(summaryStreams, "maxPendingEvents", 3);
+    }
+
+    private void runSends() {
+        while (!sends.isEmpty()) {
+            sends.remove(0).run();
+        }
+    }
+
+    @Test
+    @DisplayName("subscribe should only report the first viewer of a version")
+    void subscribe_shouldReportFirstViewerOnly() {
+        SummaryStreams.Subscription first = summaryStreams.subscribe(versionId);
+        SummaryStreams.Subscription second = summaryStreams.subscribe(versionId);
+
+        assertThat(first.first()).isTrue();
+        assertThat(second.first()).isFalse();
+        assertThat(summaryStreams.subscribe(UUID.randomUUID()).first()).isTrue();
+    }
+
+    @Test
+    @DisplayName("subscribe should attach to a generation that started without viewers")
+    void subscribe_shouldAttachToStartedGeneration() {
+        Consumer<String> tokens = summaryStreams.started(versionId);
+        tokens.accept("Partial ");
+
+        assertThat(summaryStreams.subscribe(versionId).first()).isFalse();
+    }
+
+    @Test
+    @DisplayName("completed should close every stream and forget the generation")
+    void completed_shouldCloseStreamsAndForgetGeneration() {
+        SseEmitter early = summaryStreams.subscribe(versionId).emitter();
+        Consumer<String> tokens = summaryStreams.started(versionId);
+        tokens.accept("The ");
+        SseEmitter late = summaryStreams.subscribe(versionId).emitter();
+        tokens.accept("summary.");
+
+        summaryStreams.completed(versionId, () -> "The summary.");
+
+        assertThatThrownBy(() -> early.send("more")).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> late.send("more")).isInstanceOf(IllegalStateException.class);
+        assertThat(summaryStreams.subscribe(versionId).first()).isTrue();
+    }
+
+    @Test
+    @DisplayName("completed should not read the summary when nobody is watching")
+    void completed_shouldNotReadSummaryWithoutGeneration() {
+        summaryStreams.completed(versionId, () -> {
+            throw new AssertionError("summary should not be read");
+        });
+    }
+
+    @Test
+    @DisplayName("failed should close every stream and forget the generation")
+    void failed_shouldCloseStreamsAndForgetGeneration() {
+        SseEmitter emitter = summaryStreams.subscribe(versionId).emitter();
+        summaryStreams.started(versionId);
+
+        summaryStreams.failed(versionId, "Azure OpenAI unavailable");
+
+        assertThatThrownBy(() -> emitter.send("more")).isInstanceOf(IllegalStateException.class);
+        assertThat(summaryStreams.subscribe(versionId).first()).isTrue();
+    }
+
+    @Test
+    @DisplayName("finished should return a stream that is already complete")
+    void finished_shouldReturnCompletedStream() {
+        SseEmitter emitter = summaryStreams.finished(SummaryStreams.COMPLETE, "Done.");
+
+        assertThatThrownBy(() -> emitter.send("more")).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("tokens should be queued for each viewer without waiting on its connection")
+    void token_shouldNotSendOnGeneratingThread() {
+        sendInline = false;
+        SseEmitter emitter = summaryStreams.subscribe(versionId).emitter();
+        Consumer<String> tokens = summaryStreams.started(versionId);
+
+        tokens.accept("The ");
+        tokens.accept("summary.");
+        summaryStreams.completed(versionId, () -> "The summary.");
+
+        assertThat(sends).hasSize(1);
+        runSends();
+        assertThatThrownBy(() -> emitter.send("more")).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("a viewer that falls too far behind should be dropped while the others keep streaming")
+    void token_shouldDropSlowViewer() throws IOException {
+        sendInline = false;
+        SseEmitter slow = summaryStreams.subscribe(versionId).emitter();
+        Consumer<String> tokens = summaryStreams.started(versionId);
+        for (int i = 0; i < 4; i++) {
+            tokens.accept("token ");
+        }
+        runSends();
+
+        sendInline = true;
+        SseEmitter fast = summaryStreams.subscribe(versionId).emitter();
+        tokens.accept("more ");
+
+        assertThatThrownBy(() -> slow.send("more")).isInstanceOf(IllegalStateException.class);
+        fast.send("still open");
+    }
+
+    @Test
+    @DisplayName("awaitingElsewhere should list versions watched here whose generation has not started here")
+    void awaitingElsewhere_shouldListUnstartedGenerations() {
+        UUID runningHere = UUID.randomUUID();
+        summaryStreams.subscribe(versionId);
+        summaryStreams.subscribe(runningHere);
+        summaryStreams.started(runningHere);
+
+        assertThat(summaryStreams.awaitingElsewhere()).containsExactly(versionId);
+    }
+}
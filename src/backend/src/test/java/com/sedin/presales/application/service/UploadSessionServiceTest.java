@@ -0,0 +1,264 @@
+package com.sedin.presales.application.service;
+
+import com.sedin.presales.application.dto.CompleteUploadSessionRequest;
+import com.sedin.presales.application.dto.CreateDocumentRequest;
+import com.sedin.presales.application.dto.CreateUploadSessionRequest;
+import com.sedin.presales.application.dto.DocumentDto;
+import com.sedin.presales.application.dto.UploadSessionDto;
+import com.sedin.presales.application.exception.AccessDeniedException;
+import com.sedin.presales.application.exception.BadRequestException;
+import com.sedin.presales.config.CurrentUserService;
+import com.sedin.presales.config.UserPrincipal;
+import com.sedin.presales.domain.entity.Document;
+import com.sedin.presales.domain.entity.UploadSession;
+import com.sedin.presales.domain.entity.UploadSessionChunk;
+import com.sedin.presales.domain.enums.UploadSessionStatus;
+import com.sedin.presales.domain.repository.DocumentRepository;
+import com.sedin.presales.domain.repository.UploadSessionChunkRepository;
+import com.sedin.presales.domain.repository.UploadSessionRepository;
+import com.sedin.presales.infrastructure.storage.BlobStorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UploadSessionServiceTest {
+
+    @Mock
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Mock
+    private UploadSessionChunkRepository uploadSessionChunkRepository;
+
+    @Mock
+    private DocumentRepository documentRepository;
+
+    @Mock
+    private DocumentService documentService;
+
+    @Mock
+    private BlobStorageService blobStorageService;
+
+    @Mock
+    private CurrentUserService currentUserService;
+
+    @InjectMocks
+    private UploadSessionService uploadSessionService;
+
+    private final UUID sessionId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(uploadSessionService, "chunkSize", 4);
+        ReflectionTestUtils.setField(uploadSessionService, "ttlHours", 24L);
+    }
+
+    private void mockUser(String email, String role) {
+        when(currentUserService.getCurrentUser()).thenReturn(UserPrincipal.builder()
+                .userId(UUID.randomUUID().toString())
+                .email(email)
+                .role(role)
+                .build());
+    }
+
+    private UploadSession buildSession() {
+        UploadSession session = UploadSession.builder()
+                .fileName("deck.pptx")
+                .contentType("application/pdf")
+                .fileSize(10L)
+                .chunkSize(4)
+                .totalChunks(3)
+                .blobPath("uploads/abc/deck.pptx")
+                .status(UploadSessionStatus.OPEN)
+                .expiresAt(Instant.now().plusSeconds(3600))
+                .build();
+        session.setId(sessionId);
+        session.setCreatedBy("editor@test.com");
+        return session;
+    }
+
+    private UploadSessionChunk chunk(int index) {
+        return UploadSessionChunk.builder().chunkIndex(index).size(4L).build();
+    }
+
+    @Test
+    @DisplayName("create should split the file into chunks of the configured size")
+    void create_shouldComputeChunkLayout() {
+        when(uploadSessionRepository.save(any(UploadSession.class))).thenAnswer(invocation -> {
+            UploadSession s = invocation.getArgument(0);
+            s.setId(sessionId);
+            return s;
+        });
+
+        UploadSessionDto result = uploadSessionService.create(CreateUploadSessionRequest.builder()
+                .fileName("deck.pptx")
+                .fileSize(10L)
+                .build());
+
+        assertThat(result.getId()).isEqualTo(sessionId);
+        assertThat(result.getChunkSize()).isEqualTo(4);
+        assertThat(result.getTotalChunks()).isEqualTo(3);
+        assertThat(result.getStatus()).isEqualTo(UploadSessionStatus.OPEN);
+        assertThat(result.getReceivedChunks()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("create should keep the blob of a session in its own folder under the file name")
+    void create_shouldPlaceBlobInSessionFolder() {
+        when(uploadSessionRepository.save(any(UploadSession.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        uploadSessionService.create(CreateUploadSessionRequest.builder().fileName(" deck.pptx ").fileSize(10L).build());
+
+        ArgumentCaptor<UploadSession> saved = ArgumentCaptor.forClass(UploadSession.class);
+        verify(uploadSessionRepository).save(saved.capture());
+        assertThat(saved.getValue().getBlobPath()).matches("uploads/[0-9a-f-]{36}/deck\\.pptx");
+        assertThat(saved.getValue().getFileName()).isEqualTo("deck.pptx");
+    }
+
+    @Test
+    @DisplayName("create should reject file names that could escape the session folder")
+    void create_shouldRejectPathTraversalInFileName() {
+        for (String fileName : List.of("../../" + UUID.randomUUID() + "/1/x.pptx", "a/b.pptx", "a\\b.pptx", "..", " ")) {
+            assertThatThrownBy(() -> uploadSessionService.create(CreateUploadSessionRequest.builder()
+                    .fileName(fileName)
+                    .fileSize(10L)
+                    .build()))
+                    .isInstanceOf(BadRequestException.class);
+        }
+        verify(uploadSessionRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("uploadChunk should stage the request stream as a block and record the chunk")
+    void uploadChunk_shouldStageBlockAndRecordChunk() {
+        mockUser("editor@test.com", "EDITOR");
+        UploadSession session = buildSession();
+        InputStream data = new ByteArrayInputStream(new byte[2]);
+
+        when(uploadSessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
+        when(uploadSessionChunkRepository.existsByUploadSessionIdAndChunkIndex(sessionId, 2)).thenReturn(false);
+        when(uploadSessionChunkRepository.findByUploadSessionIdOrderByChunkIndexAsc(sessionId))
+                .thenReturn(List.of(chunk(2)));
+
+        UploadSessionDto result = uploadSessionService.uploadChunk(sessionId, 2, data, 2L);
+
+        verify(blobStorageService).stageBlock("documents", "uploads/abc/deck.pptx",
+                BlobStorageService.blockId(sessionId.toString(), 2), data, 2L);
+        ArgumentCaptor<UploadSessionChunk> captor = ArgumentCaptor.forClass(UploadSessionChunk.class);
+        verify(uploadSessionChunkRepository).save(captor.capture());
+        assertThat(captor.getValue().getChunkIndex()).isEqualTo(2);
+        assertThat(result.getReceivedChunks()).containsExactly(2);
+    }
+
+    @Test
+    @DisplayName("uploadChunk should reject a chunk whose length does not match the session layout")
+    void uploadChunk_shouldRejectWrongLength() {
+        mockUser("editor@test.com", "EDITOR");
+        when(uploadSessionRepository.findById(sessionId)).thenReturn(Optional.of(buildSession()));
+
+        assertThatThrownBy(() -> uploadSessionService.uploadChunk(sessionId, 0, new ByteArrayInputStream(new byte[3]), 3L))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("must be 4 bytes");
+
+        verify(blobStorageService, never()).stageBlock(anyString(), anyString(), anyString(), any(InputStream.class), anyLong());
+    }
+
+    @Test
+    @DisplayName("uploadChunk should deny access to another user's session")
+    void uploadChunk_shouldDenyOtherUsers() {
+        mockUser("someone-else@test.com", "EDITOR");
+        when(uploadSessionRepository.findById(sessionId)).thenReturn(Optional.of(buildSession()));
+
+        assertThatThrownBy(() -> uploadSessionService.uploadChunk(sessionId, 0, new ByteArrayInputStream(new byte[4]), 4L))
+                .isInstanceOf(AccessDeniedException.class);
+    }
+
+    @Test
+    @DisplayName("complete should report missing chunks and not commit")
+    void complete_shouldRejectIncompleteUpload() {
+        mockUser("editor@test.com", "EDITOR");
+        when(uploadSessionRepository.findById(sessionId)).thenReturn(Optional.of(buildSession()));
+        when(uploadSessionChunkRepository.findByUploadSessionIdOrderByChunkIndexAsc(sessionId))
+                .thenReturn(List.of(chunk(0), chunk(2)));
+
+        assertThatThrownBy(() -> uploadSessionService.complete(sessionId, null))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("[1]");
+
+        verify(blobStorageService, never()).commitBlocks(anyString(), anyString(), anyList(), any());
+    }
+
+    @Test
+    @DisplayName("complete should commit blocks in order and create the document without reading the blob back")
+    void complete_shouldCommitBlocksAndCreateDocument() {
+        mockUser("editor@test.com", "EDITOR");
+        UploadSession session = buildSession();
+        UUID documentId = UUID.randomUUID();
+        Document document = Document.builder().title("Deck").build();
+        document.setId(documentId);
+        CreateDocumentRequest documentRequest = CreateDocumentRequest.builder()
+                .title("Deck")
+                .documentTypeId(UUID.randomUUID())
+                .build();
+
+        when(uploadSessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
+        when(uploadSessionChunkRepository.findByUploadSessionIdOrderByChunkIndexAsc(sessionId))
+                .thenReturn(List.of(chunk(0), chunk(1), chunk(2)));
+        when(documentService.createFromStoredBlob(documentRequest, "uploads/abc/deck.pptx", "deck.pptx",
+                10L, "application/pdf", null))
+                .thenReturn(DocumentDto.builder().id(documentId).build());
+        when(documentRepository.getReferenceById(documentId)).thenReturn(document);
+
+        UploadSessionDto result = uploadSessionService.complete(sessionId,
+                CompleteUploadSessionRequest.builder().document(documentRequest).build());
+
+        verify(blobStorageService).commitBlocks("documents", "uploads/abc/deck.pptx", List.of(
+                BlobStorageService.blockId(sessionId.toString(), 0),
+                BlobStorageService.blockId(sessionId.toString(), 1),
+                BlobStorageService.blockId(sessionId.toString(), 2)), "application/pdf");
+        verify(blobStorageService, never()).download(anyString(), anyString());
+        verify(uploadSessionChunkRepository).deleteByUploadSessionId(sessionId);
+        assertThat(result.getStatus()).isEqualTo(UploadSessionStatus.COMPLETED);
+        assertThat(result.getDocumentId()).isEqualTo(documentId);
+        assertThat(result.getVersionNumber()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("expireAbandonedSessions should discard staged blocks and mark sessions expired")
+    void expireAbandonedSessions_shouldDiscardExpiredSessions() {
+        UploadSession session = buildSession();
+        when(uploadSessionRepository.findByStatusAndExpiresAtBefore(eq(UploadSessionStatus.OPEN), any(Instant.class)))
+                .thenReturn(List.of(session));
+
+        uploadSessionService.expireAbandonedSessions();
+
+        verify(blobStorageService).discardStagedBlocks("documents", "uploads/abc/deck.pptx");
+        verify(uploadSessionChunkRepository).deleteByUploadSessionId(sessionId);
+        verify(uploadSessionRepository).save(session);
+        assertThat(session.getStatus()).isEqualTo(UploadSessionStatus.EXPIRED);
+    }
+}
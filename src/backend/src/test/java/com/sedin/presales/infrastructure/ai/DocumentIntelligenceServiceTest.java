@@ -1,20 +1,34 @@
 package com.sedin.presales.infrastructure.ai;
 
-import com.azure.ai.formrecognizer.documentanalysis.DocumentAnalysisClient;
+import com.azure.ai.formrecognizer.documentanalysis.DocumentAnalysisAsyncClient;
 import com.azure.ai.formrecognizer.documentanalysis.models.AnalyzeResult;
+import com.azure.ai.formrecognizer.documentanalysis.models.DocumentPage;
+import com.azure.ai.formrecognizer.documentanalysis.models.DocumentSpan;
 import com.azure.ai.formrecognizer.documentanalysis.models.OperationResult;
 import com.azure.core.util.BinaryData;
-import com.azure.core.util.polling.SyncPoller;
+import com.azure.core.util.polling.LongRunningOperationStatus;
+import com.azure.core.util.polling.PollResponse;
+import com.azure.core.util.polling.PollerFlux;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -28,10 +42,7 @@ import static org.mockito.Mockito.when;
 class DocumentIntelligenceServiceTest {
 
     @Mock
-    private DocumentAnalysisClient documentAnalysisClient;
-
-    @Mock
-    private SyncPoller<OperationResult, AnalyzeResult> syncPoller;
+    private DocumentAnalysisAsyncClient documentAnalysisAsyncClient;
 
     @Mock
     private AnalyzeResult analyzeResult;
@@ -39,6 +50,36 @@ class DocumentIntelligenceServiceTest {
     @InjectMocks
     private DocumentIntelligenceService documentIntelligenceService;
 
+    @TempDir
+    private Path tempDir;
+
+    private Path scan;
+
+    private final AtomicInteger polls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        scan = Files.write(tempDir.resolve("scan.pdf"), "scan".getBytes());
+        ReflectionTestUtils.setField(documentIntelligenceService, "pollInterval", Duration.ofMillis(1));
+        ReflectionTestUtils.setField(documentIntelligenceService, "timeout", Duration.ofSeconds(5));
+    }
+
+    // An analysis that is still running for the first polls, then ends with the given status
+    private PollerFlux<OperationResult, AnalyzeResult> analysis(int pollsInProgress, LongRunningOperationStatus status) {
+        OperationResult operation = mock(OperationResult.class);
+        return new PollerFlux<>(Duration.ofSeconds(30),
+                context -> Mono.just(operation),
+                context -> Mono.just(new PollResponse<>(polls.incrementAndGet() <= pollsInProgress
+                        ? LongRunningOperationStatus.IN_PROGRESS : status, operation)),
+                (context, response) -> Mono.empty(),
+                context -> Mono.just(analyzeResult));
+    }
+
+    private void analysisCompletes() {
+        when(documentAnalysisAsyncClient.beginAnalyzeDocument(eq("prebuilt-read"), any(BinaryData.class)))
+                .thenReturn(analysis(0, LongRunningOperationStatus.SUCCESSFULLY_COMPLETED));
+    }
+
     @Test
     @DisplayName("extractText should return extracted content from document")
     void extractText_shouldReturnExtractedContent() {
@@ -46,9 +87,7 @@ class DocumentIntelligenceServiceTest {
         String expectedText = "This is the extracted text from the document";
         InputStream inputStream = new ByteArrayInputStream("test content".getBytes());
 
-        when(documentAnalysisClient.beginAnalyzeDocument(eq("prebuilt-read"), any(BinaryData.class)))
-                .thenReturn(syncPoller);
-        when(syncPoller.getFinalResult()).thenReturn(analyzeResult);
+        analysisCompletes();
         when(analyzeResult.getContent()).thenReturn(expectedText);
 
         // Act
@@ -56,8 +95,7 @@ class DocumentIntelligenceServiceTest {
 
         // Assert
         assertThat(result).isEqualTo(expectedText);
-        verify(documentAnalysisClient).beginAnalyzeDocument(eq("prebuilt-read"), any(BinaryData.class));
-        verify(syncPoller).getFinalResult();
+        verify(documentAnalysisAsyncClient).beginAnalyzeDocument(eq("prebuilt-read"), any(BinaryData.class));
     }
 
     @Test
@@ -66,9 +104,7 @@ class DocumentIntelligenceServiceTest {
         // Arrange
         InputStream inputStream = new ByteArrayInputStream("some document bytes".getBytes());
 
-        when(documentAnalysisClient.beginAnalyzeDocument(eq("prebuilt-read"), any(BinaryData.class)))
-                .thenReturn(syncPoller);
-        when(syncPoller.getFinalResult()).thenReturn(analyzeResult);
+        analysisCompletes();
         when(analyzeResult.getContent()).thenReturn(null);
 
         // Act
@@ -76,18 +112,22 @@ class DocumentIntelligenceServiceTest {
 
         // Assert
         assertThat(result).isNull();
-        verify(documentAnalysisClient).beginAnalyzeDocument(eq("prebuilt-read"), any(BinaryData.class));
+        verify(documentAnalysisAsyncClient).beginAnalyzeDocument(eq("prebuilt-read"), any(BinaryData.class));
     }
 
     @Test
     @DisplayName("extractText should throw RuntimeException when InputStream throws IOException")
-    void extractText_shouldThrowOnIOException() throws Exception {
+    void extractText_shouldThrowOnIOException() {
         // Arrange
-        InputStream mockStream = mock(InputStream.class);
-        when(mockStream.readAllBytes()).thenThrow(new IOException("Read failed"));
+        InputStream failingStream = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Read failed");
+            }
+        };
 
         // Act & Assert
-        assertThatThrownBy(() -> documentIntelligenceService.extractText(mockStream, "application/pdf"))
+        assertThatThrownBy(() -> documentIntelligenceService.extractText(failingStream, "application/pdf"))
                 .isInstanceOf(RuntimeException.class)
                 .hasMessageContaining("Failed to read document");
     }
@@ -99,9 +139,7 @@ class DocumentIntelligenceServiceTest {
         InputStream inputStream = new ByteArrayInputStream(new byte[0]);
         String expectedText = "";
 
-        when(documentAnalysisClient.beginAnalyzeDocument(eq("prebuilt-read"), any(BinaryData.class)))
-                .thenReturn(syncPoller);
-        when(syncPoller.getFinalResult()).thenReturn(analyzeResult);
+        analysisCompletes();
         when(analyzeResult.getContent()).thenReturn(expectedText);
 
         // Act
@@ -109,6 +147,78 @@ class DocumentIntelligenceServiceTest {
 
         // Assert
         assertThat(result).isEmpty();
-        verify(documentAnalysisClient).beginAnalyzeDocument(eq("prebuilt-read"), any(BinaryData.class));
+        verify(documentAnalysisAsyncClient).beginAnalyzeDocument(eq("prebuilt-read"), any(BinaryData.class));
+    }
+
+    @Test
+    @DisplayName("analyze should return the span each page covers in the content")
+    void analyze_shouldReturnPageSpans() {
+        DocumentPage first = page(1, span(0, 10));
+        DocumentPage second = page(2, span(11, 5), span(17, 8));
+
+        analysisCompletes();
+        when(analyzeResult.getContent()).thenReturn("Slide one\nSlide two text");
+        when(analyzeResult.getPages()).thenReturn(List.of(first, second));
+
+        ExtractedText result = documentIntelligenceService.analyze(new ByteArrayInputStream("deck".getBytes()),
+                "application/pdf");
+
+        assertThat(result.content()).isEqualTo("Slide one\nSlide two text");
+        assertThat(result.pages()).containsExactly(
+                new ExtractedText.PageSpan(1, 0, 10),
+                new ExtractedText.PageSpan(2, 11, 14));
+    }
+
+    @Test
+    @DisplayName("analyzeAsync should not start the analysis until subscribed, then poll until it is done")
+    void analyzeAsync_shouldPollUntilDone() {
+        when(documentAnalysisAsyncClient.beginAnalyzeDocument(eq("prebuilt-read"), any(BinaryData.class)))
+                .thenReturn(analysis(3, LongRunningOperationStatus.SUCCESSFULLY_COMPLETED));
+        when(analyzeResult.getContent()).thenReturn("Scanned text");
+
+        Mono<ExtractedText> analysis = documentIntelligenceService.analyzeAsync(scan, "application/pdf");
+        assertThat(polls).hasValue(0);
+
+        ExtractedText result = analysis.block();
+
+        assertThat(result.content()).isEqualTo("Scanned text");
+        assertThat(result.source()).isEqualTo(ExtractedText.Source.DOCUMENT_INTELLIGENCE);
+        assertThat(polls).hasValue(4);
+    }
+
+    @Test
+    @DisplayName("analyzeAsync should fail when the analysis does not succeed")
+    void analyzeAsync_shouldFailWhenAnalysisFails() {
+        when(documentAnalysisAsyncClient.beginAnalyzeDocument(eq("prebuilt-read"), any(BinaryData.class)))
+                .thenReturn(analysis(1, LongRunningOperationStatus.FAILED));
+
+        assertThatThrownBy(() -> documentIntelligenceService.analyzeAsync(scan, "application/pdf").block())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("FAILED");
+    }
+
+    @Test
+    @DisplayName("analyzeAsync should give up on an analysis that outlasts the timeout")
+    void analyzeAsync_shouldTimeOut() {
+        ReflectionTestUtils.setField(documentIntelligenceService, "timeout", Duration.ofMillis(100));
+        when(documentAnalysisAsyncClient.beginAnalyzeDocument(eq("prebuilt-read"), any(BinaryData.class)))
+                .thenReturn(analysis(Integer.MAX_VALUE, LongRunningOperationStatus.SUCCESSFULLY_COMPLETED));
+
+        assertThatThrownBy(() -> documentIntelligenceService.analyzeAsync(scan, "application/pdf").block())
+                .hasCauseInstanceOf(TimeoutException.class);
+    }
+
+    private static DocumentPage page(int number, DocumentSpan... spans) {
+        DocumentPage page = mock(DocumentPage.class);
+        when(page.getPageNumber()).thenReturn(number);
+        when(page.getSpans()).thenReturn(List.of(spans));
+        return page;
+    }
+
+    private static DocumentSpan span(int offset, int length) {
+        DocumentSpan span = mock(DocumentSpan.class);
+        when(span.getOffset()).thenReturn(offset);
+        when(span.getLength()).thenReturn(length);
+        return span;
     }
 }
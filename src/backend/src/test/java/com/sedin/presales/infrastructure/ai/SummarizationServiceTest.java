@@ -1,6 +1,7 @@
 package com.sedin.presales.infrastructure.ai;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sedin.presales.infrastructure.storage.BlobStorageService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -9,17 +10,30 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpResponse;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -29,14 +43,40 @@ class SummarizationServiceTest {
     @Mock
     private RestTemplate restTemplate;
 
+    @Mock
+    private BlobStorageService blobStorageService;
+
     private SummarizationService summarizationService;
 
     @BeforeEach
     void setUp() {
-        summarizationService = new SummarizationService(restTemplate, new ObjectMapper());
+        summarizationService = new SummarizationService(restTemplate, new ObjectMapper(), blobStorageService,
+                Runnable::run);
         ReflectionTestUtils.setField(summarizationService, "endpoint", "https://test.openai.azure.com");
         ReflectionTestUtils.setField(summarizationService, "apiKey", "test-key");
         ReflectionTestUtils.setField(summarizationService, "chatDeployment", "gpt-4o-mini");
+        ReflectionTestUtils.setField(summarizationService, "containerSummaries", "summaries");
+        ReflectionTestUtils.setField(summarizationService, "maxInputTokens", 24000);
+        ReflectionTestUtils.setField(summarizationService, "sectionTokens", 6000);
+    }
+
+    private static String response(String content) {
+        return "{\"choices\": [{\"message\": {\"content\": \"" + content + "\"}}]}";
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String userContent(HttpEntity<?> request) {
+        var messages = (List<Map<String, Object>>) ((Map<String, Object>) request.getBody()).get("messages");
+        return (String) messages.get(1).get("content");
+    }
+
+    // Numbered lines of about a dozen tokens each
+    private static String longText(int lines) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            text.append("Line ").append(i).append(" describes the migration of billing workloads to the cloud.\n");
+        }
+        return text.toString();
     }
 
     @Test
@@ -67,45 +107,76 @@ class SummarizationServiceTest {
     }
 
     @Test
-    @DisplayName("summarize should truncate text exceeding 100k characters")
+    @DisplayName("summarize should summarize long text by section and combine the section summaries")
     @SuppressWarnings("unchecked")
-    void summarize_shouldTruncateLongText() {
-        // Arrange
-        String longText = "A".repeat(150_000);
-        String responseJson = """
-                {
-                    "choices": [
-                        {
-                            "message": {
-                                "content": "Summary of truncated document."
-                            }
-                        }
-                    ]
-                }
-                """;
+    void summarize_shouldMapReduceLongText() {
+        ReflectionTestUtils.setField(summarizationService, "maxInputTokens", 200);
+        ReflectionTestUtils.setField(summarizationService, "sectionTokens", 100);
+        String text = longText(60);
+        when(restTemplate.postForObject(anyString(), any(HttpEntity.class), eq(String.class))).thenAnswer(invocation -> {
+            String content = userContent(invocation.getArgument(1));
+            return response(content.startsWith("Summarize this section") ? "Section summary." : "Final summary.");
+        });
+
+        String result = summarizationService.summarize(text, "Long RFP Response");
 
+        assertThat(result).isEqualTo("Final summary.");
+        List<String> sections = summarizationService.split(text);
+        assertThat(sections).hasSizeGreaterThan(1);
+        assertThat(String.join("", sections)).isEqualTo(text);
+
+        ArgumentCaptor<HttpEntity> requests = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate, times(sections.size() + 1)).postForObject(anyString(), requests.capture(), eq(String.class));
+        String last = userContent(requests.getAllValues().get(sections.size()));
+        assertThat(last).contains("Long RFP Response").contains("Section summary.").doesNotContain("Line 0 ");
+        verify(blobStorageService, times(sections.size())).upload(eq("summaries"), startsWith("partials/"),
+                any(InputStream.class), anyLong(), eq("text/plain"));
+    }
+
+    @Test
+    @DisplayName("summarize should reuse cached section summaries instead of requesting them again")
+    void summarize_shouldReuseCachedSectionSummaries() {
+        ReflectionTestUtils.setField(summarizationService, "maxInputTokens", 200);
+        ReflectionTestUtils.setField(summarizationService, "sectionTokens", 100);
+        when(blobStorageService.exists(eq("summaries"), startsWith("partials/"))).thenReturn(true);
+        when(blobStorageService.download(eq("summaries"), startsWith("partials/")))
+                .thenAnswer(invocation -> new ByteArrayInputStream("Cached summary.".getBytes(StandardCharsets.UTF_8)));
         when(restTemplate.postForObject(anyString(), any(HttpEntity.class), eq(String.class)))
-                .thenReturn(responseJson);
+                .thenReturn(response("Final summary."));
 
-        // Act
-        String result = summarizationService.summarize(longText, "Long Document");
+        String result = summarizationService.summarize(longText(60), "Long RFP Response");
 
-        // Assert
-        assertThat(result).isEqualTo("Summary of truncated document.");
+        assertThat(result).isEqualTo("Final summary.");
+        verify(restTemplate, times(1)).postForObject(anyString(), any(HttpEntity.class), eq(String.class));
+        verify(blobStorageService, never()).upload(anyString(), anyString(), any(InputStream.class), anyLong(),
+                anyString());
+    }
 
-        ArgumentCaptor<HttpEntity> requestCaptor = ArgumentCaptor.forClass(HttpEntity.class);
-        verify(restTemplate).postForObject(anyString(), requestCaptor.capture(), eq(String.class));
+    @Test
+    @DisplayName("split should keep sections after an edited line unchanged")
+    void split_shouldKeepBoundariesStableAcrossEdits() {
+        ReflectionTestUtils.setField(summarizationService, "sectionTokens", 600);
+        String text = longText(500);
+        String edited = text.replace("Line 3 describes", "Line 3 now briefly describes");
 
-        HttpEntity<Map<String, Object>> captured = requestCaptor.getValue();
-        Map<String, Object> body = captured.getBody();
-        assertThat(body).isNotNull();
+        List<String> before = summarizationService.split(text);
+        List<String> after = summarizationService.split(edited);
 
-        // The user message content should contain the truncation note
-        var messages = (java.util.List<Map<String, Object>>) body.get("messages");
-        String userContent = (String) messages.get(1).get("content");
-        assertThat(userContent).contains("[Note: Document was truncated due to length");
-        // Should not contain the full 150k text
-        assertThat(userContent.length()).isLessThan(150_000);
+        List<String> changed = after.stream().filter(section -> !before.contains(section)).toList();
+        assertThat(changed).hasSizeLessThanOrEqualTo(2);
+        assertThat(after.size()).isGreaterThan(4);
+    }
+
+    @Test
+    @DisplayName("split should cut lines longer than a section")
+    void split_shouldCutOversizedLines() {
+        ReflectionTestUtils.setField(summarizationService, "sectionTokens", 50);
+        String line = "word ".repeat(400);
+
+        List<String> sections = summarizationService.split(line);
+
+        assertThat(sections).hasSizeGreaterThan(1);
+        assertThat(sections).allSatisfy(section -> assertThat(section.length()).isLessThan(line.length()));
     }
 
     @Test
@@ -159,4 +230,35 @@ class SummarizationServiceTest {
         // Verify api-key header is set
         assertThat(captured.getHeaders().getFirst("api-key")).isEqualTo("test-key");
     }
+
+    @Test
+    @DisplayName("summarize should stream the tokens of the completion to the listener")
+    @SuppressWarnings("unchecked")
+    void summarize_shouldStreamTokensToListener() {
+        String events = """
+                data: {"choices": [], "prompt_filter_results": []}
+
+                data: {"choices": [{"delta": {"role": "assistant"}}]}
+
+                data: {"choices": [{"delta": {"content": "A brief"}}]}
+
+                data: {"choices": [{"delta": {"content": " summary."}}]}
+
+                data: [DONE]
+
+                """;
+        when(restTemplate.execute(anyString(), eq(HttpMethod.POST), any(), any(ResponseExtractor.class)))
+                .thenAnswer(invocation -> invocation.<ResponseExtractor<String>>getArgument(3).extractData(
+                        new MockClientHttpResponse(events.getBytes(StandardCharsets.UTF_8), HttpStatus.OK)));
+        List<String> tokens = new ArrayList<>();
+
+        String summary = summarizationService.summarize("Document content here", "Cloud Migration", tokens::add);
+
+        assertThat(summary).isEqualTo("A brief summary.");
+        assertThat(tokens).containsExactly("A brief", " summary.");
+        ArgumentCaptor<HttpEntity> requestCaptor = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate).httpEntityCallback(requestCaptor.capture());
+        assertThat((Map<String, Object>) requestCaptor.getValue().getBody()).containsEntry("stream", true);
+        verify(restTemplate, never()).postForObject(anyString(), any(), eq(String.class));
+    }
 }
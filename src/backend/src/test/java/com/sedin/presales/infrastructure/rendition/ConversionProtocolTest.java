@@ -0,0 +1,86 @@
+package com.sedin.presales.infrastructure.rendition;
+
+import com.sedin.presales.infrastructure.ai.ExtractedText;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConversionProtocolTest {
+
+    @Test
+    @DisplayName("images should cross the pipe one at a time, each taken by the sink before the next is sent")
+    void readImages_shouldAcknowledgeEachImageBeforeTheNext() throws Exception {
+        PipedOutputStream childOut = new PipedOutputStream();
+        DataInputStream fromChild = new DataInputStream(new PipedInputStream(childOut, 1 << 16));
+        PipedOutputStream parentOut = new PipedOutputStream();
+        DataInputStream fromParent = new DataInputStream(new PipedInputStream(parentOut));
+        DataOutputStream toChild = new DataOutputStream(parentOut);
+        DataOutputStream toParent = new DataOutputStream(childOut);
+
+        AtomicInteger sent = new AtomicInteger();
+        Thread child = new Thread(() -> {
+            try {
+                for (int pageNumber = 0; pageNumber < 3; pageNumber++) {
+                    sent.incrementAndGet();
+                    ConversionProtocol.writeImage(toParent, fromParent, pageNumber,
+                            ("image-" + pageNumber).getBytes(StandardCharsets.UTF_8));
+                }
+                ConversionProtocol.writeEndOfImages(toParent);
+                toParent.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        child.start();
+
+        List<String> received = new ArrayList<>();
+        ConversionProtocol.readImages(fromChild, toChild, new ImageSink() {
+            @Override
+            public void thumbnail(byte[] png) {
+                assertThat(sent).hasValue(1);
+                received.add("thumbnail:" + new String(png, StandardCharsets.UTF_8));
+            }
+
+            @Override
+            public void pageImage(int pageNumber, byte[] png) {
+                assertThat(sent).hasValue(pageNumber + 1);
+                received.add(pageNumber + ":" + new String(png, StandardCharsets.UTF_8));
+            }
+        });
+        child.join(5000);
+
+        assertThat(received).containsExactly("thumbnail:image-0", "1:image-1", "2:image-2");
+    }
+
+    @Test
+    @DisplayName("text results should keep their page spans and content beyond a single chunk")
+    void readText_shouldRoundTripPagesAndContent() throws IOException {
+        String first = "é".repeat(70_000);
+        String content = first + "\nSecond page";
+        LocalTextExtractor.Result result = new LocalTextExtractor.Result(new ExtractedText(content, List.of(
+                new ExtractedText.PageSpan(1, 0, first.length()),
+                new ExtractedText.PageSpan(2, first.length() + 1, 11)), ExtractedText.Source.LOCAL), 1);
+        ByteArrayOutputStream pipe = new ByteArrayOutputStream();
+        ConversionProtocol.writeText(new DataOutputStream(pipe), result);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(pipe.toByteArray()));
+        assertThat(in.readByte()).isEqualTo(ConversionProtocol.OK);
+        in.readLong();
+
+        assertThat(ConversionProtocol.readText(in)).isEqualTo(result);
+    }
+}
@@ -0,0 +1,109 @@
+package com.sedin.presales.infrastructure.rendition;
+
+import com.sedin.presales.application.exception.BadRequestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConversionWorkerPoolTest {
+
+    private static final byte[] PDF = "%PDF-1.7 test".getBytes(StandardCharsets.UTF_8);
+
+    private ConversionWorkerPool pool;
+
+    private ConversionWorkerPool newPool(int maxJobs) {
+        ConversionWorkerPool conversionWorkerPool = new ConversionWorkerPool();
+        ReflectionTestUtils.setField(conversionWorkerPool, "poolSize", 1);
+        ReflectionTestUtils.setField(conversionWorkerPool, "maxHeap", "256m");
+        ReflectionTestUtils.setField(conversionWorkerPool, "jobTimeout", Duration.ofMinutes(2));
+        ReflectionTestUtils.setField(conversionWorkerPool, "maxJobs", maxJobs);
+        ReflectionTestUtils.setField(conversionWorkerPool, "maxRssBytes", Long.MAX_VALUE);
+        ReflectionTestUtils.setField(conversionWorkerPool, "jvmOptions", "-Xss1m");
+        conversionWorkerPool.start();
+        return conversionWorkerPool;
+    }
+
+    private byte[] render(String contentType) {
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        pool.render(new ByteArrayInputStream(PDF), contentType, 0, ImageOptions.NONE, pdf, ImageSink.DISCARD);
+        return pdf.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private BlockingQueue<ConversionWorker> idle() {
+        return (BlockingQueue<ConversionWorker>) ReflectionTestUtils.getField(pool, "idle");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("render should run in a child process and keep the worker for the next job")
+    void render_shouldReuseWorker() {
+        pool = newPool(10);
+        assertThat(pool.isAvailable()).isTrue();
+        long pid = idle().peek().pid();
+
+        assertThat(render("application/pdf")).isEqualTo(PDF);
+        assertThat(render("application/pdf")).isEqualTo(PDF);
+
+        assertThat(idle()).hasSize(1);
+        assertThat(idle().peek().pid()).isEqualTo(pid).isNotEqualTo(ProcessHandle.current().pid());
+    }
+
+    @Test
+    @DisplayName("render should surface a worker's bad-request answer without discarding the worker")
+    void render_shouldPropagateBadRequest() {
+        pool = newPool(10);
+        long pid = idle().peek().pid();
+
+        assertThatThrownBy(() -> render("text/plain"))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Unsupported content type");
+
+        assertThat(idle().peek().pid()).isEqualTo(pid);
+    }
+
+    @Test
+    @DisplayName("render should retire a worker once it has served max-jobs conversions")
+    void render_shouldRecycleAfterMaxJobs() {
+        pool = newPool(1);
+        ConversionWorker first = idle().peek();
+
+        render("application/pdf");
+
+        assertThat(idle()).isEmpty();
+        ProcessHandle.of(first.pid()).ifPresent(handle -> handle.onExit().orTimeout(10, TimeUnit.SECONDS).join());
+        assertThat(first.isAlive()).isFalse();
+        assertThat(render("application/pdf")).isEqualTo(PDF);
+    }
+
+    @Test
+    @DisplayName("render should replace a worker that died while idle")
+    void render_shouldRestartDeadWorker() {
+        pool = newPool(10);
+        ConversionWorker crashed = idle().peek();
+        crashed.destroy();
+        ProcessHandle.of(crashed.pid()).ifPresent(handle -> handle.onExit().orTimeout(10, TimeUnit.SECONDS).join());
+
+        assertThat(render("application/pdf")).isEqualTo(PDF);
+
+        assertThat(idle()).hasSize(1);
+        assertThat(idle().peek().pid()).isNotEqualTo(crashed.pid());
+    }
+}
@@ -0,0 +1,61 @@
+package com.sedin.presales.infrastructure.rendition;
+
+import com.sedin.presales.infrastructure.ai.ExtractedText;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LocalTextExtractorTest {
+
+    @SuppressWarnings("unchecked")
+    private final ObjectProvider<ConversionWorkerPool> conversionWorkerPool = mock(ObjectProvider.class);
+
+    private final LocalTextExtractor localTextExtractor = new LocalTextExtractor(conversionWorkerPool);
+
+    @Test
+    void supports_shouldCoverOfficeFormatsAndPdf() {
+        assertThat(LocalTextExtractor.supports(RenditionWarmup.PPTX)).isTrue();
+        assertThat(LocalTextExtractor.supports(RenditionWarmup.DOCX)).isTrue();
+        assertThat(LocalTextExtractor.supports(RenditionWarmup.XLSX)).isTrue();
+        assertThat(LocalTextExtractor.supports("application/pdf")).isTrue();
+        assertThat(LocalTextExtractor.supports("image/png")).isFalse();
+        assertThat(LocalTextExtractor.supports(null)).isFalse();
+    }
+
+    @Test
+    void extract_shouldRejectUnsupportedContentType() {
+        assertThatThrownBy(() -> localTextExtractor.extract(new ByteArrayInputStream(new byte[0]), "image/png"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("image/png");
+    }
+
+    @Test
+    void extract_shouldWrapAsposeFailures() {
+        assertThatThrownBy(() -> localTextExtractor.extract(null, RenditionWarmup.PPTX))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Failed to extract text locally");
+    }
+
+    @Test
+    void extract_shouldReadInWorkerWhenPoolIsRunning() {
+        ConversionWorkerPool pool = mock(ConversionWorkerPool.class);
+        InputStream deck = new ByteArrayInputStream(new byte[0]);
+        LocalTextExtractor.Result inWorker = new LocalTextExtractor.Result(new ExtractedText("Slide",
+                List.of(new ExtractedText.PageSpan(1, 0, 5)), ExtractedText.Source.LOCAL), 0);
+        when(conversionWorkerPool.getIfAvailable()).thenReturn(pool);
+        when(pool.isAvailable()).thenReturn(true);
+        when(pool.extractText(deck, RenditionWarmup.PPTX)).thenReturn(inWorker);
+
+        assertThat(localTextExtractor.extract(deck, RenditionWarmup.PPTX)).isSameAs(inWorker);
+        verify(pool).extractText(deck, RenditionWarmup.PPTX);
+    }
+}
@@ -0,0 +1,83 @@
+package com.sedin.presales.infrastructure.rendition;
+
+import com.sedin.presales.domain.enums.JobPriority;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PrioritySlotsTest {
+
+    private final ExecutorService threads = Executors.newCachedThreadPool();
+    private final PrioritySlots slots = new PrioritySlots(1);
+    private final List<String> order = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        threads.shutdownNow();
+    }
+
+    private Future<?> waitFor(String name, JobPriority priority) {
+        int before = slots.waiting(priority);
+        Future<?> acquired = threads.submit(() -> {
+            slots.acquire(priority);
+            order.add(name);
+            slots.release();
+            return null;
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (slots.waiting(priority) == before && !acquired.isDone() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        return acquired;
+    }
+
+    @Test
+    @DisplayName("a released slot should go to the waiting interactive conversion before earlier background ones")
+    void release_shouldServeHighestPriorityFirst() throws Exception {
+        slots.acquire(JobPriority.BACKGROUND);
+        Future<?> backfill = waitFor("backfill", JobPriority.BACKGROUND);
+        Future<?> bulk = waitFor("bulk", JobPriority.BACKGROUND);
+        Future<?> upload = waitFor("upload", JobPriority.NORMAL);
+        Future<?> viewer = waitFor("viewer", JobPriority.INTERACTIVE);
+
+        slots.release();
+        for (Future<?> waiter : List.of(backfill, bulk, upload, viewer)) {
+            waiter.get(5, TimeUnit.SECONDS);
+        }
+
+        assertThat(order).containsExactly("viewer", "upload", "backfill", "bulk");
+    }
+
+    @Test
+    @DisplayName("an interrupted waiter should leave the line without taking a slot")
+    void acquire_shouldLeaveLineWhenInterrupted() throws Exception {
+        slots.acquire(JobPriority.NORMAL);
+        Future<?> cancelled = threads.submit(() -> {
+            slots.acquire(JobPriority.INTERACTIVE);
+            return null;
+        });
+        while (slots.waiting(JobPriority.INTERACTIVE) == 0) {
+            Thread.onSpinWait();
+        }
+
+        cancelled.cancel(true);
+        Future<?> next = waitFor("next", JobPriority.BACKGROUND);
+        slots.release();
+
+        next.get(5, TimeUnit.SECONDS);
+        assertThat(order).containsExactly("next");
+        assertThat(slots.waiting(JobPriority.INTERACTIVE)).isZero();
+        assertThatThrownBy(() -> cancelled.get()).isInstanceOf(CancellationException.class);
+    }
+}
@@ -0,0 +1,67 @@
+package com.sedin.presales.infrastructure.rendition;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RenditionWarmupTest {
+
+    @Mock
+    private PdfRenditionService pdfRenditionService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private RenditionWarmup warmup;
+
+    @BeforeEach
+    void setUp() {
+        warmup = new RenditionWarmup(pdfRenditionService, meterRegistry);
+        ReflectionTestUtils.setField(warmup, "preloadFonts", false);
+        ReflectionTestUtils.setField(warmup, "iterations", 2);
+        Function<String, byte[]> samples = contentType -> contentType.getBytes();
+        ReflectionTestUtils.setField(warmup, "samples", samples);
+    }
+
+    @Test
+    @DisplayName("run should convert each type once cold and then for each steady-state iteration")
+    void run_shouldRecordFirstAndSteadyStateConversions() {
+        warmup.run(null);
+
+        for (String contentType : new String[]{RenditionWarmup.PPTX, RenditionWarmup.DOCX, RenditionWarmup.XLSX}) {
+            verify(pdfRenditionService, times(3)).convertToPdf(any(InputStream.class), eq(contentType), any(OutputStream.class), any(ImageSink.class));
+            assertThat(meterRegistry.get("rendition.warmup").tag("content.type", contentType).tag("phase", "first")
+                    .timer().count()).isEqualTo(1);
+            assertThat(meterRegistry.get("rendition.warmup").tag("content.type", contentType).tag("phase", "steady")
+                    .timer().count()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    @DisplayName("run should carry on with the other types when one fails to convert")
+    void run_shouldNotFailStartupWhenAConversionFails() {
+        when(pdfRenditionService.convertToPdf(any(InputStream.class), eq(RenditionWarmup.PPTX), any(OutputStream.class), any(ImageSink.class)))
+                .thenThrow(new IllegalStateException("Aspose failed"));
+
+        warmup.run(null);
+
+        verify(pdfRenditionService, times(3)).convertToPdf(any(InputStream.class), eq(RenditionWarmup.XLSX), any(OutputStream.class), any(ImageSink.class));
+        assertThat(meterRegistry.find("rendition.warmup").tag("content.type", RenditionWarmup.PPTX).timer()).isNull();
+    }
+}
@@ -0,0 +1,321 @@
+package com.sedin.presales.infrastructure.storage;
+
+import com.azure.storage.blob.BlobClient;
+import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.BlobServiceClient;
+import com.azure.core.util.BinaryData;
+import com.azure.core.http.rest.Response;
+import com.azure.core.util.Context;
+import com.azure.storage.blob.models.BlobHttpHeaders;
+import com.azure.storage.blob.models.BlobProperties;
+import com.azure.storage.blob.models.BlobRange;
+import com.azure.storage.blob.models.BlobRequestConditions;
+import com.azure.storage.blob.models.BlobStorageException;
+import com.azure.storage.blob.models.BlockBlobItem;
+import com.azure.storage.blob.options.BlockBlobCommitBlockListOptions;
+import com.azure.storage.blob.sas.BlobServiceSasSignatureValues;
+import com.azure.storage.blob.specialized.BlockBlobClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AzureBlobStoreTest {
+
+    @Mock
+    private BlobServiceClient blobServiceClient;
+
+    @Mock
+    private BlobContainerClient containerClient;
+
+    @Mock
+    private BlobClient blobClient;
+
+    @Mock
+    private BlockBlobClient blockBlobClient;
+
+    @InjectMocks
+    private AzureBlobStore azureBlobStore;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(azureBlobStore, "stagedUploadThreshold", 32L);
+        ReflectionTestUtils.setField(azureBlobStore, "blockSize", 4);
+        ReflectionTestUtils.setField(azureBlobStore, "maxBlocksInFlight", 2);
+    }
+
+    private AzureBlobStore storeWithExecutor(Executor executor) {
+        AzureBlobStore store = new AzureBlobStore(blobServiceClient, executor);
+        ReflectionTestUtils.setField(store, "stagedUploadThreshold", 32L);
+        ReflectionTestUtils.setField(store, "blockSize", 4);
+        ReflectionTestUtils.setField(store, "maxBlocksInFlight", 2);
+        return store;
+    }
+
+    private void setupBlobClientChain(String container, String blobName) {
+        when(blobServiceClient.getBlobContainerClient(container)).thenReturn(containerClient);
+        when(containerClient.getBlobClient(blobName)).thenReturn(blobClient);
+    }
+
+    @Test
+    @DisplayName("upload should upload blob and return URL")
+    void upload_shouldUploadBlobAndReturnUrl() {
+        String container = "test-container";
+        String blobName = "test-blob.pdf";
+        InputStream data = new ByteArrayInputStream("content".getBytes());
+        long length = 7L;
+        String contentType = "application/pdf";
+
+        setupBlobClientChain(container, blobName);
+        when(blobClient.getBlobUrl()).thenReturn("https://storage.blob.core.windows.net/test-container/test-blob.pdf");
+
+        String result = azureBlobStore.upload(container, blobName, data, length, contentType);
+
+        assertThat(result).isEqualTo("https://storage.blob.core.windows.net/test-container/test-blob.pdf");
+        verify(blobClient).upload(eq(data), eq(length), eq(true));
+        verify(blobClient).setHttpHeaders(any(BlobHttpHeaders.class));
+        verify(blobClient).getBlobUrl();
+    }
+
+    @Test
+    @DisplayName("download should return InputStream from blob")
+    void download_shouldReturnInputStream() {
+        String container = "test-container";
+        String blobName = "test-blob.pdf";
+        InputStream mockStream = mock(InputStream.class);
+
+        setupBlobClientChain(container, blobName);
+        when(blobClient.openInputStream()).thenReturn(mock(com.azure.storage.blob.specialized.BlobInputStream.class));
+
+        InputStream result = azureBlobStore.download(container, blobName);
+
+        assertThat(result).isNotNull();
+        verify(blobClient).openInputStream();
+    }
+
+    @Test
+    @DisplayName("downloadRange should open the blob stream for just the requested range")
+    void downloadRange_shouldOpenRangedStream() {
+        String container = "test-container";
+        String blobName = "test-blob.pdf";
+
+        setupBlobClientChain(container, blobName);
+        when(blobClient.openInputStream(any(BlobRange.class), isNull()))
+                .thenReturn(mock(com.azure.storage.blob.specialized.BlobInputStream.class));
+
+        azureBlobStore.downloadRange(container, blobName, 1024L, 512L);
+
+        ArgumentCaptor<BlobRange> captor = ArgumentCaptor.forClass(BlobRange.class);
+        verify(blobClient).openInputStream(captor.capture(), isNull());
+        assertThat(captor.getValue().getOffset()).isEqualTo(1024L);
+        assertThat(captor.getValue().getCount()).isEqualTo(512L);
+    }
+
+    @Test
+    @DisplayName("getInfo should return the ETag and size from the blob properties")
+    void getInfo_shouldReturnEtagAndSize() {
+        String container = "test-container";
+        String blobName = "test-blob.pdf";
+
+        setupBlobClientChain(container, blobName);
+        BlobProperties properties = mock(BlobProperties.class);
+        when(properties.getETag()).thenReturn("\"0x8DC\"");
+        when(properties.getBlobSize()).thenReturn(2048L);
+        when(blobClient.getProperties()).thenReturn(properties);
+
+        BlobInfo info = azureBlobStore.getInfo(container, blobName);
+
+        assertThat(info).isEqualTo(new BlobInfo("\"0x8DC\"", 2048L));
+    }
+
+    @Test
+    @DisplayName("delete should call deleteIfExists on blob client")
+    void delete_shouldCallDeleteIfExists() {
+        String container = "test-container";
+        String blobName = "test-blob.pdf";
+
+        setupBlobClientChain(container, blobName);
+
+        azureBlobStore.delete(container, blobName);
+
+        verify(blobClient).deleteIfExists();
+    }
+
+    @Test
+    @DisplayName("generateSasUrl should return URL with SAS token appended")
+    void generateSasUrl_shouldReturnUrlWithSasToken() {
+        String container = "test-container";
+        String blobName = "test-blob.pdf";
+        Duration validity = Duration.ofHours(1);
+
+        setupBlobClientChain(container, blobName);
+        when(blobClient.generateSas(any(BlobServiceSasSignatureValues.class))).thenReturn("token");
+        when(blobClient.getBlobUrl()).thenReturn("https://blob.url");
+
+        String result = azureBlobStore.generateSasUrl(container, blobName, validity);
+
+        assertThat(result).isEqualTo("https://blob.url?token");
+    }
+
+    @Test
+    @DisplayName("exists should return true when blob exists")
+    void exists_shouldReturnTrue() {
+        String container = "test-container";
+        String blobName = "test-blob.pdf";
+
+        setupBlobClientChain(container, blobName);
+        when(blobClient.exists()).thenReturn(true);
+
+        boolean result = azureBlobStore.exists(container, blobName);
+
+        assertThat(result).isTrue();
+    }
+
+    @Test
+    @DisplayName("exists should return false when blob does not exist")
+    void exists_shouldReturnFalse() {
+        String container = "test-container";
+        String blobName = "nonexistent-blob.pdf";
+
+        setupBlobClientChain(container, blobName);
+        when(blobClient.exists()).thenReturn(false);
+
+        boolean result = azureBlobStore.exists(container, blobName);
+
+        assertThat(result).isFalse();
+    }
+
+    @Test
+    @DisplayName("uploadInBlocks should stage each block and commit once with headers")
+    void uploadInBlocks_shouldStageBlocksAndCommitWithHeaders() {
+        String container = "test-container";
+        String blobName = "large-deck.pptx";
+        InputStream data = new ByteArrayInputStream("0123456789".getBytes());
+        AzureBlobStore store = storeWithExecutor(Runnable::run);
+
+        setupBlobClientChain(container, blobName);
+        when(blobClient.getBlockBlobClient()).thenReturn(blockBlobClient);
+        when(blobClient.getBlobUrl()).thenReturn("https://blob.url/large-deck.pptx");
+
+        String result = store.uploadInBlocks(container, blobName, data, "application/pdf");
+
+        assertThat(result).isEqualTo("https://blob.url/large-deck.pptx");
+        ArgumentCaptor<String> blockIds = ArgumentCaptor.forClass(String.class);
+        verify(blockBlobClient, times(3)).stageBlock(blockIds.capture(), any(BinaryData.class));
+        assertThat(blockIds.getAllValues()).doesNotHaveDuplicates();
+        assertThat(blockIds.getAllValues()).extracting(String::length).containsOnly(blockIds.getValue().length());
+
+        ArgumentCaptor<BlockBlobCommitBlockListOptions> commit = ArgumentCaptor.forClass(BlockBlobCommitBlockListOptions.class);
+        verify(blockBlobClient).commitBlockListWithResponse(commit.capture(), isNull(), eq(Context.NONE));
+        assertThat(commit.getValue().getBase64BlockIds()).containsExactlyElementsOf(blockIds.getAllValues());
+        assertThat(commit.getValue().getHeaders().getContentType()).isEqualTo("application/pdf");
+        verify(blobClient, never()).setHttpHeaders(any(BlobHttpHeaders.class));
+    }
+
+    @Test
+    @DisplayName("uploadInBlocks should not commit when a block fails to stage")
+    void uploadInBlocks_shouldNotCommitWhenStagingFails() {
+        String container = "test-container";
+        String blobName = "large-deck.pptx";
+        InputStream data = new ByteArrayInputStream("0123456789".getBytes());
+        AzureBlobStore store = storeWithExecutor(Runnable::run);
+
+        setupBlobClientChain(container, blobName);
+        when(blobClient.getBlockBlobClient()).thenReturn(blockBlobClient);
+        doThrow(new RuntimeException("network down"))
+                .when(blockBlobClient).stageBlock(anyString(), any(BinaryData.class));
+
+        assertThatThrownBy(() -> store.uploadInBlocks(container, blobName, data, "application/pdf"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasRootCauseMessage("network down");
+
+        verify(blockBlobClient, never()).commitBlockListWithResponse(
+                any(BlockBlobCommitBlockListOptions.class), any(), any());
+    }
+
+    @Test
+    @DisplayName("upload should switch to staged blocks above the threshold")
+    void upload_shouldUseStagedBlocksAboveThreshold() {
+        String container = "test-container";
+        String blobName = "large-deck.pptx";
+        byte[] content = new byte[40];
+        AzureBlobStore store = storeWithExecutor(Runnable::run);
+
+        setupBlobClientChain(container, blobName);
+        when(blobClient.getBlockBlobClient()).thenReturn(blockBlobClient);
+        when(blobClient.getBlobUrl()).thenReturn("https://blob.url/large-deck.pptx");
+
+        store.upload(container, blobName, new ByteArrayInputStream(content), content.length, "application/pdf");
+
+        verify(blockBlobClient, times(10)).stageBlock(anyString(), any(BinaryData.class));
+        verify(blobClient, never()).upload(any(InputStream.class), anyLong(), anyBoolean());
+    }
+
+    @Test
+    @DisplayName("discardStagedBlocks should commit an empty list only where no blob is committed, then delete just that")
+    @SuppressWarnings("unchecked")
+    void discardStagedBlocks_shouldOnlyClearNameWithoutCommittedBlob() {
+        setupBlobClientChain("documents", "uploads/abc/deck.pptx");
+        when(blobClient.getBlockBlobClient()).thenReturn(blockBlobClient);
+        Response<BlockBlobItem> emptyCommit = mock(Response.class);
+        BlockBlobItem emptyBlob = mock(BlockBlobItem.class);
+        when(emptyCommit.getValue()).thenReturn(emptyBlob);
+        when(emptyBlob.getETag()).thenReturn("\"0x1\"");
+        when(blockBlobClient.commitBlockListWithResponse(any(BlockBlobCommitBlockListOptions.class), isNull(),
+                eq(Context.NONE))).thenReturn(emptyCommit);
+
+        azureBlobStore.discardStagedBlocks("documents", "uploads/abc/deck.pptx");
+
+        ArgumentCaptor<BlockBlobCommitBlockListOptions> captor =
+                ArgumentCaptor.forClass(BlockBlobCommitBlockListOptions.class);
+        verify(blockBlobClient).commitBlockListWithResponse(captor.capture(), isNull(), eq(Context.NONE));
+        assertThat(captor.getValue().getBase64BlockIds()).isEmpty();
+        assertThat(captor.getValue().getRequestConditions().getIfNoneMatch()).isEqualTo("*");
+        ArgumentCaptor<BlobRequestConditions> deleteConditions = ArgumentCaptor.forClass(BlobRequestConditions.class);
+        verify(blobClient).deleteIfExistsWithResponse(isNull(), deleteConditions.capture(), isNull(), eq(Context.NONE));
+        assertThat(deleteConditions.getValue().getIfMatch()).isEqualTo("\"0x1\"");
+    }
+
+    @Test
+    @DisplayName("discardStagedBlocks should leave a committed blob and its staged blocks alone")
+    void discardStagedBlocks_shouldKeepCommittedBlob() {
+        setupBlobClientChain("documents", "renditions/abc/preview.pdf");
+        when(blobClient.getBlockBlobClient()).thenReturn(blockBlobClient);
+        BlobStorageException alreadyExists = mock(BlobStorageException.class);
+        when(alreadyExists.getStatusCode()).thenReturn(409);
+        when(blockBlobClient.commitBlockListWithResponse(any(BlockBlobCommitBlockListOptions.class), isNull(),
+                eq(Context.NONE))).thenThrow(alreadyExists);
+
+        azureBlobStore.discardStagedBlocks("documents", "renditions/abc/preview.pdf");
+
+        verify(blobClient, never()).deleteIfExists();
+        verify(blobClient, never()).deleteIfExistsWithResponse(any(), any(), any(), any());
+    }
+}
@@ -0,0 +1,98 @@
+package com.sedin.presales.infrastructure.storage;
+
+import com.azure.storage.blob.BlobAsyncClient;
+import com.azure.storage.blob.BlobContainerAsyncClient;
+import com.azure.storage.blob.BlobServiceAsyncClient;
+import com.azure.storage.blob.models.BlobDownloadAsyncResponse;
+import com.azure.storage.blob.models.BlobRange;
+import com.azure.storage.blob.options.BlobParallelUploadOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AzureReactiveBlobStoreTest {
+
+    @Mock
+    private BlobServiceAsyncClient blobServiceAsyncClient;
+
+    @Mock
+    private BlobContainerAsyncClient containerAsyncClient;
+
+    @Mock
+    private BlobAsyncClient blobAsyncClient;
+
+    private AzureReactiveBlobStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new AzureReactiveBlobStore(blobServiceAsyncClient);
+        ReflectionTestUtils.setField(store, "blockSize", 4L);
+        ReflectionTestUtils.setField(store, "maxBlocksInFlight", 2);
+        when(blobServiceAsyncClient.getBlobContainerAsyncClient("documents")).thenReturn(containerAsyncClient);
+        when(containerAsyncClient.getBlobAsyncClient("a.pdf")).thenReturn(blobAsyncClient);
+    }
+
+    @Test
+    @DisplayName("download should return the async client's byte stream")
+    void download_shouldStreamBlob() {
+        Flux<ByteBuffer> chunks = Flux.just(ByteBuffer.wrap(new byte[]{1, 2}));
+        when(blobAsyncClient.downloadStream()).thenReturn(chunks);
+
+        assertThat(store.download("documents", "a.pdf")).isSameAs(chunks);
+    }
+
+    @Test
+    @DisplayName("downloadRange should request only the given range")
+    void downloadRange_shouldRequestRange() {
+        BlobDownloadAsyncResponse response = mock(BlobDownloadAsyncResponse.class);
+        when(response.getValue()).thenReturn(Flux.just(ByteBuffer.wrap(new byte[]{7, 8, 9})));
+        when(blobAsyncClient.downloadStreamWithResponse(any(BlobRange.class), isNull(), isNull(), eq(false)))
+                .thenReturn(Mono.just(response));
+
+        Long bytes = store.downloadRange("documents", "a.pdf", 100, 3)
+                .map(ByteBuffer::remaining)
+                .reduce(0L, Long::sum)
+                .block();
+
+        assertThat(bytes).isEqualTo(3);
+        ArgumentCaptor<BlobRange> range = ArgumentCaptor.forClass(BlobRange.class);
+        verify(blobAsyncClient).downloadStreamWithResponse(range.capture(), isNull(), isNull(), eq(false));
+        assertThat(range.getValue().getOffset()).isEqualTo(100);
+        assertThat(range.getValue().getCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("upload should stream in blocks with the content type and return the blob URL")
+    void upload_shouldUploadWithOptions() {
+        Flux<ByteBuffer> data = Flux.just(ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5}));
+        when(blobAsyncClient.uploadWithResponse(any(BlobParallelUploadOptions.class))).thenReturn(Mono.just(mock()));
+        when(blobAsyncClient.getBlobUrl()).thenReturn("https://account.blob.core.windows.net/documents/a.pdf");
+
+        Mono<String> upload = store.upload("documents", "a.pdf", data, "application/pdf");
+
+        assertThat(upload.block()).isEqualTo("https://account.blob.core.windows.net/documents/a.pdf");
+        ArgumentCaptor<BlobParallelUploadOptions> options = ArgumentCaptor.forClass(BlobParallelUploadOptions.class);
+        verify(blobAsyncClient).uploadWithResponse(options.capture());
+        assertThat(options.getValue().getHeaders().getContentType()).isEqualTo("application/pdf");
+        assertThat(options.getValue().getParallelTransferOptions().getBlockSizeLong()).isEqualTo(4L);
+        assertThat(options.getValue().getParallelTransferOptions().getMaxConcurrency()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,185 @@
+package com.sedin.presales.infrastructure.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BlobDiskCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BlobDiskCache cache;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = newCache(100);
+    }
+
+    private BlobDiskCache newCache(long maxSizeBytes) throws IOException {
+        BlobDiskCache blobDiskCache = new BlobDiskCache(meterRegistry);
+        ReflectionTestUtils.setField(blobDiskCache, "enabled", true);
+        ReflectionTestUtils.setField(blobDiskCache, "directory", directory.toString());
+        ReflectionTestUtils.setField(blobDiskCache, "maxSizeBytes", maxSizeBytes);
+        ReflectionTestUtils.setField(blobDiskCache, "containers", List.of("documents"));
+        blobDiskCache.init();
+        return blobDiskCache;
+    }
+
+    private Supplier<InputStream> source(String content, AtomicInteger fetches) {
+        return () -> {
+            fetches.incrementAndGet();
+            return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    private String read(InputStream in) throws IOException {
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("blob.cache.requests").tag("result", result).counter().count();
+    }
+
+    @Test
+    @DisplayName("open should fetch on the first read and serve later reads from disk")
+    void open_shouldServeRepeatReadsFromDisk() throws IOException {
+        AtomicInteger fetches = new AtomicInteger();
+
+        assertThat(read(cache.open("documents", "a.pdf", new BlobInfo("e1", 5), source("hello", fetches)))).isEqualTo("hello");
+        assertThat(read(cache.open("documents", "a.pdf", new BlobInfo("e1", 5), source("hello", fetches)))).isEqualTo("hello");
+
+        assertThat(fetches).hasValue(1);
+        assertThat(requests("miss")).isEqualTo(1);
+        assertThat(requests("hit")).isEqualTo(1);
+        assertThat(cache.currentSizeBytes()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("open should fetch again once the blob's ETag changes")
+    void open_shouldMissWhenEtagChanges() throws IOException {
+        AtomicInteger fetches = new AtomicInteger();
+        read(cache.open("documents", "a.pdf", new BlobInfo("e1", 5), source("hello", fetches)));
+
+        String content = read(cache.open("documents", "a.pdf", new BlobInfo("e2", 5), source("world", fetches)));
+
+        assertThat(content).isEqualTo("world");
+        assertThat(fetches).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("open should evict the least recently used blobs when over the size limit")
+    void open_shouldEvictLeastRecentlyUsed() throws IOException {
+        AtomicInteger fetches = new AtomicInteger();
+        String twenty = "x".repeat(20);
+        read(cache.open("documents", "a", new BlobInfo("e", 20), source(twenty, fetches)));
+        read(cache.open("documents", "b", new BlobInfo("e", 20), source(twenty, fetches)));
+        read(cache.open("documents", "c", new BlobInfo("e", 20), source(twenty, fetches)));
+        read(cache.open("documents", "d", new BlobInfo("e", 20), source(twenty, fetches)));
+        // Touch "a" so that "b" is now the least recently used
+        read(cache.open("documents", "a", new BlobInfo("e", 20), source(twenty, fetches)));
+
+        read(cache.open("documents", "e", new BlobInfo("e", 25), source("y".repeat(25), fetches)));
+
+        assertThat(cache.currentSizeBytes()).isEqualTo(85);
+        assertThat(meterRegistry.get("blob.cache.evictions").counter().count()).isEqualTo(1);
+        fetches.set(0);
+        read(cache.open("documents", "a", new BlobInfo("e", 20), source(twenty, fetches)));
+        assertThat(fetches).hasValue(0);
+        read(cache.open("documents", "b", new BlobInfo("e", 20), source(twenty, fetches)));
+        assertThat(fetches).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("open should stream blobs larger than a quarter of the cache without storing them")
+    void open_shouldBypassLargeBlobs() throws IOException {
+        AtomicInteger fetches = new AtomicInteger();
+        String large = "z".repeat(30);
+
+        read(cache.open("documents", "big", new BlobInfo("e", 30), source(large, fetches)));
+        read(cache.open("documents", "big", new BlobInfo("e", 30), source(large, fetches)));
+
+        assertThat(fetches).hasValue(2);
+        assertThat(requests("bypass")).isEqualTo(2);
+        assertThat(cache.entryCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("open should share one download between concurrent readers of the same blob")
+    void open_shouldCoalesceConcurrentMisses() throws Exception {
+        AtomicInteger fetches = new AtomicInteger();
+        CountDownLatch fetchStarted = new CountDownLatch(1);
+        CountDownLatch releaseFetch = new CountDownLatch(1);
+        Supplier<InputStream> slowSource = () -> {
+            fetches.incrementAndGet();
+            fetchStarted.countDown();
+            try {
+                releaseFetch.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new ByteArrayInputStream("shared".getBytes(StandardCharsets.UTF_8));
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(() -> read(cache.open("documents", "a", new BlobInfo("e", 6), slowSource)));
+            assertThat(fetchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<String> second = executor.submit(() -> read(cache.open("documents", "a", new BlobInfo("e", 6), slowSource)));
+            while (requests("coalesced") == 0) {
+                Thread.onSpinWait();
+            }
+            releaseFetch.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("shared");
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("shared");
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(fetches).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("init should rebuild the index from files left by a previous run and drop partial downloads")
+    void init_shouldReloadExistingEntries() throws IOException {
+        AtomicInteger fetches = new AtomicInteger();
+        read(cache.open("documents", "a", new BlobInfo("e", 10), source("0123456789", fetches)));
+        Files.writeString(directory.resolve("partial.tmp"), "abc");
+
+        meterRegistry = new SimpleMeterRegistry();
+        BlobDiskCache restarted = newCache(100);
+        String content = read(restarted.open("documents", "a", new BlobInfo("e", 10), source("0123456789", fetches)));
+
+        assertThat(content).isEqualTo("0123456789");
+        assertThat(fetches).hasValue(1);
+        assertThat(restarted.currentSizeBytes()).isEqualTo(10);
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files).noneMatch(path -> path.toString().endsWith(".tmp"));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.sedin.presales.infrastructure.storage;
+
+import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.BlobServiceAsyncClient;
+import com.azure.storage.blob.BlobServiceClient;
+import com.azure.storage.blob.BlobServiceClientBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the blocking and non-blocking download paths against a real storage account: 200
+ * concurrent downloads of the same blob, once with a thread per download through
+ * {@link AzureBlobStore} and once through {@link AzureReactiveBlobStore}. Prints wall time and the
+ * peak number of live JVM threads for each. Only runs when {@code BENCHMARK_AZURE_CONNECTION_STRING}
+ * is set; a throwaway container is created and deleted.
+ */
+@EnabledIfEnvironmentVariable(named = "BENCHMARK_AZURE_CONNECTION_STRING", matches = ".+")
+class BlobDownloadBenchmarkTest {
+
+    private static final int CONCURRENT_DOWNLOADS = 200;
+    private static final int BLOB_SIZE = 4 * 1024 * 1024;
+    private static final String BLOB_NAME = "benchmark.bin";
+
+    private static BlobServiceClient blobServiceClient;
+    private static BlobServiceAsyncClient blobServiceAsyncClient;
+    private static String container;
+
+    @BeforeAll
+    static void createBlob() {
+        String connectionString = System.getenv("BENCHMARK_AZURE_CONNECTION_STRING");
+        blobServiceClient = new BlobServiceClientBuilder().connectionString(connectionString).buildClient();
+        blobServiceAsyncClient = new BlobServiceClientBuilder().connectionString(connectionString).buildAsyncClient();
+        container = "benchmark-" + UUID.randomUUID();
+        BlobContainerClient containerClient = blobServiceClient.createBlobContainer(container);
+
+        byte[] content = new byte[BLOB_SIZE];
+        ThreadLocalRandom.current().nextBytes(content);
+        containerClient.getBlobClient(BLOB_NAME).upload(new ByteArrayInputStream(content), content.length, true);
+    }
+
+    @AfterAll
+    static void deleteContainer() {
+        if (blobServiceClient != null && container != null) {
+            blobServiceClient.deleteBlobContainer(container);
+        }
+    }
+
+    @Test
+    void compareBlockingAndNonBlockingDownloads() throws Exception {
+        AzureBlobStore blockingStore = new AzureBlobStore(blobServiceClient, Runnable::run);
+        AzureReactiveBlobStore reactiveStore = new AzureReactiveBlobStore(blobServiceAsyncClient);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        threads.resetPeakThreadCount();
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(CONCURRENT_DOWNLOADS);
+        try {
+            List<Future<Long>> downloads = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_DOWNLOADS; i++) {
+                downloads.add(pool.submit(() -> drain(blockingStore.download(container, BLOB_NAME))));
+            }
+            for (Future<Long> download : downloads) {
+                assertThat(download.get()).isEqualTo(BLOB_SIZE);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        report("blocking", start, threads.getPeakThreadCount());
+
+        threads.resetPeakThreadCount();
+        start = System.nanoTime();
+        List<Long> sizes = Flux.range(0, CONCURRENT_DOWNLOADS)
+                .flatMap(i -> reactiveStore.download(container, BLOB_NAME)
+                        .map(buffer -> (long) buffer.remaining())
+                        .reduce(0L, Long::sum), CONCURRENT_DOWNLOADS)
+                .collectList()
+                .block();
+        report("non-blocking", start, threads.getPeakThreadCount());
+
+        assertThat(sizes).hasSize(CONCURRENT_DOWNLOADS).allMatch(size -> size == BLOB_SIZE);
+    }
+
+    private static long drain(InputStream in) {
+        try (in) {
+            return in.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void report(String path, long startNanos, int peakThreads) {
+        System.out.printf("%-13s %d downloads of %d bytes: %d ms, peak threads %d%n", path,
+                CONCURRENT_DOWNLOADS, BLOB_SIZE, (System.nanoTime() - startNanos) / 1_000_000, peakThreads);
+    }
+}
@@ -1,14 +1,8 @@
 package com.sedin.presales.infrastructure.storage;
 
-import com.azure.storage.blob.BlobClient;
-import com.azure.storage.blob.BlobContainerClient;
-import com.azure.storage.blob.BlobServiceClient;
-import com.azure.storage.blob.models.BlobHttpHeaders;
-import com.azure.storage.blob.sas.BlobServiceSasSignatureValues;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -16,13 +10,14 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -30,112 +25,98 @@ import static org.mockito.Mockito.when;
 class BlobStorageServiceTest {
 
     @Mock
-    private BlobServiceClient blobServiceClient;
+    private BlobStore blobStore;
 
     @Mock
-    private BlobContainerClient containerClient;
+    private BlobDiskCache blobDiskCache;
 
     @Mock
-    private BlobClient blobClient;
+    private SasUrlCache sasUrlCache;
 
     @InjectMocks
     private BlobStorageService blobStorageService;
 
-    private void setupBlobClientChain(String container, String blobName) {
-        when(blobServiceClient.getBlobContainerClient(container)).thenReturn(containerClient);
-        when(containerClient.getBlobClient(blobName)).thenReturn(blobClient);
-    }
-
     @Test
-    @DisplayName("upload should upload blob and return URL")
-    void upload_shouldUploadBlobAndReturnUrl() {
-        String container = "test-container";
-        String blobName = "test-blob.pdf";
+    @DisplayName("upload should pass allowed content types through to the store")
+    void upload_shouldPassAllowedContentType() {
         InputStream data = new ByteArrayInputStream("content".getBytes());
-        long length = 7L;
-        String contentType = "application/pdf";
+        when(blobStore.upload("documents", "a.pdf", data, 7L, "application/pdf")).thenReturn("https://blob.url/a.pdf");
 
-        setupBlobClientChain(container, blobName);
-        when(blobClient.getBlobUrl()).thenReturn("https://storage.blob.core.windows.net/test-container/test-blob.pdf");
+        String result = blobStorageService.upload("documents", "a.pdf", data, 7L, "application/pdf");
 
-        String result = blobStorageService.upload(container, blobName, data, length, contentType);
-
-        assertThat(result).isEqualTo("https://storage.blob.core.windows.net/test-container/test-blob.pdf");
-        verify(blobClient).upload(eq(data), eq(length), eq(true));
-        verify(blobClient).setHttpHeaders(any(BlobHttpHeaders.class));
-        verify(blobClient).getBlobUrl();
+        assertThat(result).isEqualTo("https://blob.url/a.pdf");
     }
 
     @Test
-    @DisplayName("download should return InputStream from blob")
-    void download_shouldReturnInputStream() {
-        String container = "test-container";
-        String blobName = "test-blob.pdf";
-        InputStream mockStream = mock(InputStream.class);
-
-        setupBlobClientChain(container, blobName);
-        when(blobClient.openInputStream()).thenReturn(mock(com.azure.storage.blob.specialized.BlobInputStream.class));
+    @DisplayName("upload should replace untrusted content types with application/octet-stream")
+    void upload_shouldSanitizeUntrustedContentType() {
+        InputStream data = new ByteArrayInputStream("<html>".getBytes());
 
-        InputStream result = blobStorageService.download(container, blobName);
+        blobStorageService.upload("documents", "a.html", data, 6L, "text/html");
 
-        assertThat(result).isNotNull();
-        verify(blobClient).openInputStream();
+        verify(blobStore).upload("documents", "a.html", data, 6L, "application/octet-stream");
     }
 
     @Test
-    @DisplayName("delete should call deleteIfExists on blob client")
-    void delete_shouldCallDeleteIfExists() {
-        String container = "test-container";
-        String blobName = "test-blob.pdf";
+    @DisplayName("commitBlocks should sanitize the content type and delegate to the store")
+    void commitBlocks_shouldSanitizeAndDelegate() {
+        List<String> blockIds = List.of(BlobStorageService.blockId("upload", 0));
 
-        setupBlobClientChain(container, blobName);
+        blobStorageService.commitBlocks("documents", "a.bin", blockIds, null);
 
-        blobStorageService.delete(container, blobName);
-
-        verify(blobClient).deleteIfExists();
+        verify(blobStore).commitBlocks("documents", "a.bin", blockIds, "application/octet-stream");
     }
 
     @Test
-    @DisplayName("generateSasUrl should return URL with SAS token appended")
-    void generateSasUrl_shouldReturnUrlWithSasToken() {
-        String container = "test-container";
-        String blobName = "test-blob.pdf";
-        Duration validity = Duration.ofHours(1);
-
-        setupBlobClientChain(container, blobName);
-        when(blobClient.generateSas(any(BlobServiceSasSignatureValues.class))).thenReturn("token");
-        when(blobClient.getBlobUrl()).thenReturn("https://blob.url");
-
-        String result = blobStorageService.generateSasUrl(container, blobName, validity);
-
-        assertThat(result).isEqualTo("https://blob.url?token");
+    @DisplayName("generateSasUrl should delegate to the store")
+    void generateSasUrl_shouldDelegate() {
+        Instant expiresAt = Instant.parse("2026-01-01T01:15:00Z");
+        when(sasUrlCache.get(eq("renditions"), eq("a.pdf"), eq(Duration.ofHours(1)), any()))
+                .thenAnswer(invocation -> invocation.<Function<Instant, String>>getArgument(3).apply(expiresAt));
+        when(blobStore.generateSasUrl("renditions", "a.pdf", expiresAt)).thenReturn("https://signed");
+
+        assertThat(blobStorageService.generateSasUrl("renditions", "a.pdf", Duration.ofHours(1))).isEqualTo("https://signed");
     }
 
     @Test
-    @DisplayName("exists should return true when blob exists")
-    void exists_shouldReturnTrue() {
-        String container = "test-container";
-        String blobName = "test-blob.pdf";
-
-        setupBlobClientChain(container, blobName);
-        when(blobClient.exists()).thenReturn(true);
+    @DisplayName("upload and delete should invalidate cached signed URLs for the blob")
+    void upload_shouldInvalidateSignedUrls() {
+        InputStream data = new ByteArrayInputStream("content".getBytes());
 
-        boolean result = blobStorageService.exists(container, blobName);
+        blobStorageService.upload("renditions", "a.pdf", data, 7L, "application/pdf");
+        blobStorageService.delete("renditions", "b.pdf");
 
-        assertThat(result).isTrue();
+        verify(sasUrlCache).invalidate("renditions", "a.pdf");
+        verify(sasUrlCache).invalidate("renditions", "b.pdf");
     }
 
     @Test
-    @DisplayName("exists should return false when blob does not exist")
-    void exists_shouldReturnFalse() {
-        String container = "test-container";
-        String blobName = "nonexistent-blob.pdf";
+    @DisplayName("download should read through the disk cache for cached containers")
+    void download_shouldUseCacheForCachedContainers() {
+        BlobInfo info = new BlobInfo("\"etag\"", 7L);
+        InputStream cached = new ByteArrayInputStream("content".getBytes());
+        when(blobDiskCache.handles("documents")).thenReturn(true);
+        when(blobStore.getInfo("documents", "a.pdf")).thenReturn(info);
+        when(blobDiskCache.open(eq("documents"), eq("a.pdf"), eq(info), any())).thenReturn(cached);
+
+        assertThat(blobStorageService.download("documents", "a.pdf")).isSameAs(cached);
+        verify(blobStore, never()).download("documents", "a.pdf");
+    }
 
-        setupBlobClientChain(container, blobName);
-        when(blobClient.exists()).thenReturn(false);
+    @Test
+    @DisplayName("download should go straight to the store for containers that are not cached")
+    void download_shouldBypassCacheForOtherContainers() {
+        InputStream data = new ByteArrayInputStream("content".getBytes());
+        when(blobDiskCache.handles("renditions")).thenReturn(false);
+        when(blobStore.download("renditions", "a.pdf")).thenReturn(data);
 
-        boolean result = blobStorageService.exists(container, blobName);
+        assertThat(blobStorageService.download("renditions", "a.pdf")).isSameAs(data);
+        verify(blobStore, never()).getInfo("renditions", "a.pdf");
+    }
 
-        assertThat(result).isFalse();
+    @Test
+    @DisplayName("blockId should produce equal-length IDs for every index")
+    void blockId_shouldHaveFixedLength() {
+        assertThat(BlobStorageService.blockId("upload", 0)).hasSameSizeAs(BlobStorageService.blockId("upload", 49_999));
     }
 }
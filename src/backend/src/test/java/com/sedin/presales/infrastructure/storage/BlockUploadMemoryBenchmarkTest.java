@@ -0,0 +1,77 @@
+package com.sedin.presales.infrastructure.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Streams a large rendition through {@link BlockUploadOutputStream} into a
+ * {@link FileSystemBlobStore} in the 64 KiB writes a converter makes, measuring heap still in use
+ * after a full GC every few blocks. Retained heap must stay within a few blocks of where it started
+ * however large the blob grows, where buffering the whole PDF would hold all of it. Prints the
+ * payload and the peak retained growth. Only runs when {@code BENCHMARK_MEMORY} is set.
+ */
+@EnabledIfEnvironmentVariable(named = "BENCHMARK_MEMORY", matches = ".+")
+class BlockUploadMemoryBenchmarkTest {
+
+    private static final long BLOB_SIZE = 512L * 1024 * 1024;
+    private static final int BLOCK_SIZE = 8 * 1024 * 1024;
+    private static final int WRITE_SIZE = 64 * 1024;
+    private static final long SAMPLE_EVERY = 4L * BLOCK_SIZE;
+
+    @TempDir
+    Path root;
+
+    @Test
+    void retainedHeapIsBoundedByBlockSize() throws IOException {
+        FileSystemBlobStore store = new FileSystemBlobStore();
+        ReflectionTestUtils.setField(store, "rootDirectory", root.toString());
+        ReflectionTestUtils.setField(store, "baseUrl", "http://localhost:8080");
+        ReflectionTestUtils.setField(store, "signingKey", "benchmark");
+        ReflectionTestUtils.setField(store, "mmapThreshold", Long.MAX_VALUE);
+        ReflectionTestUtils.setField(store, "mmapWindowBytes", 4096);
+        store.init();
+        BlobStorageService blobStorageService = new BlobStorageService(store, mock(BlobDiskCache.class),
+                mock(SasUrlCache.class));
+        ReflectionTestUtils.setField(blobStorageService, "blockSize", BLOCK_SIZE);
+
+        byte[] chunk = new byte[WRITE_SIZE];
+        ThreadLocalRandom.current().nextBytes(chunk);
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        long baseline = retainedHeap(memory);
+        long peakGrowth = 0;
+        long start = System.nanoTime();
+        try (BlockUploadOutputStream out = blobStorageService.openBlockUpload("renditions", "big.pdf", "application/pdf")) {
+            for (long written = 0; written < BLOB_SIZE; written += WRITE_SIZE) {
+                out.write(chunk, 0, WRITE_SIZE);
+                if ((written + WRITE_SIZE) % SAMPLE_EVERY == 0) {
+                    peakGrowth = Math.max(peakGrowth, retainedHeap(memory) - baseline);
+                }
+            }
+            out.commit();
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("streamed %d MiB in %d ms with %d MiB blocks: peak retained heap growth %d MiB%n",
+                BLOB_SIZE >> 20, elapsedMs, BLOCK_SIZE >> 20, peakGrowth >> 20);
+        assertThat(Files.size(store.path("renditions", "big.pdf"))).isEqualTo(BLOB_SIZE);
+        assertThat(peakGrowth).isLessThan(4L * BLOCK_SIZE);
+    }
+
+    private static long retainedHeap(MemoryMXBean memory) {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
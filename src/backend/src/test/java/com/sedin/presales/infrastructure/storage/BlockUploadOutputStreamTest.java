@@ -0,0 +1,100 @@
+package com.sedin.presales.infrastructure.storage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BlockUploadOutputStreamTest {
+
+    @Mock
+    private BlobStorageService blobStorageService;
+
+    private List<String> recordStagedBlocks() {
+        List<String> staged = new ArrayList<>();
+        doAnswer(invocation -> {
+            try (InputStream data = invocation.getArgument(3)) {
+                staged.add(new String(data.readAllBytes()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        }).when(blobStorageService).stageBlock(eq("renditions"), eq("a.pdf"), anyString(), any(InputStream.class), anyLong());
+        return staged;
+    }
+
+    @Test
+    @DisplayName("write should stage a block each time the buffer fills and commit should stage the remainder")
+    void write_shouldStageFullBlocksAndCommitRemainder() {
+        List<String> staged = recordStagedBlocks();
+        when(blobStorageService.commitBlocks(eq("renditions"), eq("a.pdf"), anyList(), eq("application/pdf")))
+                .thenReturn("https://blob.url/a.pdf");
+
+        BlockUploadOutputStream out = new BlockUploadOutputStream(blobStorageService, "renditions", "a.pdf",
+                "application/pdf", 4);
+        out.write("abcdef".getBytes(), 0, 6);
+        out.write('g');
+        out.write('h');
+        out.write("ij".getBytes(), 0, 2);
+
+        assertThat(staged).containsExactly("abcd", "efgh");
+
+        String url = out.commit();
+        out.close();
+
+        assertThat(url).isEqualTo("https://blob.url/a.pdf");
+        assertThat(staged).containsExactly("abcd", "efgh", "ij");
+        assertThat(out.size()).isEqualTo(10);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<String>> blockIds = ArgumentCaptor.forClass(List.class);
+        verify(blobStorageService).commitBlocks(eq("renditions"), eq("a.pdf"), blockIds.capture(), eq("application/pdf"));
+        assertThat(blockIds.getValue()).hasSize(3).doesNotHaveDuplicates();
+        verify(blobStorageService, never()).discardStagedBlocks(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("close without commit should discard the blocks already staged")
+    void close_shouldDiscardStagedBlocksWhenNotCommitted() {
+        List<String> staged = recordStagedBlocks();
+
+        try (BlockUploadOutputStream out = new BlockUploadOutputStream(blobStorageService, "renditions", "a.pdf",
+                "application/pdf", 4)) {
+            out.write("abcdef".getBytes(), 0, 6);
+        }
+
+        assertThat(staged).containsExactly("abcd");
+        verify(blobStorageService).discardStagedBlocks("renditions", "a.pdf");
+        verify(blobStorageService, never()).commitBlocks(anyString(), anyString(), anyList(), anyString());
+    }
+
+    @Test
+    @DisplayName("write should fail once the upload has been committed")
+    void write_shouldFailAfterCommit() {
+        BlockUploadOutputStream out = new BlockUploadOutputStream(blobStorageService, "renditions", "a.pdf",
+                "application/pdf", 4);
+        out.commit();
+
+        assertThatThrownBy(() -> out.write('x')).isInstanceOf(IllegalStateException.class);
+    }
+}
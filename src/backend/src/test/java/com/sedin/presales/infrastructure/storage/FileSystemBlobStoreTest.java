@@ -0,0 +1,201 @@
+package com.sedin.presales.infrastructure.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileSystemBlobStoreTest {
+
+    @TempDir
+    Path root;
+
+    private FileSystemBlobStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = new FileSystemBlobStore();
+        ReflectionTestUtils.setField(store, "rootDirectory", root.toString());
+        ReflectionTestUtils.setField(store, "baseUrl", "http://localhost:8080");
+        ReflectionTestUtils.setField(store, "signingKey", "test-signing-key");
+        ReflectionTestUtils.setField(store, "mmapThreshold", 1024L);
+        ReflectionTestUtils.setField(store, "mmapWindowBytes", 4096);
+        store.init();
+    }
+
+    private InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String read(InputStream in) throws IOException {
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    @DisplayName("upload should write the blob atomically and keep its content type")
+    void upload_shouldRoundTripContentAndType() throws IOException {
+        store.upload("documents", "docs/1/deck.pdf", stream("hello"), 5, "application/pdf");
+
+        assertThat(store.exists("documents", "docs/1/deck.pdf")).isTrue();
+        assertThat(read(store.download("documents", "docs/1/deck.pdf"))).isEqualTo("hello");
+        assertThat(store.contentType("documents", "docs/1/deck.pdf")).isEqualTo("application/pdf");
+        try (Stream<Path> files = Files.list(root.resolve("documents/docs/1"))) {
+            assertThat(files).extracting(p -> p.getFileName().toString()).containsExactly("deck.pdf");
+        }
+    }
+
+    @Test
+    @DisplayName("download should memory-map large blobs across multiple windows")
+    void download_shouldReadLargeBlobsThroughMappedWindows() throws IOException {
+        byte[] content = new byte[10_000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i % 251);
+        }
+        store.upload("documents", "large.bin", new ByteArrayInputStream(content), content.length, null);
+
+        try (InputStream in = store.download("documents", "large.bin")) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+    }
+
+    @Test
+    @DisplayName("downloadRange should return only the requested bytes for small and mapped ranges")
+    void downloadRange_shouldReturnRequestedBytes() throws IOException {
+        byte[] content = new byte[10_000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i % 251);
+        }
+        store.upload("documents", "large.bin", new ByteArrayInputStream(content), content.length, null);
+
+        try (InputStream small = store.downloadRange("documents", "large.bin", 5000, 10);
+             InputStream mapped = store.downloadRange("documents", "large.bin", 1500, 8000)) {
+            assertThat(small.readAllBytes()).isEqualTo(Arrays.copyOfRange(content, 5000, 5010));
+            assertThat(mapped.readAllBytes()).isEqualTo(Arrays.copyOfRange(content, 1500, 9500));
+        }
+    }
+
+    @Test
+    @DisplayName("commitBlocks should concatenate staged blocks in list order and clear the staging area")
+    void commitBlocks_shouldConcatenateInOrder() throws IOException {
+        String first = BlobStorageService.blockId("upload", 0);
+        String second = BlobStorageService.blockId("upload", 1);
+        store.stageBlock("documents", "uploads/x/file.txt", second, stream("world"), 5);
+        store.stageBlock("documents", "uploads/x/file.txt", first, stream("hello "), 6);
+
+        store.commitBlocks("documents", "uploads/x/file.txt", List.of(first, second), "text/plain");
+
+        assertThat(read(store.download("documents", "uploads/x/file.txt"))).isEqualTo("hello world");
+        try (Stream<Path> staged = Files.list(root.resolve(".staging"))) {
+            assertThat(staged).isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("stageBlock should reject a block whose length does not match")
+    void stageBlock_shouldRejectLengthMismatch() {
+        assertThatThrownBy(() -> store.stageBlock("documents", "a.bin", BlobStorageService.blockId("u", 0), stream("abc"), 4))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("commitBlocks should fail when a listed block was never staged")
+    void commitBlocks_shouldFailForMissingBlock() {
+        assertThatThrownBy(() -> store.commitBlocks("documents", "a.bin", List.of(BlobStorageService.blockId("u", 0)), null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(store.exists("documents", "a.bin")).isFalse();
+    }
+
+    @Test
+    @DisplayName("generateSasUrl should produce a signature that verifies only for the same blob")
+    void generateSasUrl_shouldSignBlobAndExpiry() {
+        String url = store.generateSasUrl("renditions", "docs/1/my deck.pdf", Duration.ofMinutes(5));
+
+        URI uri = URI.create(url);
+        assertThat(uri.getPath()).isEqualTo("/api/v1/local-blobs/renditions/docs/1/my deck.pdf");
+        String[] params = uri.getQuery().split("&");
+        long expires = Long.parseLong(params[0].substring("expires=".length()));
+        String signature = params[1].substring("sig=".length());
+
+        assertThat(store.isValidSignature("renditions", "docs/1/my deck.pdf", expires, signature)).isTrue();
+        assertThat(store.isValidSignature("renditions", "docs/1/other.pdf", expires, signature)).isFalse();
+        assertThat(store.isValidSignature("renditions", "docs/1/my deck.pdf", expires + 60, signature)).isFalse();
+    }
+
+    @Test
+    @DisplayName("isValidSignature should reject expired links")
+    void isValidSignature_shouldRejectExpiredLinks() {
+        String url = store.generateSasUrl("renditions", "a.pdf", Duration.ofSeconds(-10));
+        String query = URI.create(url).getQuery();
+        long expires = Long.parseLong(query.split("&")[0].substring("expires=".length()));
+        String signature = query.split("&")[1].substring("sig=".length());
+
+        assertThat(store.isValidSignature("renditions", "a.pdf", expires, signature)).isFalse();
+    }
+
+    @Test
+    @DisplayName("blob names that escape the container directory should be rejected")
+    void resolve_shouldRejectPathTraversal() {
+        assertThatThrownBy(() -> store.upload("documents", "../../etc/passwd", stream("x"), 1, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> store.exists(".staging", "a.bin"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("transferTo should copy the whole blob to the target channel")
+    void transferTo_shouldCopyWholeBlob() throws IOException {
+        store.upload("documents", "a.txt", stream("zero-copy"), 9, "text/plain");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long transferred = store.transferTo("documents", "a.txt", Channels.newChannel(out));
+
+        assertThat(transferred).isEqualTo(9);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("zero-copy");
+    }
+
+    @Test
+    @DisplayName("discardStagedBlocks should remove staged blocks")
+    void discardStagedBlocks_shouldRemoveStagedBlocks() throws IOException {
+        store.stageBlock("documents", "uploads/y/file.txt", BlobStorageService.blockId("u", 0), stream("abc"), 3);
+
+        store.discardStagedBlocks("documents", "uploads/y/file.txt");
+
+        try (Stream<Path> staged = Files.list(root.resolve(".staging"))) {
+            assertThat(staged).isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("getInfo should report the size and a new ETag after the blob is overwritten")
+    void getInfo_shouldChangeEtagOnOverwrite() {
+        store.upload("documents", "a.txt", stream("first"), 5, "text/plain");
+        BlobInfo first = store.getInfo("documents", "a.txt");
+
+        store.upload("documents", "a.txt", stream("second"), 6, "text/plain");
+        BlobInfo second = store.getInfo("documents", "a.txt");
+
+        assertThat(first.size()).isEqualTo(5);
+        assertThat(second.size()).isEqualTo(6);
+        assertThat(second.eTag()).isNotEqualTo(first.eTag());
+    }
+}
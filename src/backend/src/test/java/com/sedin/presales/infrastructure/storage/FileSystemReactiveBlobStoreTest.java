@@ -0,0 +1,95 @@
+package com.sedin.presales.infrastructure.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileSystemReactiveBlobStoreTest {
+
+    @TempDir
+    Path root;
+
+    private FileSystemBlobStore fileSystemBlobStore;
+    private FileSystemReactiveBlobStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fileSystemBlobStore = new FileSystemBlobStore();
+        ReflectionTestUtils.setField(fileSystemBlobStore, "rootDirectory", root.toString());
+        ReflectionTestUtils.setField(fileSystemBlobStore, "baseUrl", "http://localhost:8080");
+        ReflectionTestUtils.setField(fileSystemBlobStore, "signingKey", "test-signing-key");
+        ReflectionTestUtils.setField(fileSystemBlobStore, "mmapThreshold", 1024L);
+        ReflectionTestUtils.setField(fileSystemBlobStore, "mmapWindowBytes", 4096);
+        fileSystemBlobStore.init();
+        store = new FileSystemReactiveBlobStore(fileSystemBlobStore);
+    }
+
+    private InputStream stream(byte[] content) {
+        return new ByteArrayInputStream(content);
+    }
+
+    private byte[] collect(Flux<ByteBuffer> chunks) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<ByteBuffer> buffers = chunks.collectList().block();
+        for (ByteBuffer buffer : buffers) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            out.writeBytes(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    @DisplayName("download should stream the whole blob in bounded chunks")
+    void download_shouldStreamInChunks() {
+        byte[] content = new byte[FileSystemReactiveBlobStore.CHUNK_SIZE * 2 + 10];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        fileSystemBlobStore.upload("documents", "docs/big.bin", stream(content), content.length, "application/octet-stream");
+
+        Flux<ByteBuffer> chunks = store.download("documents", "docs/big.bin");
+
+        assertThat(chunks.count().block()).isEqualTo(3);
+        assertThat(collect(store.download("documents", "docs/big.bin"))).isEqualTo(content);
+    }
+
+    @Test
+    @DisplayName("downloadRange should stream only the requested bytes")
+    void downloadRange_shouldStreamRequestedBytes() {
+        byte[] content = "0123456789".getBytes(StandardCharsets.UTF_8);
+        fileSystemBlobStore.upload("documents", "docs/a.txt", stream(content), content.length, "text/plain");
+
+        byte[] range = collect(store.downloadRange("documents", "docs/a.txt", 2, 5));
+
+        assertThat(new String(range, StandardCharsets.UTF_8)).isEqualTo("23456");
+    }
+
+    @Test
+    @DisplayName("upload should write the streamed chunks as one blob")
+    void upload_shouldWriteStreamedChunks() throws IOException {
+        Flux<ByteBuffer> data = Flux.just("hello ", "reactive ", "world")
+                .map(part -> ByteBuffer.wrap(part.getBytes(StandardCharsets.UTF_8)));
+
+        String url = store.upload("documents", "docs/b.txt", data, "text/plain").block();
+
+        assertThat(url).contains("docs/b.txt");
+        try (InputStream in = fileSystemBlobStore.download("documents", "docs/b.txt")) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("hello reactive world");
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.sedin.presales.infrastructure.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveBlobStorageServiceTest {
+
+    @Mock
+    private ReactiveBlobStore reactiveBlobStore;
+
+    @Mock
+    private SasUrlCache sasUrlCache;
+
+    private ReactiveBlobStorageService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ReactiveBlobStorageService(reactiveBlobStore, sasUrlCache);
+    }
+
+    @Test
+    @DisplayName("download should delegate to the reactive store")
+    void download_shouldDelegate() {
+        Flux<ByteBuffer> chunks = Flux.just(ByteBuffer.wrap(new byte[]{1, 2, 3}));
+        when(reactiveBlobStore.download("documents", "a.pdf")).thenReturn(chunks);
+
+        assertThat(service.download("documents", "a.pdf")).isSameAs(chunks);
+    }
+
+    @Test
+    @DisplayName("upload should sanitize the content type and invalidate signed URLs once stored")
+    void upload_shouldSanitizeAndInvalidate() {
+        Flux<ByteBuffer> data = Flux.just(ByteBuffer.wrap(new byte[]{1}));
+        when(reactiveBlobStore.upload(eq("documents"), eq("a.pdf"), eq(data), anyString()))
+                .thenReturn(Mono.just("http://blob/documents/a.pdf"));
+
+        Mono<String> upload = service.upload("documents", "a.pdf", data, "text/html");
+
+        verify(sasUrlCache, never()).invalidate(anyString(), anyString());
+        assertThat(upload.block()).isEqualTo("http://blob/documents/a.pdf");
+        verify(reactiveBlobStore).upload("documents", "a.pdf", data, "application/octet-stream");
+        verify(sasUrlCache).invalidate("documents", "a.pdf");
+    }
+
+    @Test
+    @DisplayName("upload should keep existing signed URLs when the upload fails")
+    void upload_shouldNotInvalidateOnFailure() {
+        when(reactiveBlobStore.upload(anyString(), anyString(), any(), anyString()))
+                .thenReturn(Mono.error(new IllegalStateException("network")));
+
+        assertThatThrownBy(() -> service.upload("documents", "a.pdf", Flux.empty(), "application/pdf").block())
+                .isInstanceOf(IllegalStateException.class);
+        verify(sasUrlCache, never()).invalidate(anyString(), anyString());
+    }
+}
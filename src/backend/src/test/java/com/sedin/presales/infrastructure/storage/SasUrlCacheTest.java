@@ -0,0 +1,92 @@
+package com.sedin.presales.infrastructure.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SasUrlCacheTest {
+
+    private static final Duration VALIDITY = Duration.ofHours(1);
+
+    private SimpleMeterRegistry meterRegistry;
+    private SasUrlCache cache;
+    private final List<Instant> signedExpiries = new ArrayList<>();
+    private final Function<Instant, String> signer = expiresAt -> {
+        signedExpiries.add(expiresAt);
+        return "https://blob/a.pdf?se=" + expiresAt.getEpochSecond();
+    };
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new SasUrlCache(meterRegistry);
+        ReflectionTestUtils.setField(cache, "expiryBucket", Duration.ofMinutes(15));
+        ReflectionTestUtils.setField(cache, "refreshMargin", Duration.ofMinutes(15));
+        ReflectionTestUtils.setField(cache, "maxEntries", 100);
+        setTime("2026-01-01T00:03:00Z");
+    }
+
+    private void setTime(String instant) {
+        ReflectionTestUtils.setField(cache, "clock", Clock.fixed(Instant.parse(instant), ZoneOffset.UTC));
+    }
+
+    @Test
+    @DisplayName("get should sign once and round the expiry up to the bucket boundary")
+    void get_shouldReuseUrlWithAlignedExpiry() {
+        String first = cache.get("renditions", "a.pdf", VALIDITY, signer);
+        setTime("2026-01-01T00:40:00Z");
+        String second = cache.get("renditions", "a.pdf", VALIDITY, signer);
+
+        assertThat(second).isEqualTo(first);
+        assertThat(signedExpiries).containsExactly(Instant.parse("2026-01-01T01:15:00Z"));
+        assertThat(meterRegistry.get("blob.sas.requests").tag("result", "hit").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("get should sign a new URL once the cached one is within the refresh margin of expiry")
+    void get_shouldRefreshNearExpiry() {
+        cache.get("renditions", "a.pdf", VALIDITY, signer);
+        setTime("2026-01-01T01:00:00Z");
+
+        cache.get("renditions", "a.pdf", VALIDITY, signer);
+
+        assertThat(signedExpiries).containsExactly(
+                Instant.parse("2026-01-01T01:15:00Z"), Instant.parse("2026-01-01T02:00:00Z"));
+    }
+
+    @Test
+    @DisplayName("get should give callers in the same bucket identical expiries without sharing the cache entry")
+    void get_shouldAlignExpiryAcrossBlobs() {
+        cache.get("renditions", "a.pdf", VALIDITY, signer);
+        setTime("2026-01-01T00:14:59Z");
+        cache.get("renditions", "b.pdf", VALIDITY, signer);
+
+        assertThat(signedExpiries).containsExactly(
+                Instant.parse("2026-01-01T01:15:00Z"), Instant.parse("2026-01-01T01:15:00Z"));
+    }
+
+    @Test
+    @DisplayName("invalidate should force a new URL that differs from the one handed out before the overwrite")
+    void invalidate_shouldMoveToNextBucket() {
+        String before = cache.get("renditions", "a.pdf", VALIDITY, signer);
+
+        cache.invalidate("renditions", "a.pdf");
+        String after = cache.get("renditions", "a.pdf", VALIDITY, signer);
+
+        assertThat(after).isNotEqualTo(before);
+        assertThat(signedExpiries).containsExactly(
+                Instant.parse("2026-01-01T01:15:00Z"), Instant.parse("2026-01-01T01:30:00Z"));
+    }
+}